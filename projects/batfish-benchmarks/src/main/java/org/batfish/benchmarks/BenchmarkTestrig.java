@@ -0,0 +1,150 @@
+package org.batfish.benchmarks;
+
+import com.google.common.cache.CacheBuilder;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedMap;
+import org.batfish.common.BatfishLogger;
+import org.batfish.common.BfConsts;
+import org.batfish.common.util.CommonUtil;
+import org.batfish.config.Settings;
+import org.batfish.main.Batfish;
+
+/**
+ * A testrig copied into a fresh temporary container, from which benchmarks create {@link Batfish}
+ * instances. The testrig is either one of the bundled {@code test_rigs} or a set of generated
+ * configurations.
+ */
+public class BenchmarkTestrig implements AutoCloseable {
+
+  /** Log level of the benchmarked Batfish instances, so that logging does not dominate timings */
+  private static final String LOG_LEVEL = "warn";
+
+  /**
+   * System property naming the directory that holds the bundled test rigs. Defaults to {@code
+   * test_rigs}, relative to the working directory.
+   */
+  public static final String PROP_TESTRIGS_DIR = "batfish.testrigs";
+
+  /** Prefix of testrig names denoting a fat tree, followed by its arity */
+  public static final String SYNTHETIC_FAT_TREE = "fattree-";
+
+  /** Prefix of testrig names denoting a WAN, followed by its number of routers */
+  public static final String SYNTHETIC_WAN = "wan-";
+
+  private static final String TESTRIG_NAME = "benchmark";
+
+  /**
+   * Creates the testrig called {@code name}, which is either {@link #SYNTHETIC_FAT_TREE} or {@link
+   * #SYNTHETIC_WAN} followed by the size of the network to generate, or the name of a bundled test
+   * rig.
+   */
+  public static BenchmarkTestrig forName(String name) {
+    if (name.startsWith(SYNTHETIC_FAT_TREE)) {
+      int k = Integer.parseInt(name.substring(SYNTHETIC_FAT_TREE.length()));
+      return fromConfigurations(TopologyGenerator.fatTree(k));
+    } else if (name.startsWith(SYNTHETIC_WAN)) {
+      int size = Integer.parseInt(name.substring(SYNTHETIC_WAN.length()));
+      return fromConfigurations(TopologyGenerator.wan(size));
+    } else {
+      return fromTestrigsDir(name);
+    }
+  }
+
+  /** Creates a testrig holding {@code configurations}, keyed by file name. */
+  public static BenchmarkTestrig fromConfigurations(SortedMap<String, String> configurations) {
+    BenchmarkTestrig testrig = new BenchmarkTestrig();
+    Path configsDir = testrig.getTestrigPath().resolve(BfConsts.RELPATH_CONFIGURATIONS_DIR);
+    configsDir.toFile().mkdirs();
+    configurations.forEach((name, text) -> CommonUtil.writeFile(configsDir.resolve(name), text));
+    return testrig;
+  }
+
+  /** Creates a testrig holding a copy of the bundled test rig called {@code name}. */
+  public static BenchmarkTestrig fromTestrigsDir(String name) {
+    BenchmarkTestrig testrig = new BenchmarkTestrig();
+    CommonUtil.copyDirectory(getTestrigsDir().resolve(name), testrig.getTestrigPath());
+    return testrig;
+  }
+
+  public static Path getTestrigsDir() {
+    return Paths.get(System.getProperty(PROP_TESTRIGS_DIR, "test_rigs"));
+  }
+
+  /** Returns settings with the given command line arguments and a quiet logger. */
+  public static Settings newSettings(String... args) {
+    List<String> allArgs = new ArrayList<>();
+    allArgs.add("-" + BfConsts.ARG_LOG_LEVEL);
+    allArgs.add(LOG_LEVEL);
+    allArgs.addAll(Arrays.asList(args));
+    Settings settings = new Settings(allArgs.toArray(new String[0]));
+    settings.setLogger(new BatfishLogger(LOG_LEVEL, false));
+    return settings;
+  }
+
+  private final Path _containerDir;
+
+  private final Path _testrigPath;
+
+  private BenchmarkTestrig() {
+    _containerDir = CommonUtil.createTempDirectory("batfish-benchmark");
+    Settings settings = newContainerSettings();
+    _testrigPath = settings.getBaseTestrigSettings().getTestRigPath();
+    _testrigPath.toFile().mkdirs();
+    settings.getBaseTestrigSettings().getEnvironmentSettings().getEnvPath().toFile().mkdirs();
+  }
+
+  @Override
+  public void close() {
+    CommonUtil.deleteDirectory(_containerDir);
+  }
+
+  public Path getTestrigPath() {
+    return _testrigPath;
+  }
+
+  /**
+   * Returns a new {@link Batfish} for this testrig, run with the given additional command line
+   * arguments. Each instance has its own caches, so nothing computed by one instance is reused by
+   * another.
+   */
+  public Batfish newBatfish(String... args) {
+    Settings settings = newContainerSettings(args);
+    return new Batfish(
+        settings,
+        CacheBuilder.newBuilder().maximumSize(2).build(),
+        CacheBuilder.newBuilder().maximumSize(2).build(),
+        CacheBuilder.newBuilder().maximumSize(2).build(),
+        CacheBuilder.newBuilder().maximumSize(2).build(),
+        CacheBuilder.newBuilder().maximumSize(2).build());
+  }
+
+  /**
+   * Returns a new {@link Batfish} for this testrig whose vendor-specific and vendor-independent
+   * configurations have been serialized, so that {@link Batfish#loadConfigurations()} succeeds.
+   */
+  public Batfish newParsedBatfish() {
+    newBatfish(
+            "-" + BfConsts.COMMAND_PARSE_VENDOR_SPECIFIC,
+            "-" + BfConsts.COMMAND_PARSE_VENDOR_INDEPENDENT)
+        .run();
+    return newBatfish();
+  }
+
+  private Settings newContainerSettings(String... args) {
+    List<String> allArgs = new ArrayList<>();
+    allArgs.add("-" + BfConsts.ARG_CONTAINER_DIR);
+    allArgs.add(_containerDir.toString());
+    allArgs.add("-" + BfConsts.ARG_TESTRIG);
+    allArgs.add(TESTRIG_NAME);
+    allArgs.add("-" + BfConsts.ARG_ENVIRONMENT_NAME);
+    allArgs.add(BfConsts.RELPATH_DEFAULT_ENVIRONMENT_NAME);
+    allArgs.addAll(Arrays.asList(args));
+    Settings settings = newSettings(allArgs.toArray(new String[0]));
+    Batfish.initTestrigSettings(settings);
+    return settings;
+  }
+}
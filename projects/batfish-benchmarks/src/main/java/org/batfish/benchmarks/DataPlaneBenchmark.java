@@ -0,0 +1,58 @@
+package org.batfish.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.batfish.bdp.BdpDataPlanePlugin;
+import org.batfish.datamodel.answers.Answer;
+import org.batfish.main.Batfish;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for computing the full data plane of a testrig with {@link
+ * BdpDataPlanePlugin#computeDataPlane(boolean)}, including writing it to disk. The configurations
+ * are parsed and loaded once before measuring, so only data plane generation is timed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+public class DataPlaneBenchmark {
+
+  private Batfish _batfish;
+
+  private BenchmarkTestrig _testrig;
+
+  @Param({"example", "fattree-8", "wan-50"})
+  public String _testrigName;
+
+  @Benchmark
+  public Answer computeDataPlane() {
+    BdpDataPlanePlugin dataPlanePlugin = new BdpDataPlanePlugin();
+    dataPlanePlugin.initialize(_batfish);
+    return dataPlanePlugin.computeDataPlane(false);
+  }
+
+  @Setup
+  public void setup() {
+    _testrig = BenchmarkTestrig.forName(_testrigName);
+    _batfish = _testrig.newParsedBatfish();
+    _batfish.loadConfigurations();
+  }
+
+  @TearDown
+  public void tearDown() {
+    _testrig.close();
+  }
+}
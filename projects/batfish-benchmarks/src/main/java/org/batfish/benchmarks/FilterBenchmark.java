@@ -0,0 +1,116 @@
+package org.batfish.benchmarks;
+
+import com.google.common.collect.ImmutableSortedSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.batfish.datamodel.Flow;
+import org.batfish.datamodel.IpAccessList;
+import org.batfish.datamodel.IpAccessListLine;
+import org.batfish.datamodel.IpProtocol;
+import org.batfish.datamodel.IpWildcard;
+import org.batfish.datamodel.LineAction;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.RouteFilterLine;
+import org.batfish.datamodel.RouteFilterList;
+import org.batfish.datamodel.SubRange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for matching flows against an {@link IpAccessList} and networks against a {@link
+ * RouteFilterList}. Both filters consist of random deny lines followed by a final permit line, so
+ * most queries are compared against every line.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+public class FilterBenchmark {
+
+  private static final int NUM_QUERIES = 1000;
+
+  private IpAccessList _acl;
+
+  private Flow[] _flows;
+
+  @Param({"10", "1000"})
+  public int _numLines;
+
+  private Prefix[] _prefixes;
+
+  private RouteFilterList _routeFilterList;
+
+  @Benchmark
+  @OperationsPerInvocation(NUM_QUERIES)
+  public void filterFlows(Blackhole blackhole) {
+    for (Flow flow : _flows) {
+      blackhole.consume(_acl.filter(flow));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NUM_QUERIES)
+  public void permitsPrefixes(Blackhole blackhole) {
+    for (Prefix prefix : _prefixes) {
+      blackhole.consume(_routeFilterList.permits(prefix));
+    }
+  }
+
+  @Setup
+  public void setup() {
+    Random random = new Random(RandomNetworks.SEED);
+    List<IpAccessListLine> aclLines = new ArrayList<>();
+    _routeFilterList = new RouteFilterList("benchmark");
+    for (int i = 0; i < _numLines; i++) {
+      IpAccessListLine aclLine = new IpAccessListLine();
+      aclLine.setAction(LineAction.REJECT);
+      aclLine.setIpProtocols(ImmutableSortedSet.of(IpProtocol.TCP));
+      aclLine.setDstIps(
+          ImmutableSortedSet.of(new IpWildcard(RandomNetworks.randomPrefix(random, 16, 32))));
+      int port = random.nextInt(65536);
+      aclLine.setDstPorts(ImmutableSortedSet.of(new SubRange(port, Math.min(65535, port + 100))));
+      aclLines.add(aclLine);
+
+      Prefix prefix = RandomNetworks.randomPrefix(random, 8, 24);
+      SubRange lengthRange = new SubRange(prefix.getPrefixLength(), Prefix.MAX_PREFIX_LENGTH);
+      _routeFilterList.addLine(new RouteFilterLine(LineAction.REJECT, prefix, lengthRange));
+    }
+    IpAccessListLine permitAll = new IpAccessListLine();
+    permitAll.setAction(LineAction.ACCEPT);
+    aclLines.add(permitAll);
+    _acl = new IpAccessList("benchmark", aclLines);
+    _routeFilterList.addLine(
+        new RouteFilterLine(
+            LineAction.ACCEPT, Prefix.ZERO, new SubRange(0, Prefix.MAX_PREFIX_LENGTH)));
+
+    _flows = new Flow[NUM_QUERIES];
+    _prefixes = new Prefix[NUM_QUERIES];
+    for (int i = 0; i < NUM_QUERIES; i++) {
+      Flow.Builder builder = new Flow.Builder();
+      builder.setIngressNode("benchmark");
+      builder.setTag("benchmark");
+      builder.setIpProtocol(IpProtocol.TCP);
+      builder.setSrcIp(RandomNetworks.randomIp(random));
+      builder.setDstIp(RandomNetworks.randomIp(random));
+      builder.setSrcPort(random.nextInt(65536));
+      builder.setDstPort(random.nextInt(65536));
+      _flows[i] = builder.build();
+      _prefixes[i] = RandomNetworks.randomPrefix(random, 8, 32);
+    }
+  }
+}
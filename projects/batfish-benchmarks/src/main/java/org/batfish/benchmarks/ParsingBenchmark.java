@@ -0,0 +1,107 @@
+package org.batfish.benchmarks;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.batfish.common.BfConsts;
+import org.batfish.common.util.CommonUtil;
+import org.batfish.config.Settings;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.grammar.cisco.CiscoCombinedParser;
+import org.batfish.grammar.flatjuniper.FlatJuniperCombinedParser;
+import org.batfish.main.Batfish;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for the throughput of the Cisco and flat Juniper parsers on the configurations of the
+ * bundled test rigs. Each operation parses every configuration of one test rig, and the {@code
+ * characters} counter reports how much configuration text is parsed per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+public class ParsingBenchmark {
+
+  /** Counts the configuration text parsed by one benchmark thread. */
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  @State(Scope.Thread)
+  public static class ParsedCharacters {
+
+    private long _characters;
+
+    public long characters() {
+      return _characters;
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      _characters = 0L;
+    }
+  }
+
+  private static List<String> readConfigurations(String testrig) {
+    Path configsDir =
+        BenchmarkTestrig.getTestrigsDir()
+            .resolve(testrig)
+            .resolve(BfConsts.RELPATH_CONFIGURATIONS_DIR);
+    try (Stream<Path> configs = CommonUtil.list(configsDir)) {
+      return configs.sorted().map(CommonUtil::readFile).collect(Collectors.toList());
+    }
+  }
+
+  private List<String> _ciscoConfigurations;
+
+  @Param({"example"})
+  public String _ciscoTestrig;
+
+  private List<String> _juniperConfigurations;
+
+  @Param({"srx-testbed"})
+  public String _juniperTestrig;
+
+  private Settings _settings;
+
+  @Benchmark
+  public void parseCisco(ParsedCharacters parsedCharacters, Blackhole blackhole) {
+    for (String text : _ciscoConfigurations) {
+      CiscoCombinedParser parser =
+          new CiscoCombinedParser(text, _settings, ConfigurationFormat.CISCO_IOS);
+      blackhole.consume(Batfish.parse(parser, _settings.getLogger(), _settings));
+      parsedCharacters._characters += text.length();
+    }
+  }
+
+  @Benchmark
+  public void parseJuniper(ParsedCharacters parsedCharacters, Blackhole blackhole) {
+    for (String text : _juniperConfigurations) {
+      FlatJuniperCombinedParser parser = new FlatJuniperCombinedParser(text, _settings);
+      blackhole.consume(Batfish.parse(parser, _settings.getLogger(), _settings));
+      parsedCharacters._characters += text.length();
+    }
+  }
+
+  @Setup
+  public void setup() {
+    _settings = BenchmarkTestrig.newSettings();
+    _ciscoConfigurations = readConfigurations(_ciscoTestrig);
+    _juniperConfigurations = readConfigurations(_juniperTestrig);
+  }
+}
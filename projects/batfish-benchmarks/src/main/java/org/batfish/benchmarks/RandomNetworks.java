@@ -0,0 +1,25 @@
+package org.batfish.benchmarks;
+
+import java.util.Random;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.Prefix;
+
+/** Draws random addresses and networks for benchmark inputs. */
+public class RandomNetworks {
+
+  /** Seed of the random inputs, fixed so that all runs of a benchmark see the same data */
+  public static final long SEED = 0x5eedL;
+
+  public static Ip randomIp(Random random) {
+    return new Ip(random.nextInt() & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Returns a random network with a prefix length between {@code minPrefixLength} and {@code
+   * maxPrefixLength}, inclusive.
+   */
+  public static Prefix randomPrefix(Random random, int minPrefixLength, int maxPrefixLength) {
+    int prefixLength = minPrefixLength + random.nextInt(maxPrefixLength - minPrefixLength + 1);
+    return new Prefix(randomIp(random), prefixLength).getNetworkPrefix();
+  }
+}
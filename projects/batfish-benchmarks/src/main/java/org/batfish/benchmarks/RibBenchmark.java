@@ -0,0 +1,94 @@
+package org.batfish.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.batfish.bdp.Fib;
+import org.batfish.bdp.Rib;
+import org.batfish.datamodel.AbstractRoute;
+import org.batfish.datamodel.ConnectedRoute;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.StaticRoute;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for building a main {@link Rib}, looking up routes in it, and resolving it into a
+ * {@link Fib}. One in a hundred routes is a connected route, and the rest are static routes whose
+ * next hops lie in the connected networks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+public class RibBenchmark {
+
+  private static final int NUM_LOOKUPS = 1000;
+
+  private Ip[] _lookups;
+
+  @Param({"1000", "100000"})
+  public int _numRoutes;
+
+  private Rib _rib;
+
+  private AbstractRoute[] _routes;
+
+  @Benchmark
+  public Fib buildFib() {
+    return new Fib(_rib);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NUM_LOOKUPS)
+  public void longestPrefixMatch(Blackhole blackhole) {
+    for (Ip ip : _lookups) {
+      blackhole.consume(_rib.longestPrefixMatch(ip));
+    }
+  }
+
+  @Benchmark
+  public Rib mergeRoutes() {
+    Rib rib = new Rib(null);
+    for (AbstractRoute route : _routes) {
+      rib.mergeRoute(route);
+    }
+    return rib;
+  }
+
+  @Setup
+  public void setup() {
+    Random random = new Random(RandomNetworks.SEED);
+    int numConnected = Math.max(1, _numRoutes / 100);
+    Prefix[] connected = new Prefix[numConnected];
+    _routes = new AbstractRoute[_numRoutes];
+    for (int i = 0; i < numConnected; i++) {
+      connected[i] = RandomNetworks.randomPrefix(random, 24, 24);
+      _routes[i] = new ConnectedRoute(connected[i], "Ethernet" + i);
+    }
+    for (int i = numConnected; i < _numRoutes; i++) {
+      Prefix nextHopNetwork = connected[random.nextInt(numConnected)];
+      Ip nextHopIp = new Ip(nextHopNetwork.getAddress().asLong() + 1L + random.nextInt(254));
+      _routes[i] =
+          new StaticRoute(RandomNetworks.randomPrefix(random, 8, 32), nextHopIp, null, 1, 0);
+    }
+    _rib = mergeRoutes();
+    _lookups = new Ip[NUM_LOOKUPS];
+    for (int i = 0; i < NUM_LOOKUPS; i++) {
+      _lookups[i] = RandomNetworks.randomIp(random);
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package org.batfish.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.batfish.datamodel.BgpRoute;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.LineAction;
+import org.batfish.datamodel.OriginType;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.RouteFilterLine;
+import org.batfish.datamodel.RouteFilterList;
+import org.batfish.datamodel.RoutingProtocol;
+import org.batfish.datamodel.SubRange;
+import org.batfish.datamodel.routing_policy.Environment.Direction;
+import org.batfish.datamodel.routing_policy.RoutingPolicy;
+import org.batfish.datamodel.routing_policy.expr.DestinationNetwork;
+import org.batfish.datamodel.routing_policy.expr.LiteralInt;
+import org.batfish.datamodel.routing_policy.expr.MatchPrefixSet;
+import org.batfish.datamodel.routing_policy.expr.NamedPrefixSet;
+import org.batfish.datamodel.routing_policy.statement.If;
+import org.batfish.datamodel.routing_policy.statement.SetLocalPreference;
+import org.batfish.datamodel.routing_policy.statement.Statement;
+import org.batfish.datamodel.routing_policy.statement.Statements;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for applying an import {@link RoutingPolicy} to BGP routes. The policy has one clause
+ * per prefix list, each setting the local preference of the routes it matches and accepting them,
+ * and rejects all routes matching no clause. {@link #processInterpreted(Blackhole)} applies the
+ * same policy without compiling it, for comparison.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+public class RoutingPolicyBenchmark {
+
+  private static final int LINES_PER_LIST = 10;
+
+  private static final int NUM_ROUTES = 1000;
+
+  @Param({"1", "50"})
+  public int _numClauses;
+
+  private Ip _peerAddress;
+
+  private RoutingPolicy _policy;
+
+  private BgpRoute[] _routes;
+
+  @Benchmark
+  @OperationsPerInvocation(NUM_ROUTES)
+  public void process(Blackhole blackhole) {
+    for (BgpRoute route : _routes) {
+      BgpRoute.Builder outputRoute = new BgpRoute.Builder();
+      blackhole.consume(
+          _policy.process(
+              route, outputRoute, _peerAddress, Configuration.DEFAULT_VRF_NAME, Direction.IN));
+      blackhole.consume(outputRoute);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NUM_ROUTES)
+  public void processInterpreted(Blackhole blackhole) {
+    for (BgpRoute route : _routes) {
+      BgpRoute.Builder outputRoute = new BgpRoute.Builder();
+      blackhole.consume(
+          _policy.processInterpreted(
+              route, outputRoute, _peerAddress, Configuration.DEFAULT_VRF_NAME, Direction.IN));
+      blackhole.consume(outputRoute);
+    }
+  }
+
+  @Setup
+  public void setup() {
+    Random random = new Random(RandomNetworks.SEED);
+    Configuration configuration = new Configuration("benchmark");
+    _policy = new RoutingPolicy("benchmark", configuration);
+    List<Statement> statements = new ArrayList<>();
+    for (int i = 0; i < _numClauses; i++) {
+      String listName = "list" + i;
+      RouteFilterList list = new RouteFilterList(listName);
+      for (int j = 0; j < LINES_PER_LIST; j++) {
+        Prefix prefix = RandomNetworks.randomPrefix(random, 8, 16);
+        SubRange lengthRange = new SubRange(prefix.getPrefixLength(), Prefix.MAX_PREFIX_LENGTH);
+        list.addLine(new RouteFilterLine(LineAction.ACCEPT, prefix, lengthRange));
+      }
+      configuration.getRouteFilterLists().put(listName, list);
+      If clause = new If();
+      clause.setGuard(new MatchPrefixSet(new DestinationNetwork(), new NamedPrefixSet(listName)));
+      clause.setTrueStatements(
+          ImmutableList.of(
+              new SetLocalPreference(new LiteralInt(100 + i)),
+              Statements.ExitAccept.toStaticStatement()));
+      statements.add(clause);
+    }
+    statements.add(Statements.ExitReject.toStaticStatement());
+    _policy.setStatements(statements);
+    configuration.getRoutingPolicies().put(_policy.getName(), _policy);
+
+    _peerAddress = RandomNetworks.randomIp(random);
+    _routes = new BgpRoute[NUM_ROUTES];
+    for (int i = 0; i < NUM_ROUTES; i++) {
+      BgpRoute.Builder builder = new BgpRoute.Builder();
+      builder.setNetwork(RandomNetworks.randomPrefix(random, 8, 24));
+      builder.setNextHopIp(_peerAddress);
+      builder.setOriginatorIp(_peerAddress);
+      builder.setOriginType(OriginType.IGP);
+      builder.setProtocol(RoutingProtocol.BGP);
+      builder.setAdmin(20);
+      builder.setMetric(0L);
+      _routes[i] = builder.build();
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package org.batfish.benchmarks;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+import org.batfish.common.plugin.PluginConsumer;
+import org.batfish.common.util.CommonUtil;
+import org.batfish.datamodel.Configuration;
+import org.batfish.main.Batfish;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for writing and reading the vendor-independent configurations of a testrig through
+ * the {@link PluginConsumer} serialization used for all persisted Batfish data.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+public class SerializationBenchmark {
+
+  private Batfish _batfish;
+
+  private Map<Path, Configuration> _configurationsByPath;
+
+  private Map<Path, String> _namesByPath;
+
+  private Path _outputDir;
+
+  private BenchmarkTestrig _testrig;
+
+  @Param({"example", "fattree-8"})
+  public String _testrigName;
+
+  @Benchmark
+  public SortedMap<String, Configuration> deserialize() {
+    return _batfish.deserializeObjects(_namesByPath, Configuration.class);
+  }
+
+  @Benchmark
+  public long serialize() {
+    return _batfish.serializeObjects(_configurationsByPath);
+  }
+
+  @Setup
+  public void setup() {
+    _testrig = BenchmarkTestrig.forName(_testrigName);
+    _batfish = _testrig.newParsedBatfish();
+    _outputDir = CommonUtil.createTempDirectory("batfish-benchmark-serialization");
+    _configurationsByPath = new HashMap<>();
+    _namesByPath = new HashMap<>();
+    _batfish
+        .loadConfigurations()
+        .forEach(
+            (name, configuration) -> {
+              Path path = _outputDir.resolve(name);
+              _configurationsByPath.put(path, configuration);
+              _namesByPath.put(path, name);
+            });
+    _batfish.serializeObjects(_configurationsByPath);
+  }
+
+  @TearDown
+  public void tearDown() {
+    CommonUtil.deleteDirectory(_outputDir);
+    _testrig.close();
+  }
+}
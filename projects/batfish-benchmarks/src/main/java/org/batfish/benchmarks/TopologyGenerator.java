@@ -0,0 +1,202 @@
+package org.batfish.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import org.batfish.datamodel.Ip;
+
+/**
+ * Generates Cisco IOS configurations for synthetic networks of arbitrary size, so that benchmarks
+ * can measure how Batfish scales beyond the bundled test rigs.
+ */
+public class TopologyGenerator {
+
+  private static class Router {
+
+    private final long _as;
+
+    private final List<String> _bgpLines;
+
+    private final List<String> _interfaceLines;
+
+    private final Ip _loopback;
+
+    private final String _name;
+
+    private final boolean _ospf;
+
+    private Router(String name, long as, Ip loopback, boolean ospf) {
+      _as = as;
+      _bgpLines = new ArrayList<>();
+      _interfaceLines = new ArrayList<>();
+      _loopback = loopback;
+      _name = name;
+      _ospf = ospf;
+    }
+
+    private void addInterface(Ip address, String mask) {
+      int index = _interfaceLines.size() / 2;
+      _interfaceLines.add("interface Ethernet" + index);
+      _interfaceLines.add(" ip address " + address + " " + mask);
+    }
+
+    private String toConfigurationText() {
+      StringBuilder sb = new StringBuilder();
+      sb.append("hostname ").append(_name).append("\n!\n");
+      sb.append("interface Loopback0\n");
+      sb.append(" ip address ").append(_loopback).append(" 255.255.255.255\n!\n");
+      for (int i = 0; i < _interfaceLines.size(); i += 2) {
+        sb.append(_interfaceLines.get(i)).append("\n");
+        sb.append(_interfaceLines.get(i + 1)).append("\n!\n");
+      }
+      if (_ospf) {
+        sb.append("router ospf 1\n");
+        sb.append(" router-id ").append(_loopback).append("\n");
+        sb.append(" network 10.0.0.0 0.255.255.255 area 0\n");
+        sb.append(" network 192.168.0.0 0.0.255.255 area 0\n!\n");
+      }
+      sb.append("router bgp ").append(_as).append("\n");
+      sb.append(" bgp router-id ").append(_loopback).append("\n");
+      for (String line : _bgpLines) {
+        sb.append(line).append("\n");
+      }
+      sb.append(" maximum-paths 64\n!\n");
+      sb.append("end\n");
+      return sb.toString();
+    }
+  }
+
+  private static final long FIRST_PRIVATE_AS = 64512L;
+
+  /** Point-to-point links are numbered out of 10.0.0.0/8 */
+  private static final long LINK_BASE = new Ip("10.0.0.0").asLong();
+
+  private static final long LOOPBACK_BASE = new Ip("192.168.0.0").asLong();
+
+  /** Edge networks are numbered out of 172.16.0.0/12 */
+  private static final long NETWORK_BASE = new Ip("172.16.0.0").asLong();
+
+  /**
+   * Adds an edge network to {@code router}, and has BGP originate it.
+   *
+   * @param index Index of the network, distinct across the whole topology
+   */
+  private static void addNetwork(Router router, int index) {
+    Ip network = new Ip(NETWORK_BASE + 256L * index);
+    router.addInterface(new Ip(network.asLong() + 1L), "255.255.255.0");
+    router._bgpLines.add(" network " + network + " mask 255.255.255.0");
+  }
+
+  /**
+   * Returns the configurations of a {@code k}-ary fat tree, keyed by file name. The tree has
+   * {@code k} pods of {@code k/2} edge and {@code k/2} aggregation switches each, connected through
+   * {@code (k/2)^2} core switches. As in typical data center designs, every switch is in its own AS
+   * and runs eBGP with all of its neighbors, and every edge switch originates one network.
+   */
+  public static SortedMap<String, String> fatTree(int k) {
+    if (k < 2 || k % 2 != 0) {
+      throw new IllegalArgumentException("Fat tree arity must be even and positive: " + k);
+    }
+    int half = k / 2;
+    int[] numLinks = {0};
+    List<Router> routers = new ArrayList<>();
+    Router[] cores = new Router[half * half];
+    for (int i = 0; i < cores.length; i++) {
+      cores[i] = newRouter("core" + i, routers, FIRST_PRIVATE_AS + routers.size(), false);
+    }
+    for (int pod = 0; pod < k; pod++) {
+      Router[] aggs = new Router[half];
+      for (int i = 0; i < half; i++) {
+        String name = "pod" + pod + "agg" + i;
+        aggs[i] = newRouter(name, routers, FIRST_PRIVATE_AS + routers.size(), false);
+        for (int j = 0; j < half; j++) {
+          linkEbgp(aggs[i], cores[i * half + j], numLinks);
+        }
+      }
+      for (int i = 0; i < half; i++) {
+        String name = "pod" + pod + "edge" + i;
+        Router edge = newRouter(name, routers, FIRST_PRIVATE_AS + routers.size(), false);
+        addNetwork(edge, pod * half + i);
+        for (Router agg : aggs) {
+          linkEbgp(edge, agg, numLinks);
+        }
+      }
+    }
+    return toConfigurations(routers);
+  }
+
+  /** Connects {@code r1} and {@code r2} with a new point-to-point link. */
+  private static Ip[] link(Router r1, Router r2, int[] numLinks) {
+    long subnet = LINK_BASE + 4L * numLinks[0]++;
+    Ip ip1 = new Ip(subnet + 1L);
+    Ip ip2 = new Ip(subnet + 2L);
+    r1.addInterface(ip1, "255.255.255.252");
+    r2.addInterface(ip2, "255.255.255.252");
+    return new Ip[] {ip1, ip2};
+  }
+
+  private static void linkEbgp(Router r1, Router r2, int[] numLinks) {
+    Ip[] ips = link(r1, r2, numLinks);
+    r1._bgpLines.add(" neighbor " + ips[1] + " remote-as " + r2._as);
+    r2._bgpLines.add(" neighbor " + ips[0] + " remote-as " + r1._as);
+  }
+
+  /** Creates a router with the next free loopback address and adds it to {@code routers}. */
+  private static Router newRouter(String name, List<Router> routers, long as, boolean ospf) {
+    Router router = new Router(name, as, new Ip(LOOPBACK_BASE + routers.size() + 1L), ospf);
+    routers.add(router);
+    return router;
+  }
+
+  private static void peerIbgp(Router router, Router peer) {
+    router._bgpLines.add(" neighbor " + peer._loopback + " remote-as " + peer._as);
+    router._bgpLines.add(" neighbor " + peer._loopback + " update-source Loopback0");
+  }
+
+  private static SortedMap<String, String> toConfigurations(List<Router> routers) {
+    SortedMap<String, String> configurations = new TreeMap<>();
+    for (Router router : routers) {
+      configurations.put(router._name + ".cfg", router.toConfigurationText());
+    }
+    return configurations;
+  }
+
+  /**
+   * Returns the configurations of a WAN of {@code size} routers, keyed by file name. The routers
+   * form a ring with a chord from each router in the first half of the ring to the opposite one,
+   * and run OSPF over all links. Every router originates one network into iBGP, and the first two
+   * routers are route reflectors with all other routers as their clients.
+   */
+  public static SortedMap<String, String> wan(int size) {
+    if (size < 3) {
+      throw new IllegalArgumentException("WAN must have at least 3 routers: " + size);
+    }
+    int[] numLinks = {0};
+    List<Router> routers = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      Router router = newRouter("wan" + i, routers, FIRST_PRIVATE_AS, true);
+      addNetwork(router, i);
+    }
+    for (int i = 0; i < size; i++) {
+      link(routers.get(i), routers.get((i + 1) % size), numLinks);
+      if (i < size / 2 && size > 4) {
+        link(routers.get(i), routers.get(i + size / 2), numLinks);
+      }
+    }
+    List<Router> reflectors = routers.subList(0, 2);
+    for (Router reflector : reflectors) {
+      for (Router peer : routers) {
+        if (peer == reflector) {
+          continue;
+        }
+        peerIbgp(reflector, peer);
+        if (!reflectors.contains(peer)) {
+          peerIbgp(peer, reflector);
+          reflector._bgpLines.add(" neighbor " + peer._loopback + " route-reflector-client");
+        }
+      }
+    }
+    return toConfigurations(routers);
+  }
+}
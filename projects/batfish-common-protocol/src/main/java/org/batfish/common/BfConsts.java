@@ -136,6 +136,7 @@ public class BfConsts {
   public static final String RELPATH_NODE_BLACKLIST_FILE = "node_blacklist";
   public static final String RELPATH_NODE_ROLES_PATH = "node_roles.json";
   public static final String RELPATH_PARSE_ANSWER_PATH = "parse_answer";
+  public static final String RELPATH_PARSE_CACHE_DIR = "parse_cache";
 
   public static final String RELPATH_PRECOMPUTED_ROUTES = "precomputedroutes";
   public static final String RELPATH_QUERIES_DIR = "queries";
@@ -158,11 +159,16 @@ public class BfConsts {
   public static final String SUFFIX_ANSWER_JSON_FILE = ".json";
   public static final String SUFFIX_LOG_FILE = ".log";
   public static final String SVC_BASE_RSC = "/batfishservice";
+  public static final String SVC_BUSY_KEY = "busy";
+  public static final String SVC_CACHES_KEY = "caches";
   public static final String SVC_FAILURE_KEY = "failure";
+  public static final String SVC_FREE_SLOTS_KEY = "freeSlots";
   public static final String SVC_GET_STATUS_RSC = "getstatus";
   public static final String SVC_GET_TASKSTATUS_RSC = "gettaskstatus";
   public static final Integer SVC_PORT = 9999;
   public static final String SVC_RUN_TASK_RSC = "run";
+  public static final String SVC_RUNNING_TASKS_KEY = "runningTasks";
+  public static final String SVC_SLOTS_KEY = "slots";
   public static final String SVC_SUCCESS_KEY = "success";
   public static final String SVC_TASK_KEY = "task";
   public static final String SVC_TASKID_KEY = "taskid";
@@ -55,6 +55,7 @@ public class CoordConsts {
   public static final String SVC_KEY_FILE = "file";
   public static final String SVC_KEY_FILE2 = "file2";
   public static final String SVC_KEY_FORCE = "force";
+  public static final String SVC_KEY_IDLE = "idle";
   public static final String SVC_KEY_NEW_ANALYSIS = "newanalysis";
   public static final String SVC_KEY_OBJECT_NAME = "objectname";
   public static final String SVC_KEY_PLUGIN_ID = "pluginid";
@@ -68,6 +69,7 @@ public class CoordConsts {
   public static final String SVC_KEY_TESTRIG_LIST = "testriglist";
   public static final String SVC_KEY_TESTRIG_NAME = "testrigname";
   public static final String SVC_KEY_VERSION = "version";
+  public static final String SVC_KEY_WORKER = "worker";
   public static final String SVC_KEY_WORKID = "workid";
   public static final String SVC_KEY_WORKITEM = "workitem";
   public static final String SVC_KEY_WORKSPACE_NAME = "workspace";
@@ -100,6 +102,7 @@ public class CoordConsts {
   public static final String SVC_RSC_POOL_GET_QUESTION_TEMPLATES = "getquestiontemplates";
   public static final String SVC_RSC_POOL_GETSTATUS = "getstatus";
   public static final String SVC_RSC_POOL_UPDATE = "updatepool";
+  public static final String SVC_RSC_POOL_UPDATE_WORKER_STATUS = "updateworkerstatus";
   public static final String SVC_RSC_PUT_OBJECT = "putobject";
   public static final String SVC_RSC_QUEUE_WORK = "queuework";
   public static final String SVC_RSC_SYNC_TESTRIGS_SYNC_NOW = "synctestrigssyncnow";
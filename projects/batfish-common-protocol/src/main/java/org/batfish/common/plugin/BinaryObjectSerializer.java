@@ -0,0 +1,1451 @@
+package org.batfish.common.plugin;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.NotActiveException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import javax.annotation.Nullable;
+import org.batfish.common.util.BatfishObjectInputStream;
+
+/**
+ * {@link ObjectSerializer} using a compact binary encoding of the fields of each object, intended
+ * for large object graphs such as {@link org.batfish.datamodel.Configuration}s and data planes.
+ *
+ * <p>Objects are encoded following the rules of Java serialization: the same fields are written,
+ * {@code writeReplace}, {@code readResolve}, {@code writeObject} and {@code readObject} methods are
+ * honored, and shared references and cycles are preserved. Unlike Java serialization, the layout
+ * of a class is derived from the class itself rather than written to the stream, which only holds
+ * each class name once along with a fingerprint of its layout. Data written for a class whose
+ * fields have since changed is rejected. Strings are written once per stream, and integers are
+ * written in a variable-length encoding.
+ *
+ * <p>Collections and maps of the JDK are written as their elements. Other classes of the JDK, and
+ * externalizable classes, are written with Java serialization.
+ */
+public final class BinaryObjectSerializer implements ObjectSerializer {
+
+  /** How a class is encoded */
+  private enum Kind {
+    ARRAY,
+    COLLECTION,
+    ENUM,
+    JAVA,
+    MAP,
+    NOT_SERIALIZABLE,
+    OBJECT
+  }
+
+  /**
+   * The encoding of a class, derived once per class. For objects, and for collections and maps
+   * extending those of the JDK, it lists the serializable fields of each class of its hierarchy.
+   */
+  private static final class ClassInfo {
+
+    private final Class<?> _class;
+
+    /** Creates instances, either with a comparator or with no arguments */
+    @Nullable private final Constructor<?> _comparatorConstructor;
+
+    @Nullable private final Constructor<?> _constructor;
+
+    private final Object[] _enumConstants;
+
+    private final long _fingerprint;
+
+    private final Kind _kind;
+
+    /** Serializable classes of the hierarchy, from the topmost one down to the class itself */
+    private final Layer[] _layers;
+
+    @Nullable private final Method _readResolve;
+
+    /** Whether the comparator of a sorted collection or map is written along with its elements */
+    private final boolean _sorted;
+
+    /** The class whose encoding is used for collections and maps that cannot be created */
+    @Nullable private final ClassInfo _writeAs;
+
+    @Nullable private final Method _writeReplace;
+
+    private ClassInfo(Class<?> c) {
+      _class = c;
+      Constructor<?> comparatorConstructor = null;
+      Constructor<?> constructor = null;
+      Object[] enumConstants = new Object[0];
+      Kind kind;
+      Layer[] layers = new Layer[0];
+      Method readResolve = null;
+      boolean sorted = false;
+      ClassInfo writeAs = null;
+      Method writeReplace = null;
+      boolean container = Collection.class.isAssignableFrom(c) || Map.class.isAssignableFrom(c);
+      Class<?> containerKind = Collection.class.isAssignableFrom(c) ? Collection.class : Map.class;
+      if (c.isArray()) {
+        kind = Kind.ARRAY;
+      } else if (Enum.class.isAssignableFrom(c)) {
+        kind = Kind.ENUM;
+        // null for the classes of constants with bodies, which are written as their enum
+        Object[] constants = c.getEnumConstants();
+        enumConstants = constants != null ? constants : enumConstants;
+      } else if (!Serializable.class.isAssignableFrom(c)) {
+        kind = Kind.NOT_SERIALIZABLE;
+      } else if (isJdkClass(c) || Externalizable.class.isAssignableFrom(c)) {
+        kind = Kind.JAVA;
+        if (container && !Externalizable.class.isAssignableFrom(c)) {
+          constructor = publicConstructor(c);
+          if (constructor != null) {
+            kind = containerKind == Collection.class ? Kind.COLLECTION : Kind.MAP;
+            comparatorConstructor = publicConstructor(c, Comparator.class);
+            sorted =
+                comparatorConstructor != null
+                    && (SortedSet.class.isAssignableFrom(c) || SortedMap.class.isAssignableFrom(c));
+          } else if (isSubstitutable(c)) {
+            kind = containerKind == Collection.class ? Kind.COLLECTION : Kind.MAP;
+            writeAs = CLASS_INFOS.get(substitute(c));
+          }
+        }
+      } else {
+        List<Class<?>> hierarchy = new ArrayList<>();
+        Class<?> k = c;
+        while (k != null && Serializable.class.isAssignableFrom(k) && !isJdkClass(k)) {
+          hierarchy.add(0, k);
+          k = k.getSuperclass();
+        }
+        if (k != null && Serializable.class.isAssignableFrom(k)) {
+          // extends a serializable class of the JDK
+          kind = Kind.JAVA;
+          if (container) {
+            constructor = declaredConstructor(c);
+            if (constructor != null) {
+              kind = containerKind == Collection.class ? Kind.COLLECTION : Kind.MAP;
+            }
+          }
+        } else {
+          constructor = serializationConstructor(c, k);
+          kind = constructor != null ? Kind.OBJECT : Kind.JAVA;
+        }
+        if (kind != Kind.JAVA) {
+          layers = new Layer[hierarchy.size()];
+          for (int i = 0; i < layers.length; i++) {
+            layers[i] = new Layer(hierarchy.get(i));
+          }
+        }
+        readResolve = inheritedMethod(c, "readResolve");
+        writeReplace = inheritedMethod(c, "writeReplace");
+      }
+      _comparatorConstructor = comparatorConstructor;
+      _constructor = constructor;
+      _enumConstants = enumConstants;
+      _kind = kind;
+      _layers = layers;
+      _readResolve = readResolve;
+      _sorted = sorted;
+      _writeAs = writeAs;
+      _writeReplace = writeReplace;
+      _fingerprint = fingerprint();
+    }
+
+    /** Returns a hash of the layout of this class, used to detect changes to the class */
+    private long fingerprint() {
+      StringBuilder layout = new StringBuilder(_kind.name());
+      for (Object constant : _enumConstants) {
+        layout.append(';').append(((Enum<?>) constant).name());
+      }
+      for (Layer layer : _layers) {
+        layout.append(';').append(layer._class.getName());
+        for (Field field : layer._fields) {
+          layout.append(',').append(field.getName()).append(':');
+          layout.append(field.getType().getName());
+        }
+      }
+      long hash = 0xcbf29ce484222325L;
+      for (int i = 0; i < layout.length(); i++) {
+        hash = (hash ^ layout.charAt(i)) * 0x100000001b3L;
+      }
+      return hash;
+    }
+
+    private Object newInstance(@Nullable Comparator<?> comparator) throws IOException {
+      try {
+        if (comparator != null) {
+          return _comparatorConstructor.newInstance(comparator);
+        }
+        if (_constructor == null) {
+          throw new InvalidClassException(_class.getName(), "cannot be instantiated");
+        }
+        return _constructor.newInstance();
+      } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+        throw new InvalidClassException(_class.getName(), "cannot be instantiated: " + e);
+      }
+    }
+  }
+
+  /** The serializable fields and custom serialization methods declared by one class */
+  private static final class Layer {
+
+    private final Class<?> _class;
+
+    private final Field[] _fields;
+
+    @Nullable private final Method _readObject;
+
+    /** The type of each field: the descriptor of its primitive type, or 'L' for references */
+    private final char[] _types;
+
+    @Nullable private final Method _writeObject;
+
+    private Layer(Class<?> c) {
+      _class = c;
+      List<Field> fields = new ArrayList<>();
+      for (Field field : c.getDeclaredFields()) {
+        int modifiers = field.getModifiers();
+        if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+          field.setAccessible(true);
+          fields.add(field);
+        }
+      }
+      fields.sort(Comparator.comparing(Field::getName));
+      _fields = fields.toArray(new Field[fields.size()]);
+      _types = new char[_fields.length];
+      for (int i = 0; i < _fields.length; i++) {
+        _types[i] = typeCode(_fields[i].getType());
+      }
+      _readObject = privateMethod(c, "readObject", ObjectInputStream.class);
+      _writeObject = privateMethod(c, "writeObject", ObjectOutputStream.class);
+    }
+  }
+
+  /** Reads objects written by a {@link Writer} */
+  private static final class Reader extends ObjectInputStream {
+
+    private final byte[] _buf = new byte[BUFFER_SIZE];
+
+    private final List<ClassInfo> _classes = new ArrayList<>();
+
+    private final ClassLoader _classLoader;
+
+    @Nullable private Layer _currentLayer;
+
+    @Nullable private Object _currentObject;
+
+    /** Whether {@link #defaultReadObject} was called for the current layer */
+    private boolean _defaultRead;
+
+    private final List<Object> _handles = new ArrayList<>();
+
+    private final InputStream _in;
+
+    private int _limit;
+
+    private int _pos;
+
+    private final List<String> _strings = new ArrayList<>();
+
+    private Reader(InputStream in, ClassLoader classLoader) throws IOException {
+      _in = in;
+      _classLoader = classLoader;
+    }
+
+    @Override
+    public int available() {
+      return _limit - _pos;
+    }
+
+    @Override
+    public void close() throws IOException {
+      _in.close();
+    }
+
+    @Override
+    public void defaultReadObject() throws IOException, ClassNotFoundException {
+      if (_currentLayer == null) {
+        throw new NotActiveException("not in call to readObject");
+      }
+      _defaultRead = true;
+      readFields(_currentObject, _currentLayer);
+    }
+
+    private void fill(int n) throws IOException {
+      if (_limit - _pos >= n) {
+        return;
+      }
+      System.arraycopy(_buf, _pos, _buf, 0, _limit - _pos);
+      _limit -= _pos;
+      _pos = 0;
+      while (_limit < n) {
+        int read = _in.read(_buf, _limit, _buf.length - _limit);
+        if (read < 0) {
+          throw new EOFException();
+        }
+        _limit += read;
+      }
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (_pos == _limit) {
+        _pos = 0;
+        _limit = Math.max(0, _in.read(_buf, 0, _buf.length));
+        if (_limit == 0) {
+          return -1;
+        }
+      }
+      return _buf[_pos++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (_pos == _limit) {
+        return _in.read(b, off, len);
+      }
+      int n = Math.min(len, _limit - _pos);
+      System.arraycopy(_buf, _pos, b, off, n);
+      _pos += n;
+      return n;
+    }
+
+    private Object readAny() throws IOException, ClassNotFoundException {
+      int tag = readByte();
+      switch (tag) {
+        case TAG_NULL:
+          return null;
+        case TAG_REF:
+          return _handles.get(readVarInt());
+        case TAG_STRING:
+          {
+            String s = readRawString();
+            _strings.add(s);
+            return s;
+          }
+        case TAG_STRING_REF:
+          return _strings.get(readVarInt());
+        case TAG_TRUE:
+          return Boolean.TRUE;
+        case TAG_FALSE:
+          return Boolean.FALSE;
+        case TAG_BYTE:
+          return readByte();
+        case TAG_SHORT:
+          return readShort();
+        case TAG_CHAR:
+          return readChar();
+        case TAG_INT:
+          return readZigZagInt();
+        case TAG_LONG:
+          return readZigZagLong();
+        case TAG_FLOAT:
+          return readFloat();
+        case TAG_DOUBLE:
+          return readDouble();
+        case TAG_ENUM:
+          {
+            ClassInfo info = readClass();
+            return info._enumConstants[readVarInt()];
+          }
+        case TAG_CLASS:
+          return readClass()._class;
+        case TAG_ARRAY:
+          return readArray();
+        case TAG_CONTAINER:
+          return readContainer();
+        case TAG_OBJECT:
+          return readPlainObject();
+        case TAG_JAVA:
+          {
+            int handle = reserveHandle();
+            byte[] data = new byte[readVarInt()];
+            readFully(data);
+            try (ObjectInputStream in =
+                new BatfishObjectInputStream(new ByteArrayInputStream(data), _classLoader)) {
+              Object o = in.readObject();
+              _handles.set(handle, o);
+              return o;
+            }
+          }
+        default:
+          throw new StreamCorruptedException("Invalid tag: " + tag);
+      }
+    }
+
+    private Object readArray() throws IOException, ClassNotFoundException {
+      Class<?> component = readClass()._class.getComponentType();
+      int handle = reserveHandle();
+      int length = readVarInt();
+      Object array = Array.newInstance(component, length);
+      _handles.set(handle, array);
+      if (component == byte.class) {
+        readFully((byte[]) array);
+      } else if (!component.isPrimitive()) {
+        Object[] objects = (Object[]) array;
+        for (int i = 0; i < length; i++) {
+          objects[i] = readAny();
+        }
+      } else {
+        char type = typeCode(component);
+        for (int i = 0; i < length; i++) {
+          Array.set(array, i, readValue(type));
+        }
+      }
+      return array;
+    }
+
+    private ClassInfo readClass() throws IOException, ClassNotFoundException {
+      int id = readVarInt();
+      if (id > 0) {
+        return _classes.get(id - 1);
+      }
+      String name = readRawString();
+      ClassInfo info = CLASS_INFOS.get(resolveClass(name));
+      if (readLong() != info._fingerprint) {
+        throw new InvalidClassException(name, "class has changed since it was serialized");
+      }
+      _classes.add(info);
+      return info;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object readContainer() throws IOException, ClassNotFoundException {
+      ClassInfo info = readClass();
+      int handle = reserveHandle();
+      Comparator<?> comparator = info._sorted ? (Comparator<?>) readAny() : null;
+      Object container = info.newInstance(comparator);
+      _handles.set(handle, container);
+      readLayers(container, info);
+      int size = readVarInt();
+      if (info._kind == Kind.COLLECTION) {
+        Collection<Object> collection = (Collection<Object>) container;
+        for (int i = 0; i < size; i++) {
+          collection.add(readAny());
+        }
+      } else {
+        Map<Object, Object> map = (Map<Object, Object>) container;
+        for (int i = 0; i < size; i++) {
+          Object key = readAny();
+          map.put(key, readAny());
+        }
+      }
+      return resolve(container, info, handle);
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+      return readByte() != 0;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+      fill(1);
+      return _buf[_pos++];
+    }
+
+    @Override
+    public char readChar() throws IOException {
+      return (char) readShort();
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+      return Double.longBitsToDouble(readLong());
+    }
+
+    @Override
+    public GetField readFields() throws IOException {
+      throw new NotActiveException("readFields is not supported by " + NAME + " serialization");
+    }
+
+    /** Reads the fields of {@code layer} into {@code o}, or skips them if {@code o} is null */
+    private void readFields(@Nullable Object o, Layer layer)
+        throws IOException, ClassNotFoundException {
+      Field[] fields = layer._fields;
+      char[] types = layer._types;
+      try {
+        for (int i = 0; i < fields.length; i++) {
+          Object value = readValue(types[i]);
+          if (o != null) {
+            fields[i].set(o, value);
+          }
+        }
+      } catch (IllegalAccessException | IllegalArgumentException e) {
+        throw new InvalidClassException(layer._class.getName(), "cannot set field: " + e);
+      }
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+      return Float.intBitsToFloat(readInt());
+    }
+
+    @Override
+    public void readFully(byte[] b) throws IOException {
+      readFully(b, 0, b.length);
+    }
+
+    @Override
+    public void readFully(byte[] b, int off, int len) throws IOException {
+      int buffered = Math.min(len, _limit - _pos);
+      System.arraycopy(_buf, _pos, b, off, buffered);
+      _pos += buffered;
+      for (int n = buffered; n < len; ) {
+        int read = _in.read(b, off + n, len - n);
+        if (read < 0) {
+          throw new EOFException();
+        }
+        n += read;
+      }
+    }
+
+    @Override
+    public int readInt() throws IOException {
+      fill(4);
+      int v =
+          ((_buf[_pos] & 0xff) << 24)
+              | ((_buf[_pos + 1] & 0xff) << 16)
+              | ((_buf[_pos + 2] & 0xff) << 8)
+              | (_buf[_pos + 3] & 0xff);
+      _pos += 4;
+      return v;
+    }
+
+    /** Reads the fields of each layer of {@code info} into {@code o} */
+    private void readLayers(Object o, ClassInfo info) throws IOException, ClassNotFoundException {
+      for (Layer layer : info._layers) {
+        if (layer._readObject == null) {
+          readFields(o, layer);
+          continue;
+        }
+        Layer layerBefore = _currentLayer;
+        Object objectBefore = _currentObject;
+        boolean defaultReadBefore = _defaultRead;
+        _currentLayer = layer;
+        _currentObject = o;
+        _defaultRead = false;
+        try {
+          invoke(layer._readObject, o, this);
+          if (layer._writeObject == null && !_defaultRead) {
+            // the fields written by default were not consumed
+            readFields(null, layer);
+          }
+        } finally {
+          _currentLayer = layerBefore;
+          _currentObject = objectBefore;
+          _defaultRead = defaultReadBefore;
+        }
+      }
+    }
+
+    @Override
+    public long readLong() throws IOException {
+      return ((long) readInt() << 32) | (readInt() & 0xffffffffL);
+    }
+
+    @Override
+    protected Object readObjectOverride() throws IOException, ClassNotFoundException {
+      return readAny();
+    }
+
+    private Object readPlainObject() throws IOException, ClassNotFoundException {
+      ClassInfo info = readClass();
+      int handle = reserveHandle();
+      Object o = info.newInstance(null);
+      _handles.set(handle, o);
+      readLayers(o, info);
+      return resolve(o, info, handle);
+    }
+
+    private String readRawString() throws IOException {
+      int length = readVarInt();
+      char[] chars = new char[length];
+      for (int i = 0; i < length; i++) {
+        chars[i] = (char) readVarInt();
+      }
+      return new String(chars);
+    }
+
+    @Override
+    public short readShort() throws IOException {
+      fill(2);
+      short v = (short) (((_buf[_pos] & 0xff) << 8) | (_buf[_pos + 1] & 0xff));
+      _pos += 2;
+      return v;
+    }
+
+    @Override
+    public Object readUnshared() throws IOException, ClassNotFoundException {
+      return readAny();
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+      return readByte() & 0xff;
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+      return readShort() & 0xffff;
+    }
+
+    @Override
+    public String readUTF() throws IOException {
+      return readRawString();
+    }
+
+    /** Reads a value of the given {@link Layer#_types type} */
+    private Object readValue(char type) throws IOException, ClassNotFoundException {
+      switch (type) {
+        case 'Z':
+          return readBoolean();
+        case 'B':
+          return readByte();
+        case 'C':
+          return readChar();
+        case 'S':
+          return readShort();
+        case 'I':
+          return readZigZagInt();
+        case 'J':
+          return readZigZagLong();
+        case 'F':
+          return readFloat();
+        case 'D':
+          return readDouble();
+        default:
+          return readAny();
+      }
+    }
+
+    private int readVarInt() throws IOException {
+      return (int) readVarLong();
+    }
+
+    private long readVarLong() throws IOException {
+      long v = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        byte b = readByte();
+        v |= (long) (b & 0x7f) << shift;
+        if (b >= 0) {
+          return v;
+        }
+      }
+      throw new StreamCorruptedException("Malformed variable-length integer");
+    }
+
+    private int readZigZagInt() throws IOException {
+      int v = readVarInt();
+      return (v >>> 1) ^ -(v & 1);
+    }
+
+    private long readZigZagLong() throws IOException {
+      long v = readVarLong();
+      return (v >>> 1) ^ -(v & 1);
+    }
+
+    private int reserveHandle() {
+      _handles.add(null);
+      return _handles.size() - 1;
+    }
+
+    /** Applies the {@code readResolve} method of {@code info}, if any, to {@code o} */
+    private Object resolve(Object o, ClassInfo info, int handle) throws IOException {
+      if (info._readResolve == null) {
+        return o;
+      }
+      Object resolved = invoke(info._readResolve, o);
+      _handles.set(handle, resolved);
+      return resolved;
+    }
+
+    private Class<?> resolveClass(String name) throws ClassNotFoundException {
+      Class<?> primitive = PRIMITIVE_CLASSES.get(name);
+      return primitive != null ? primitive : Class.forName(name, false, _classLoader);
+    }
+
+    @Override
+    public int skipBytes(int len) throws IOException {
+      for (int i = 0; i < len; i++) {
+        readByte();
+      }
+      return len;
+    }
+  }
+
+  /** Writes objects, and serves as the stream passed to their {@code writeObject} methods */
+  private static final class Writer extends ObjectOutputStream {
+
+    private final byte[] _buf = new byte[BUFFER_SIZE];
+
+    private final Map<Class<?>, Integer> _classIds = new HashMap<>();
+
+    @Nullable private Layer _currentLayer;
+
+    @Nullable private Object _currentObject;
+
+    private final Map<Object, Integer> _handles = new IdentityHashMap<>();
+
+    private final OutputStream _out;
+
+    private int _pos;
+
+    private final Map<String, Integer> _stringIds = new HashMap<>();
+
+    private Writer(OutputStream out) throws IOException {
+      _out = out;
+    }
+
+    @Override
+    public void close() throws IOException {
+      flush();
+      _out.close();
+    }
+
+    @Override
+    public void defaultWriteObject() throws IOException {
+      if (_currentLayer == null) {
+        throw new NotActiveException("not in call to writeObject");
+      }
+      writeFields(_currentObject, _currentLayer);
+    }
+
+    private void ensure(int n) throws IOException {
+      if (_pos + n > _buf.length) {
+        flushBuffer();
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      flushBuffer();
+      _out.flush();
+    }
+
+    private void flushBuffer() throws IOException {
+      _out.write(_buf, 0, _pos);
+      _pos = 0;
+    }
+
+    private int newHandle(Object o) {
+      int handle = _handles.size();
+      _handles.put(o, handle);
+      return handle;
+    }
+
+    @Override
+    public PutField putFields() throws IOException {
+      throw new NotActiveException("putFields is not supported by " + NAME + " serialization");
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      if (len > _buf.length - _pos) {
+        flushBuffer();
+        _out.write(b, off, len);
+      } else {
+        System.arraycopy(b, off, _buf, _pos, len);
+        _pos += len;
+      }
+    }
+
+    @Override
+    public void write(byte[] b) throws IOException {
+      write(b, 0, b.length);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      ensure(1);
+      _buf[_pos++] = (byte) b;
+    }
+
+    private void writeAny(@Nullable Object o) throws IOException {
+      if (o == null) {
+        write(TAG_NULL);
+        return;
+      } else if (o instanceof String) {
+        writeString((String) o);
+        return;
+      }
+      Class<?> c = o.getClass();
+      if (c == Integer.class) {
+        write(TAG_INT);
+        writeZigZagInt((Integer) o);
+        return;
+      } else if (c == Long.class) {
+        write(TAG_LONG);
+        writeZigZagLong((Long) o);
+        return;
+      } else if (c == Boolean.class) {
+        write((Boolean) o ? TAG_TRUE : TAG_FALSE);
+        return;
+      } else if (c == Double.class) {
+        write(TAG_DOUBLE);
+        writeDouble((Double) o);
+        return;
+      } else if (c == Float.class) {
+        write(TAG_FLOAT);
+        writeFloat((Float) o);
+        return;
+      } else if (c == Short.class) {
+        write(TAG_SHORT);
+        writeShort((Short) o);
+        return;
+      } else if (c == Byte.class) {
+        write(TAG_BYTE);
+        writeByte((Byte) o);
+        return;
+      } else if (c == Character.class) {
+        write(TAG_CHAR);
+        writeChar((Character) o);
+        return;
+      } else if (c == Class.class) {
+        write(TAG_CLASS);
+        writeClass((Class<?>) o);
+        return;
+      }
+      Integer handle = _handles.get(o);
+      if (handle != null) {
+        write(TAG_REF);
+        writeVarInt(handle);
+        return;
+      }
+      ClassInfo info = CLASS_INFOS.get(c);
+      if (info._writeReplace != null) {
+        Object replacement = invoke(info._writeReplace, o);
+        if (replacement != o) {
+          writeAny(replacement);
+          Integer replacementHandle = replacement == null ? null : _handles.get(replacement);
+          if (replacementHandle != null) {
+            _handles.put(o, replacementHandle);
+          }
+          return;
+        }
+      }
+      switch (info._kind) {
+        case ARRAY:
+          writeArray(o);
+          break;
+        case COLLECTION:
+        case MAP:
+          writeContainer(o, info._writeAs != null ? info._writeAs : info);
+          break;
+        case ENUM:
+          write(TAG_ENUM);
+          writeClass(((Enum<?>) o).getDeclaringClass());
+          writeVarInt(((Enum<?>) o).ordinal());
+          break;
+        case JAVA:
+          {
+            write(TAG_JAVA);
+            newHandle(o);
+            ByteArrayOutputStream data = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(data)) {
+              out.writeObject(o);
+            }
+            writeVarInt(data.size());
+            data.writeTo(this);
+            break;
+          }
+        case OBJECT:
+          write(TAG_OBJECT);
+          writeClass(c);
+          newHandle(o);
+          writeLayers(o, info);
+          break;
+        case NOT_SERIALIZABLE:
+        default:
+          throw new NotSerializableException(c.getName());
+      }
+    }
+
+    private void writeArray(Object array) throws IOException {
+      Class<?> component = array.getClass().getComponentType();
+      write(TAG_ARRAY);
+      writeClass(array.getClass());
+      newHandle(array);
+      int length = Array.getLength(array);
+      writeVarInt(length);
+      if (component == byte.class) {
+        write((byte[]) array);
+      } else if (!component.isPrimitive()) {
+        for (Object element : (Object[]) array) {
+          writeAny(element);
+        }
+      } else {
+        char type = typeCode(component);
+        for (int i = 0; i < length; i++) {
+          writeValue(type, Array.get(array, i));
+        }
+      }
+    }
+
+    @Override
+    public void writeBoolean(boolean v) throws IOException {
+      write(v ? 1 : 0);
+    }
+
+    @Override
+    public void writeByte(int v) throws IOException {
+      write(v);
+    }
+
+    @Override
+    public void writeBytes(String s) throws IOException {
+      for (int i = 0; i < s.length(); i++) {
+        write(s.charAt(i));
+      }
+    }
+
+    @Override
+    public void writeChar(int v) throws IOException {
+      writeShort(v);
+    }
+
+    @Override
+    public void writeChars(String s) throws IOException {
+      for (int i = 0; i < s.length(); i++) {
+        writeChar(s.charAt(i));
+      }
+    }
+
+    private void writeClass(Class<?> c) throws IOException {
+      Integer id = _classIds.get(c);
+      if (id != null) {
+        writeVarInt(id + 1);
+        return;
+      }
+      writeVarInt(0);
+      writeRawString(c.getName());
+      writeLong(CLASS_INFOS.get(c)._fingerprint);
+      _classIds.put(c, _classIds.size());
+    }
+
+    private void writeContainer(Object container, ClassInfo info) throws IOException {
+      write(TAG_CONTAINER);
+      writeClass(info._class);
+      newHandle(container);
+      if (info._sorted) {
+        writeAny(
+            container instanceof SortedSet<?>
+                ? ((SortedSet<?>) container).comparator()
+                : ((SortedMap<?, ?>) container).comparator());
+      }
+      writeLayers(container, info);
+      if (info._kind == Kind.COLLECTION) {
+        Collection<?> collection = (Collection<?>) container;
+        writeVarInt(collection.size());
+        for (Object element : collection) {
+          writeAny(element);
+        }
+      } else {
+        Map<?, ?> map = (Map<?, ?>) container;
+        writeVarInt(map.size());
+        for (Entry<?, ?> e : map.entrySet()) {
+          writeAny(e.getKey());
+          writeAny(e.getValue());
+        }
+      }
+    }
+
+    @Override
+    public void writeDouble(double v) throws IOException {
+      writeLong(Double.doubleToLongBits(v));
+    }
+
+    private void writeFields(Object o, Layer layer) throws IOException {
+      Field[] fields = layer._fields;
+      char[] types = layer._types;
+      try {
+        for (int i = 0; i < fields.length; i++) {
+          writeValue(types[i], fields[i].get(o));
+        }
+      } catch (IllegalAccessException e) {
+        throw new InvalidClassException(layer._class.getName(), "cannot get field: " + e);
+      }
+    }
+
+    @Override
+    public void writeFields() throws IOException {
+      throw new NotActiveException("writeFields is not supported by " + NAME + " serialization");
+    }
+
+    @Override
+    public void writeFloat(float v) throws IOException {
+      writeInt(Float.floatToIntBits(v));
+    }
+
+    @Override
+    public void writeInt(int v) throws IOException {
+      ensure(4);
+      _buf[_pos] = (byte) (v >>> 24);
+      _buf[_pos + 1] = (byte) (v >>> 16);
+      _buf[_pos + 2] = (byte) (v >>> 8);
+      _buf[_pos + 3] = (byte) v;
+      _pos += 4;
+    }
+
+    /** Writes the fields of each layer of {@code info} from {@code o} */
+    private void writeLayers(Object o, ClassInfo info) throws IOException {
+      for (Layer layer : info._layers) {
+        if (layer._writeObject == null) {
+          writeFields(o, layer);
+          continue;
+        }
+        Layer layerBefore = _currentLayer;
+        Object objectBefore = _currentObject;
+        _currentLayer = layer;
+        _currentObject = o;
+        try {
+          invoke(layer._writeObject, o, this);
+        } finally {
+          _currentLayer = layerBefore;
+          _currentObject = objectBefore;
+        }
+      }
+    }
+
+    @Override
+    public void writeLong(long v) throws IOException {
+      writeInt((int) (v >>> 32));
+      writeInt((int) v);
+    }
+
+    @Override
+    protected void writeObjectOverride(Object obj) throws IOException {
+      writeAny(obj);
+    }
+
+    private void writeRawString(String s) throws IOException {
+      int length = s.length();
+      writeVarInt(length);
+      for (int i = 0; i < length; i++) {
+        writeVarInt(s.charAt(i));
+      }
+    }
+
+    @Override
+    public void writeShort(int v) throws IOException {
+      ensure(2);
+      _buf[_pos] = (byte) (v >>> 8);
+      _buf[_pos + 1] = (byte) v;
+      _pos += 2;
+    }
+
+    private void writeString(String s) throws IOException {
+      Integer id = _stringIds.get(s);
+      if (id != null) {
+        write(TAG_STRING_REF);
+        writeVarInt(id);
+      } else {
+        write(TAG_STRING);
+        writeRawString(s);
+        _stringIds.put(s, _stringIds.size());
+      }
+    }
+
+    @Override
+    public void writeUnshared(Object obj) throws IOException {
+      writeAny(obj);
+    }
+
+    @Override
+    public void writeUTF(String s) throws IOException {
+      writeRawString(s);
+    }
+
+    /** Writes a value of the given {@link Layer#_types type} */
+    private void writeValue(char type, Object value) throws IOException {
+      switch (type) {
+        case 'Z':
+          writeBoolean((Boolean) value);
+          break;
+        case 'B':
+          writeByte((Byte) value);
+          break;
+        case 'C':
+          writeChar((Character) value);
+          break;
+        case 'S':
+          writeShort((Short) value);
+          break;
+        case 'I':
+          writeZigZagInt((Integer) value);
+          break;
+        case 'J':
+          writeZigZagLong((Long) value);
+          break;
+        case 'F':
+          writeFloat((Float) value);
+          break;
+        case 'D':
+          writeDouble((Double) value);
+          break;
+        default:
+          writeAny(value);
+          break;
+      }
+    }
+
+    private void writeVarInt(int v) throws IOException {
+      writeVarLong(v & 0xffffffffL);
+    }
+
+    private void writeVarLong(long v) throws IOException {
+      ensure(10);
+      while ((v & ~0x7fL) != 0) {
+        _buf[_pos++] = (byte) ((v & 0x7f) | 0x80);
+        v >>>= 7;
+      }
+      _buf[_pos++] = (byte) v;
+    }
+
+    private void writeZigZagInt(int v) throws IOException {
+      writeVarInt((v << 1) ^ (v >> 31));
+    }
+
+    private void writeZigZagLong(long v) throws IOException {
+      writeVarLong((v << 1) ^ (v >> 63));
+    }
+  }
+
+  private static final int BUFFER_SIZE = 1 << 13;
+
+  private static final ClassValue<ClassInfo> CLASS_INFOS =
+      new ClassValue<ClassInfo>() {
+        @Override
+        protected ClassInfo computeValue(Class<?> type) {
+          return new ClassInfo(type);
+        }
+      };
+
+  /** The first 4 bytes of data written by this serializer */
+  private static final byte[] HEADER = {(byte) 0xbf, 'B', 'I', 'N'};
+
+  public static final String NAME = "binary";
+
+  private static final Map<String, Class<?>> PRIMITIVE_CLASSES = primitiveClasses();
+
+  /** Creates constructors that instantiate a class without running its own constructors */
+  @Nullable private static final Method SERIALIZATION_CONSTRUCTOR_FACTORY;
+
+  @Nullable private static final Object SERIALIZATION_CONSTRUCTOR_FACTORY_INSTANCE;
+
+  private static final int TAG_ARRAY = 15;
+
+  private static final int TAG_BYTE = 6;
+
+  private static final int TAG_CHAR = 8;
+
+  private static final int TAG_CLASS = 14;
+
+  private static final int TAG_CONTAINER = 16;
+
+  private static final int TAG_DOUBLE = 12;
+
+  private static final int TAG_ENUM = 13;
+
+  private static final int TAG_FALSE = 5;
+
+  private static final int TAG_FLOAT = 11;
+
+  private static final int TAG_INT = 9;
+
+  private static final int TAG_JAVA = 18;
+
+  private static final int TAG_LONG = 10;
+
+  private static final int TAG_NULL = 0;
+
+  private static final int TAG_OBJECT = 17;
+
+  private static final int TAG_REF = 1;
+
+  private static final int TAG_SHORT = 7;
+
+  private static final int TAG_STRING = 2;
+
+  private static final int TAG_STRING_REF = 3;
+
+  private static final int TAG_TRUE = 4;
+
+  static {
+    // the same mechanism Java serialization uses, looked up reflectively since it is not public API
+    Method factory = null;
+    Object factoryInstance = null;
+    try {
+      Class<?> factoryClass = Class.forName("sun.reflect.ReflectionFactory");
+      factoryInstance = factoryClass.getMethod("getReflectionFactory").invoke(null);
+      factory =
+          factoryClass.getMethod(
+              "newConstructorForSerialization", Class.class, Constructor.class);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      factory = null;
+    }
+    SERIALIZATION_CONSTRUCTOR_FACTORY = factory;
+    SERIALIZATION_CONSTRUCTOR_FACTORY_INSTANCE = factoryInstance;
+  }
+
+  @Nullable
+  private static Constructor<?> declaredConstructor(Class<?> c) {
+    try {
+      Constructor<?> constructor = c.getDeclaredConstructor();
+      constructor.setAccessible(true);
+      return constructor;
+    } catch (NoSuchMethodException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns the {@code readResolve} or {@code writeReplace} method that Java serialization would
+   * invoke on instances of {@code c}, if any.
+   */
+  @Nullable
+  private static Method inheritedMethod(Class<?> c, String name) {
+    for (Class<?> k = c; k != null; k = k.getSuperclass()) {
+      Method method;
+      try {
+        method = k.getDeclaredMethod(name);
+      } catch (NoSuchMethodException e) {
+        continue;
+      }
+      int modifiers = method.getModifiers();
+      if (Modifier.isStatic(modifiers)
+          || Modifier.isAbstract(modifiers)
+          || method.getReturnType() != Object.class
+          || (Modifier.isPrivate(modifiers) && k != c)
+          || (!Modifier.isPublic(modifiers)
+              && !Modifier.isProtected(modifiers)
+              && !Modifier.isPrivate(modifiers)
+              && !samePackage(c, k))) {
+        return null;
+      }
+      method.setAccessible(true);
+      return method;
+    }
+    return null;
+  }
+
+  private static Object invoke(Method method, Object target, Object... args) throws IOException {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IOException(cause);
+    } catch (IllegalAccessException e) {
+      throw new InvalidClassException(method.getDeclaringClass().getName(), e.toString());
+    }
+  }
+
+  private static boolean isJdkClass(Class<?> c) {
+    String name = c.getName();
+    return name.startsWith("java.")
+        || name.startsWith("javax.")
+        || name.startsWith("jdk.")
+        || name.startsWith("sun.")
+        || name.startsWith("com.sun.");
+  }
+
+  /**
+   * Returns true if {@code c} is a view or an immutable implementation in the JDK, which can be
+   * read back as a regular implementation of the same interface.
+   */
+  private static boolean isSubstitutable(Class<?> c) {
+    String name = c.getName();
+    return name.startsWith("java.util.Collections$Empty")
+        || name.startsWith("java.util.Collections$Singleton")
+        || name.startsWith("java.util.Collections$Unmodifiable")
+        || name.startsWith("java.util.ImmutableCollections$")
+        || name.equals("java.util.Arrays$ArrayList");
+  }
+
+  private static Map<String, Class<?>> primitiveClasses() {
+    Map<String, Class<?>> classes = new HashMap<>();
+    for (Class<?> c :
+        Arrays.<Class<?>>asList(
+            boolean.class,
+            byte.class,
+            char.class,
+            short.class,
+            int.class,
+            long.class,
+            float.class,
+            double.class,
+            void.class)) {
+      classes.put(c.getName(), c);
+    }
+    return classes;
+  }
+
+  @Nullable
+  private static Method privateMethod(Class<?> c, String name, Class<?> parameterType) {
+    try {
+      Method method = c.getDeclaredMethod(name, parameterType);
+      int modifiers = method.getModifiers();
+      if (!Modifier.isPrivate(modifiers)
+          || Modifier.isStatic(modifiers)
+          || method.getReturnType() != void.class) {
+        return null;
+      }
+      method.setAccessible(true);
+      return method;
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+
+  @Nullable
+  private static Constructor<?> publicConstructor(Class<?> c, Class<?>... parameterTypes) {
+    if (!Modifier.isPublic(c.getModifiers())) {
+      return null;
+    }
+    try {
+      return c.getConstructor(parameterTypes);
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+
+  private static boolean samePackage(Class<?> c1, Class<?> c2) {
+    return c1.getClassLoader() == c2.getClassLoader()
+        && c1.getName().substring(0, Math.max(0, c1.getName().lastIndexOf('.')))
+            .equals(c2.getName().substring(0, Math.max(0, c2.getName().lastIndexOf('.'))));
+  }
+
+  /**
+   * Returns a constructor for {@code c} that, like Java serialization, only runs the no-argument
+   * constructor of {@code nonSerializableSuperclass}, the first superclass of {@code c} that is not
+   * serializable.
+   */
+  @Nullable
+  private static Constructor<?> serializationConstructor(
+      Class<?> c, @Nullable Class<?> nonSerializableSuperclass) {
+    if (SERIALIZATION_CONSTRUCTOR_FACTORY == null || nonSerializableSuperclass == null) {
+      return null;
+    }
+    try {
+      Constructor<?> superConstructor = nonSerializableSuperclass.getDeclaredConstructor();
+      if (Modifier.isPrivate(superConstructor.getModifiers())) {
+        return null;
+      }
+      Constructor<?> constructor =
+          (Constructor<?>)
+              SERIALIZATION_CONSTRUCTOR_FACTORY.invoke(
+                  SERIALIZATION_CONSTRUCTOR_FACTORY_INSTANCE, c, superConstructor);
+      if (constructor == null) {
+        return null;
+      }
+      constructor.setAccessible(true);
+      return constructor;
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  /** Returns the class of the JDK with a public constructor used to read back {@code c} */
+  private static Class<?> substitute(Class<?> c) {
+    if (List.class.isAssignableFrom(c)) {
+      return ArrayList.class;
+    } else if (SortedSet.class.isAssignableFrom(c)) {
+      return TreeSet.class;
+    } else if (Set.class.isAssignableFrom(c)) {
+      return LinkedHashSet.class;
+    } else if (SortedMap.class.isAssignableFrom(c)) {
+      return TreeMap.class;
+    } else if (Map.class.isAssignableFrom(c)) {
+      return LinkedHashMap.class;
+    }
+    return ArrayList.class;
+  }
+
+  /** Returns the descriptor of primitive type {@code c}, or 'L' if {@code c} is not primitive */
+  private static char typeCode(Class<?> c) {
+    if (c == boolean.class) {
+      return 'Z';
+    } else if (c == byte.class) {
+      return 'B';
+    } else if (c == char.class) {
+      return 'C';
+    } else if (c == short.class) {
+      return 'S';
+    } else if (c == int.class) {
+      return 'I';
+    } else if (c == long.class) {
+      return 'J';
+    } else if (c == float.class) {
+      return 'F';
+    } else if (c == double.class) {
+      return 'D';
+    }
+    return 'L';
+  }
+
+  @Override
+  public boolean canDeserialize(byte[] header) {
+    return Arrays.equals(header, HEADER);
+  }
+
+  @Override
+  public Object deserialize(InputStream in, ClassLoader classLoader)
+      throws IOException, ClassNotFoundException {
+    Reader reader = new Reader(in, classLoader);
+    byte[] header = new byte[HEADER.length];
+    reader.readFully(header);
+    if (!canDeserialize(header)) {
+      throw new StreamCorruptedException("Not data written by the " + NAME + " serializer");
+    }
+    return reader.readObject();
+  }
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public void serialize(Serializable object, OutputStream out) throws IOException {
+    try (Writer writer = new Writer(out)) {
+      writer.write(HEADER);
+      writer.writeObject(object);
+    }
+  }
+}
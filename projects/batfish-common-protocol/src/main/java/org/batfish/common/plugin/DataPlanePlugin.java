@@ -1,10 +1,12 @@
 package org.batfish.common.plugin;
 
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import org.batfish.datamodel.AbstractRoute;
+import org.batfish.datamodel.DataPlane;
 import org.batfish.datamodel.Flow;
 import org.batfish.datamodel.FlowTrace;
 import org.batfish.datamodel.answers.Answer;
@@ -44,6 +46,9 @@ public abstract class DataPlanePlugin extends BatfishPlugin implements IDataPlan
 
   protected void dataPlanePluginInitialize() {}
 
+  /** Loads the data plane written to {@code dataPlanePath} by {@link #serializeDataPlane}. */
+  public abstract DataPlane deserializeDataPlane(Path dataPlanePath);
+
   public abstract AdvertisementSet getAdvertisements();
 
   public abstract List<Flow> getHistoryFlows();
@@ -55,4 +60,7 @@ public abstract class DataPlanePlugin extends BatfishPlugin implements IDataPlan
   public abstract SortedMap<String, SortedMap<String, SortedSet<AbstractRoute>>> getRoutes();
 
   public abstract void processFlows(Set<Flow> flows);
+
+  /** Writes {@code dataPlane}, as computed by this plugin, to {@code dataPlanePath}. */
+  public abstract void serializeDataPlane(DataPlane dataPlane, Path dataPlanePath);
 }
@@ -0,0 +1,23 @@
+package org.batfish.common.plugin;
+
+public interface DataPlanePluginSettings {
+
+  /**
+   * Whether every node should be recomputed on each dependent-routes iteration of the data plane
+   * fixed-point computation, rather than only the nodes whose inputs changed in the previous
+   * iteration. Intended for verifying the incremental computation.
+   */
+  boolean getBdpFullRebuild();
+
+  /**
+   * The maximum number of traces reported for each flow. Traces are kept in a compact form while
+   * flows are processed, and only this many are expanded when the flow history is requested.
+   */
+  int getBdpMaxTracesPerFlow();
+
+  /**
+   * The maximum number of results memoized for each BGP routing policy while the data plane is
+   * computed, or 0 to apply policies anew to every route.
+   */
+  int getBdpPolicyCacheSize();
+}
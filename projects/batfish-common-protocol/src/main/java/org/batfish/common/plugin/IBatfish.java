@@ -60,6 +60,14 @@ public interface IBatfish extends IPluginConsumer {
 
   Map<String, BiFunction<Question, IBatfish, Answerer>> getAnswererCreators();
 
+  DataPlanePluginSettings getDataPlanePluginSettings();
+
+  /** Returns the total time in milliseconds this instance has spent deserializing objects */
+  long getDeserializationTime();
+
+  /** Returns the total size in bytes of the objects this instance has deserialized */
+  long getDeserializedBytes();
+
   String getDifferentialFlowTag();
 
   String getFlowTag();
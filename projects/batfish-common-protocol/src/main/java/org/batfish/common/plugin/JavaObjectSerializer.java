@@ -0,0 +1,45 @@
+package org.batfish.common.plugin;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import org.batfish.common.util.BatfishObjectInputStream;
+
+/** {@link ObjectSerializer} using standard Java serialization */
+public final class JavaObjectSerializer implements ObjectSerializer {
+
+  /** The first 4 bytes of the header for data that is the output of java serialization */
+  private static final byte[] JAVA_SERIALIZED_OBJECT_HEADER = {
+    (byte) 0xac, (byte) 0xed, (byte) 0x00, (byte) 0x05
+  };
+
+  public static final String NAME = "java";
+
+  @Override
+  public boolean canDeserialize(byte[] header) {
+    return Arrays.equals(header, JAVA_SERIALIZED_OBJECT_HEADER);
+  }
+
+  @Override
+  public Object deserialize(InputStream in, ClassLoader classLoader)
+      throws IOException, ClassNotFoundException {
+    ObjectInputStream ois = new BatfishObjectInputStream(in, classLoader);
+    return ois.readObject();
+  }
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public void serialize(Serializable object, OutputStream out) throws IOException {
+    try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+      oos.writeObject(object);
+    }
+  }
+}
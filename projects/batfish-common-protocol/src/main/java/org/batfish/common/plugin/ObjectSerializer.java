@@ -0,0 +1,38 @@
+package org.batfish.common.plugin;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+
+/**
+ * Encoding used by a {@link PluginConsumer} to persist objects such as vendor-specific and
+ * vendor-independent configurations. Compression is applied separately, according to the
+ * consumer's {@link SerializationCompression}.
+ *
+ * <p>Besides the built-in {@link JavaObjectSerializer} and {@link XStreamObjectSerializer},
+ * implementations are discovered with {@link java.util.ServiceLoader}, and are selected for
+ * writing by their {@link #getName name}. Every discovered implementation is consulted when
+ * reading, so data written by any of them stays readable.
+ */
+public interface ObjectSerializer {
+
+  /** Number of leading bytes inspected by {@link #canDeserialize} */
+  int HEADER_LENGTH = 4;
+
+  /**
+   * Returns true if {@code header}, the first {@link #HEADER_LENGTH} bytes of some serialized
+   * data, identifies data written by this serializer.
+   */
+  boolean canDeserialize(byte[] header);
+
+  /** Reads a single object from {@code in}, resolving classes using {@code classLoader}. */
+  Object deserialize(InputStream in, ClassLoader classLoader)
+      throws IOException, ClassNotFoundException;
+
+  /** Returns the name by which this serializer is selected, such as {@code "java"} */
+  String getName();
+
+  /** Writes {@code object} to {@code out}, then closes {@code out}. */
+  void serialize(Serializable object, OutputStream out) throws IOException;
+}
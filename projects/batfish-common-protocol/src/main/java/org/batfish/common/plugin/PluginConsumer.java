@@ -2,17 +2,14 @@ package org.batfish.common.plugin;
 
 import com.google.common.io.ByteStreams;
 import com.google.common.io.Closer;
-import com.thoughtworks.xstream.XStream;
-import com.thoughtworks.xstream.io.xml.DomDriver;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.PushbackInputStream;
 import java.io.Serializable;
@@ -31,37 +28,85 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.ServiceLoader;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
+import java.util.stream.Collectors;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import javax.annotation.Nullable;
 import org.apache.commons.io.IOUtils;
 import org.batfish.common.BatfishException;
 import org.batfish.common.BfConsts;
-import org.batfish.common.util.BatfishObjectInputStream;
 
 public abstract class PluginConsumer implements IPluginConsumer {
 
   private static final String CLASS_EXTENSION = ".class";
 
-  /**
-   * A byte-array containing the first 4 bytes of the header for a file that is the output of java
-   * serialization
-   */
-  private static final byte[] JAVA_SERIALIZED_OBJECT_HEADER = {
-    (byte) 0xac, (byte) 0xed, (byte) 0x00, (byte) 0x05
-  };
+  /** The first 2 bytes of GZIP-compressed data */
+  private static final byte[] GZIP_HEADER = {(byte) 0x1f, (byte) 0x8b};
+
+  private final SerializationCompression _compression;
 
   private ClassLoader _currentClassLoader;
 
+  /** Serializers able to read persisted data, in the order in which they are consulted */
+  private final List<ObjectSerializer> _deserializers;
+
   private final List<Path> _pluginDirs;
 
-  private final boolean _serializeToText;
+  private final ObjectSerializer _serializer;
 
   public PluginConsumer(boolean serializeToText, List<Path> pluginDirs) {
+    this(serializeToText, SerializationCompression.GZIP, pluginDirs);
+  }
+
+  public PluginConsumer(
+      boolean serializeToText, SerializationCompression compression, List<Path> pluginDirs) {
+    this(
+        serializeToText ? XStreamObjectSerializer.NAME : JavaObjectSerializer.NAME,
+        compression,
+        pluginDirs);
+  }
+
+  /**
+   * Creates a consumer writing objects with the {@link ObjectSerializer} named {@code
+   * serializerName}, either built in or discovered with {@link ServiceLoader}.
+   */
+  public PluginConsumer(
+      String serializerName, SerializationCompression compression, List<Path> pluginDirs) {
+    this(null, serializerName, compression, pluginDirs);
+  }
+
+  /** Creates a consumer writing objects with {@code serializer} */
+  public PluginConsumer(
+      ObjectSerializer serializer, SerializationCompression compression, List<Path> pluginDirs) {
+    this(serializer, serializer.getName(), compression, pluginDirs);
+  }
+
+  private PluginConsumer(
+      @Nullable ObjectSerializer serializer,
+      String serializerName,
+      SerializationCompression compression,
+      List<Path> pluginDirs) {
     // _currentClassLoader = getClass().getClassLoader();
     _currentClassLoader = Thread.currentThread().getContextClassLoader();
-    _serializeToText = serializeToText;
+    _compression = compression;
+    _deserializers = loadSerializers(serializer, _currentClassLoader);
+    _serializer =
+        _deserializers
+            .stream()
+            .filter(s -> s.getName().equals(serializerName))
+            .findFirst()
+            .orElseThrow(
+                () ->
+                    new BatfishException(
+                        "Unknown serializer: '"
+                            + serializerName
+                            + "', expected one of: "
+                            + _deserializers
+                                .stream()
+                                .map(ObjectSerializer::getName)
+                                .collect(Collectors.toList())));
     _pluginDirs = new ArrayList<>(pluginDirs);
     String questionPluginDirStr = System.getProperty(BfConsts.PROP_QUESTION_PLUGIN_DIR);
     // try to place question plugin first if system property is defined
@@ -83,18 +128,17 @@ public abstract class PluginConsumer implements IPluginConsumer {
       // Allows us to peek at the beginning of the stream and then push the bytes back in for
       // downstream consumers to read.
       PushbackInputStream pbstream =
-          new PushbackInputStream(stream, JAVA_SERIALIZED_OBJECT_HEADER.length);
-      boolean isJavaSerializationData = isJavaSerializationData(pbstream);
-      ObjectInputStream ois;
-      if (!isJavaSerializationData) {
-        XStream xstream = new XStream(new DomDriver("UTF-8"));
-        xstream.setClassLoader(_currentClassLoader);
-        ois = xstream.createObjectInputStream(pbstream);
-      } else {
-        ois = new BatfishObjectInputStream(pbstream, _currentClassLoader);
+          new PushbackInputStream(stream, ObjectSerializer.HEADER_LENGTH);
+      byte[] header = new byte[ObjectSerializer.HEADER_LENGTH];
+      ByteStreams.readFully(pbstream, header);
+      pbstream.unread(header);
+      for (ObjectSerializer deserializer : _deserializers) {
+        if (deserializer.canDeserialize(header)) {
+          Object o = deserializer.deserialize(pbstream, _currentClassLoader);
+          return outputClass.cast(o);
+        }
       }
-      Object o = ois.readObject();
-      return outputClass.cast(o);
+      throw new BatfishException("No serializer recognizes the data");
     } catch (IOException | ClassNotFoundException | ClassCastException e) {
       throw new BatfishException(
           "Failed to deserialize object of type '" + outputClass.getCanonicalName() + "' from data",
@@ -106,9 +150,8 @@ public abstract class PluginConsumer implements IPluginConsumer {
     try {
       // Awkward nested try blocks required because we refuse to throw IOExceptions.
       try (Closer closer = Closer.create()) {
-        FileInputStream fis = closer.register(new FileInputStream(inputFile.toFile()));
-        GZIPInputStream gis = closer.register(new GZIPInputStream(fis));
-        return deserializeObject(gis, outputClass);
+        InputStream in = closer.register(openSerializedFile(inputFile));
+        return deserializeObject(in, outputClass);
       }
     } catch (IOException e) {
       throw new BatfishException(
@@ -119,16 +162,19 @@ public abstract class PluginConsumer implements IPluginConsumer {
     }
   }
 
-  protected byte[] fromGzipFile(Path inputFile) {
+  /**
+   * Reads the serialized data stored in {@code inputFile}, decompressing it if it was compressed
+   * when written.
+   */
+  protected byte[] fromSerializedFile(Path inputFile) {
     try {
       // Awkward nested try blocks required because we refuse to throw IOExceptions.
       try (Closer closer = Closer.create()) {
-        FileInputStream fis = closer.register(new FileInputStream(inputFile.toFile()));
-        GZIPInputStream gis = closer.register(new GZIPInputStream(fis));
-        return IOUtils.toByteArray(gis);
+        InputStream in = closer.register(openSerializedFile(inputFile));
+        return IOUtils.toByteArray(in);
       }
     } catch (IOException e) {
-      throw new BatfishException("Failed to gunzip file: " + inputFile, e);
+      throw new BatfishException("Failed to read serialized file: " + inputFile, e);
     }
   }
 
@@ -139,15 +185,43 @@ public abstract class PluginConsumer implements IPluginConsumer {
   public abstract PluginClientType getType();
 
   /**
-   * Determines whether the data in the stream is Java serialized bytes. Requires a {@link
-   * PushbackInputStream} so that the inspected bytes can be put back into the stream after reading.
+   * Opens {@code inputFile} for buffered reading, transparently decompressing its contents if they
+   * are GZIP-compressed.
+   */
+  private InputStream openSerializedFile(Path inputFile) throws IOException {
+    PushbackInputStream in =
+        new PushbackInputStream(
+            new BufferedInputStream(
+                Files.newInputStream(inputFile), SerializationCompression.BUFFER_SIZE),
+            GZIP_HEADER.length);
+    byte[] header = new byte[GZIP_HEADER.length];
+    int headerLength = ByteStreams.read(in, header, 0, header.length);
+    in.unread(header, 0, headerLength);
+    if (headerLength == header.length && Arrays.equals(header, GZIP_HEADER)) {
+      return new BufferedInputStream(
+          new GZIPInputStream(in, SerializationCompression.BUFFER_SIZE),
+          SerializationCompression.BUFFER_SIZE);
+    }
+    return in;
+  }
+
+  /**
+   * Returns {@code serializer} if not null, the built-in serializers and those discovered with
+   * {@link ServiceLoader}, in the order in which they are consulted when reading. {@link
+   * XStreamObjectSerializer} comes last since it accepts any data.
    */
-  private boolean isJavaSerializationData(PushbackInputStream stream) throws IOException {
-    byte[] header = new byte[JAVA_SERIALIZED_OBJECT_HEADER.length];
-    ByteStreams.readFully(stream, header);
-    boolean ret = Arrays.equals(header, JAVA_SERIALIZED_OBJECT_HEADER);
-    stream.unread(header);
-    return ret;
+  private static List<ObjectSerializer> loadSerializers(
+      @Nullable ObjectSerializer serializer, ClassLoader classLoader) {
+    List<ObjectSerializer> serializers = new ArrayList<>();
+    if (serializer != null) {
+      serializers.add(serializer);
+    }
+    serializers.add(new JavaObjectSerializer());
+    for (ObjectSerializer discovered : ServiceLoader.load(ObjectSerializer.class, classLoader)) {
+      serializers.add(discovered);
+    }
+    serializers.add(new XStreamObjectSerializer());
+    return serializers;
   }
 
   private boolean loadPluginJar(Path path) {
@@ -300,22 +374,24 @@ public abstract class PluginConsumer implements IPluginConsumer {
     }
   }
 
-  /** Serializes the given object to a file with the given output name, using GZIP compression. */
+  /**
+   * Serializes the given object to a file with the given output name, using the configured
+   * compression.
+   */
   public void serializeObject(Serializable object, Path outputFile) {
     try {
       try (OutputStream out = Files.newOutputStream(outputFile)) {
-        serializeToGzipData(object, out);
+        serializeToStream(object, out);
       }
     } catch (IOException e) {
-      throw new BatfishException(
-          "Failed to serialize object to gzip output file: " + outputFile, e);
+      throw new BatfishException("Failed to serialize object to output file: " + outputFile, e);
     }
   }
 
-  /** Serializes the given object to a GZIP-compressed byte[]. */
-  protected byte[] toGzipData(Serializable object) {
+  /** Serializes the given object to a byte[], using the configured compression. */
+  protected byte[] toSerializedData(Serializable object) {
     ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    serializeToGzipData(object, baos);
+    serializeToStream(object, baos);
     return baos.toByteArray();
   }
 
@@ -328,27 +404,29 @@ public abstract class PluginConsumer implements IPluginConsumer {
     /** Does nothing, deliberately. */
     @Override
     public void close() {}
+
+    /** Writes the whole array at once, rather than byte-by-byte as {@link FilterOutputStream}. */
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+    }
   }
 
-  /** Serializes the given object to the given stream, using GZIP compression. */
-  private void serializeToGzipData(Serializable object, OutputStream out) {
+  /** Serializes the given object to the given stream, using the configured compression. */
+  private void serializeToStream(Serializable object, OutputStream out) {
     // This is a hack:
-    //   XStream requires that its streams be closed to properly finish serialization,
-    //   but we do not actually want to close the passed-in output stream.
+    //   Serializers close their streams to properly finish compression and (for XStream)
+    //   serialization, but we do not actually want to close the passed-in output stream.
     out = new CloseIgnoringOutputStream(out);
 
     try (Closer closer = Closer.create()) {
-      GZIPOutputStream gos = closer.register(new GZIPOutputStream(out));
-      ObjectOutputStream oos;
-      if (_serializeToText) {
-        XStream xstream = new XStream(new DomDriver("UTF-8"));
-        oos = closer.register(xstream.createObjectOutputStream(gos));
-      } else {
-        oos = closer.register(new ObjectOutputStream(gos));
-      }
-      oos.writeObject(object);
+      OutputStream compressed =
+          closer.register(
+              new BufferedOutputStream(
+                  _compression.compress(out), SerializationCompression.BUFFER_SIZE));
+      _serializer.serialize(object, compressed);
     } catch (IOException e) {
-      throw new BatfishException("Failed to convert object to gzip data", e);
+      throw new BatfishException("Failed to serialize object", e);
     }
   }
 }
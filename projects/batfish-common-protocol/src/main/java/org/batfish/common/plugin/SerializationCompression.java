@@ -0,0 +1,48 @@
+package org.batfish.common.plugin;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import org.batfish.common.BatfishException;
+
+/**
+ * Compression applied by a {@link PluginConsumer} to serialized objects. Compressed data is
+ * recognized when reading regardless of the compression currently configured.
+ */
+public enum SerializationCompression {
+  /** GZIP at the default compression level */
+  GZIP,
+  /** GZIP at the fastest compression level, trading some disk space for speed */
+  GZIP_FAST,
+  /** No compression */
+  NONE;
+
+  static final int BUFFER_SIZE = 1 << 16;
+
+  public static SerializationCompression fromName(String name) {
+    try {
+      return valueOf(name.toUpperCase());
+    } catch (IllegalArgumentException e) {
+      throw new BatfishException("Invalid serialization compression: '" + name + "'", e);
+    }
+  }
+
+  /** Wraps {@code out} so that data written to the result is compressed into {@code out}. */
+  OutputStream compress(OutputStream out) throws IOException {
+    switch (this) {
+      case GZIP:
+        return new GZIPOutputStream(out, BUFFER_SIZE);
+      case GZIP_FAST:
+        return new GZIPOutputStream(out, BUFFER_SIZE) {
+          {
+            def.setLevel(Deflater.BEST_SPEED);
+          }
+        };
+      case NONE:
+        return out;
+      default:
+        throw new BatfishException("Unsupported serialization compression: " + this);
+    }
+  }
+}
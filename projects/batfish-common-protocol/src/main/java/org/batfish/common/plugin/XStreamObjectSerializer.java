@@ -0,0 +1,45 @@
+package org.batfish.common.plugin;
+
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.io.xml.DomDriver;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+
+/** {@link ObjectSerializer} writing human-readable XML using XStream */
+public final class XStreamObjectSerializer implements ObjectSerializer {
+
+  public static final String NAME = "xstream";
+
+  /** Accepts any data, so must be consulted last. */
+  @Override
+  public boolean canDeserialize(byte[] header) {
+    return true;
+  }
+
+  @Override
+  public Object deserialize(InputStream in, ClassLoader classLoader)
+      throws IOException, ClassNotFoundException {
+    XStream xstream = new XStream(new DomDriver("UTF-8"));
+    xstream.setClassLoader(classLoader);
+    ObjectInputStream ois = xstream.createObjectInputStream(in);
+    return ois.readObject();
+  }
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public void serialize(Serializable object, OutputStream out) throws IOException {
+    XStream xstream = new XStream(new DomDriver("UTF-8"));
+    // XStream requires that its streams be closed to properly finish serialization
+    try (ObjectOutputStream oos = xstream.createObjectOutputStream(out)) {
+      oos.writeObject(object);
+    }
+  }
+}
@@ -3,64 +3,73 @@ package org.batfish.datamodel;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonValue;
 import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.primitives.Ints;
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
 import java.util.SortedSet;
-import org.batfish.common.util.CommonUtil;
 
+/**
+ * An immutable BGP AS-path: a sequence of AS-sets, each holding one or more AS numbers. The AS-sets
+ * are stored as sorted primitive arrays. Instances shared by many routes should be obtained from
+ * {@link BgpAttributeInterner}, which also makes comparing them for equality a reference check.
+ */
 public class AsPath implements Serializable, Comparable<AsPath> {
 
   private static final long serialVersionUID = 1L;
 
-  private final List<SortedSet<Integer>> _asSets;
+  private final int[][] _asSets;
+
+  /** Cached since AS-paths are immutable and frequently used as cache keys; 0 if not computed */
+  private transient int _hashCode;
+
+  /** Whether this is the instance held by {@link BgpAttributeInterner} for its value */
+  private transient boolean _interned;
 
   @JsonCreator
   public AsPath(List<SortedSet<Integer>> asSets) {
-    _asSets = copyAsSets(asSets);
+    _asSets = new int[asSets.size()][];
+    int i = 0;
+    for (SortedSet<Integer> asSet : asSets) {
+      int[] sortedAsSet = Ints.toArray(asSet);
+      Arrays.sort(sortedAsSet);
+      _asSets[i++] = sortedAsSet;
+    }
   }
 
   @Override
   public int compareTo(AsPath rhs) {
-    Iterator<SortedSet<Integer>> l = _asSets.iterator();
-    Iterator<SortedSet<Integer>> r = rhs._asSets.iterator();
-    while (l.hasNext()) {
-      if (!r.hasNext()) {
-        return 1;
+    if (this == rhs) {
+      return 0;
+    }
+    int length = Math.min(_asSets.length, rhs._asSets.length);
+    for (int i = 0; i < length; i++) {
+      int[] lVal = _asSets[i];
+      int[] rVal = rhs._asSets[i];
+      int setLength = Math.min(lVal.length, rVal.length);
+      for (int j = 0; j < setLength; j++) {
+        int ret = Integer.compare(lVal[j], rVal[j]);
+        if (ret != 0) {
+          return ret;
+        }
       }
-      SortedSet<Integer> lVal = l.next();
-      SortedSet<Integer> rVal = r.next();
-      int ret = CommonUtil.compareCollection(lVal, rVal);
-      if (ret != 0) {
-        return ret;
+      if (lVal.length != rVal.length) {
+        return Integer.compare(lVal.length, rVal.length);
       }
     }
-    if (r.hasNext()) {
-      return -1;
-    }
-    return 0;
+    return Integer.compare(_asSets.length, rhs._asSets.length);
   }
 
   public boolean containsAs(int as) {
-    for (Set<Integer> asSet : _asSets) {
-      if (asSet.contains(as)) {
+    for (int[] asSet : _asSets) {
+      if (Arrays.binarySearch(asSet, as) >= 0) {
         return true;
       }
     }
     return false;
   }
 
-  private List<SortedSet<Integer>> copyAsSets(List<SortedSet<Integer>> asSets) {
-    List<SortedSet<Integer>> newAsSets = new ArrayList<>(asSets.size());
-    for (SortedSet<Integer> asSet : asSets) {
-      SortedSet<Integer> newAsSet = ImmutableSortedSet.copyOf(asSet);
-      newAsSets.add(newAsSet);
-    }
-    return newAsSets;
-  }
-
   @Override
   public boolean equals(Object obj) {
     if (this == obj) {
@@ -73,29 +82,24 @@ public class AsPath implements Serializable, Comparable<AsPath> {
       return false;
     }
     AsPath other = (AsPath) obj;
-    if (_asSets == null) {
-      if (other._asSets != null) {
-        return false;
-      }
-    } else if (!_asSets.equals(other._asSets)) {
+    if (_interned && other._interned) {
+      // there is only one interned instance per value
       return false;
     }
-    return true;
+    return hashCode() == other.hashCode() && Arrays.deepEquals(_asSets, other._asSets);
   }
 
   public String getAsPathString() {
     StringBuilder sb = new StringBuilder();
-    for (Set<Integer> asSet : _asSets) {
-      if (asSet.size() == 1) {
-        int elem = asSet.iterator().next();
-        sb.append(elem);
+    for (int[] asSet : _asSets) {
+      if (asSet.length == 1) {
+        sb.append(asSet[0]);
       } else {
         sb.append("{");
-        Iterator<Integer> i = asSet.iterator();
-        sb.append(i.next());
-        while (i.hasNext()) {
+        sb.append(asSet[0]);
+        for (int i = 1; i < asSet.length; i++) {
           sb.append(",");
-          sb.append(i.next());
+          sb.append(asSet[i]);
         }
         sb.append("}");
       }
@@ -107,20 +111,45 @@ public class AsPath implements Serializable, Comparable<AsPath> {
 
   @JsonValue
   public List<SortedSet<Integer>> getAsSets() {
-    return copyAsSets(_asSets);
+    List<SortedSet<Integer>> asSets = new ArrayList<>(_asSets.length);
+    for (int[] asSet : _asSets) {
+      asSets.add(ImmutableSortedSet.copyOf(Ints.asList(asSet)));
+    }
+    return asSets;
   }
 
   @Override
   public int hashCode() {
-    return _asSets.hashCode();
+    int h = _hashCode;
+    if (h == 0) {
+      h = Arrays.deepHashCode(_asSets);
+      _hashCode = h;
+    }
+    return h;
+  }
+
+  void markInterned() {
+    _interned = true;
+  }
+
+  /** Replaces deserialized AS-paths with their interned instance */
+  private Object readResolve() {
+    return BgpAttributeInterner.intern(this);
   }
 
   public int size() {
-    return _asSets.size();
+    return _asSets.length;
   }
 
   @Override
   public String toString() {
-    return _asSets.toString();
+    StringBuilder sb = new StringBuilder("[");
+    for (int i = 0; i < _asSets.length; i++) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      sb.append(Arrays.toString(_asSets[i]));
+    }
+    return sb.append("]").toString();
   }
 }
@@ -3,36 +3,42 @@ package org.batfish.datamodel;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.kjetland.jackson.jsonSchema.annotations.JsonSchemaDescription;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import org.batfish.common.util.ComparableStructure;
 
 @JsonSchemaDescription(
     "An AsPathAccessList is used to filter e/iBGP routes according to their AS-path attribute.")
 public final class AsPathAccessList extends ComparableStructure<String> implements Serializable {
 
+  /**
+   * Maximum number of AS-paths whose result is remembered, so that a list consulted for a full
+   * Internet table does not retain every AS-path it has ever seen
+   */
+  private static final int MAX_CACHED_AS_PATHS = 1 << 16;
+
   private static final String PROP_LINES = "lines";
 
   private static final long serialVersionUID = 1L;
 
-  private transient Set<AsPath> _deniedCache;
+  private static Cache<AsPath, Boolean> newPermitsCache() {
+    return CacheBuilder.newBuilder().maximumSize(MAX_CACHED_AS_PATHS).build();
+  }
 
   private final List<AsPathAccessListLine> _lines;
 
-  private transient Set<AsPath> _permittedCache;
+  private transient Cache<AsPath, Boolean> _permitsCache;
 
   public AsPathAccessList(String name) {
     super(name);
     _lines = new ArrayList<>();
+    _permitsCache = newPermitsCache();
   }
 
   @JsonCreator
@@ -41,6 +47,7 @@ public final class AsPathAccessList extends ComparableStructure<String> implemen
       @JsonProperty(PROP_LINES) List<AsPathAccessListLine> lines) {
     super(name);
     _lines = lines;
+    _permitsCache = newPermitsCache();
   }
 
   @Override
@@ -63,37 +70,27 @@ public final class AsPathAccessList extends ComparableStructure<String> implemen
 
   private boolean newPermits(AsPath asPath) {
     boolean accept = false;
+    String asPathString = asPath.getAsPathString();
     for (AsPathAccessListLine line : _lines) {
-      String regex = line.getRegex();
-      Pattern p = Pattern.compile(regex);
-      String asPathString = asPath.getAsPathString();
-      Matcher matcher = p.matcher(asPathString);
-      boolean match = matcher.find();
-      if (match) {
+      if (line.matches(asPathString)) {
         accept = line.getAction() == LineAction.ACCEPT;
         break;
       }
     }
-    if (accept) {
-      _permittedCache.add(asPath);
-    } else {
-      _deniedCache.add(asPath);
-    }
+    _permitsCache.put(asPath, accept);
     return accept;
   }
 
   public boolean permits(AsPath asPath) {
-    if (_deniedCache.contains(asPath)) {
-      return false;
-    } else if (_permittedCache.contains(asPath)) {
-      return true;
+    Boolean permits = _permitsCache.getIfPresent(asPath);
+    if (permits != null) {
+      return permits;
     }
     return newPermits(asPath);
   }
 
   private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
     in.defaultReadObject();
-    _deniedCache = Collections.newSetFromMap(new ConcurrentHashMap<>());
-    _permittedCache = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    _permitsCache = newPermitsCache();
   }
 }
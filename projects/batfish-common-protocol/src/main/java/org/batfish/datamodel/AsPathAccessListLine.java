@@ -3,6 +3,7 @@ package org.batfish.datamodel;
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
 import com.kjetland.jackson.jsonSchema.annotations.JsonSchemaDescription;
 import java.io.Serializable;
+import java.util.regex.Pattern;
 
 @JsonSchemaDescription("A line in an AsPathAccessList")
 public final class AsPathAccessListLine implements Serializable, Comparable<AsPathAccessListLine> {
@@ -11,6 +12,9 @@ public final class AsPathAccessListLine implements Serializable, Comparable<AsPa
 
   private LineAction _action;
 
+  /** Compiled form of {@link #_regex}, created on first use */
+  private transient volatile Pattern _pattern;
+
   private String _regex;
 
   @Override
@@ -56,11 +60,22 @@ public final class AsPathAccessListLine implements Serializable, Comparable<AsPa
     return result;
   }
 
+  /** Returns true iff the regex of this line is found in {@code asPathString}. */
+  boolean matches(String asPathString) {
+    Pattern pattern = _pattern;
+    if (pattern == null) {
+      pattern = Pattern.compile(_regex);
+      _pattern = pattern;
+    }
+    return pattern.matcher(asPathString).find();
+  }
+
   public void setAction(LineAction action) {
     _action = action;
   }
 
   public void setRegex(String regex) {
     _regex = regex;
+    _pattern = null;
   }
 }
@@ -10,7 +10,6 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.SortedSet;
-import java.util.TreeSet;
 import org.batfish.common.BatfishException;
 
 /**
@@ -104,9 +103,9 @@ public class BgpAdvertisement implements Comparable<BgpAdvertisement>, Serializa
 
   private final AsPath _asPath;
 
-  private final SortedSet<Long> _clusterList;
+  private final LongArraySortedSet _clusterList;
 
-  private final SortedSet<Long> _communities;
+  private final LongArraySortedSet _communities;
 
   private final Ip _dstIp;
 
@@ -172,9 +171,9 @@ public class BgpAdvertisement implements Comparable<BgpAdvertisement>, Serializa
     _localPreference = localPreference;
     _med = med;
     _originatorIp = originatorIp;
-    _asPath = asPath;
-    _communities = communities == null ? new TreeSet<>() : communities;
-    _clusterList = clusterList == null ? new TreeSet<>() : clusterList;
+    _asPath = BgpAttributeInterner.intern(asPath);
+    _communities = BgpAttributeInterner.internLongSet(communities);
+    _clusterList = BgpAttributeInterner.internLongSet(clusterList);
     _weight = weight;
   }
 
@@ -243,17 +242,24 @@ public class BgpAdvertisement implements Comparable<BgpAdvertisement>, Serializa
     if (ret != 0) {
       return ret;
     }
-    ret = _asPath.toString().compareTo(rhs._asPath.toString());
-    if (ret != 0) {
-      return ret;
+    // attributes are ordered by their string forms, which only need building if they differ
+    if (_asPath != rhs._asPath) {
+      ret = _asPath.toString().compareTo(rhs._asPath.toString());
+      if (ret != 0) {
+        return ret;
+      }
     }
-    ret = _communities.toString().compareTo(rhs._communities.toString());
-    if (ret != 0) {
-      return ret;
+    if (_communities != rhs._communities) {
+      ret = _communities.toString().compareTo(rhs._communities.toString());
+      if (ret != 0) {
+        return ret;
+      }
     }
-    ret = _clusterList.toString().compareTo(rhs._clusterList.toString());
-    if (ret != 0) {
-      return ret;
+    if (_clusterList != rhs._clusterList) {
+      ret = _clusterList.toString().compareTo(rhs._clusterList.toString());
+      if (ret != 0) {
+        return ret;
+      }
     }
     ret = Integer.compare(_weight, rhs._weight);
     if (ret != 0) {
@@ -273,13 +279,13 @@ public class BgpAdvertisement implements Comparable<BgpAdvertisement>, Serializa
     if (!_network.equals(other._network)) {
       return false;
     }
-    if (!_asPath.toString().equals(other._asPath.toString())) {
+    if (!_asPath.equals(other._asPath)) {
       return false;
     }
-    if (!_clusterList.toString().equals(other._clusterList.toString())) {
+    if (!_clusterList.equals(other._clusterList)) {
       return false;
     }
-    if (!_communities.toString().equals(other._communities.toString())) {
+    if (!_communities.equals(other._communities)) {
       return false;
     }
     if (!_dstIp.equals(other._dstIp)) {
@@ -338,12 +344,12 @@ public class BgpAdvertisement implements Comparable<BgpAdvertisement>, Serializa
 
   @JsonProperty(PROP_CLUSTER_LIST)
   public SortedSet<Long> getClusterList() {
-    return Collections.unmodifiableSortedSet(_clusterList);
+    return _clusterList;
   }
 
   @JsonProperty(PROP_COMMUNITIES)
   public SortedSet<Long> getCommunities() {
-    return Collections.unmodifiableSortedSet(_communities);
+    return _communities;
   }
 
   @JsonProperty(PROP_DST_IP)
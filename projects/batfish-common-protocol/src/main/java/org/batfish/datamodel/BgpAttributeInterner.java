@@ -0,0 +1,51 @@
+package org.batfish.datamodel;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedSet;
+import javax.annotation.Nullable;
+
+/**
+ * Shares one immutable instance among all BGP routes and advertisements carrying the same AS-path,
+ * community set or cluster list. External announcements of a full table are fed into every router
+ * and copied into each of its RIBs, so without sharing, heap usage is dominated by duplicated
+ * attributes. Interned instances are held weakly, and interning is safe from multiple threads.
+ */
+public final class BgpAttributeInterner {
+
+  private static final Interner<AsPath> AS_PATHS = Interners.newWeakInterner();
+
+  private static final Interner<LongArraySortedSet> LONG_SETS = Interners.newWeakInterner();
+
+  /** Returns the interned AS-path equal to {@code asPath} */
+  public static AsPath intern(AsPath asPath) {
+    AsPath interned = AS_PATHS.intern(asPath);
+    interned.markInterned();
+    return interned;
+  }
+
+  /** Returns the interned set equal to {@code set} */
+  public static LongArraySortedSet intern(LongArraySortedSet set) {
+    LongArraySortedSet interned = LONG_SETS.intern(set);
+    interned.markInterned();
+    return interned;
+  }
+
+  /** Returns the interned AS-path made of {@code asSets} */
+  public static AsPath internAsPath(List<SortedSet<Integer>> asSets) {
+    return intern(new AsPath(asSets));
+  }
+
+  /**
+   * Returns the interned set of {@code values}, such as a community set or cluster list; {@code
+   * null} is treated as the empty set
+   */
+  public static LongArraySortedSet internLongSet(@Nullable Collection<Long> values) {
+    return intern(LongArraySortedSet.copyOf(values != null ? values : Collections.emptySet()));
+  }
+
+  private BgpAttributeInterner() {}
+}
@@ -6,13 +6,11 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import javax.annotation.Nonnull;
 import org.batfish.common.BatfishException;
-import org.batfish.common.util.CommonUtil;
 
 public class BgpRoute extends AbstractRoute {
 
@@ -56,7 +54,7 @@ public class BgpRoute extends AbstractRoute {
           getNetwork(),
           getNextHopIp(),
           getAdmin(),
-          new AsPath(_asPath),
+          BgpAttributeInterner.internAsPath(_asPath),
           _communities,
           _localPreference,
           getMetric(),
@@ -102,6 +100,14 @@ public class BgpRoute extends AbstractRoute {
       return _protocol;
     }
 
+    public boolean getReceivedFromRouteReflectorClient() {
+      return _receivedFromRouteReflectorClient;
+    }
+
+    public RoutingProtocol getSrcProtocol() {
+      return _srcProtocol;
+    }
+
     public int getWeight() {
       return _weight;
     }
@@ -175,9 +181,9 @@ public class BgpRoute extends AbstractRoute {
 
   private final AsPath _asPath;
 
-  private final SortedSet<Long> _clusterList;
+  private final LongArraySortedSet _clusterList;
 
-  private final SortedSet<Long> _communities;
+  private final LongArraySortedSet _communities;
 
   private final int _localPreference;
 
@@ -216,9 +222,9 @@ public class BgpRoute extends AbstractRoute {
       @JsonProperty(PROP_WEIGHT) int weight) {
     super(network);
     _admin = admin;
-    _asPath = asPath;
-    _clusterList = clusterList != null ? clusterList : new TreeSet<>();
-    _communities = communities != null ? communities : new TreeSet<>();
+    _asPath = BgpAttributeInterner.intern(asPath);
+    _clusterList = BgpAttributeInterner.internLongSet(clusterList);
+    _communities = BgpAttributeInterner.internLongSet(communities);
     _localPreference = localPreference;
     _med = med;
     _nextHopIp = firstNonNull(nextHopIp, Route.UNSET_ROUTE_NEXT_HOP_IP);
@@ -299,12 +305,12 @@ public class BgpRoute extends AbstractRoute {
 
   @JsonProperty(PROP_CLUSTER_LIST)
   public SortedSet<Long> getClusterList() {
-    return Collections.unmodifiableSortedSet(_clusterList);
+    return _clusterList;
   }
 
   @JsonProperty(PROP_COMMUNITIES)
   public SortedSet<Long> getCommunities() {
-    return Collections.unmodifiableSortedSet(_communities);
+    return _communities;
   }
 
   @JsonProperty(PROP_LOCAL_PREFERENCE)
@@ -422,11 +428,11 @@ public class BgpRoute extends AbstractRoute {
     if (ret != 0) {
       return ret;
     }
-    ret = CommonUtil.compareCollection(_clusterList, castRhs._clusterList);
+    ret = _clusterList.compareTo(castRhs._clusterList);
     if (ret != 0) {
       return ret;
     }
-    ret = CommonUtil.compareCollection(_communities, castRhs._communities);
+    ret = _communities.compareTo(castRhs._communities);
     if (ret != 0) {
       return ret;
     }
@@ -10,8 +10,6 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import org.batfish.common.util.CommonUtil;
 import org.batfish.common.util.ComparableStructure;
 
@@ -82,11 +80,9 @@ public class CommunityList extends ComparableStructure<String> {
     boolean accept = false;
     boolean match = false;
     Boolean matchingLineAccepts = null;
+    String communityStr = CommonUtil.longToCommunity(community);
     for (CommunityListLine line : _lines) {
-      Pattern p = Pattern.compile(line.getRegex());
-      String communityStr = CommonUtil.longToCommunity(community);
-      Matcher matcher = p.matcher(communityStr);
-      if (matcher.find()) {
+      if (line.matches(communityStr)) {
         match = true;
         matchingLineAccepts = line.getAction() == LineAction.ACCEPT;
         break;
@@ -22,6 +22,9 @@ public class CommunityListLine implements Serializable {
 
   private final LineAction _action;
 
+  /** Compiled form of {@link #_regex}, created on first use */
+  private transient volatile Pattern _pattern;
+
   private final String _regex;
 
   @JsonCreator
@@ -56,7 +59,7 @@ public class CommunityListLine implements Serializable {
   }
 
   public Set<Long> getExactMatchingCommunities(Set<Long> allCommunities) {
-    Pattern p = Pattern.compile(_regex);
+    Pattern p = getPattern();
     Set<Long> matchingCommunitites = new LinkedHashSet<>();
     for (long candidateCommunity : allCommunities) {
       String candidateCommunityStr = CommonUtil.longToCommunity(candidateCommunity);
@@ -69,7 +72,7 @@ public class CommunityListLine implements Serializable {
   }
 
   public Set<Long> getMatchingCommunities(Set<Long> allCommunities, boolean invertMatch) {
-    Pattern p = Pattern.compile(_regex);
+    Pattern p = getPattern();
     Set<Long> matchingCommunitites = new LinkedHashSet<>();
     for (long candidateCommunity : allCommunities) {
       String candidateCommunityStr = CommonUtil.longToCommunity(candidateCommunity);
@@ -81,6 +84,15 @@ public class CommunityListLine implements Serializable {
     return matchingCommunitites;
   }
 
+  private Pattern getPattern() {
+    Pattern pattern = _pattern;
+    if (pattern == null) {
+      pattern = Pattern.compile(_regex);
+      _pattern = pattern;
+    }
+    return pattern;
+  }
+
   @JsonProperty(PROP_REGEX)
   @JsonPropertyDescription("The regex against which a route's communities will be compared")
   public String getRegex() {
@@ -96,6 +108,11 @@ public class CommunityListLine implements Serializable {
     return result;
   }
 
+  /** Returns true iff the regex of this line is found in {@code communityStr}. */
+  boolean matches(String communityStr) {
+    return getPattern().matcher(communityStr).find();
+  }
+
   public Long toLiteralCommunity() {
     throw new UnsupportedOperationException("no implementation for generated method");
     // TODO Auto-generated method stub
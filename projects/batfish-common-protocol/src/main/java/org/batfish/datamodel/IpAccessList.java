@@ -10,6 +10,9 @@ import org.batfish.common.util.ComparableStructure;
 @JsonSchemaDescription("An access-list used to filter IPV4 packets")
 public class IpAccessList extends ComparableStructure<String> {
 
+  /** Minimum number of lines for which {@link #filter} builds and uses an index */
+  private static final int MIN_INDEXED_LINES = 16;
+
   private static final String PROP_LINES = "lines";
 
   private static final long serialVersionUID = 1L;
@@ -34,6 +37,8 @@ public class IpAccessList extends ComparableStructure<String> {
     }
   }
 
+  private transient volatile IpAccessListIndex _index;
+
   private List<IpAccessListLine> _lines;
 
   @JsonCreator
@@ -58,6 +63,23 @@ public class IpAccessList extends ComparableStructure<String> {
   }
 
   public FilterResult filter(Flow flow) {
+    if (_lines.size() < MIN_INDEXED_LINES) {
+      return filterLinear(flow);
+    }
+    IpAccessListIndex index = _index;
+    if (index == null || !index.isIndexOf(_lines)) {
+      index = new IpAccessListIndex(_lines);
+      _index = index;
+    }
+    Integer matchingLine = index.firstMatchingLine(flow);
+    if (matchingLine == null) {
+      return new FilterResult(null, LineAction.REJECT);
+    }
+    return new FilterResult(matchingLine, _lines.get(matchingLine).getAction());
+  }
+
+  /** Evaluates {@code flow} against each line in order, without consulting the index. */
+  FilterResult filterLinear(Flow flow) {
     for (int i = 0; i < _lines.size(); i++) {
       IpAccessListLine line = _lines.get(i);
       if (line.matches(flow)) {
@@ -87,6 +109,7 @@ public class IpAccessList extends ComparableStructure<String> {
   @JsonProperty(PROP_LINES)
   public void setLines(List<IpAccessListLine> lines) {
     _lines = lines;
+    _index = null;
   }
 
   @Override
@@ -0,0 +1,161 @@
+package org.batfish.datamodel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Decision structure used by {@link IpAccessList#filter} to find the first line of a large access
+ * list matching a {@link Flow} without testing every line.
+ *
+ * <p>Each line whose destination (otherwise source) IP constraint consists only of prefixes is
+ * indexed under those prefixes in a binary trie over the corresponding address. All other lines
+ * are kept in a separate list that is always consulted. A lookup walks the destination and source
+ * tries along the bits of the flow's addresses, and only fully evaluates the candidate lines found
+ * on those paths, in line order, stopping as soon as no earlier match is possible.
+ */
+final class IpAccessListIndex {
+
+  private static final class TrieNode {
+
+    private TrieNode _left;
+
+    private int[] _lines;
+
+    private List<Integer> _linesBuilder;
+
+    private TrieNode _right;
+
+    private void addLine(long network, int prefixLength, int depth, int line) {
+      if (depth == prefixLength) {
+        if (_linesBuilder == null) {
+          _linesBuilder = new ArrayList<>();
+        }
+        _linesBuilder.add(line);
+        return;
+      }
+      if (getBit(network, depth)) {
+        if (_right == null) {
+          _right = new TrieNode();
+        }
+        _right.addLine(network, prefixLength, depth + 1, line);
+      } else {
+        if (_left == null) {
+          _left = new TrieNode();
+        }
+        _left.addLine(network, prefixLength, depth + 1, line);
+      }
+    }
+
+    private void freeze() {
+      _lines = toArray(_linesBuilder);
+      _linesBuilder = null;
+      if (_left != null) {
+        _left.freeze();
+      }
+      if (_right != null) {
+        _right.freeze();
+      }
+    }
+  }
+
+  private static final int[] EMPTY = new int[0];
+
+  private static void addLine(TrieNode root, Set<IpWildcard> prefixWildcards, int line) {
+    for (IpWildcard wildcard : prefixWildcards) {
+      Prefix prefix = wildcard.toPrefix();
+      root.addLine(prefix.getNetworkAddress().asLong(), prefix.getPrefixLength(), 0, line);
+    }
+  }
+
+  /**
+   * Returns the index of the first line among {@code candidates} (sorted ascending) that is less
+   * than {@code firstMatch} and matches {@code flow}, or {@code firstMatch} if there is none.
+   */
+  private static int firstMatch(
+      List<IpAccessListLine> lines, int[] candidates, Flow flow, int firstMatch) {
+    for (int line : candidates) {
+      if (line >= firstMatch) {
+        return firstMatch;
+      }
+      if (lines.get(line).matches(flow)) {
+        return line;
+      }
+    }
+    return firstMatch;
+  }
+
+  private static boolean getBit(long address, int index) {
+    return ((address >>> (Prefix.MAX_PREFIX_LENGTH - 1 - index)) & 1L) == 1L;
+  }
+
+  /** Returns true if {@code ipWildcards} is non-empty and consists only of prefixes. */
+  private static boolean indexable(Set<IpWildcard> ipWildcards) {
+    return !ipWildcards.isEmpty() && ipWildcards.stream().allMatch(IpWildcard::isPrefix);
+  }
+
+  private static int[] toArray(List<Integer> list) {
+    if (list == null) {
+      return EMPTY;
+    }
+    return list.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  private final TrieNode _dstIpRoot;
+
+  private final List<IpAccessListLine> _lines;
+
+  private final int _numLines;
+
+  private final TrieNode _srcIpRoot;
+
+  private final int[] _unindexedLines;
+
+  IpAccessListIndex(List<IpAccessListLine> lines) {
+    _lines = lines;
+    _numLines = lines.size();
+    _dstIpRoot = new TrieNode();
+    _srcIpRoot = new TrieNode();
+    List<Integer> unindexedLines = new ArrayList<>();
+    for (int i = 0; i < lines.size(); i++) {
+      IpAccessListLine line = lines.get(i);
+      if (indexable(line.getDstIps())) {
+        addLine(_dstIpRoot, line.getDstIps(), i);
+      } else if (indexable(line.getSrcIps())) {
+        addLine(_srcIpRoot, line.getSrcIps(), i);
+      } else {
+        unindexedLines.add(i);
+      }
+    }
+    _dstIpRoot.freeze();
+    _srcIpRoot.freeze();
+    _unindexedLines = toArray(unindexedLines);
+  }
+
+  /** Returns the index of the first line matching {@code flow}, or null if no line matches. */
+  Integer firstMatchingLine(Flow flow) {
+    int firstMatch = firstMatch(_lines, _unindexedLines, flow, Integer.MAX_VALUE);
+    firstMatch = firstMatch(_dstIpRoot, flow.getDstIp().asLong(), flow, firstMatch);
+    firstMatch = firstMatch(_srcIpRoot, flow.getSrcIp().asLong(), flow, firstMatch);
+    return firstMatch == Integer.MAX_VALUE ? null : firstMatch;
+  }
+
+  /** Returns true if this index was built from {@code lines} and is still consistent with it. */
+  boolean isIndexOf(List<IpAccessListLine> lines) {
+    return lines == _lines && lines.size() == _numLines;
+  }
+
+  private int firstMatch(TrieNode root, long address, Flow flow, int firstMatch) {
+    TrieNode node = root;
+    int depth = 0;
+    while (node != null) {
+      firstMatch = firstMatch(_lines, node._lines, flow, firstMatch);
+      if (depth == Prefix.MAX_PREFIX_LENGTH) {
+        break;
+      }
+      node = getBit(address, depth) ? node._right : node._left;
+      depth++;
+    }
+    return firstMatch;
+  }
+}
@@ -0,0 +1,199 @@
+package org.batfish.datamodel;
+
+import com.google.common.primitives.Longs;
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedSet;
+import javax.annotation.Nullable;
+
+/**
+ * An immutable sorted set of longs stored in a sorted primitive array, for BGP attributes such as
+ * communities and cluster lists. Instances shared by many routes should be obtained from {@link
+ * BgpAttributeInterner}, which also makes comparing them for equality a reference check. Sets are
+ * ordered like {@link org.batfish.common.util.CommonUtil#compareCollection}: element by element,
+ * and a set before any longer set it is a prefix of.
+ */
+public final class LongArraySortedSet extends AbstractSet<Long>
+    implements SortedSet<Long>, Comparable<LongArraySortedSet>, Serializable {
+
+  private static final LongArraySortedSet EMPTY = new LongArraySortedSet(new long[0]);
+
+  private static final long serialVersionUID = 1L;
+
+  /** Returns a set of {@code values}, reusing {@code values} if it is already such a set */
+  public static LongArraySortedSet copyOf(Collection<Long> values) {
+    if (values instanceof LongArraySortedSet) {
+      return (LongArraySortedSet) values;
+    }
+    if (values.isEmpty()) {
+      return EMPTY;
+    }
+    long[] array = Longs.toArray(values);
+    Arrays.sort(array);
+    if (!(values instanceof Set)) {
+      int distinct = 1;
+      for (int i = 1; i < array.length; i++) {
+        if (array[i] != array[distinct - 1]) {
+          array[distinct++] = array[i];
+        }
+      }
+      array = Arrays.copyOf(array, distinct);
+    }
+    return new LongArraySortedSet(array);
+  }
+
+  private transient int _hashCode;
+
+  /** Whether this is the instance held by {@link BgpAttributeInterner} for its value */
+  private transient boolean _interned;
+
+  private final long[] _values;
+
+  private LongArraySortedSet(long[] values) {
+    _values = values;
+  }
+
+  @Override
+  @Nullable
+  public Comparator<? super Long> comparator() {
+    return null;
+  }
+
+  @Override
+  public int compareTo(LongArraySortedSet rhs) {
+    if (this == rhs) {
+      return 0;
+    }
+    int length = Math.min(_values.length, rhs._values.length);
+    for (int i = 0; i < length; i++) {
+      int ret = Long.compare(_values[i], rhs._values[i]);
+      if (ret != 0) {
+        return ret;
+      }
+    }
+    return Integer.compare(_values.length, rhs._values.length);
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return o instanceof Long && Arrays.binarySearch(_values, (Long) o) >= 0;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    } else if (!(o instanceof LongArraySortedSet)) {
+      return super.equals(o);
+    }
+    LongArraySortedSet other = (LongArraySortedSet) o;
+    if (_interned && other._interned) {
+      // there is only one interned instance per value
+      return false;
+    }
+    return hashCode() == other.hashCode() && Arrays.equals(_values, other._values);
+  }
+
+  @Override
+  public Long first() {
+    if (_values.length == 0) {
+      throw new NoSuchElementException();
+    }
+    return _values[0];
+  }
+
+  @Override
+  public int hashCode() {
+    int h = _hashCode;
+    if (h == 0) {
+      for (long value : _values) {
+        h += Long.hashCode(value);
+      }
+      _hashCode = h;
+    }
+    return h;
+  }
+
+  @Override
+  public SortedSet<Long> headSet(Long toElement) {
+    return range(0, indexOf(toElement));
+  }
+
+  /** Returns the index of the first value not less than {@code value} */
+  private int indexOf(long value) {
+    int index = Arrays.binarySearch(_values, value);
+    return index >= 0 ? index : -index - 1;
+  }
+
+  @Override
+  public Iterator<Long> iterator() {
+    return new Iterator<Long>() {
+
+      private int _next;
+
+      @Override
+      public boolean hasNext() {
+        return _next < _values.length;
+      }
+
+      @Override
+      public Long next() {
+        if (_next >= _values.length) {
+          throw new NoSuchElementException();
+        }
+        return _values[_next++];
+      }
+    };
+  }
+
+  @Override
+  public Long last() {
+    if (_values.length == 0) {
+      throw new NoSuchElementException();
+    }
+    return _values[_values.length - 1];
+  }
+
+  void markInterned() {
+    _interned = true;
+  }
+
+  private LongArraySortedSet range(int fromIndex, int toIndex) {
+    if (fromIndex == 0 && toIndex == _values.length) {
+      return this;
+    }
+    if (fromIndex >= toIndex) {
+      return EMPTY;
+    }
+    return new LongArraySortedSet(Arrays.copyOfRange(_values, fromIndex, toIndex));
+  }
+
+  /** Replaces deserialized sets with their interned instance */
+  private Object readResolve() {
+    return BgpAttributeInterner.intern(this);
+  }
+
+  @Override
+  public int size() {
+    return _values.length;
+  }
+
+  @Override
+  public SortedSet<Long> subSet(Long fromElement, Long toElement) {
+    if (fromElement > toElement) {
+      throw new IllegalArgumentException("fromElement > toElement");
+    }
+    return range(indexOf(fromElement), indexOf(toElement));
+  }
+
+  @Override
+  public SortedSet<Long> tailSet(Long fromElement) {
+    return range(indexOf(fromElement), _values.length);
+  }
+}
@@ -12,12 +12,26 @@ public class BdpAnswerElement implements DataPlaneAnswerElement {
   private static final String PROP_BGP_MULTIPATH_RIB_ROUTES_BY_ITERATION =
       "bgpMultipathRibRoutesByIteration";
 
+  private static final String PROP_DESERIALIZATION_TIME = "deserializationTime";
+
+  private static final String PROP_DESERIALIZED_BYTES = "deserializedBytes";
+
   private static final String PROP_DEPENDENT_ROUTES_ITERATIONS = "dependentRoutesIterations";
 
   private static final String MAIN_RIB_ROUTES_BY_ITERATION = "mainRibRoutesByIteration";
 
   private static final String PROP_OSPF_INTERNAL_ITERATIONS = "ospfInternalIterations";
 
+  private static final String PROP_POLICY_CACHE_EVICTIONS = "policyCacheEvictions";
+
+  private static final String PROP_POLICY_CACHE_HITS = "policyCacheHits";
+
+  private static final String PROP_POLICY_CACHE_MISSES = "policyCacheMisses";
+
+  private static final String PROP_POLICY_CACHE_UNMEMOIZABLE = "policyCacheUnmemoizable";
+
+  private static final String PROP_RECOMPUTED_NODES_BY_ITERATION = "recomputedNodesByIteration";
+
   /** */
   private static final long serialVersionUID = 1L;
 
@@ -27,16 +41,31 @@ public class BdpAnswerElement implements DataPlaneAnswerElement {
 
   private int _dependentRoutesIterations;
 
+  private long _deserializationTime;
+
+  private long _deserializedBytes;
+
   private SortedMap<Integer, Integer> _mainRibRoutesByIteration;
 
   private int _ospfInternalIterations;
 
+  private long _policyCacheEvictions;
+
+  private long _policyCacheHits;
+
+  private long _policyCacheMisses;
+
+  private long _policyCacheUnmemoizable;
+
+  private SortedMap<Integer, Integer> _recomputedNodesByIteration;
+
   private String _version;
 
   public BdpAnswerElement() {
     _bgpBestPathRibRoutesByIteration = new TreeMap<>();
     _bgpMultipathRibRoutesByIteration = new TreeMap<>();
     _mainRibRoutesByIteration = new TreeMap<>();
+    _recomputedNodesByIteration = new TreeMap<>();
   }
 
   @JsonProperty(PROP_BGP_BEST_PATH_RIB_ROUTES_BY_ITERATION)
@@ -54,6 +83,24 @@ public class BdpAnswerElement implements DataPlaneAnswerElement {
     return _dependentRoutesIterations;
   }
 
+  /**
+   * The time in milliseconds spent deserializing the configurations read from disk for this
+   * computation
+   */
+  @JsonProperty(PROP_DESERIALIZATION_TIME)
+  public long getDeserializationTime() {
+    return _deserializationTime;
+  }
+
+  /**
+   * The total size in bytes of the configurations read from disk for this computation, 0 if they
+   * were already in memory
+   */
+  @JsonProperty(PROP_DESERIALIZED_BYTES)
+  public long getDeserializedBytes() {
+    return _deserializedBytes;
+  }
+
   @JsonProperty(MAIN_RIB_ROUTES_BY_ITERATION)
   public SortedMap<Integer, Integer> getMainRibRoutesByIteration() {
     return _mainRibRoutesByIteration;
@@ -64,6 +111,38 @@ public class BdpAnswerElement implements DataPlaneAnswerElement {
     return _ospfInternalIterations;
   }
 
+  /** The number of memoized routing policy results evicted to bound memory */
+  @JsonProperty(PROP_POLICY_CACHE_EVICTIONS)
+  public long getPolicyCacheEvictions() {
+    return _policyCacheEvictions;
+  }
+
+  /** The number of routing policy applications answered by a memoized result */
+  @JsonProperty(PROP_POLICY_CACHE_HITS)
+  public long getPolicyCacheHits() {
+    return _policyCacheHits;
+  }
+
+  /** The number of memoizing routing policy applications that had to run the policy */
+  @JsonProperty(PROP_POLICY_CACHE_MISSES)
+  public long getPolicyCacheMisses() {
+    return _policyCacheMisses;
+  }
+
+  /**
+   * The number of routing policy applications whose result was not memoized because it depended on
+   * the routes computed so far
+   */
+  @JsonProperty(PROP_POLICY_CACHE_UNMEMOIZABLE)
+  public long getPolicyCacheUnmemoizable() {
+    return _policyCacheUnmemoizable;
+  }
+
+  @JsonProperty(PROP_RECOMPUTED_NODES_BY_ITERATION)
+  public SortedMap<Integer, Integer> getRecomputedNodesByIteration() {
+    return _recomputedNodesByIteration;
+  }
+
   @Override
   @JsonProperty(PROP_VERSION)
   public String getVersion() {
@@ -81,6 +160,27 @@ public class BdpAnswerElement implements DataPlaneAnswerElement {
     sb.append(
         "   BGP multipath RIB routes by iteration: " + _bgpMultipathRibRoutesByIteration + "\n");
     sb.append("   Main RIB routes by iteration: " + _mainRibRoutesByIteration + "\n");
+    sb.append("   Recomputed nodes by iteration: " + _recomputedNodesByIteration + "\n");
+    if (_deserializedBytes > 0) {
+      sb.append(
+          "   Deserialized configurations: "
+              + _deserializedBytes
+              + " bytes in "
+              + _deserializationTime
+              + " ms\n");
+    }
+    long policyCacheRequests = _policyCacheHits + _policyCacheMisses;
+    if (policyCacheRequests > 0) {
+      sb.append(
+          String.format(
+              "   Routing policy cache: %d hits, %d misses (%.1f%% hit rate), %d evictions, "
+                  + "%d not memoizable\n",
+              _policyCacheHits,
+              _policyCacheMisses,
+              100.0 * _policyCacheHits / policyCacheRequests,
+              _policyCacheEvictions,
+              _policyCacheUnmemoizable));
+    }
     return sb.toString();
   }
 
@@ -101,6 +201,16 @@ public class BdpAnswerElement implements DataPlaneAnswerElement {
     _dependentRoutesIterations = dependentRoutesIterations;
   }
 
+  @JsonProperty(PROP_DESERIALIZATION_TIME)
+  public void setDeserializationTime(long deserializationTime) {
+    _deserializationTime = deserializationTime;
+  }
+
+  @JsonProperty(PROP_DESERIALIZED_BYTES)
+  public void setDeserializedBytes(long deserializedBytes) {
+    _deserializedBytes = deserializedBytes;
+  }
+
   @JsonProperty(MAIN_RIB_ROUTES_BY_ITERATION)
   public void setMainRibRoutesByIteration(SortedMap<Integer, Integer> mainRibRoutesByIteration) {
     _mainRibRoutesByIteration = mainRibRoutesByIteration;
@@ -111,6 +221,32 @@ public class BdpAnswerElement implements DataPlaneAnswerElement {
     _ospfInternalIterations = ospfInternalIterations;
   }
 
+  @JsonProperty(PROP_POLICY_CACHE_EVICTIONS)
+  public void setPolicyCacheEvictions(long policyCacheEvictions) {
+    _policyCacheEvictions = policyCacheEvictions;
+  }
+
+  @JsonProperty(PROP_POLICY_CACHE_HITS)
+  public void setPolicyCacheHits(long policyCacheHits) {
+    _policyCacheHits = policyCacheHits;
+  }
+
+  @JsonProperty(PROP_POLICY_CACHE_MISSES)
+  public void setPolicyCacheMisses(long policyCacheMisses) {
+    _policyCacheMisses = policyCacheMisses;
+  }
+
+  @JsonProperty(PROP_POLICY_CACHE_UNMEMOIZABLE)
+  public void setPolicyCacheUnmemoizable(long policyCacheUnmemoizable) {
+    _policyCacheUnmemoizable = policyCacheUnmemoizable;
+  }
+
+  @JsonProperty(PROP_RECOMPUTED_NODES_BY_ITERATION)
+  public void setRecomputedNodesByIteration(
+      SortedMap<Integer, Integer> recomputedNodesByIteration) {
+    _recomputedNodesByIteration = recomputedNodesByIteration;
+  }
+
   @JsonProperty(PROP_VERSION)
   public void setVersion(String version) {
     _version = version;
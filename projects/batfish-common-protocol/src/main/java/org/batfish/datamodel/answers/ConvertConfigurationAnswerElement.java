@@ -15,10 +15,18 @@ public class ConvertConfigurationAnswerElement implements AnswerElement, Seriali
   /** */
   private static final long serialVersionUID = 1L;
 
+  private long _deserializationTime;
+
+  private long _deserializedBytes;
+
   private SortedMap<String, BatfishException.BatfishStackTrace> _errors;
 
   private Set<String> _failed;
 
+  private long _serializationTime;
+
+  private long _serializedBytes;
+
   private SortedMap<
           String, SortedMap<String, SortedMap<String, SortedMap<String, SortedSet<Integer>>>>>
       _undefinedReferences;
@@ -38,6 +46,16 @@ public class ConvertConfigurationAnswerElement implements AnswerElement, Seriali
     _errors = new TreeMap<>();
   }
 
+  /** Returns the time in milliseconds taken to deserialize the vendor configurations */
+  public long getDeserializationTime() {
+    return _deserializationTime;
+  }
+
+  /** Returns the total size in bytes of the deserialized vendor configurations */
+  public long getDeserializedBytes() {
+    return _deserializedBytes;
+  }
+
   public SortedMap<String, BatfishException.BatfishStackTrace> getErrors() {
     return _errors;
   }
@@ -46,6 +64,16 @@ public class ConvertConfigurationAnswerElement implements AnswerElement, Seriali
     return _failed;
   }
 
+  /** Returns the time in milliseconds taken to serialize the converted configurations */
+  public long getSerializationTime() {
+    return _serializationTime;
+  }
+
+  /** Returns the total size in bytes of the serialized converted configurations */
+  public long getSerializedBytes() {
+    return _serializedBytes;
+  }
+
   public SortedMap<
           String, SortedMap<String, SortedMap<String, SortedMap<String, SortedSet<Integer>>>>>
       getUndefinedReferences() {
@@ -115,9 +143,28 @@ public class ConvertConfigurationAnswerElement implements AnswerElement, Seriali
                     });
               });
         });
+    if (_deserializedBytes > 0) {
+      sb.append(
+          "\n  Deserialized "
+              + _deserializedBytes
+              + " bytes in "
+              + _deserializationTime
+              + " ms\n");
+    }
+    if (_serializedBytes > 0) {
+      sb.append("\n  Serialized " + _serializedBytes + " bytes in " + _serializationTime + " ms\n");
+    }
     return sb.toString();
   }
 
+  public void setDeserializationTime(long deserializationTime) {
+    _deserializationTime = deserializationTime;
+  }
+
+  public void setDeserializedBytes(long deserializedBytes) {
+    _deserializedBytes = deserializedBytes;
+  }
+
   public void setErrors(SortedMap<String, BatfishException.BatfishStackTrace> errors) {
     _errors = errors;
   }
@@ -126,6 +173,14 @@ public class ConvertConfigurationAnswerElement implements AnswerElement, Seriali
     _failed = failed;
   }
 
+  public void setSerializationTime(long serializationTime) {
+    _serializationTime = serializationTime;
+  }
+
+  public void setSerializedBytes(long serializedBytes) {
+    _serializedBytes = serializedBytes;
+  }
+
   public void setUndefinedReferences(
       SortedMap<String, SortedMap<String, SortedMap<String, SortedMap<String, SortedSet<Integer>>>>>
           undefinedReferences) {
@@ -1,3 +1,44 @@
 package org.batfish.datamodel.answers;
 
-public class NodAnswerElement implements AnswerElement {}
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class NodAnswerElement implements AnswerElement {
+
+  private static final String PROP_SOLVE_TIME = "solveTime";
+
+  private static final String PROP_SYNTHESIS_TIME = "synthesisTime";
+
+  private long _solveTime;
+
+  private long _synthesisTime;
+
+  public void addSolveTime(long solveTime) {
+    _solveTime += solveTime;
+  }
+
+  public void addSynthesisTime(long synthesisTime) {
+    _synthesisTime += synthesisTime;
+  }
+
+  /** Returns the total time in milliseconds spent by all jobs solving their programs */
+  @JsonProperty(PROP_SOLVE_TIME)
+  public long getSolveTime() {
+    return _solveTime;
+  }
+
+  /** Returns the total time in milliseconds spent by all jobs synthesizing their programs */
+  @JsonProperty(PROP_SYNTHESIS_TIME)
+  public long getSynthesisTime() {
+    return _synthesisTime;
+  }
+
+  @JsonProperty(PROP_SOLVE_TIME)
+  public void setSolveTime(long solveTime) {
+    _solveTime = solveTime;
+  }
+
+  @JsonProperty(PROP_SYNTHESIS_TIME)
+  public void setSynthesisTime(long synthesisTime) {
+    _synthesisTime = synthesisTime;
+  }
+}
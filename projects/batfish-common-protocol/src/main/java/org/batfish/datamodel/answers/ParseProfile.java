@@ -0,0 +1,334 @@
+package org.batfish.datamodel.answers;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.io.Serializable;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Statistics on how the parser of one grammar predicted alternatives, aggregated over all files
+ * parsed with that grammar. Decisions that take long, look far ahead, or fall back from SLL to full
+ * LL prediction are the ones worth rewriting in the grammar.
+ */
+public class ParseProfile implements Serializable {
+
+  /** Prediction statistics of one decision point of a grammar */
+  public static class DecisionProfile implements Serializable {
+
+    private static final String PROP_AMBIGUITIES = "ambiguities";
+
+    private static final String PROP_CONTEXT_SENSITIVITIES = "contextSensitivities";
+
+    private static final String PROP_DECISION = "decision";
+
+    private static final String PROP_DFA_STATES = "dfaStates";
+
+    private static final String PROP_ERRORS = "errors";
+
+    private static final String PROP_INVOCATIONS = "invocations";
+
+    private static final String PROP_LL_FALLBACKS = "llFallbacks";
+
+    private static final String PROP_LL_MAX_LOOKAHEAD = "llMaxLookahead";
+
+    private static final String PROP_LL_TOTAL_LOOKAHEAD = "llTotalLookahead";
+
+    private static final String PROP_RULE = "rule";
+
+    private static final String PROP_SLL_MAX_LOOKAHEAD = "sllMaxLookahead";
+
+    private static final String PROP_SLL_TOTAL_LOOKAHEAD = "sllTotalLookahead";
+
+    private static final String PROP_TIME_IN_PREDICTION = "timeInPrediction";
+
+    /** */
+    private static final long serialVersionUID = 1L;
+
+    private long _ambiguities;
+
+    private long _contextSensitivities;
+
+    private final int _decision;
+
+    private int _dfaStates;
+
+    private long _errors;
+
+    private long _invocations;
+
+    private long _llFallbacks;
+
+    private long _llMaxLookahead;
+
+    private long _llTotalLookahead;
+
+    private final String _rule;
+
+    private long _sllMaxLookahead;
+
+    private long _sllTotalLookahead;
+
+    private long _timeInPrediction;
+
+    @JsonCreator
+    public DecisionProfile(
+        @JsonProperty(PROP_DECISION) int decision, @JsonProperty(PROP_RULE) String rule) {
+      _decision = decision;
+      _rule = rule;
+    }
+
+    /** Returns the number of times prediction found an exact ambiguity */
+    @JsonProperty(PROP_AMBIGUITIES)
+    public long getAmbiguities() {
+      return _ambiguities;
+    }
+
+    /**
+     * Returns the number of times full-context prediction resolved a conflict that SLL prediction
+     * could not
+     */
+    @JsonProperty(PROP_CONTEXT_SENSITIVITIES)
+    public long getContextSensitivities() {
+      return _contextSensitivities;
+    }
+
+    /** Returns the index of this decision in the grammar's ATN */
+    @JsonProperty(PROP_DECISION)
+    public int getDecision() {
+      return _decision;
+    }
+
+    /** Returns the largest number of DFA states cached for this decision after any parse */
+    @JsonProperty(PROP_DFA_STATES)
+    public int getDfaStates() {
+      return _dfaStates;
+    }
+
+    /** Returns the number of times prediction failed with a syntax error */
+    @JsonProperty(PROP_ERRORS)
+    public long getErrors() {
+      return _errors;
+    }
+
+    @JsonProperty(PROP_INVOCATIONS)
+    public long getInvocations() {
+      return _invocations;
+    }
+
+    /** Returns the number of times SLL prediction fell back to full LL prediction */
+    @JsonProperty(PROP_LL_FALLBACKS)
+    public long getLlFallbacks() {
+      return _llFallbacks;
+    }
+
+    @JsonProperty(PROP_LL_MAX_LOOKAHEAD)
+    public long getLlMaxLookahead() {
+      return _llMaxLookahead;
+    }
+
+    @JsonProperty(PROP_LL_TOTAL_LOOKAHEAD)
+    public long getLlTotalLookahead() {
+      return _llTotalLookahead;
+    }
+
+    /** Returns the name of the rule containing this decision */
+    @JsonProperty(PROP_RULE)
+    public String getRule() {
+      return _rule;
+    }
+
+    @JsonProperty(PROP_SLL_MAX_LOOKAHEAD)
+    public long getSllMaxLookahead() {
+      return _sllMaxLookahead;
+    }
+
+    @JsonProperty(PROP_SLL_TOTAL_LOOKAHEAD)
+    public long getSllTotalLookahead() {
+      return _sllTotalLookahead;
+    }
+
+    /** Returns the time in nanoseconds spent predicting this decision */
+    @JsonProperty(PROP_TIME_IN_PREDICTION)
+    public long getTimeInPrediction() {
+      return _timeInPrediction;
+    }
+
+    private void merge(DecisionProfile other) {
+      _ambiguities += other._ambiguities;
+      _contextSensitivities += other._contextSensitivities;
+      _dfaStates = Math.max(_dfaStates, other._dfaStates);
+      _errors += other._errors;
+      _invocations += other._invocations;
+      _llFallbacks += other._llFallbacks;
+      _llMaxLookahead = Math.max(_llMaxLookahead, other._llMaxLookahead);
+      _llTotalLookahead += other._llTotalLookahead;
+      _sllMaxLookahead = Math.max(_sllMaxLookahead, other._sllMaxLookahead);
+      _sllTotalLookahead += other._sllTotalLookahead;
+      _timeInPrediction += other._timeInPrediction;
+    }
+
+    @JsonProperty(PROP_AMBIGUITIES)
+    public void setAmbiguities(long ambiguities) {
+      _ambiguities = ambiguities;
+    }
+
+    @JsonProperty(PROP_CONTEXT_SENSITIVITIES)
+    public void setContextSensitivities(long contextSensitivities) {
+      _contextSensitivities = contextSensitivities;
+    }
+
+    @JsonProperty(PROP_DFA_STATES)
+    public void setDfaStates(int dfaStates) {
+      _dfaStates = dfaStates;
+    }
+
+    @JsonProperty(PROP_ERRORS)
+    public void setErrors(long errors) {
+      _errors = errors;
+    }
+
+    @JsonProperty(PROP_INVOCATIONS)
+    public void setInvocations(long invocations) {
+      _invocations = invocations;
+    }
+
+    @JsonProperty(PROP_LL_FALLBACKS)
+    public void setLlFallbacks(long llFallbacks) {
+      _llFallbacks = llFallbacks;
+    }
+
+    @JsonProperty(PROP_LL_MAX_LOOKAHEAD)
+    public void setLlMaxLookahead(long llMaxLookahead) {
+      _llMaxLookahead = llMaxLookahead;
+    }
+
+    @JsonProperty(PROP_LL_TOTAL_LOOKAHEAD)
+    public void setLlTotalLookahead(long llTotalLookahead) {
+      _llTotalLookahead = llTotalLookahead;
+    }
+
+    @JsonProperty(PROP_SLL_MAX_LOOKAHEAD)
+    public void setSllMaxLookahead(long sllMaxLookahead) {
+      _sllMaxLookahead = sllMaxLookahead;
+    }
+
+    @JsonProperty(PROP_SLL_TOTAL_LOOKAHEAD)
+    public void setSllTotalLookahead(long sllTotalLookahead) {
+      _sllTotalLookahead = sllTotalLookahead;
+    }
+
+    @JsonProperty(PROP_TIME_IN_PREDICTION)
+    public void setTimeInPrediction(long timeInPrediction) {
+      _timeInPrediction = timeInPrediction;
+    }
+  }
+
+  private static final String PROP_DECISIONS = "decisions";
+
+  private static final String PROP_GRAMMAR = "grammar";
+
+  private static final String PROP_PREDICTION_TIME_BY_FILE = "predictionTimeByFile";
+
+  /** */
+  private static final long serialVersionUID = 1L;
+
+  private SortedMap<Integer, DecisionProfile> _decisions;
+
+  private final String _grammar;
+
+  private SortedMap<String, Long> _predictionTimeByFile;
+
+  @JsonCreator
+  public ParseProfile(@JsonProperty(PROP_GRAMMAR) String grammar) {
+    _decisions = new TreeMap<>();
+    _grammar = grammar;
+    _predictionTimeByFile = new TreeMap<>();
+  }
+
+  /**
+   * Records the statistics of one decision, merging them into those already recorded for it.
+   * Decisions that were never invoked are not recorded.
+   */
+  public void addDecision(DecisionProfile decision) {
+    if (decision.getInvocations() == 0L) {
+      return;
+    }
+    DecisionProfile existing = _decisions.get(decision.getDecision());
+    if (existing == null) {
+      DecisionProfile copy = new DecisionProfile(decision.getDecision(), decision.getRule());
+      copy.merge(decision);
+      _decisions.put(decision.getDecision(), copy);
+    } else {
+      existing.merge(decision);
+    }
+  }
+
+  /**
+   * Returns the {@code limit} decisions that looked farthest ahead in either SLL or LL prediction,
+   * deepest first.
+   */
+  @JsonIgnore
+  public List<DecisionProfile> getDeepestDecisions(int limit) {
+    return _decisions
+        .values()
+        .stream()
+        .sorted(
+            Comparator.comparingLong(
+                    (DecisionProfile d) -> Math.max(d.getSllMaxLookahead(), d.getLlMaxLookahead()))
+                .reversed())
+        .limit(limit)
+        .collect(Collectors.toList());
+  }
+
+  /** Returns the statistics of every decision invoked while parsing, keyed by decision index */
+  @JsonProperty(PROP_DECISIONS)
+  public SortedMap<Integer, DecisionProfile> getDecisions() {
+    return _decisions;
+  }
+
+  /** Returns the name of the grammar's parser */
+  @JsonProperty(PROP_GRAMMAR)
+  public String getGrammar() {
+    return _grammar;
+  }
+
+  /** Returns the time in nanoseconds spent predicting alternatives in each parsed file */
+  @JsonProperty(PROP_PREDICTION_TIME_BY_FILE)
+  public SortedMap<String, Long> getPredictionTimeByFile() {
+    return _predictionTimeByFile;
+  }
+
+  /**
+   * Returns the {@code limit} decisions that took the longest to predict, most expensive first.
+   */
+  @JsonIgnore
+  public List<DecisionProfile> getSlowestDecisions(int limit) {
+    return _decisions
+        .values()
+        .stream()
+        .sorted(Comparator.comparingLong(DecisionProfile::getTimeInPrediction).reversed())
+        .limit(limit)
+        .collect(Collectors.toList());
+  }
+
+  /** Adds the statistics recorded in {@code other}, which must be for the same grammar. */
+  public void merge(ParseProfile other) {
+    other._decisions.values().forEach(this::addDecision);
+    _predictionTimeByFile.putAll(other._predictionTimeByFile);
+  }
+
+  @JsonProperty(PROP_DECISIONS)
+  public void setDecisions(SortedMap<Integer, DecisionProfile> decisions) {
+    _decisions = decisions;
+  }
+
+  @JsonProperty(PROP_PREDICTION_TIME_BY_FILE)
+  public void setPredictionTimeByFile(SortedMap<String, Long> predictionTimeByFile) {
+    _predictionTimeByFile = predictionTimeByFile;
+  }
+}
@@ -1,8 +1,12 @@
 package org.batfish.datamodel.answers;
 
 import java.io.Serializable;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import java.util.SortedMap;
+import java.util.SortedSet;
 import java.util.TreeMap;
+import java.util.TreeSet;
 import org.batfish.common.BatfishException;
 import org.batfish.common.ParseTreeSentences;
 import org.batfish.common.Warning;
@@ -10,6 +14,12 @@ import org.batfish.common.Warnings;
 
 public class ParseVendorConfigurationAnswerElement implements AnswerElement, Serializable {
 
+  /**
+   * Number of slowest, and of farthest-looking, decisions of each grammar shown by {@link
+   * #prettyPrint()}
+   */
+  private static final int PARSE_PROFILE_DECISIONS = 10;
+
   /** */
   private static final long serialVersionUID = 1L;
 
@@ -17,22 +27,42 @@ public class ParseVendorConfigurationAnswerElement implements AnswerElement, Ser
 
   private SortedMap<String, String> _fileMap;
 
+  private SortedSet<String> _llFallbacks;
+
+  private SortedMap<String, ParseProfile> _parseProfiles;
+
   private SortedMap<String, ParseStatus> _parseStatus;
 
   private SortedMap<String, ParseTreeSentences> _parseTrees;
 
+  private long _serializationTime;
+
+  private long _serializedBytes;
+
   private String _version;
 
   private SortedMap<String, Warnings> _warnings;
 
   public ParseVendorConfigurationAnswerElement() {
     _fileMap = new TreeMap<>();
+    _llFallbacks = new TreeSet<>();
+    _parseProfiles = new TreeMap<>();
     _parseStatus = new TreeMap<>();
     _parseTrees = new TreeMap<>();
     _warnings = new TreeMap<>();
     _errors = new TreeMap<>();
   }
 
+  /** Merges {@code profile} into the profile recorded for its grammar. */
+  public void addParseProfile(ParseProfile profile) {
+    ParseProfile existing = _parseProfiles.get(profile.getGrammar());
+    if (existing == null) {
+      _parseProfiles.put(profile.getGrammar(), profile);
+    } else {
+      existing.merge(profile);
+    }
+  }
+
   public void addRedFlagWarning(String name, Warning warning) {
     if (!_warnings.containsKey(name)) {
       _warnings.put(name, new Warnings());
@@ -48,6 +78,19 @@ public class ParseVendorConfigurationAnswerElement implements AnswerElement, Ser
     return _fileMap;
   }
 
+  /**
+   * Returns the hostnames of the configurations that SLL prediction failed to parse, and that were
+   * therefore reparsed with full LL prediction
+   */
+  public SortedSet<String> getLlFallbacks() {
+    return _llFallbacks;
+  }
+
+  /** Returns the prediction statistics of each grammar used, if parsing was profiled */
+  public SortedMap<String, ParseProfile> getParseProfiles() {
+    return _parseProfiles;
+  }
+
   public SortedMap<String, ParseStatus> getParseStatus() {
     return _parseStatus;
   }
@@ -56,6 +99,16 @@ public class ParseVendorConfigurationAnswerElement implements AnswerElement, Ser
     return _parseTrees;
   }
 
+  /** Returns the time in milliseconds taken to serialize the parsed configurations */
+  public long getSerializationTime() {
+    return _serializationTime;
+  }
+
+  /** Returns the total size in bytes of the serialized parsed configurations */
+  public long getSerializedBytes() {
+    return _serializedBytes;
+  }
+
   public String getVersion() {
     return _version;
   }
@@ -93,6 +146,50 @@ public class ParseVendorConfigurationAnswerElement implements AnswerElement, Ser
         retString.append("    ParseTreeSentence : " + sentence + "\n");
       }
     }
+    if (!_llFallbacks.isEmpty()) {
+      retString.append(
+          "\n  Reparsed "
+              + _llFallbacks.size()
+              + " of "
+              + _parseStatus.size()
+              + " configurations with full LL prediction: "
+              + String.join(", ", _llFallbacks)
+              + "\n");
+    }
+    for (ParseProfile profile : _parseProfiles.values()) {
+      long totalTime =
+          profile.getPredictionTimeByFile().values().stream().mapToLong(Long::longValue).sum();
+      retString.append(
+          "\n  "
+              + profile.getGrammar()
+              + " [Parse profile] "
+              + profile.getPredictionTimeByFile().size()
+              + " files, "
+              + totalTime / 1000000L
+              + " ms in prediction\n");
+      // the slowest decisions, then those looking farthest ahead that are not among them
+      Set<ParseProfile.DecisionProfile> decisions =
+          new LinkedHashSet<>(profile.getSlowestDecisions(PARSE_PROFILE_DECISIONS));
+      decisions.addAll(profile.getDeepestDecisions(PARSE_PROFILE_DECISIONS));
+      for (ParseProfile.DecisionProfile decision : decisions) {
+        retString.append(
+            String.format(
+                "    decision %d (%s) : %d ms, %d invocations, SLL max lookahead %d, "
+                    + "%d LL fallbacks, LL max lookahead %d, %d DFA states\n",
+                decision.getDecision(),
+                decision.getRule(),
+                decision.getTimeInPrediction() / 1000000L,
+                decision.getInvocations(),
+                decision.getSllMaxLookahead(),
+                decision.getLlFallbacks(),
+                decision.getLlMaxLookahead(),
+                decision.getDfaStates()));
+      }
+    }
+    if (_serializedBytes > 0) {
+      retString.append(
+          "\n  Serialized " + _serializedBytes + " bytes in " + _serializationTime + " ms\n");
+    }
 
     return retString.toString();
   }
@@ -105,6 +202,14 @@ public class ParseVendorConfigurationAnswerElement implements AnswerElement, Ser
     _fileMap = fileMap;
   }
 
+  public void setLlFallbacks(SortedSet<String> llFallbacks) {
+    _llFallbacks = llFallbacks;
+  }
+
+  public void setParseProfiles(SortedMap<String, ParseProfile> parseProfiles) {
+    _parseProfiles = parseProfiles;
+  }
+
   public void setParseStatus(SortedMap<String, ParseStatus> parseStatus) {
     _parseStatus = parseStatus;
   }
@@ -113,6 +218,14 @@ public class ParseVendorConfigurationAnswerElement implements AnswerElement, Ser
     _parseTrees = parseTrees;
   }
 
+  public void setSerializationTime(long serializationTime) {
+    _serializationTime = serializationTime;
+  }
+
+  public void setSerializedBytes(long serializedBytes) {
+    _serializedBytes = serializedBytes;
+  }
+
   public void setVersion(String version) {
     _version = version;
   }
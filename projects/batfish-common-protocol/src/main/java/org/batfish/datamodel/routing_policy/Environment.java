@@ -48,6 +48,8 @@ public class Environment {
 
   private boolean _readFromIntermediateBgpAttributes;
 
+  private boolean _readsRibs;
+
   private final boolean _useOutputAttributes;
 
   private Vrf _vrf;
@@ -136,6 +138,14 @@ public class Environment {
     return _readFromIntermediateBgpAttributes;
   }
 
+  /**
+   * Whether the result of the evaluation depends on the routes computed so far, rather than only on
+   * the route being processed and the configuration. Such results must not be memoized.
+   */
+  public boolean getReadsRibs() {
+    return _readsRibs;
+  }
+
   public boolean getUseOutputAttributes() {
     return _useOutputAttributes;
   }
@@ -184,6 +194,10 @@ public class Environment {
     _readFromIntermediateBgpAttributes = readFromIntermediateBgpAttributes;
   }
 
+  public void setReadsRibs(boolean readsRibs) {
+    _readsRibs = readsRibs;
+  }
+
   public void setWriteToIntermediateBgpAttributes(boolean writeToIntermediateBgpAttributes) {
     _writeToIntermediateBgpAttributes = writeToIntermediateBgpAttributes;
   }
@@ -7,14 +7,23 @@ import com.fasterxml.jackson.annotation.JsonPropertyDescription;
 import com.kjetland.jackson.jsonSchema.annotations.JsonSchemaDescription;
 import java.util.ArrayList;
 import java.util.List;
+import javax.annotation.Nullable;
 import org.batfish.common.util.ComparableStructure;
 import org.batfish.datamodel.AbstractRoute;
 import org.batfish.datamodel.AbstractRouteBuilder;
+import org.batfish.datamodel.BgpRoute;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.Ip;
 import org.batfish.datamodel.routing_policy.Environment.Direction;
 import org.batfish.datamodel.routing_policy.statement.Statement;
 
+/**
+ * A procedural routing policy. Routes are processed by a compiled form of the statements, built on
+ * first use: references to the named structures and policies of the owner are resolved once, and
+ * branches on constant conditions are folded. Statements set with {@link #setStatements(List)} are
+ * compiled anew, but changes to the named structures of the owner after the first use are not seen
+ * by resolved references.
+ */
 @JsonSchemaDescription(
     "A procedural routing policy used to transform and accept/reject IPV4/IPV6 routes")
 public class RoutingPolicy extends ComparableStructure<String> {
@@ -24,6 +33,25 @@ public class RoutingPolicy extends ComparableStructure<String> {
 
   private static final String PROP_STATEMENTS = "statements";
 
+  private static Result execute(List<Statement> statements, Environment environment) {
+    for (Statement statement : statements) {
+      Result result = statement.execute(environment);
+      if (result.getExit()) {
+        return result;
+      }
+      if (result.getReturn()) {
+        result.setReturn(false);
+        return result;
+      }
+    }
+    Result result = new Result();
+    result.setFallThrough(true);
+    result.setBooleanValue(environment.getDefaultAction());
+    return result;
+  }
+
+  private transient volatile List<Statement> _compiledStatements;
+
   private Configuration _owner;
 
   private List<Statement> _statements;
@@ -39,21 +67,24 @@ public class RoutingPolicy extends ComparableStructure<String> {
     _owner = owner;
   }
 
+  /** Runs the statements of this policy as they are, without compiling them */
   public Result call(Environment environment) {
-    for (Statement statement : _statements) {
-      Result result = statement.execute(environment);
-      if (result.getExit()) {
-        return result;
-      }
-      if (result.getReturn()) {
-        result.setReturn(false);
-        return result;
-      }
+    return execute(_statements, environment);
+  }
+
+  /** Runs the compiled statements of this policy */
+  public Result callCompiled(Environment environment) {
+    return execute(compiledStatements(), environment);
+  }
+
+  private List<Statement> compiledStatements() {
+    List<Statement> compiledStatements = _compiledStatements;
+    if (compiledStatements == null) {
+      // concurrent first uses may each compile; the results are equivalent
+      compiledStatements = Statement.compileAll(_statements, _owner);
+      _compiledStatements = compiledStatements;
     }
-    Result result = new Result();
-    result.setFallThrough(true);
-    result.setBooleanValue(environment.getDefaultAction());
-    return result;
+    return compiledStatements;
   }
 
   @Override
@@ -78,12 +109,60 @@ public class RoutingPolicy extends ComparableStructure<String> {
     return _statements;
   }
 
+  /**
+   * Applies this policy to {@code inputRoute}, setting the attributes of the route it produces in
+   * {@code outputRoute}, and returns whether the route is accepted.
+   */
   public boolean process(
       AbstractRoute inputRoute,
       AbstractRouteBuilder<?, ?> outputRoute,
       Ip peerAddress,
       String vrf,
       Direction direction) {
+    return process(inputRoute, outputRoute, peerAddress, vrf, direction, null);
+  }
+
+  /**
+   * Like {@link #process(AbstractRoute, AbstractRouteBuilder, Ip, String, Direction)}, but if
+   * {@code resultCache} is not null and the route is a BGP route, reuses the result memoized there
+   * by an earlier application to the same inputs. The cache is owned by the caller, e.g. one data
+   * plane computation, so that computations sharing this policy do not share results.
+   */
+  public boolean process(
+      AbstractRoute inputRoute,
+      AbstractRouteBuilder<?, ?> outputRoute,
+      Ip peerAddress,
+      String vrf,
+      Direction direction,
+      @Nullable RoutingPolicyResultCache resultCache) {
+    if (resultCache != null
+        && inputRoute instanceof BgpRoute
+        && outputRoute instanceof BgpRoute.Builder) {
+      return resultCache.process(
+          this,
+          (BgpRoute) inputRoute,
+          (BgpRoute.Builder) outputRoute,
+          peerAddress,
+          vrf,
+          direction);
+    }
+    Environment environment =
+        new Environment(_owner, vrf, inputRoute, null, outputRoute, peerAddress, direction);
+    Result result = callCompiled(environment);
+    return result.getBooleanValue();
+  }
+
+  /**
+   * Like {@link #process}, but interprets the statements as they are instead of running their
+   * compiled form or reusing memoized results. Used to check that compilation preserves the
+   * behavior of policies.
+   */
+  public boolean processInterpreted(
+      AbstractRoute inputRoute,
+      AbstractRouteBuilder<?, ?> outputRoute,
+      Ip peerAddress,
+      String vrf,
+      Direction direction) {
     Environment environment =
         new Environment(_owner, vrf, inputRoute, null, outputRoute, peerAddress, direction);
     Result result = call(environment);
@@ -93,6 +172,7 @@ public class RoutingPolicy extends ComparableStructure<String> {
   @JsonProperty(PROP_STATEMENTS)
   public void setStatements(List<Statement> statements) {
     _statements = statements;
+    _compiledStatements = null;
   }
 
   public RoutingPolicy simplify() {
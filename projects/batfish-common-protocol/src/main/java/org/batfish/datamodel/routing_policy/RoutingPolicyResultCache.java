@@ -0,0 +1,344 @@
+package org.batfish.datamodel.routing_policy;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nullable;
+import org.batfish.datamodel.BgpRoute;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.OriginType;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.RoutingProtocol;
+import org.batfish.datamodel.routing_policy.Environment.Direction;
+
+/**
+ * Memoizes the results of a {@link RoutingPolicy} applied to BGP routes. A result is keyed on all
+ * attributes of the input route, all attributes the output route builder holds before the policy
+ * runs, and the peer, VRF and direction; it records the decision and all attributes of the output
+ * route builder after the policy ran. Results of evaluations that read the routes computed so far
+ * (see {@link Environment#getReadsRibs()}) are not memoized, so every memoized result only depends
+ * on its key and on the configuration.
+ *
+ * <p>A cache serves one policy for the duration of one computation, such as a data plane
+ * computation, and is passed to {@link RoutingPolicy#process(org.batfish.datamodel.AbstractRoute,
+ * org.batfish.datamodel.AbstractRouteBuilder, Ip, String, Direction, RoutingPolicyResultCache)} by
+ * its owner. Policies hold no reference to it, so computations sharing a policy never share
+ * results.
+ */
+public final class RoutingPolicyResultCache {
+
+  /** An immutable copy of the attributes of a BGP route or route builder */
+  private static final class BgpAttributes {
+
+    private static List<SortedSet<Integer>> copyAsPath(List<SortedSet<Integer>> asPath) {
+      ImmutableList.Builder<SortedSet<Integer>> copy = ImmutableList.builder();
+      for (SortedSet<Integer> asSet : asPath) {
+        copy.add(ImmutableSortedSet.copyOfSorted(asSet));
+      }
+      return copy.build();
+    }
+
+    private static BgpAttributes of(BgpRoute route) {
+      return new BgpAttributes(
+          route.getAdministrativeCost(),
+          copyAsPath(route.getAsPath().getAsSets()),
+          ImmutableSortedSet.copyOfSorted(route.getClusterList()),
+          ImmutableSortedSet.copyOfSorted(route.getCommunities()),
+          route.getLocalPreference(),
+          route.getMetric(),
+          route.getNetwork(),
+          route.getNextHopIp(),
+          route.getOriginatorIp(),
+          route.getOriginType(),
+          route.getProtocol(),
+          route.getReceivedFromRouteReflectorClient(),
+          route.getSrcProtocol(),
+          route.getTag(),
+          route.getWeight());
+    }
+
+    private static BgpAttributes of(BgpRoute.Builder builder) {
+      return new BgpAttributes(
+          builder.getAdmin(),
+          copyAsPath(builder.getAsPath()),
+          ImmutableSortedSet.copyOfSorted(builder.getClusterList()),
+          ImmutableSortedSet.copyOfSorted(builder.getCommunities()),
+          builder.getLocalPreference(),
+          builder.getMetric(),
+          builder.getNetwork(),
+          builder.getNextHopIp(),
+          builder.getOriginatorIp(),
+          builder.getOriginType(),
+          builder.getProtocol(),
+          builder.getReceivedFromRouteReflectorClient(),
+          builder.getSrcProtocol(),
+          builder.getTag(),
+          builder.getWeight());
+    }
+
+    private final int _admin;
+
+    private final List<SortedSet<Integer>> _asPath;
+
+    private final SortedSet<Long> _clusterList;
+
+    private final SortedSet<Long> _communities;
+
+    private final int _hashCode;
+
+    private final int _localPreference;
+
+    private final long _metric;
+
+    @Nullable private final Prefix _network;
+
+    @Nullable private final Ip _nextHopIp;
+
+    @Nullable private final Ip _originatorIp;
+
+    @Nullable private final OriginType _originType;
+
+    @Nullable private final RoutingProtocol _protocol;
+
+    private final boolean _receivedFromRouteReflectorClient;
+
+    @Nullable private final RoutingProtocol _srcProtocol;
+
+    private final int _tag;
+
+    private final int _weight;
+
+    private BgpAttributes(
+        int admin,
+        List<SortedSet<Integer>> asPath,
+        SortedSet<Long> clusterList,
+        SortedSet<Long> communities,
+        int localPreference,
+        long metric,
+        @Nullable Prefix network,
+        @Nullable Ip nextHopIp,
+        @Nullable Ip originatorIp,
+        @Nullable OriginType originType,
+        @Nullable RoutingProtocol protocol,
+        boolean receivedFromRouteReflectorClient,
+        @Nullable RoutingProtocol srcProtocol,
+        int tag,
+        int weight) {
+      _admin = admin;
+      _asPath = asPath;
+      _clusterList = clusterList;
+      _communities = communities;
+      _localPreference = localPreference;
+      _metric = metric;
+      _network = network;
+      _nextHopIp = nextHopIp;
+      _originatorIp = originatorIp;
+      _originType = originType;
+      _protocol = protocol;
+      _receivedFromRouteReflectorClient = receivedFromRouteReflectorClient;
+      _srcProtocol = srcProtocol;
+      _tag = tag;
+      _weight = weight;
+      _hashCode =
+          Objects.hash(
+              admin,
+              asPath,
+              clusterList,
+              communities,
+              localPreference,
+              metric,
+              network,
+              nextHopIp,
+              originatorIp,
+              originType,
+              protocol,
+              receivedFromRouteReflectorClient,
+              srcProtocol,
+              tag,
+              weight);
+    }
+
+    /** Sets every attribute of {@code builder} to a mutable copy of the attribute held here */
+    private void applyTo(BgpRoute.Builder builder) {
+      List<SortedSet<Integer>> asPath = new ArrayList<>(_asPath.size());
+      for (SortedSet<Integer> asSet : _asPath) {
+        asPath.add(new TreeSet<>(asSet));
+      }
+      builder.setAdmin(_admin);
+      builder.setAsPath(asPath);
+      builder.setClusterList(new TreeSet<>(_clusterList));
+      builder.setCommunities(new TreeSet<>(_communities));
+      builder.setLocalPreference(_localPreference);
+      builder.setMetric(_metric);
+      if (_network != null) {
+        builder.setNetwork(_network);
+      }
+      builder.setNextHopIp(_nextHopIp);
+      builder.setOriginatorIp(_originatorIp);
+      builder.setOriginType(_originType);
+      builder.setProtocol(_protocol);
+      builder.setReceivedFromRouteReflectorClient(_receivedFromRouteReflectorClient);
+      builder.setSrcProtocol(_srcProtocol);
+      builder.setTag(_tag);
+      builder.setWeight(_weight);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o == this) {
+        return true;
+      } else if (!(o instanceof BgpAttributes)) {
+        return false;
+      }
+      BgpAttributes other = (BgpAttributes) o;
+      return _hashCode == other._hashCode
+          && _admin == other._admin
+          && _localPreference == other._localPreference
+          && _metric == other._metric
+          && _receivedFromRouteReflectorClient == other._receivedFromRouteReflectorClient
+          && _tag == other._tag
+          && _weight == other._weight
+          && _originType == other._originType
+          && _protocol == other._protocol
+          && _srcProtocol == other._srcProtocol
+          && Objects.equals(_network, other._network)
+          && Objects.equals(_nextHopIp, other._nextHopIp)
+          && Objects.equals(_originatorIp, other._originatorIp)
+          && _asPath.equals(other._asPath)
+          && _communities.equals(other._communities)
+          && _clusterList.equals(other._clusterList);
+    }
+
+    @Override
+    public int hashCode() {
+      return _hashCode;
+    }
+  }
+
+  /** The inputs of an application of the policy */
+  private static final class Key {
+
+    private final Direction _direction;
+
+    private final int _hashCode;
+
+    private final BgpAttributes _inputRoute;
+
+    private final BgpAttributes _outputRoute;
+
+    @Nullable private final Ip _peerAddress;
+
+    private final String _vrf;
+
+    private Key(
+        BgpAttributes inputRoute,
+        BgpAttributes outputRoute,
+        @Nullable Ip peerAddress,
+        String vrf,
+        Direction direction) {
+      _direction = direction;
+      _inputRoute = inputRoute;
+      _outputRoute = outputRoute;
+      _peerAddress = peerAddress;
+      _vrf = vrf;
+      _hashCode = Objects.hash(direction, inputRoute, outputRoute, peerAddress, vrf);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o == this) {
+        return true;
+      } else if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return _hashCode == other._hashCode
+          && _direction == other._direction
+          && Objects.equals(_peerAddress, other._peerAddress)
+          && Objects.equals(_vrf, other._vrf)
+          && _inputRoute.equals(other._inputRoute)
+          && _outputRoute.equals(other._outputRoute);
+    }
+
+    @Override
+    public int hashCode() {
+      return _hashCode;
+    }
+  }
+
+  /** The outputs of an application of the policy */
+  private static final class Outcome {
+
+    private final boolean _accepted;
+
+    private final BgpAttributes _outputRoute;
+
+    private Outcome(boolean accepted, BgpAttributes outputRoute) {
+      _accepted = accepted;
+      _outputRoute = outputRoute;
+    }
+  }
+
+  private final Cache<Key, Outcome> _outcomes;
+
+  private final LongAdder _unmemoizable;
+
+  /** @param maximumSize The maximum number of results held; least recently used ones are evicted */
+  public RoutingPolicyResultCache(long maximumSize) {
+    _outcomes = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+    _unmemoizable = new LongAdder();
+  }
+
+  /** Returns the number of applications whose result could not be memoized */
+  public long getUnmemoizable() {
+    return _unmemoizable.sum();
+  }
+
+  /**
+   * Applies {@code policy} like {@link RoutingPolicy#process}, reusing the memoized result of an
+   * earlier application to the same inputs if there is one.
+   */
+  boolean process(
+      RoutingPolicy policy,
+      BgpRoute inputRoute,
+      BgpRoute.Builder outputRoute,
+      @Nullable Ip peerAddress,
+      String vrf,
+      Direction direction) {
+    Key key =
+        new Key(
+            BgpAttributes.of(inputRoute),
+            BgpAttributes.of(outputRoute),
+            peerAddress,
+            vrf,
+            direction);
+    Outcome outcome = _outcomes.getIfPresent(key);
+    if (outcome != null) {
+      outcome._outputRoute.applyTo(outputRoute);
+      return outcome._accepted;
+    }
+    Environment environment =
+        new Environment(
+            policy.getOwner(), vrf, inputRoute, null, outputRoute, peerAddress, direction);
+    boolean accepted = policy.callCompiled(environment).getBooleanValue();
+    if (environment.getReadsRibs()) {
+      _unmemoizable.increment();
+    } else {
+      _outcomes.put(key, new Outcome(accepted, BgpAttributes.of(outputRoute)));
+    }
+    return accepted;
+  }
+
+  /** Returns the hit, miss and eviction counts of the memoized results */
+  public CacheStats stats() {
+    return _outcomes.stats();
+  }
+}
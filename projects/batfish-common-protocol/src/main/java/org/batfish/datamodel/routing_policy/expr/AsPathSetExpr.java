@@ -2,6 +2,7 @@ package org.batfish.datamodel.routing_policy.expr;
 
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import java.io.Serializable;
+import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.routing_policy.Environment;
 
 @JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, include = JsonTypeInfo.As.PROPERTY, property = "class")
@@ -10,6 +11,11 @@ public abstract class AsPathSetExpr implements Serializable {
   /** */
   private static final long serialVersionUID = 1L;
 
+  /** Returns this set with references to named structures of {@code owner} resolved */
+  public AsPathSetExpr compile(Configuration owner) {
+    return this;
+  }
+
   @Override
   public abstract boolean equals(Object obj);
 
@@ -2,6 +2,7 @@ package org.batfish.datamodel.routing_policy.expr;
 
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import java.io.Serializable;
+import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.routing_policy.Environment;
 import org.batfish.datamodel.routing_policy.Result;
 
@@ -13,6 +14,15 @@ public abstract class BooleanExpr implements Serializable {
 
   private String _comment;
 
+  /**
+   * Returns an expression that evaluates like this one in routing policies of {@code owner}, with
+   * references to named structures of {@code owner} resolved and constant subexpressions folded.
+   * Returns this expression if there is nothing to compile.
+   */
+  public BooleanExpr compile(Configuration owner) {
+    return this;
+  }
+
   @Override
   public abstract boolean equals(Object obj);
 
@@ -2,6 +2,7 @@ package org.batfish.datamodel.routing_policy.expr;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.routing_policy.Environment;
 import org.batfish.datamodel.routing_policy.Result;
 import org.batfish.datamodel.routing_policy.RoutingPolicy;
@@ -13,6 +14,9 @@ public class CallExpr extends BooleanExpr {
   /** */
   private static final long serialVersionUID = 1L;
 
+  /** The called policy, if resolved by {@link #compile(Configuration)} */
+  private transient RoutingPolicy _calledPolicy;
+
   private String _calledPolicyName;
 
   @JsonCreator
@@ -22,6 +26,19 @@ public class CallExpr extends BooleanExpr {
     _calledPolicyName = includedPolicyName;
   }
 
+  @Override
+  public BooleanExpr compile(Configuration owner) {
+    RoutingPolicy policy = owner.getRoutingPolicies().get(_calledPolicyName);
+    if (policy == null) {
+      // left to be looked up, and reported if still undefined, on evaluation
+      return this;
+    }
+    CallExpr compiled = new CallExpr(_calledPolicyName);
+    compiled._calledPolicy = policy;
+    compiled.setComment(getComment());
+    return compiled;
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (this == obj) {
@@ -47,7 +64,9 @@ public class CallExpr extends BooleanExpr {
   @Override
   public Result evaluate(Environment environment) {
     RoutingPolicy policy =
-        environment.getConfiguration().getRoutingPolicies().get(_calledPolicyName);
+        _calledPolicy != null
+            ? _calledPolicy
+            : environment.getConfiguration().getRoutingPolicies().get(_calledPolicyName);
     Result result;
     if (policy == null) {
       result = new Result();
@@ -57,7 +76,8 @@ public class CallExpr extends BooleanExpr {
       boolean oldCallExprContext = environment.getCallExprContext();
       boolean oldLocalDefaultAction = environment.getLocalDefaultAction();
       environment.setCallExprContext(true);
-      result = policy.call(environment);
+      // a resolved call is part of a compiled policy, so it runs the compiled callee
+      result = _calledPolicy != null ? policy.callCompiled(environment) : policy.call(environment);
       result.setReturn(false);
       environment.setCallExprContext(oldCallExprContext);
       environment.setLocalDefaultAction(oldLocalDefaultAction);
@@ -3,6 +3,7 @@ package org.batfish.datamodel.routing_policy.expr;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import java.io.Serializable;
 import java.util.SortedSet;
+import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.routing_policy.Environment;
 
 @JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, include = JsonTypeInfo.As.PROPERTY, property = "class")
@@ -16,6 +17,11 @@ public abstract class CommunitySetExpr implements Serializable {
   public abstract SortedSet<Long> communities(
       Environment environment, SortedSet<Long> communityCandidates);
 
+  /** Returns this set with references to named structures of {@code owner} resolved */
+  public CommunitySetExpr compile(Configuration owner) {
+    return this;
+  }
+
   @Override
   public abstract boolean equals(Object obj);
 
@@ -2,6 +2,7 @@ package org.batfish.datamodel.routing_policy.expr;
 
 import java.util.ArrayList;
 import java.util.List;
+import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.routing_policy.Environment;
 import org.batfish.datamodel.routing_policy.Result;
 
@@ -16,6 +17,35 @@ public class Conjunction extends BooleanExpr {
     _conjuncts = new ArrayList<>();
   }
 
+  @Override
+  public BooleanExpr compile(Configuration owner) {
+    BooleanExpr trueExpr = BooleanExprs.True.toStaticBooleanExpr();
+    BooleanExpr falseExpr = BooleanExprs.False.toStaticBooleanExpr();
+    List<BooleanExpr> compiledConjuncts = new ArrayList<>();
+    for (BooleanExpr conjunct : _conjuncts) {
+      BooleanExpr compiledConjunct = conjunct.compile(owner);
+      if (compiledConjunct.equals(trueExpr)) {
+        continue;
+      }
+      if (compiledConjunct.equals(falseExpr)) {
+        if (compiledConjuncts.isEmpty()) {
+          return falseExpr;
+        }
+        // conjuncts after this one are never evaluated
+        compiledConjuncts.add(compiledConjunct);
+        break;
+      }
+      compiledConjuncts.add(compiledConjunct);
+    }
+    if (compiledConjuncts.isEmpty()) {
+      return trueExpr;
+    }
+    Conjunction compiled = new Conjunction();
+    compiled.setConjuncts(compiledConjuncts);
+    compiled.setComment(getComment());
+    return compiled;
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (this == obj) {
@@ -1,8 +1,10 @@
 package org.batfish.datamodel.routing_policy.expr;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import java.util.ArrayList;
 import java.util.List;
 import org.batfish.common.BatfishException;
+import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.routing_policy.Environment;
 import org.batfish.datamodel.routing_policy.Result;
 
@@ -21,6 +23,17 @@ public class ConjunctionChain extends BooleanExpr {
     _subroutines = subroutines;
   }
 
+  @Override
+  public BooleanExpr compile(Configuration owner) {
+    List<BooleanExpr> compiledSubroutines = new ArrayList<>();
+    for (BooleanExpr subroutine : _subroutines) {
+      compiledSubroutines.add(subroutine.compile(owner));
+    }
+    ConjunctionChain compiled = new ConjunctionChain(compiledSubroutines);
+    compiled.setComment(getComment());
+    return compiled;
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (this == obj) {
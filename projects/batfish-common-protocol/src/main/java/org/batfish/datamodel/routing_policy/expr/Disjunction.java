@@ -2,6 +2,7 @@ package org.batfish.datamodel.routing_policy.expr;
 
 import java.util.ArrayList;
 import java.util.List;
+import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.routing_policy.Environment;
 import org.batfish.datamodel.routing_policy.Result;
 
@@ -16,6 +17,35 @@ public class Disjunction extends BooleanExpr {
     _disjuncts = new ArrayList<>();
   }
 
+  @Override
+  public BooleanExpr compile(Configuration owner) {
+    BooleanExpr falseExpr = BooleanExprs.False.toStaticBooleanExpr();
+    BooleanExpr trueExpr = BooleanExprs.True.toStaticBooleanExpr();
+    List<BooleanExpr> compiledDisjuncts = new ArrayList<>();
+    for (BooleanExpr disjunct : _disjuncts) {
+      BooleanExpr compiledDisjunct = disjunct.compile(owner);
+      if (compiledDisjunct.equals(falseExpr)) {
+        continue;
+      }
+      if (compiledDisjunct.equals(trueExpr)) {
+        if (compiledDisjuncts.isEmpty()) {
+          return trueExpr;
+        }
+        // disjuncts after this one are never evaluated
+        compiledDisjuncts.add(compiledDisjunct);
+        break;
+      }
+      compiledDisjuncts.add(compiledDisjunct);
+    }
+    if (compiledDisjuncts.isEmpty()) {
+      return falseExpr;
+    }
+    Disjunction compiled = new Disjunction();
+    compiled.setDisjuncts(compiledDisjuncts);
+    compiled.setComment(getComment());
+    return compiled;
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (this == obj) {
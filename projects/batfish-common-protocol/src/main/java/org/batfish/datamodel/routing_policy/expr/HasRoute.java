@@ -42,6 +42,7 @@ public class HasRoute extends BooleanExpr {
 
   @Override
   public Result evaluate(Environment environment) {
+    environment.setReadsRibs(true);
     throw new UnsupportedOperationException("no implementation for generated method");
     // TODO Auto-generated method stub
   }
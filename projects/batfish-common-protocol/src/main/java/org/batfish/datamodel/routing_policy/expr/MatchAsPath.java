@@ -1,6 +1,7 @@
 package org.batfish.datamodel.routing_policy.expr;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.routing_policy.Environment;
 import org.batfish.datamodel.routing_policy.Result;
 
@@ -18,6 +19,13 @@ public class MatchAsPath extends BooleanExpr {
     _expr = expr;
   }
 
+  @Override
+  public BooleanExpr compile(Configuration owner) {
+    MatchAsPath compiled = new MatchAsPath(_expr.compile(owner));
+    compiled.setComment(getComment());
+    return compiled;
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (this == obj) {
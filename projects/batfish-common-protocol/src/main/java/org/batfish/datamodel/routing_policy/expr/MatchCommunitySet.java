@@ -3,6 +3,7 @@ package org.batfish.datamodel.routing_policy.expr;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import java.util.SortedSet;
 import org.batfish.datamodel.BgpRoute;
+import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.routing_policy.Environment;
 import org.batfish.datamodel.routing_policy.Result;
 
@@ -20,6 +21,13 @@ public class MatchCommunitySet extends BooleanExpr {
     _expr = expr;
   }
 
+  @Override
+  public BooleanExpr compile(Configuration owner) {
+    MatchCommunitySet compiled = new MatchCommunitySet(_expr.compile(owner));
+    compiled.setComment(getComment());
+    return compiled;
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (this == obj) {
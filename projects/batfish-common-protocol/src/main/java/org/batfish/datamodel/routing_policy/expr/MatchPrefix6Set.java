@@ -1,6 +1,7 @@
 package org.batfish.datamodel.routing_policy.expr;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.Prefix6;
 import org.batfish.datamodel.routing_policy.Environment;
 import org.batfish.datamodel.routing_policy.Result;
@@ -22,6 +23,13 @@ public class MatchPrefix6Set extends BooleanExpr {
     _prefixSet = prefixSet;
   }
 
+  @Override
+  public BooleanExpr compile(Configuration owner) {
+    MatchPrefix6Set compiled = new MatchPrefix6Set(_prefix, _prefixSet.compile(owner));
+    compiled.setComment(getComment());
+    return compiled;
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (this == obj) {
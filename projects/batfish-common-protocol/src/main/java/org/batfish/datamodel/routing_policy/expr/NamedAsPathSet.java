@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import org.batfish.datamodel.AsPath;
 import org.batfish.datamodel.AsPathAccessList;
 import org.batfish.datamodel.BgpRoute;
+import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.routing_policy.Environment;
 
 public class NamedAsPathSet extends AsPathSetExpr {
@@ -11,6 +12,9 @@ public class NamedAsPathSet extends AsPathSetExpr {
   /** */
   private static final long serialVersionUID = 1L;
 
+  /** The list named by this set, if resolved by {@link #compile(Configuration)} */
+  private transient AsPathAccessList _list;
+
   private String _name;
 
   @JsonCreator
@@ -20,6 +24,18 @@ public class NamedAsPathSet extends AsPathSetExpr {
     _name = name;
   }
 
+  @Override
+  public AsPathSetExpr compile(Configuration owner) {
+    AsPathAccessList list = owner.getAsPathAccessLists().get(_name);
+    if (list == null) {
+      // left to be looked up, and reported if still undefined, on evaluation
+      return this;
+    }
+    NamedAsPathSet compiled = new NamedAsPathSet(_name);
+    compiled._list = list;
+    return compiled;
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (this == obj) {
@@ -56,7 +72,7 @@ public class NamedAsPathSet extends AsPathSetExpr {
 
   @Override
   public boolean matches(Environment environment) {
-    AsPathAccessList list = environment.getConfiguration().getAsPathAccessLists().get(_name);
+    AsPathAccessList list = resolve(environment);
     if (list != null) {
       boolean match = false;
       AsPath inputAsPath = null;
@@ -80,6 +96,10 @@ public class NamedAsPathSet extends AsPathSetExpr {
     }
   }
 
+  private AsPathAccessList resolve(Environment environment) {
+    return _list != null ? _list : environment.getConfiguration().getAsPathAccessLists().get(_name);
+  }
+
   public void setName(String name) {
     _name = name;
   }
@@ -6,6 +6,7 @@ import java.util.SortedSet;
 import java.util.TreeSet;
 import org.batfish.datamodel.CommunityList;
 import org.batfish.datamodel.CommunityListLine;
+import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.routing_policy.Environment;
 
 public class NamedCommunitySet extends CommunitySetExpr {
@@ -13,6 +14,9 @@ public class NamedCommunitySet extends CommunitySetExpr {
   /** */
   private static final long serialVersionUID = 1L;
 
+  /** The list named by this set, if resolved by {@link #compile(Configuration)} */
+  private transient CommunityList _list;
+
   private String _name;
 
   @JsonCreator
@@ -25,7 +29,7 @@ public class NamedCommunitySet extends CommunitySetExpr {
   @Override
   public SortedSet<Long> communities(Environment environment) {
     SortedSet<Long> out = new TreeSet<>();
-    CommunityList cl = environment.getConfiguration().getCommunityLists().get(_name);
+    CommunityList cl = resolve(environment);
     for (CommunityListLine line : cl.getLines()) {
       Long community = line.toLiteralCommunity();
       out.add(community);
@@ -37,7 +41,7 @@ public class NamedCommunitySet extends CommunitySetExpr {
   public SortedSet<Long> communities(Environment environment, SortedSet<Long> communityCandidates) {
     SortedSet<Long> matchingCommunities = new TreeSet<>();
     for (Long community : communityCandidates) {
-      CommunityList cl = environment.getConfiguration().getCommunityLists().get(_name);
+      CommunityList cl = resolve(environment);
       if (cl.permits(community)) {
         matchingCommunities.add(community);
       }
@@ -45,6 +49,18 @@ public class NamedCommunitySet extends CommunitySetExpr {
     return Collections.unmodifiableSortedSet(matchingCommunities);
   }
 
+  @Override
+  public CommunitySetExpr compile(Configuration owner) {
+    CommunityList list = owner.getCommunityLists().get(_name);
+    if (list == null) {
+      // left to be looked up, and reported if still undefined, on evaluation
+      return this;
+    }
+    NamedCommunitySet compiled = new NamedCommunitySet(_name);
+    compiled._list = list;
+    return compiled;
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (this == obj) {
@@ -81,7 +97,7 @@ public class NamedCommunitySet extends CommunitySetExpr {
 
   @Override
   public boolean matchSingleCommunity(Environment environment, SortedSet<Long> communities) {
-    CommunityList cl = environment.getConfiguration().getCommunityLists().get(_name);
+    CommunityList cl = resolve(environment);
     for (Long community : communities) {
       if (cl.permits(community)) {
         return true;
@@ -90,6 +106,10 @@ public class NamedCommunitySet extends CommunitySetExpr {
     return false;
   }
 
+  private CommunityList resolve(Environment environment) {
+    return _list != null ? _list : environment.getConfiguration().getCommunityLists().get(_name);
+  }
+
   public void setName(String name) {
     _name = name;
   }
@@ -1,6 +1,7 @@
 package org.batfish.datamodel.routing_policy.expr;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.Prefix6;
 import org.batfish.datamodel.Route6FilterList;
 import org.batfish.datamodel.routing_policy.Environment;
@@ -10,6 +11,9 @@ public class NamedPrefix6Set extends Prefix6SetExpr {
   /** */
   private static final long serialVersionUID = 1L;
 
+  /** The list named by this set, if resolved by {@link #compile(Configuration)} */
+  private transient Route6FilterList _list;
+
   private String _name;
 
   @JsonCreator
@@ -19,6 +23,18 @@ public class NamedPrefix6Set extends Prefix6SetExpr {
     _name = name;
   }
 
+  @Override
+  public Prefix6SetExpr compile(Configuration owner) {
+    Route6FilterList list = owner.getRoute6FilterLists().get(_name);
+    if (list == null) {
+      // left to be looked up, and reported if still undefined, on evaluation
+      return this;
+    }
+    NamedPrefix6Set compiled = new NamedPrefix6Set(_name);
+    compiled._list = list;
+    return compiled;
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (this == obj) {
@@ -55,7 +71,7 @@ public class NamedPrefix6Set extends Prefix6SetExpr {
 
   @Override
   public boolean matches(Prefix6 prefix, Environment environment) {
-    Route6FilterList list = environment.getConfiguration().getRoute6FilterLists().get(_name);
+    Route6FilterList list = resolve(environment);
     if (list != null) {
       return list.permits(prefix);
     } else {
@@ -64,6 +80,10 @@ public class NamedPrefix6Set extends Prefix6SetExpr {
     }
   }
 
+  private Route6FilterList resolve(Environment environment) {
+    return _list != null ? _list : environment.getConfiguration().getRoute6FilterLists().get(_name);
+  }
+
   public void setName(String name) {
     _name = name;
   }
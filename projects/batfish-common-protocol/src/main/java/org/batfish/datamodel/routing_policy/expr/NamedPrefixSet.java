@@ -1,6 +1,7 @@
 package org.batfish.datamodel.routing_policy.expr;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.Prefix;
 import org.batfish.datamodel.RouteFilterList;
 import org.batfish.datamodel.routing_policy.Environment;
@@ -10,6 +11,9 @@ public class NamedPrefixSet extends PrefixSetExpr {
   /** */
   private static final long serialVersionUID = 1L;
 
+  /** The list named by this set, if resolved by {@link #compile(Configuration)} */
+  private transient RouteFilterList _list;
+
   private String _name;
 
   @JsonCreator
@@ -19,6 +23,18 @@ public class NamedPrefixSet extends PrefixSetExpr {
     _name = name;
   }
 
+  @Override
+  public PrefixSetExpr compile(Configuration owner) {
+    RouteFilterList list = owner.getRouteFilterLists().get(_name);
+    if (list == null) {
+      // left to be looked up, and reported if still undefined, on evaluation
+      return this;
+    }
+    NamedPrefixSet compiled = new NamedPrefixSet(_name);
+    compiled._list = list;
+    return compiled;
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (this == obj) {
@@ -55,7 +71,7 @@ public class NamedPrefixSet extends PrefixSetExpr {
 
   @Override
   public boolean matches(Prefix prefix, Environment environment) {
-    RouteFilterList list = environment.getConfiguration().getRouteFilterLists().get(_name);
+    RouteFilterList list = resolve(environment);
     if (list != null) {
       return list.permits(prefix);
     } else {
@@ -64,6 +80,10 @@ public class NamedPrefixSet extends PrefixSetExpr {
     }
   }
 
+  private RouteFilterList resolve(Environment environment) {
+    return _list != null ? _list : environment.getConfiguration().getRouteFilterLists().get(_name);
+  }
+
   public void setName(String name) {
     _name = name;
   }
@@ -1,6 +1,7 @@
 package org.batfish.datamodel.routing_policy.expr;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.routing_policy.Environment;
 import org.batfish.datamodel.routing_policy.Result;
 
@@ -18,6 +19,19 @@ public class Not extends BooleanExpr {
     _expr = expr;
   }
 
+  @Override
+  public BooleanExpr compile(Configuration owner) {
+    BooleanExpr compiledExpr = _expr.compile(owner);
+    if (compiledExpr.equals(BooleanExprs.True.toStaticBooleanExpr())) {
+      return BooleanExprs.False.toStaticBooleanExpr();
+    } else if (compiledExpr.equals(BooleanExprs.False.toStaticBooleanExpr())) {
+      return BooleanExprs.True.toStaticBooleanExpr();
+    }
+    Not compiled = new Not(compiledExpr);
+    compiled.setComment(getComment());
+    return compiled;
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (this == obj) {
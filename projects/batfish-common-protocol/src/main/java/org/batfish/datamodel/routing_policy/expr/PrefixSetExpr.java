@@ -2,6 +2,7 @@ package org.batfish.datamodel.routing_policy.expr;
 
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import java.io.Serializable;
+import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.Prefix;
 import org.batfish.datamodel.routing_policy.Environment;
 
@@ -11,6 +12,11 @@ public abstract class PrefixSetExpr implements Serializable {
   /** */
   private static final long serialVersionUID = 1L;
 
+  /** Returns this set with references to named structures of {@code owner} resolved */
+  public PrefixSetExpr compile(Configuration owner) {
+    return this;
+  }
+
   @Override
   public abstract boolean equals(Object obj);
 
@@ -2,6 +2,7 @@ package org.batfish.datamodel.routing_policy.expr;
 
 import java.util.ArrayList;
 import java.util.List;
+import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.routing_policy.Environment;
 import org.batfish.datamodel.routing_policy.Result;
 import org.batfish.datamodel.routing_policy.statement.Statement;
@@ -25,6 +26,18 @@ public class WithEnvironmentExpr extends BooleanExpr {
     _postTrueStatements = new ArrayList<>();
   }
 
+  @Override
+  public BooleanExpr compile(Configuration owner) {
+    WithEnvironmentExpr compiled = new WithEnvironmentExpr();
+    compiled.setExpr(_expr.compile(owner));
+    // the results of these statements are ignored, so a return in a branch stops nothing
+    compiled.setPostStatements(Statement.compileEach(_postStatements, owner));
+    compiled.setPostTrueStatements(Statement.compileEach(_postTrueStatements, owner));
+    compiled.setPreStatements(Statement.compileEach(_preStatements, owner));
+    compiled.setComment(getComment());
+    return compiled;
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (this == obj) {
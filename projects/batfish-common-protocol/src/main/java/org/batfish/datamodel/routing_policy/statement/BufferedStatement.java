@@ -1,6 +1,9 @@
 package org.batfish.datamodel.routing_policy.statement;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import java.util.Collections;
+import java.util.List;
+import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.routing_policy.Environment;
 import org.batfish.datamodel.routing_policy.Result;
 
@@ -18,6 +21,13 @@ public class BufferedStatement extends Statement {
     _statement = statement;
   }
 
+  @Override
+  public List<Statement> compile(Configuration owner) {
+    BufferedStatement compiled = new BufferedStatement(_statement.compileSingle(owner));
+    compiled.setComment(getComment());
+    return Collections.singletonList(compiled);
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (this == obj) {
@@ -2,6 +2,9 @@ package org.batfish.datamodel.routing_policy.statement;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Collections;
+import java.util.List;
+import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.routing_policy.Environment;
 import org.batfish.datamodel.routing_policy.Result;
 import org.batfish.datamodel.routing_policy.RoutingPolicy;
@@ -13,6 +16,9 @@ public class CallStatement extends Statement {
   /** */
   private static final long serialVersionUID = 1L;
 
+  /** The called policy, if resolved by {@link #compile(Configuration)} */
+  private transient RoutingPolicy _calledPolicy;
+
   private String _calledPolicyName;
 
   @JsonCreator
@@ -22,6 +28,19 @@ public class CallStatement extends Statement {
     _calledPolicyName = includedPolicyName;
   }
 
+  @Override
+  public List<Statement> compile(Configuration owner) {
+    RoutingPolicy policy = owner.getRoutingPolicies().get(_calledPolicyName);
+    if (policy == null) {
+      // left to be looked up, and reported if still undefined, on evaluation
+      return Collections.singletonList(this);
+    }
+    CallStatement compiled = new CallStatement(_calledPolicyName);
+    compiled._calledPolicy = policy;
+    compiled.setComment(getComment());
+    return Collections.singletonList(compiled);
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (this == obj) {
@@ -47,7 +66,9 @@ public class CallStatement extends Statement {
   @Override
   public Result execute(Environment environment) {
     RoutingPolicy policy =
-        environment.getConfiguration().getRoutingPolicies().get(_calledPolicyName);
+        _calledPolicy != null
+            ? _calledPolicy
+            : environment.getConfiguration().getRoutingPolicies().get(_calledPolicyName);
     Result result;
     if (policy == null) {
       result = new Result();
@@ -56,7 +77,8 @@ public class CallStatement extends Statement {
     } else {
       boolean oldCallStatementContext = environment.getCallStatementContext();
       environment.setCallStatementContext(true);
-      result = policy.call(environment);
+      // a resolved call is part of a compiled policy, so it runs the compiled callee
+      result = _calledPolicy != null ? policy.callCompiled(environment) : policy.call(environment);
       result.setReturn(false);
       environment.setCallStatementContext(oldCallStatementContext);
     }
@@ -1,8 +1,11 @@
 package org.batfish.datamodel.routing_policy.statement;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import java.util.Collections;
+import java.util.List;
 import java.util.SortedSet;
 import org.batfish.datamodel.BgpRoute;
+import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.routing_policy.Environment;
 import org.batfish.datamodel.routing_policy.Result;
 import org.batfish.datamodel.routing_policy.expr.CommunitySetExpr;
@@ -21,6 +24,13 @@ public class DeleteCommunity extends Statement {
     _expr = expr;
   }
 
+  @Override
+  public List<Statement> compile(Configuration owner) {
+    DeleteCommunity compiled = new DeleteCommunity(_expr.compile(owner));
+    compiled.setComment(getComment());
+    return Collections.singletonList(compiled);
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (this == obj) {
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.routing_policy.Environment;
 import org.batfish.datamodel.routing_policy.Result;
 import org.batfish.datamodel.routing_policy.expr.BooleanExpr;
@@ -26,6 +27,31 @@ public class If extends Statement {
     _trueStatements = new ArrayList<>();
   }
 
+  @Override
+  public List<Statement> compile(Configuration owner) {
+    BooleanExpr compiledGuard = _guard.compile(owner);
+    if (compiledGuard.equals(BooleanExprs.True.toStaticBooleanExpr())) {
+      return compileAll(_trueStatements, owner);
+    } else if (compiledGuard.equals(BooleanExprs.False.toStaticBooleanExpr())) {
+      return compileAll(_falseStatements, owner);
+    }
+    return Collections.singletonList(compileBranches(compiledGuard, owner));
+  }
+
+  private If compileBranches(BooleanExpr compiledGuard, Configuration owner) {
+    If compiled = new If();
+    compiled.setGuard(compiledGuard);
+    compiled.setTrueStatements(compileAll(_trueStatements, owner));
+    compiled.setFalseStatements(compileAll(_falseStatements, owner));
+    compiled.setComment(getComment());
+    return compiled;
+  }
+
+  @Override
+  public Statement compileSingle(Configuration owner) {
+    return compileBranches(_guard.compile(owner), owner);
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (this == obj) {
@@ -1,7 +1,10 @@
 package org.batfish.datamodel.routing_policy.statement;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import java.util.Collections;
+import java.util.List;
 import org.batfish.common.BatfishException;
+import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.routing_policy.Environment;
 import org.batfish.datamodel.routing_policy.Result;
 import org.batfish.datamodel.routing_policy.expr.CommunitySetExpr;
@@ -20,6 +23,13 @@ public class RetainCommunity extends Statement {
     _expr = expr;
   }
 
+  @Override
+  public List<Statement> compile(Configuration owner) {
+    RetainCommunity compiled = new RetainCommunity(_expr.compile(owner));
+    compiled.setComment(getComment());
+    return Collections.singletonList(compiled);
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (this == obj) {
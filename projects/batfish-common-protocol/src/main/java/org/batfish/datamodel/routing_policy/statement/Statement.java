@@ -4,8 +4,10 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.routing_policy.Environment;
 import org.batfish.datamodel.routing_policy.Result;
 
@@ -38,8 +40,51 @@ public abstract class Statement implements Serializable {
   /** */
   private static final long serialVersionUID = 1L;
 
+  /**
+   * Compiles each of {@code statements} as per {@link #compile(Configuration)}, for a context that
+   * stops at the first statement that returns or exits, such as a policy or a branch of an if.
+   */
+  public static List<Statement> compileAll(List<Statement> statements, Configuration owner) {
+    List<Statement> compiledStatements = new ArrayList<>();
+    for (Statement statement : statements) {
+      compiledStatements.addAll(statement.compile(owner));
+    }
+    return compiledStatements;
+  }
+
+  /**
+   * Compiles each of {@code statements} as per {@link #compileSingle(Configuration)}, for a context
+   * that runs every statement whatever their results.
+   */
+  public static List<Statement> compileEach(List<Statement> statements, Configuration owner) {
+    List<Statement> compiledStatements = new ArrayList<>();
+    for (Statement statement : statements) {
+      compiledStatements.add(statement.compileSingle(owner));
+    }
+    return compiledStatements;
+  }
+
   private String _comment;
 
+  /**
+   * Returns statements that execute like this one in routing policies of {@code owner}, with
+   * references to named structures of {@code owner} resolved and branches on constant conditions
+   * folded. Returns this statement alone if there is nothing to compile.
+   */
+  public List<Statement> compile(Configuration owner) {
+    return Collections.singletonList(this);
+  }
+
+  /**
+   * Like {@link #compile(Configuration)}, but returns a single statement, for a context that does
+   * not stop at a statement that returns or exits. Branches are never inlined there, since that
+   * would run the statements that follow a return in the branch.
+   */
+  public Statement compileSingle(Configuration owner) {
+    List<Statement> compiled = compile(owner);
+    return compiled.size() == 1 ? compiled.get(0) : this;
+  }
+
   @Override
   public abstract boolean equals(Object obj);
 
@@ -1,16 +1,23 @@
 package org.batfish.grammar;
 
-import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
+import org.antlr.v4.runtime.BailErrorStrategy;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
 import org.antlr.v4.runtime.ParserRuleContext;
 import org.antlr.v4.runtime.Token;
 import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.atn.DecisionInfo;
+import org.antlr.v4.runtime.atn.ParseInfo;
 import org.antlr.v4.runtime.atn.PredictionMode;
-import org.batfish.common.BatfishException;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.batfish.datamodel.answers.ParseProfile;
+import org.batfish.datamodel.answers.ParseProfile.DecisionProfile;
 
 public abstract class BatfishCombinedParser<P extends BatfishParser, L extends BatfishLexer> {
 
@@ -24,6 +31,8 @@ public abstract class BatfishCombinedParser<P extends BatfishParser, L extends B
 
   private BatfishLexerErrorListener _lexerErrorListener;
 
+  private boolean _llFallback;
+
   protected P _parser;
 
   private BatfishParserErrorListener _parserErrorListener;
@@ -36,8 +45,15 @@ public abstract class BatfishCombinedParser<P extends BatfishParser, L extends B
 
   private final List<String> _warnings;
 
+  /**
+   * Creates a combined parser for {@code input}, constructing the grammar's lexer and parser with
+   * {@code lexerFactory} and {@code parserFactory} (normally their constructor references).
+   */
   public BatfishCombinedParser(
-      Class<P> pClass, Class<L> lClass, String input, GrammarSettings settings) {
+      Function<TokenStream, P> parserFactory,
+      Function<CharStream, L> lexerFactory,
+      String input,
+      GrammarSettings settings) {
     _settings = settings;
     _tokenModes = new ArrayList<>();
     _currentModeStart = 0;
@@ -45,30 +61,14 @@ public abstract class BatfishCombinedParser<P extends BatfishParser, L extends B
     _errors = new ArrayList<>();
     _input = input;
     CharStream inputStream = CharStreams.fromString(input);
-    try {
-      _lexer = lClass.getConstructor(CharStream.class).newInstance(inputStream);
-    } catch (InstantiationException
-        | IllegalAccessException
-        | IllegalArgumentException
-        | InvocationTargetException
-        | NoSuchMethodException
-        | SecurityException e) {
-      throw new BatfishException("Error constructing lexer using reflection", e);
-    }
+    _lexer = lexerFactory.apply(inputStream);
     _lexer.initErrorListener(this);
     _tokens = new CommonTokenStream(_lexer);
-    try {
-      _parser = pClass.getConstructor(TokenStream.class).newInstance(_tokens);
-    } catch (InstantiationException
-        | IllegalAccessException
-        | IllegalArgumentException
-        | InvocationTargetException
-        | NoSuchMethodException
-        | SecurityException e) {
-      throw new Error(e);
-    }
+    _parser = parserFactory.apply(_tokens);
     _parser.initErrorListener(this);
-    _parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+    if (_settings.getProfileParsing()) {
+      _parser.setProfile(true);
+    }
   }
 
   public List<String> getErrors() {
@@ -87,6 +87,14 @@ public abstract class BatfishCombinedParser<P extends BatfishParser, L extends B
     return _lexerErrorListener;
   }
 
+  /**
+   * Returns whether the last call to {@link #parseWithFallback()} had to reparse the input with
+   * full LL prediction because SLL prediction failed
+   */
+  public boolean getLlFallback() {
+    return _llFallback;
+  }
+
   public P getParser() {
     return _parser;
   }
@@ -95,6 +103,41 @@ public abstract class BatfishCombinedParser<P extends BatfishParser, L extends B
     return _parserErrorListener;
   }
 
+  /**
+   * Returns the prediction statistics gathered while parsing {@code filename}, or {@code null} if
+   * profiling is disabled in the {@link GrammarSettings} this parser was created with.
+   */
+  public ParseProfile getProfile(String filename) {
+    ParseInfo parseInfo = _parser.getParseInfo();
+    if (parseInfo == null) {
+      return null;
+    }
+    ATN atn = _parser.getATN();
+    String[] ruleNames = _parser.getRuleNames();
+    ParseProfile profile = new ParseProfile(_parser.getClass().getSimpleName());
+    for (DecisionInfo info : parseInfo.getDecisionInfo()) {
+      if (info.invocations == 0L) {
+        continue;
+      }
+      String rule = ruleNames[atn.getDecisionState(info.decision).ruleIndex];
+      DecisionProfile decision = new DecisionProfile(info.decision, rule);
+      decision.setAmbiguities(info.ambiguities.size());
+      decision.setContextSensitivities(info.contextSensitivities.size());
+      decision.setDfaStates(parseInfo.getDFASize(info.decision));
+      decision.setErrors(info.errors.size());
+      decision.setInvocations(info.invocations);
+      decision.setLlFallbacks(info.LL_Fallback);
+      decision.setLlMaxLookahead(info.LL_MaxLook);
+      decision.setLlTotalLookahead(info.LL_TotalLook);
+      decision.setSllMaxLookahead(info.SLL_MaxLook);
+      decision.setSllTotalLookahead(info.SLL_TotalLook);
+      decision.setTimeInPrediction(info.timeInPrediction);
+      profile.addDecision(decision);
+    }
+    profile.getPredictionTimeByFile().put(filename, parseInfo.getTotalTimeInPrediction());
+    return profile;
+  }
+
   public GrammarSettings getSettings() {
     return _settings;
   }
@@ -120,8 +163,34 @@ public abstract class BatfishCombinedParser<P extends BatfishParser, L extends B
     return _warnings;
   }
 
+  /** Parses the input starting from the grammar's top rule, with the current error strategy. */
   public abstract ParserRuleContext parse();
 
+  /**
+   * Parses the input in two stages. The first uses SLL prediction, which is much faster than full
+   * LL prediction and succeeds on almost all input, and gives up at the first syntax error without
+   * reporting it. Only then is the input reparsed from its first token with full LL prediction and
+   * the usual error reporting and recovery, so the errors reported are those of an LL parse. The
+   * tokens are lexed once and reused by the second stage.
+   */
+  public ParserRuleContext parseWithFallback() {
+    _llFallback = false;
+    _parser.setErrorHandler(new BailErrorStrategy());
+    _parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+    _parser.removeErrorListeners();
+    try {
+      return parse();
+    } catch (ParseCancellationException e) {
+      _llFallback = true;
+    } finally {
+      _parser.addErrorListener(_parserErrorListener);
+    }
+    _parser.reset();
+    _parser.setErrorHandler(new DefaultErrorStrategy());
+    _parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+    return parse();
+  }
+
   public void setLexerErrorListener(BatfishLexerErrorListener lexerErrorListener) {
     _lexerErrorListener = lexerErrorListener;
   }
@@ -8,6 +8,12 @@ public interface GrammarSettings {
 
   boolean getDisableUnrecognized();
 
+  /**
+   * Whether parsers should record per-decision prediction statistics, retrievable through {@link
+   * BatfishCombinedParser#getProfile(String)}. Profiling slows parsing down considerably.
+   */
+  boolean getProfileParsing();
+
   boolean getThrowOnLexerError();
 
   boolean getThrowOnParserError();
@@ -0,0 +1,161 @@
+package org.batfish.common.plugin;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import org.batfish.common.util.BatfishObjectMapper;
+import org.batfish.datamodel.AsPath;
+import org.batfish.datamodel.BgpAttributeInterner;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.Interface;
+import org.batfish.datamodel.IpAccessList;
+import org.batfish.datamodel.IpAccessListLine;
+import org.batfish.datamodel.LineAction;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.RouteFilterLine;
+import org.batfish.datamodel.RouteFilterList;
+import org.batfish.datamodel.SubRange;
+import org.batfish.datamodel.Vrf;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class BinaryObjectSerializerTest {
+
+  /** A node of a graph with cycles */
+  private static class GraphNode implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<GraphNode> _neighbors = new ArrayList<>();
+
+    private final int _value;
+
+    private GraphNode(int value) {
+      _value = value;
+    }
+  }
+
+  private static Configuration newConfiguration() {
+    Configuration c = new Configuration("host1");
+    c.setConfigurationFormat(ConfigurationFormat.CISCO_IOS);
+    Vrf vrf = new Vrf(Configuration.DEFAULT_VRF_NAME);
+    c.getVrfs().put(vrf.getName(), vrf);
+    for (int i = 0; i < 3; i++) {
+      Interface iface = new Interface("Ethernet" + i, c);
+      iface.setPrefix(new Prefix("10.0." + i + ".1/24"));
+      iface.setVrf(vrf);
+      c.getInterfaces().put(iface.getName(), iface);
+      vrf.getInterfaces().put(iface.getName(), iface);
+    }
+    IpAccessListLine line = new IpAccessListLine();
+    line.setAction(LineAction.ACCEPT);
+    line.setName("permit all");
+    c.getIpAccessLists().put("acl", new IpAccessList("acl", ImmutableList.of(line)));
+    RouteFilterList routeFilterList = new RouteFilterList("rfl");
+    routeFilterList.addLine(
+        new RouteFilterLine(LineAction.ACCEPT, new Prefix("10.0.0.0/8"), new SubRange(8, 24)));
+    c.getRouteFilterLists().put(routeFilterList.getName(), routeFilterList);
+    return c;
+  }
+
+  private static <T> T roundTrip(Serializable object, Class<T> outputClass)
+      throws IOException, ClassNotFoundException {
+    return outputClass.cast(
+        new BinaryObjectSerializer()
+            .deserialize(
+                new ByteArrayInputStream(serialize(new BinaryObjectSerializer(), object)),
+                BinaryObjectSerializerTest.class.getClassLoader()));
+  }
+
+  private static byte[] serialize(ObjectSerializer serializer, Serializable object)
+      throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    serializer.serialize(object, out);
+    return out.toByteArray();
+  }
+
+  @Test
+  public void testCollectionsOfTheJdkAndGuava() throws Exception {
+    TreeMap<String, Object> map = new TreeMap<>(Collections.reverseOrder());
+    map.put("a", ImmutableSortedSet.of(3L, 1L));
+    map.put("b", Collections.unmodifiableList(new ArrayList<>(ImmutableList.of("x", "y"))));
+    map.put("c", Collections.emptySet());
+
+    @SuppressWarnings("unchecked")
+    TreeMap<String, Object> read = roundTrip(map, TreeMap.class);
+
+    assertThat(read, equalTo(map));
+    assertThat(read.firstKey(), equalTo("c"));
+    assertThat(read.get("a").getClass(), equalTo(ImmutableSortedSet.of(3L, 1L).getClass()));
+  }
+
+  @Test
+  public void testConfigurationRoundTrip() throws Exception {
+    Configuration c = newConfiguration();
+    Configuration read = roundTrip(c, Configuration.class);
+
+    BatfishObjectMapper mapper = new BatfishObjectMapper();
+    assertThat(mapper.writeValueAsString(read), equalTo(mapper.writeValueAsString(c)));
+    Interface iface = read.getInterfaces().get("Ethernet0");
+    assertThat(iface.getOwner(), sameInstance(read));
+    assertThat(
+        read.getVrfs().get(Configuration.DEFAULT_VRF_NAME).getInterfaces().get("Ethernet0"),
+        sameInstance(iface));
+  }
+
+  @Test
+  public void testReadObjectRestoresTransientState() throws Exception {
+    RouteFilterList read =
+        roundTrip(newConfiguration().getRouteFilterLists().get("rfl"), RouteFilterList.class);
+
+    // the caches of permitted and denied prefixes are only created when deserializing
+    assertThat(read.permits(new Prefix("10.1.0.0/16")), equalTo(true));
+    assertThat(read.permits(new Prefix("11.0.0.0/16")), equalTo(false));
+  }
+
+  @Test
+  public void testReadResolve() throws Exception {
+    AsPath asPath =
+        BgpAttributeInterner.internAsPath(ImmutableList.of(ImmutableSortedSet.of(65000)));
+    assertThat(roundTrip(asPath, AsPath.class), sameInstance(asPath));
+  }
+
+  @Test
+  public void testSharedReferencesAndCycles() throws Exception {
+    GraphNode node1 = new GraphNode(1);
+    GraphNode node2 = new GraphNode(2);
+    node1._neighbors.add(node2);
+    node1._neighbors.add(node2);
+    node2._neighbors.add(node1);
+
+    GraphNode read = roundTrip(node1, GraphNode.class);
+
+    assertThat(read._value, equalTo(1));
+    assertThat(read._neighbors.get(0)._value, equalTo(2));
+    assertThat(read._neighbors.get(1), sameInstance(read._neighbors.get(0)));
+    assertThat(read._neighbors.get(0)._neighbors.get(0), sameInstance(read));
+  }
+
+  @Test
+  public void testSmallerThanJavaSerialization() throws Exception {
+    Configuration c = newConfiguration();
+    assertThat(
+        serialize(new BinaryObjectSerializer(), c).length,
+        lessThan(serialize(new JavaObjectSerializer(), c).length));
+  }
+}
@@ -1,13 +1,23 @@
 package org.batfish.common.plugin;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertThat;
 
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Collections;
+import org.batfish.common.BatfishException;
 import org.batfish.common.BatfishLogger;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -16,9 +26,50 @@ import org.junit.runners.JUnit4;
 public class PluginConsumerTest {
   @Rule public TemporaryFolder _folder = new TemporaryFolder();
 
+  @Rule public ExpectedException _thrown = ExpectedException.none();
+
+  /** Java serialization behind a header of its own, so its data is only readable by itself */
+  private static class TaggedSerializer implements ObjectSerializer {
+
+    private static final byte[] TAG = "TEST".getBytes(StandardCharsets.US_ASCII);
+
+    private final ObjectSerializer _delegate = new JavaObjectSerializer();
+
+    @Override
+    public boolean canDeserialize(byte[] header) {
+      return Arrays.equals(header, TAG);
+    }
+
+    @Override
+    public Object deserialize(InputStream in, ClassLoader classLoader)
+        throws IOException, ClassNotFoundException {
+      ByteStreams.skipFully(in, TAG.length);
+      return _delegate.deserialize(in, classLoader);
+    }
+
+    @Override
+    public String getName() {
+      return "test";
+    }
+
+    @Override
+    public void serialize(Serializable object, OutputStream out) throws IOException {
+      out.write(TAG);
+      _delegate.serialize(object, out);
+    }
+  }
+
   private static class TestPluginConsumer extends PluginConsumer {
-    private TestPluginConsumer(boolean serializeToText) {
-      super(serializeToText, Collections.emptyList());
+    private TestPluginConsumer(boolean serializeToText, SerializationCompression compression) {
+      super(serializeToText, compression, Collections.emptyList());
+    }
+
+    private TestPluginConsumer(ObjectSerializer serializer) {
+      super(serializer, SerializationCompression.GZIP, Collections.emptyList());
+    }
+
+    private TestPluginConsumer(String serializerName) {
+      super(serializerName, SerializationCompression.GZIP, Collections.emptyList());
     }
 
     @Override
@@ -32,24 +83,89 @@ public class PluginConsumerTest {
     }
   }
 
-  private void runSerializationTest(boolean serializeToText) throws Exception {
+  private void runSerializationTest(boolean serializeToText, SerializationCompression compression)
+      throws Exception {
     Path serializeFile = _folder.newFile().toPath();
-    TestPluginConsumer consumer = new TestPluginConsumer(serializeToText);
+    TestPluginConsumer consumer = new TestPluginConsumer(serializeToText, compression);
 
     int[] ints = new int[] {1, 2, 3};
     consumer.serializeObject(ints, serializeFile);
 
     int[] value = consumer.deserializeObject(serializeFile, int[].class);
     assertThat(value, equalTo(ints));
+
+    // data is readable regardless of the compression configured for the reader
+    TestPluginConsumer otherConsumer = new TestPluginConsumer(false, SerializationCompression.GZIP);
+    int[] otherValue =
+        otherConsumer.deserializeObject(otherConsumer.fromSerializedFile(serializeFile), int[].class);
+    assertThat(otherValue, equalTo(ints));
+  }
+
+  @Test
+  public void testSelectSerializerByName() throws Exception {
+    Path serializeFile = _folder.newFile().toPath();
+    new TestPluginConsumer(XStreamObjectSerializer.NAME).serializeObject("text", serializeFile);
+    String serialized =
+        new String(
+            new TestPluginConsumer(false, SerializationCompression.GZIP)
+                .fromSerializedFile(serializeFile),
+            StandardCharsets.UTF_8);
+    assertThat(serialized, containsString("<string>text</string>"));
+  }
+
+  @Test
+  public void testSelectUnknownSerializer() {
+    _thrown.expect(BatfishException.class);
+    _thrown.expectMessage("Unknown serializer: 'unknown'");
+    new TestPluginConsumer("unknown");
+  }
+
+  @Test
+  public void testSerializingAndDeserializingBinary() throws Exception {
+    Path serializeFile = _folder.newFile().toPath();
+    int[] ints = new int[] {1, 2, 3};
+    new TestPluginConsumer(BinaryObjectSerializer.NAME).serializeObject(ints, serializeFile);
+
+    // the binary serializer is discovered as a service, and its output is recognized by readers
+    // configured with any serializer
+    TestPluginConsumer otherConsumer = new TestPluginConsumer(false, SerializationCompression.GZIP);
+    assertThat(otherConsumer.deserializeObject(serializeFile, int[].class), equalTo(ints));
+  }
+
+  @Test
+  public void testSerializingAndDeserializingCustomSerializer() throws Exception {
+    Path serializeFile = _folder.newFile().toPath();
+    TestPluginConsumer consumer = new TestPluginConsumer(new TaggedSerializer());
+    consumer.serializeObject(new int[] {1, 2, 3}, serializeFile);
+    assertThat(
+        Arrays.copyOf(consumer.fromSerializedFile(serializeFile), TaggedSerializer.TAG.length),
+        equalTo(TaggedSerializer.TAG));
+    assertThat(
+        consumer.deserializeObject(serializeFile, int[].class), equalTo(new int[] {1, 2, 3}));
   }
 
   @Test
   public void testSerializingAndDeserializingJava() throws Exception {
-    runSerializationTest(false);
+    runSerializationTest(false, SerializationCompression.GZIP);
+  }
+
+  @Test
+  public void testSerializingAndDeserializingJavaFastCompression() throws Exception {
+    runSerializationTest(false, SerializationCompression.GZIP_FAST);
+  }
+
+  @Test
+  public void testSerializingAndDeserializingJavaUncompressed() throws Exception {
+    runSerializationTest(false, SerializationCompression.NONE);
   }
 
   @Test
   public void testSerializingAndDeserializingText() throws Exception {
-    runSerializationTest(true);
+    runSerializationTest(true, SerializationCompression.GZIP);
+  }
+
+  @Test
+  public void testSerializingAndDeserializingTextUncompressed() throws Exception {
+    runSerializationTest(true, SerializationCompression.NONE);
   }
 }
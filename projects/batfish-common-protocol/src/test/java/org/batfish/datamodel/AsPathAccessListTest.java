@@ -0,0 +1,65 @@
+package org.batfish.datamodel;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableSortedSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+import org.junit.Test;
+
+/** Tests for {@link AsPathAccessList} */
+public class AsPathAccessListTest {
+
+  private static AsPath asPath(int... asns) {
+    List<SortedSet<Integer>> asSets = new ArrayList<>();
+    for (int asn : asns) {
+      asSets.add(ImmutableSortedSet.of(asn));
+    }
+    return new AsPath(asSets);
+  }
+
+  private static AsPathAccessListLine line(LineAction action, String regex) {
+    AsPathAccessListLine line = new AsPathAccessListLine();
+    line.setAction(action);
+    line.setRegex(regex);
+    return line;
+  }
+
+  @Test
+  public void testFirstMatchingLineWins() {
+    List<AsPathAccessListLine> lines = new ArrayList<>();
+    lines.add(line(LineAction.REJECT, "^65001 "));
+    lines.add(line(LineAction.ACCEPT, "65002"));
+    AsPathAccessList list = new AsPathAccessList("list", lines);
+
+    assertThat(list.permits(asPath(65002, 3)), equalTo(true));
+    assertThat(list.permits(asPath(65001, 65002)), equalTo(false));
+    assertThat(list.permits(asPath(3, 4)), equalTo(false));
+  }
+
+  @Test
+  public void testLaterLookupsOfEqualAsPathHitCache() {
+    AsPathAccessListLine line = line(LineAction.ACCEPT, "^65002 ");
+    List<AsPathAccessListLine> lines = new ArrayList<>();
+    lines.add(line);
+    AsPathAccessList list = new AsPathAccessList("list", lines);
+    assertThat(list.permits(asPath(65002, 3)), equalTo(true));
+
+    // the lines are not consulted again for an equal AS-path, even a distinct instance
+    line.setRegex("^65001 ");
+    assertThat(list.permits(asPath(65002, 3)), equalTo(true));
+    assertThat(list.permits(asPath(65001, 3)), equalTo(true));
+    assertThat(list.permits(asPath(65002, 4)), equalTo(false));
+  }
+
+  @Test
+  public void testLineRecompilesChangedRegex() {
+    AsPathAccessListLine line = line(LineAction.ACCEPT, "^1$");
+    assertThat(line.matches("1"), equalTo(true));
+    line.setRegex("^2$");
+    assertThat(line.matches("1"), equalTo(false));
+    assertThat(line.matches("2"), equalTo(true));
+  }
+}
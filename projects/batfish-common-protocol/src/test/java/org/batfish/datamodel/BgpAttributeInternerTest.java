@@ -0,0 +1,96 @@
+package org.batfish.datamodel;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import org.junit.Test;
+
+public class BgpAttributeInternerTest {
+
+  private static List<SortedSet<Integer>> asSets(Integer... asns) {
+    ImmutableList.Builder<SortedSet<Integer>> asSets = ImmutableList.builder();
+    for (Integer asn : asns) {
+      asSets.add(ImmutableSortedSet.of(asn));
+    }
+    return asSets.build();
+  }
+
+  private static Object roundTrip(Object object) throws IOException, ClassNotFoundException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(object);
+    }
+    try (ObjectInputStream in =
+        new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      return in.readObject();
+    }
+  }
+
+  @Test
+  public void testAsPathCompareToMatchesAsSets() {
+    AsPath shorter = new AsPath(asSets(1, 2));
+    AsPath longer = new AsPath(asSets(1, 2, 3));
+    AsPath set = new AsPath(ImmutableList.of(ImmutableSortedSet.of(1, 5)));
+    assertThat(shorter.compareTo(longer), equalTo(-1));
+    assertThat(longer.compareTo(shorter), equalTo(1));
+    // {1, 5} sorts after its prefix {1}
+    assertThat(set.compareTo(shorter), equalTo(1));
+    assertThat(set.getAsSets(), equalTo(ImmutableList.of(ImmutableSortedSet.of(1, 5))));
+    assertThat(set.toString(), equalTo("[[1, 5]]"));
+  }
+
+  @Test
+  public void testInternsEqualAsPaths() {
+    AsPath first = BgpAttributeInterner.internAsPath(asSets(1, 2));
+    AsPath second = BgpAttributeInterner.internAsPath(asSets(1, 2));
+    AsPath other = BgpAttributeInterner.internAsPath(asSets(2, 1));
+    assertThat(second, sameInstance(first));
+    assertThat(other, not(equalTo(first)));
+    assertThat(new AsPath(asSets(1, 2)), equalTo(first));
+  }
+
+  @Test
+  public void testInternsEqualLongSets() {
+    LongArraySortedSet first = BgpAttributeInterner.internLongSet(ImmutableSortedSet.of(3L, 1L));
+    LongArraySortedSet second = BgpAttributeInterner.internLongSet(new TreeSet<>(first));
+    assertThat(second, sameInstance(first));
+    assertThat(BgpAttributeInterner.internLongSet(null), equalTo(ImmutableSortedSet.of()));
+  }
+
+  @Test
+  public void testLongSetBehavesLikeTreeSet() {
+    TreeSet<Long> expected = new TreeSet<>(ImmutableList.of(5L, 1L, 3L, 9L));
+    LongArraySortedSet set = LongArraySortedSet.copyOf(ImmutableList.of(9L, 3L, 1L, 5L, 3L));
+    assertThat(set, equalTo(expected));
+    assertThat(expected, equalTo(set));
+    assertThat(set.hashCode(), equalTo(expected.hashCode()));
+    assertThat(set.toString(), equalTo(expected.toString()));
+    assertThat(set.headSet(5L), equalTo(expected.headSet(5L)));
+    assertThat(set.subSet(2L, 9L), equalTo(expected.subSet(2L, 9L)));
+    assertThat(set.tailSet(4L), equalTo(expected.tailSet(4L)));
+    assertThat(set.first(), equalTo(1L));
+    assertThat(set.last(), equalTo(9L));
+    assertThat(set.contains(3L), equalTo(true));
+    assertThat(set.contains(4L), equalTo(false));
+  }
+
+  @Test
+  public void testReinternsOnDeserialization() throws IOException, ClassNotFoundException {
+    AsPath asPath = BgpAttributeInterner.internAsPath(asSets(7, 8));
+    LongArraySortedSet communities = BgpAttributeInterner.internLongSet(ImmutableSortedSet.of(7L));
+    assertThat(roundTrip(asPath), sameInstance(asPath));
+    assertThat(roundTrip(communities), sameInstance(communities));
+  }
+}
@@ -0,0 +1,97 @@
+package org.batfish.datamodel;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import org.junit.Test;
+
+/** Tests for {@link IpAccessList} */
+public class IpAccessListTest {
+
+  private static final long BASE_ADDRESS = new Ip("10.0.0.0").asLong();
+
+  private static Ip randomIp(Random random) {
+    return new Ip(BASE_ADDRESS + random.nextInt(1 << 12));
+  }
+
+  private static SortedSet<IpWildcard> randomIpWildcards(Random random) {
+    SortedSet<IpWildcard> ipWildcards = new TreeSet<>();
+    int kind = random.nextInt(4);
+    if (kind == 0) {
+      // unconstrained
+      return ipWildcards;
+    }
+    int numWildcards = 1 + random.nextInt(3);
+    for (int i = 0; i < numWildcards; i++) {
+      if (kind == 3 && i == 0) {
+        // non-prefix wildcard
+        ipWildcards.add(new IpWildcard(randomIp(random), new Ip(0x00000F0FL)));
+      } else {
+        ipWildcards.add(new IpWildcard(new Prefix(randomIp(random), 18 + random.nextInt(15))));
+      }
+    }
+    return ipWildcards;
+  }
+
+  private static IpAccessList randomAcl(Random random) {
+    List<IpAccessListLine> lines = new ArrayList<>();
+    int numLines = random.nextInt(200);
+    for (int i = 0; i < numLines; i++) {
+      IpAccessListLine line = new IpAccessListLine();
+      line.setAction(random.nextBoolean() ? LineAction.ACCEPT : LineAction.REJECT);
+      line.setDstIps(randomIpWildcards(random));
+      line.setSrcIps(randomIpWildcards(random));
+      if (random.nextInt(4) == 0) {
+        int start = random.nextInt(1024);
+        SortedSet<SubRange> dstPorts = new TreeSet<>();
+        dstPorts.add(new SubRange(start, start + random.nextInt(64)));
+        line.setDstPorts(dstPorts);
+      }
+      lines.add(line);
+    }
+    return new IpAccessList("acl", lines);
+  }
+
+  private static Flow randomFlow(Random random) {
+    Flow.Builder builder = new Flow.Builder();
+    builder.setIngressNode("node");
+    builder.setTag("tag");
+    builder.setIpProtocol(IpProtocol.TCP);
+    builder.setDstIp(randomIp(random));
+    builder.setSrcIp(randomIp(random));
+    builder.setDstPort(random.nextInt(1100));
+    builder.setSrcPort(random.nextInt(1100));
+    return builder.build();
+  }
+
+  @Test
+  public void testFilterMatchesLinearEvaluation() {
+    Random random = new Random(0);
+    for (int i = 0; i < 50; i++) {
+      IpAccessList acl = randomAcl(random);
+      for (int j = 0; j < 200; j++) {
+        Flow flow = randomFlow(random);
+        assertThat(acl.filter(flow), equalTo(acl.filterLinear(flow)));
+      }
+    }
+  }
+
+  @Test
+  public void testFilterAfterLinesChange() {
+    Random random = new Random(1);
+    IpAccessList acl = randomAcl(random);
+    Flow flow = randomFlow(random);
+    acl.filter(flow);
+    IpAccessListLine permitAll = new IpAccessListLine();
+    permitAll.setAction(LineAction.ACCEPT);
+    List<IpAccessListLine> lines = new ArrayList<>(acl.getLines());
+    lines.add(0, permitAll);
+    acl.setLines(lines);
+    assertThat(acl.filter(flow), equalTo(new FilterResult(0, LineAction.ACCEPT)));
+  }
+}
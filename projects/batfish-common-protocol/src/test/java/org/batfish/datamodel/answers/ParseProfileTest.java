@@ -0,0 +1,93 @@
+package org.batfish.datamodel.answers;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.batfish.datamodel.answers.ParseProfile.DecisionProfile;
+import org.junit.Test;
+
+/** Tests for {@link ParseProfile} */
+public class ParseProfileTest {
+
+  private static DecisionProfile decision(
+      int index, long invocations, long timeInPrediction, long sllMaxLookahead) {
+    DecisionProfile decision = new DecisionProfile(index, "rule" + index);
+    decision.setInvocations(invocations);
+    decision.setTimeInPrediction(timeInPrediction);
+    decision.setSllMaxLookahead(sllMaxLookahead);
+    decision.setSllTotalLookahead(invocations * sllMaxLookahead);
+    return decision;
+  }
+
+  private static List<Integer> indices(List<DecisionProfile> decisions) {
+    return decisions.stream().map(DecisionProfile::getDecision).collect(Collectors.toList());
+  }
+
+  @Test
+  public void testAddDecisionIgnoresUninvokedDecisions() {
+    ParseProfile profile = new ParseProfile("TestParser");
+    profile.addDecision(decision(1, 0L, 0L, 0L));
+    assertThat(profile.getDecisions().isEmpty(), equalTo(true));
+  }
+
+  @Test
+  public void testGetDeepestDecisions() {
+    ParseProfile profile = new ParseProfile("TestParser");
+    profile.addDecision(decision(1, 1L, 30L, 2L));
+    profile.addDecision(decision(2, 1L, 10L, 9L));
+    DecisionProfile llDecision = decision(3, 1L, 20L, 1L);
+    llDecision.setLlMaxLookahead(5L);
+    profile.addDecision(llDecision);
+
+    assertThat(indices(profile.getDeepestDecisions(3)), equalTo(Arrays.asList(2, 3, 1)));
+    assertThat(indices(profile.getDeepestDecisions(1)), equalTo(Arrays.asList(2)));
+  }
+
+  @Test
+  public void testGetSlowestDecisions() {
+    ParseProfile profile = new ParseProfile("TestParser");
+    profile.addDecision(decision(1, 1L, 30L, 2L));
+    profile.addDecision(decision(2, 1L, 10L, 9L));
+    profile.addDecision(decision(3, 1L, 20L, 1L));
+
+    assertThat(indices(profile.getSlowestDecisions(3)), equalTo(Arrays.asList(1, 3, 2)));
+    assertThat(indices(profile.getSlowestDecisions(2)), equalTo(Arrays.asList(1, 3)));
+  }
+
+  @Test
+  public void testMerge() {
+    ParseProfile profile1 = new ParseProfile("TestParser");
+    DecisionProfile decision1 = decision(1, 2L, 100L, 3L);
+    decision1.setDfaStates(7);
+    decision1.setLlFallbacks(1L);
+    profile1.addDecision(decision1);
+    profile1.getPredictionTimeByFile().put("file1", 100L);
+
+    ParseProfile profile2 = new ParseProfile("TestParser");
+    DecisionProfile decision2 = decision(1, 3L, 50L, 5L);
+    decision2.setDfaStates(4);
+    profile2.addDecision(decision2);
+    profile2.addDecision(decision(2, 1L, 10L, 1L));
+    profile2.getPredictionTimeByFile().put("file2", 60L);
+
+    profile1.merge(profile2);
+
+    DecisionProfile merged = profile1.getDecisions().get(1);
+    // counts and times are summed, maxima are kept
+    assertThat(merged.getInvocations(), equalTo(5L));
+    assertThat(merged.getTimeInPrediction(), equalTo(150L));
+    assertThat(merged.getSllTotalLookahead(), equalTo(21L));
+    assertThat(merged.getSllMaxLookahead(), equalTo(5L));
+    assertThat(merged.getDfaStates(), equalTo(7));
+    assertThat(merged.getLlFallbacks(), equalTo(1L));
+    assertThat(profile1.getDecisions().keySet().size(), equalTo(2));
+    assertThat(profile1.getPredictionTimeByFile().size(), equalTo(2));
+
+    // the added decisions are copied, not aliased
+    assertThat(decision1.getInvocations(), equalTo(2L));
+    assertThat(profile2.getDecisions().get(1).getInvocations(), equalTo(3L));
+  }
+}
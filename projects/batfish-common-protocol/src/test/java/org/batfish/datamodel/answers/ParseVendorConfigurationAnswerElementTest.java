@@ -14,6 +14,16 @@ import org.junit.Test;
 /** Tests for {@link ParseVendorConfigurationAnswerElement} */
 public class ParseVendorConfigurationAnswerElementTest {
 
+  private static ParseProfile profile(String file, long predictionTime) {
+    ParseProfile profile = new ParseProfile("TestParser");
+    ParseProfile.DecisionProfile decision = new ParseProfile.DecisionProfile(1, "rule1");
+    decision.setInvocations(1L);
+    decision.setTimeInPrediction(predictionTime);
+    profile.addDecision(decision);
+    profile.getPredictionTimeByFile().put(file, predictionTime);
+    return profile;
+  }
+
   ParseVendorConfigurationAnswerElement _element;
 
   @Test
@@ -41,6 +51,23 @@ public class ParseVendorConfigurationAnswerElementTest {
     assertThat(_element.getErrors().get("error"), is(stackTrace));
   }
 
+  @Test
+  public void testParseProfileTotals() {
+    _element.addParseProfile(profile("file1", 2000000L));
+    _element.addParseProfile(profile("file2", 3000000L));
+
+    assertThat(_element.getParseProfiles().size(), is(1));
+    ParseProfile profile = _element.getParseProfiles().get("TestParser");
+    assertThat(profile.getDecisions().get(1).getInvocations(), is(2L));
+    assertThat(
+        _element.prettyPrint(),
+        equalTo(
+            "Results of parsing vendor configurations\n"
+                + "\n  TestParser [Parse profile] 2 files, 5 ms in prediction\n"
+                + "    decision 1 (rule1) : 5 ms, 2 invocations, SLL max lookahead 0, "
+                + "0 LL fallbacks, LL max lookahead 0, 0 DFA states\n"));
+  }
+
   @Test
   public void testPrettyPrint() {
     BatfishException exception = new BatfishException("sample exception");
@@ -0,0 +1,155 @@
+package org.batfish.datamodel.routing_policy;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+import java.util.TreeSet;
+import org.batfish.datamodel.AsPath;
+import org.batfish.datamodel.BgpRoute;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.OriginType;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.RoutingProtocol;
+import org.batfish.datamodel.routing_policy.Environment.Direction;
+import org.batfish.datamodel.routing_policy.expr.BooleanExpr;
+import org.batfish.datamodel.routing_policy.expr.LiteralInt;
+import org.batfish.datamodel.routing_policy.statement.If;
+import org.batfish.datamodel.routing_policy.statement.SetLocalPreference;
+import org.batfish.datamodel.routing_policy.statement.Statements;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class RoutingPolicyResultCacheTest {
+
+  /** A guard that is true, and that reports reading the routes computed so far */
+  private static final class ReadsRibs extends BooleanExpr {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof ReadsRibs;
+    }
+
+    @Override
+    public Result evaluate(Environment environment) {
+      environment.setReadsRibs(true);
+      Result result = new Result();
+      result.setBooleanValue(true);
+      return result;
+    }
+
+    @Override
+    public int hashCode() {
+      return 0;
+    }
+  }
+
+  private static final Ip PEER = new Ip("1.1.1.1");
+
+  private static final BgpRoute ROUTE =
+      new BgpRoute(
+          new Prefix("10.0.0.0/8"),
+          PEER,
+          20,
+          new AsPath(ImmutableList.of(ImmutableSortedSet.of(2))),
+          ImmutableSortedSet.of(65537L),
+          100,
+          0L,
+          PEER,
+          new TreeSet<>(),
+          false,
+          OriginType.IGP,
+          RoutingProtocol.BGP,
+          null,
+          0);
+
+  private static BgpRoute.Builder newOutputRoute() {
+    BgpRoute.Builder outputRoute = new BgpRoute.Builder();
+    outputRoute.setNetwork(ROUTE.getNetwork());
+    outputRoute.setNextHopIp(PEER);
+    outputRoute.setOriginatorIp(PEER);
+    outputRoute.setOriginType(OriginType.IGP);
+    outputRoute.setProtocol(RoutingProtocol.BGP);
+    return outputRoute;
+  }
+
+  private RoutingPolicyResultCache _cache;
+
+  private RoutingPolicy _policy;
+
+  private boolean process(BgpRoute.Builder outputRoute) {
+    return process(outputRoute, _cache);
+  }
+
+  private boolean process(BgpRoute.Builder outputRoute, RoutingPolicyResultCache cache) {
+    return _policy.process(
+        ROUTE, outputRoute, PEER, Configuration.DEFAULT_VRF_NAME, Direction.IN, cache);
+  }
+
+  @Before
+  public void setup() {
+    _policy = new RoutingPolicy("policy", new Configuration("host"));
+    _policy.setStatements(
+        ImmutableList.of(
+            new SetLocalPreference(new LiteralInt(200)),
+            Statements.ExitAccept.toStaticStatement()));
+    _cache = new RoutingPolicyResultCache(10);
+  }
+
+  @Test
+  public void testDistinguishesOutputAttributes() {
+    process(newOutputRoute());
+    BgpRoute.Builder outputRoute = newOutputRoute();
+    outputRoute.setWeight(5);
+    process(outputRoute);
+    assertThat(_cache.stats().hitCount(), equalTo(0L));
+    assertThat(outputRoute.getWeight(), equalTo(5));
+  }
+
+  @Test
+  public void testDoesNotMemoizeRibDependentResults() {
+    If clause = new If();
+    clause.setGuard(new ReadsRibs());
+    clause.setTrueStatements(ImmutableList.of(Statements.ExitAccept.toStaticStatement()));
+    _policy.setStatements(ImmutableList.of(clause));
+    process(newOutputRoute());
+    process(newOutputRoute());
+    assertThat(_cache.stats().hitCount(), equalTo(0L));
+    assertThat(_cache.getUnmemoizable(), equalTo(2L));
+  }
+
+  @Test
+  public void testProcessWithoutCache() {
+    BgpRoute.Builder outputRoute = newOutputRoute();
+    assertThat(process(outputRoute, null), equalTo(true));
+    assertThat(outputRoute.getLocalPreference(), equalTo(200));
+  }
+
+  @Test
+  public void testResultsNotSharedBetweenCaches() {
+    process(newOutputRoute());
+    RoutingPolicyResultCache otherCache = new RoutingPolicyResultCache(10);
+    process(newOutputRoute(), otherCache);
+    assertThat(_cache.stats().missCount(), equalTo(1L));
+    assertThat(otherCache.stats().hitCount(), equalTo(0L));
+    assertThat(otherCache.stats().missCount(), equalTo(1L));
+  }
+
+  @Test
+  public void testReusesResult() {
+    BgpRoute.Builder computed = newOutputRoute();
+    BgpRoute.Builder reused = newOutputRoute();
+    assertThat(process(computed), equalTo(true));
+    assertThat(process(reused), equalTo(true));
+    assertThat(_cache.stats().hitCount(), equalTo(1L));
+    assertThat(reused.getLocalPreference(), equalTo(200));
+    assertThat(reused.build(), equalTo(computed.build()));
+  }
+}
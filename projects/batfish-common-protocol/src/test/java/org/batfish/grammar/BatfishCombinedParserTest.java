@@ -0,0 +1,540 @@
+package org.batfish.grammar;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonToken;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.Vocabulary;
+import org.antlr.v4.runtime.VocabularyImpl;
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.atn.ATNState;
+import org.antlr.v4.runtime.atn.ATNType;
+import org.antlr.v4.runtime.atn.AtomTransition;
+import org.antlr.v4.runtime.atn.BasicBlockStartState;
+import org.antlr.v4.runtime.atn.BasicState;
+import org.antlr.v4.runtime.atn.BlockEndState;
+import org.antlr.v4.runtime.atn.EpsilonTransition;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.atn.PredictionContextCache;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.atn.RuleStartState;
+import org.antlr.v4.runtime.atn.RuleStopState;
+import org.antlr.v4.runtime.atn.RuleTransition;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.antlr.v4.runtime.misc.Pair;
+import org.junit.Test;
+
+/** Tests for {@link BatfishCombinedParser} */
+public class BatfishCombinedParserTest {
+
+  private static final class TestCombinedParser
+      extends BatfishCombinedParser<TestParser, TestLexer> {
+
+    private TestCombinedParser(String input) {
+      super(TestParser::new, TestLexer::new, input, new TestGrammarSettings());
+    }
+
+    @Override
+    public ParserRuleContext parse() {
+      return _parser.s();
+    }
+  }
+
+  private static final class TestGrammarSettings implements GrammarSettings {
+
+    @Override
+    public boolean getDisableUnrecognized() {
+      return false;
+    }
+
+    @Override
+    public int getMaxParserContextLines() {
+      return 1;
+    }
+
+    @Override
+    public int getMaxParserContextTokens() {
+      return 1;
+    }
+
+    @Override
+    public boolean getProfileParsing() {
+      return false;
+    }
+
+    @Override
+    public boolean getThrowOnLexerError() {
+      return false;
+    }
+
+    @Override
+    public boolean getThrowOnParserError() {
+      return false;
+    }
+
+    @Override
+    public boolean printParseTree() {
+      return false;
+    }
+
+    @Override
+    public void setDisableUnrecognized(boolean b) {}
+
+    @Override
+    public void setThrowOnLexerError(boolean b) {}
+
+    @Override
+    public void setThrowOnParserError(boolean b) {}
+  }
+
+  /** Splits its input at spaces into '$', '@', integer and identifier tokens */
+  private static final class TestLexer extends BatfishLexer {
+
+    private int _position;
+
+    private final String _text;
+
+    private TestLexer(CharStream input) {
+      super(input);
+      _text = input.toString();
+    }
+
+    @Override
+    public ATN getATN() {
+      return null;
+    }
+
+    @Override
+    public int getCharPositionInLine() {
+      return _position;
+    }
+
+    @Override
+    public String getGrammarFileName() {
+      return "TestLexer.g4";
+    }
+
+    @Override
+    public int getLine() {
+      return 1;
+    }
+
+    @Override
+    public String[] getModeNames() {
+      return new String[] {"DEFAULT_MODE"};
+    }
+
+    @Override
+    public String[] getRuleNames() {
+      return new String[0];
+    }
+
+    @Deprecated
+    @Override
+    public String[] getTokenNames() {
+      return new String[0];
+    }
+
+    @Override
+    public Vocabulary getVocabulary() {
+      return TestParser.VOCABULARY;
+    }
+
+    private Token newToken(int type, int start, int stop) {
+      CommonToken token =
+          new CommonToken(
+              new Pair<>(this, getInputStream()), type, DEFAULT_TOKEN_CHANNEL, start, stop);
+      token.setCharPositionInLine(start);
+      return token;
+    }
+
+    @Override
+    public Token nextToken() {
+      while (_position < _text.length() && _text.charAt(_position) == ' ') {
+        _position++;
+      }
+      int start = _position;
+      if (start == _text.length()) {
+        return newToken(Token.EOF, start, start - 1);
+      }
+      while (_position < _text.length() && _text.charAt(_position) != ' ') {
+        _position++;
+      }
+      String text = _text.substring(start, _position);
+      int type;
+      if (text.equals("$")) {
+        type = TestParser.DOLLAR;
+      } else if (text.equals("@")) {
+        type = TestParser.AT;
+      } else if (Character.isDigit(text.charAt(0))) {
+        type = TestParser.INT;
+      } else {
+        type = TestParser.ID;
+      }
+      return newToken(type, start, _position - 1);
+    }
+  }
+
+  /**
+   * A hand-built parser for the grammar below, laid out like a generated one. Its decision in rule
+   * {@code e} needs the full context: SLL prediction merges the contexts of {@code a} and {@code
+   * b}, so for input {@code "@ 1 x"} it picks the {@code INT} alternative, and the parse fails
+   * since {@code b} then finds no {@code INT}.
+   *
+   * <pre>
+   * s : (DOLLAR a | AT b) EOF ;
+   * a : e ID ;
+   * b : e INT ID ;
+   * e : INT | ;
+   * </pre>
+   */
+  private static final class TestParser extends BatfishParser {
+
+    private static final class Context extends ParserRuleContext {
+
+      private final int _ruleIndex;
+
+      private Context(ParserRuleContext parent, int invokingState, int ruleIndex) {
+        super(parent, invokingState);
+        _ruleIndex = ruleIndex;
+      }
+
+      @Override
+      public int getRuleIndex() {
+        return _ruleIndex;
+      }
+    }
+
+    private static final int A_CALL_E = 18;
+
+    private static final int A_END = 20;
+
+    private static final int A_ID = 19;
+
+    private static final int AT = 2;
+
+    private static final ATN ATN;
+
+    private static final int B_CALL_E = 21;
+
+    private static final int B_END = 24;
+
+    private static final int B_ID = 23;
+
+    private static final int B_INT = 22;
+
+    private static final DFA[] DECISION_TO_DFA;
+
+    private static final int DOLLAR = 1;
+
+    private static final int E_AFTER_INT = 28;
+
+    private static final int E_BLOCK = 25;
+
+    private static final int E_BLOCK_END = 26;
+
+    private static final int E_EMPTY = 29;
+
+    private static final int E_INT = 27;
+
+    private static final int ID = 4;
+
+    private static final int INT = 3;
+
+    private static final int RULE_A = 1;
+
+    private static final int RULE_B = 2;
+
+    private static final int RULE_E = 3;
+
+    private static final String[] RULE_NAMES = {"s", "a", "b", "e"};
+
+    /** The rule of each ATN state, by state number */
+    private static final int[] RULE_OF_STATE = {
+      0, 0, 1, 1, 2, 2, 3, 3, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3
+    };
+
+    private static final int RULE_S = 0;
+
+    private static final int S_AFTER_A = 12;
+
+    private static final int S_AFTER_B = 15;
+
+    private static final int S_AT = 13;
+
+    private static final int S_BLOCK = 8;
+
+    private static final int S_BLOCK_END = 9;
+
+    private static final int S_CALL_A = 11;
+
+    private static final int S_CALL_B = 14;
+
+    private static final int S_DOLLAR = 10;
+
+    private static final int S_END = 17;
+
+    private static final int S_EOF = 16;
+
+    private static final Vocabulary VOCABULARY =
+        new VocabularyImpl(
+            new String[] {null, "'$'", "'@'"}, new String[] {null, "DOLLAR", "AT", "INT", "ID"});
+
+    static {
+      ATN = new ATN(ATNType.PARSER, ID);
+      ATN.ruleToStartState = new RuleStartState[RULE_NAMES.length];
+      ATN.ruleToStopState = new RuleStopState[RULE_NAMES.length];
+      for (int i = 0; i < RULE_OF_STATE.length; i++) {
+        ATNState state;
+        if (i < 2 * RULE_NAMES.length) {
+          state = i % 2 == 0 ? new RuleStartState() : new RuleStopState();
+        } else if (i == S_BLOCK || i == E_BLOCK) {
+          state = new BasicBlockStartState();
+        } else if (i == S_BLOCK_END || i == E_BLOCK_END) {
+          state = new BlockEndState();
+        } else {
+          state = new BasicState();
+        }
+        state.ruleIndex = RULE_OF_STATE[i];
+        ATN.addState(state);
+      }
+      for (int rule = 0; rule < RULE_NAMES.length; rule++) {
+        ATN.ruleToStartState[rule] = (RuleStartState) ATN.states.get(2 * rule);
+        ATN.ruleToStopState[rule] = (RuleStopState) ATN.states.get(2 * rule + 1);
+        ATN.ruleToStartState[rule].stopState = ATN.ruleToStopState[rule];
+      }
+      block(S_BLOCK, S_BLOCK_END);
+      block(E_BLOCK, E_BLOCK_END);
+
+      epsilon(ATN.ruleToStartState[RULE_S].stateNumber, S_BLOCK);
+      epsilon(S_BLOCK, S_DOLLAR);
+      epsilon(S_BLOCK, S_AT);
+      atom(S_DOLLAR, DOLLAR, S_CALL_A);
+      call(S_CALL_A, RULE_A, S_AFTER_A);
+      epsilon(S_AFTER_A, S_BLOCK_END);
+      atom(S_AT, AT, S_CALL_B);
+      call(S_CALL_B, RULE_B, S_AFTER_B);
+      epsilon(S_AFTER_B, S_BLOCK_END);
+      epsilon(S_BLOCK_END, S_EOF);
+      atom(S_EOF, Token.EOF, S_END);
+      epsilon(S_END, ATN.ruleToStopState[RULE_S].stateNumber);
+
+      epsilon(ATN.ruleToStartState[RULE_A].stateNumber, A_CALL_E);
+      call(A_CALL_E, RULE_E, A_ID);
+      atom(A_ID, ID, A_END);
+      epsilon(A_END, ATN.ruleToStopState[RULE_A].stateNumber);
+
+      epsilon(ATN.ruleToStartState[RULE_B].stateNumber, B_CALL_E);
+      call(B_CALL_E, RULE_E, B_INT);
+      atom(B_INT, INT, B_ID);
+      atom(B_ID, ID, B_END);
+      epsilon(B_END, ATN.ruleToStopState[RULE_B].stateNumber);
+
+      epsilon(ATN.ruleToStartState[RULE_E].stateNumber, E_BLOCK);
+      epsilon(E_BLOCK, E_INT);
+      epsilon(E_BLOCK, E_EMPTY);
+      atom(E_INT, INT, E_AFTER_INT);
+      epsilon(E_AFTER_INT, E_BLOCK_END);
+      epsilon(E_EMPTY, E_BLOCK_END);
+      epsilon(E_BLOCK_END, ATN.ruleToStopState[RULE_E].stateNumber);
+
+      DECISION_TO_DFA = new DFA[ATN.getNumberOfDecisions()];
+      for (int i = 0; i < DECISION_TO_DFA.length; i++) {
+        DECISION_TO_DFA[i] = new DFA(ATN.getDecisionState(i), i);
+      }
+    }
+
+    private static void atom(int from, int label, int to) {
+      ATN.states.get(from).addTransition(new AtomTransition(ATN.states.get(to), label));
+    }
+
+    private static void block(int start, int end) {
+      BasicBlockStartState startState = (BasicBlockStartState) ATN.states.get(start);
+      BlockEndState endState = (BlockEndState) ATN.states.get(end);
+      startState.endState = endState;
+      endState.startState = startState;
+      ATN.defineDecisionState(startState);
+    }
+
+    private static void call(int from, int rule, int follow) {
+      ATNState followState = ATN.states.get(follow);
+      ATN.states
+          .get(from)
+          .addTransition(new RuleTransition(ATN.ruleToStartState[rule], rule, 0, followState));
+      ATN.ruleToStopState[rule].addTransition(new EpsilonTransition(followState));
+    }
+
+    private static void epsilon(int from, int to) {
+      ATN.states.get(from).addTransition(new EpsilonTransition(ATN.states.get(to)));
+    }
+
+    private TestParser(TokenStream input) {
+      super(input);
+      _interp = new ParserATNSimulator(this, ATN, DECISION_TO_DFA, new PredictionContextCache());
+    }
+
+    private Context a() {
+      Context ctx = new Context(_ctx, getState(), RULE_A);
+      enterRule(ctx, A_CALL_E, RULE_A);
+      try {
+        enterOuterAlt(ctx, 1);
+        setState(A_CALL_E);
+        e();
+        setState(A_ID);
+        match(ID);
+      } catch (RecognitionException re) {
+        ctx.exception = re;
+        _errHandler.reportError(this, re);
+        _errHandler.recover(this, re);
+      } finally {
+        exitRule();
+      }
+      return ctx;
+    }
+
+    private Context b() {
+      Context ctx = new Context(_ctx, getState(), RULE_B);
+      enterRule(ctx, B_CALL_E, RULE_B);
+      try {
+        enterOuterAlt(ctx, 1);
+        setState(B_CALL_E);
+        e();
+        setState(B_INT);
+        match(INT);
+        setState(B_ID);
+        match(ID);
+      } catch (RecognitionException re) {
+        ctx.exception = re;
+        _errHandler.reportError(this, re);
+        _errHandler.recover(this, re);
+      } finally {
+        exitRule();
+      }
+      return ctx;
+    }
+
+    private Context e() {
+      Context ctx = new Context(_ctx, getState(), RULE_E);
+      enterRule(ctx, E_BLOCK, RULE_E);
+      try {
+        _errHandler.sync(this);
+        if (getInterpreter().adaptivePredict(_input, 1, _ctx) == 1) {
+          enterOuterAlt(ctx, 1);
+          setState(E_INT);
+          match(INT);
+        } else {
+          enterOuterAlt(ctx, 2);
+        }
+      } catch (RecognitionException re) {
+        ctx.exception = re;
+        _errHandler.reportError(this, re);
+        _errHandler.recover(this, re);
+      } finally {
+        exitRule();
+      }
+      return ctx;
+    }
+
+    @Override
+    public ATN getATN() {
+      return ATN;
+    }
+
+    @Override
+    public String getGrammarFileName() {
+      return "TestParser.g4";
+    }
+
+    @Override
+    public String[] getRuleNames() {
+      return RULE_NAMES;
+    }
+
+    @Deprecated
+    @Override
+    public String[] getTokenNames() {
+      return new String[0];
+    }
+
+    @Override
+    public Vocabulary getVocabulary() {
+      return VOCABULARY;
+    }
+
+    private Context s() {
+      Context ctx = new Context(_ctx, getState(), RULE_S);
+      enterRule(ctx, S_BLOCK, RULE_S);
+      try {
+        enterOuterAlt(ctx, 1);
+        _errHandler.sync(this);
+        if (getInterpreter().adaptivePredict(_input, 0, _ctx) == 1) {
+          setState(S_DOLLAR);
+          match(DOLLAR);
+          setState(S_CALL_A);
+          a();
+        } else {
+          setState(S_AT);
+          match(AT);
+          setState(S_CALL_B);
+          b();
+        }
+        setState(S_EOF);
+        match(Token.EOF);
+      } catch (RecognitionException re) {
+        ctx.exception = re;
+        _errHandler.reportError(this, re);
+        _errHandler.recover(this, re);
+      } finally {
+        exitRule();
+      }
+      return ctx;
+    }
+  }
+
+  private static String llParseTree(String input, int expectedErrors) {
+    TestCombinedParser parser = new TestCombinedParser(input);
+    parser.getParser().setErrorHandler(new DefaultErrorStrategy());
+    parser.getParser().getInterpreter().setPredictionMode(PredictionMode.LL);
+    ParserRuleContext tree = parser.parse();
+    assertThat(parser.getErrors(), hasSize(expectedErrors));
+    return ParseTreePrettyPrinter.print(tree, parser);
+  }
+
+  @Test
+  public void testParseWithFallbackReportsErrorsOnce() {
+    TestCombinedParser parser = new TestCombinedParser("@ 1");
+    ParserRuleContext tree = parser.parseWithFallback();
+
+    assertThat(parser.getLlFallback(), equalTo(true));
+    // only the LL parse reports its syntax error
+    assertThat(parser.getErrors(), hasSize(1));
+    assertThat(ParseTreePrettyPrinter.print(tree, parser), equalTo(llParseTree("@ 1", 1)));
+  }
+
+  @Test
+  public void testParseWithFallbackToLl() {
+    TestCombinedParser parser = new TestCombinedParser("@ 1 x");
+    ParserRuleContext tree = parser.parseWithFallback();
+
+    assertThat(parser.getLlFallback(), equalTo(true));
+    assertThat(parser.getErrors(), hasSize(0));
+    assertThat(ParseTreePrettyPrinter.print(tree, parser), equalTo(llParseTree("@ 1 x", 0)));
+  }
+
+  @Test
+  public void testParseWithSll() {
+    TestCombinedParser parser = new TestCombinedParser("$ 1 x");
+    ParserRuleContext tree = parser.parseWithFallback();
+
+    assertThat(parser.getLlFallback(), equalTo(false));
+    assertThat(parser.getErrors(), hasSize(0));
+    assertThat(ParseTreePrettyPrinter.print(tree, parser), equalTo(llParseTree("$ 1 x", 0)));
+  }
+}
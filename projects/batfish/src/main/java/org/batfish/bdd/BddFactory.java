@@ -0,0 +1,262 @@
+package org.batfish.bdd;
+
+import java.util.Arrays;
+import javax.annotation.Nullable;
+import org.batfish.common.BatfishException;
+
+/**
+ * A minimal reduced ordered binary decision diagram (BDD) package.
+ *
+ * <p>BDDs are referred to by integer handles, with {@link #FALSE} and {@link #TRUE} the two
+ * terminals. Nodes are hash-consed, so two handles are equal if and only if they denote the same
+ * boolean function, and results of recent operations are kept in a fixed-size cache. Nodes are
+ * never reclaimed, so a factory should be discarded along with the computation it was created for.
+ * A factory is not thread-safe.
+ */
+public final class BddFactory {
+
+  public static final int FALSE = 0;
+
+  public static final int TRUE = 1;
+
+  private static final int CACHE_SIZE = 1 << 18;
+
+  private static final int INITIAL_CAPACITY = 1 << 12;
+
+  private static final int OP_AND = 0;
+
+  private static final int OP_BIIMP = 1;
+
+  private static final int OP_NOT = 2;
+
+  private static final int OP_OR = 3;
+
+  private static int hash(int a, int b, int c) {
+    int h = a * 0x9E3779B1 + b * 0x85EBCA77 + c * 0xC2B2AE3D;
+    return h ^ (h >>> 16);
+  }
+
+  private final int[] _cacheA;
+
+  private final int[] _cacheB;
+
+  private final int[] _cacheOp;
+
+  private final int[] _cacheResult;
+
+  private int[] _high;
+
+  private int[] _low;
+
+  private int _numNodes;
+
+  private final int _numVars;
+
+  /** Open-addressing table from (var, low, high) to node, holding node index + 1 (0 if empty) */
+  private int[] _unique;
+
+  private int[] _var;
+
+  public BddFactory(int numVars) {
+    _numVars = numVars;
+    _var = new int[INITIAL_CAPACITY];
+    _low = new int[INITIAL_CAPACITY];
+    _high = new int[INITIAL_CAPACITY];
+    _unique = new int[INITIAL_CAPACITY * 2];
+    // terminals are ordered after every variable
+    _var[FALSE] = numVars;
+    _var[TRUE] = numVars;
+    _numNodes = 2;
+    _cacheOp = new int[CACHE_SIZE];
+    Arrays.fill(_cacheOp, -1);
+    _cacheA = new int[CACHE_SIZE];
+    _cacheB = new int[CACHE_SIZE];
+    _cacheResult = new int[CACHE_SIZE];
+  }
+
+  public int and(int a, int b) {
+    if (a == FALSE || b == FALSE) {
+      return FALSE;
+    } else if (a == TRUE || a == b) {
+      return b;
+    } else if (b == TRUE) {
+      return a;
+    }
+    return apply(OP_AND, Math.min(a, b), Math.max(a, b));
+  }
+
+  private int apply(int op, int a, int b) {
+    int slot = hash(op, a, b) & (CACHE_SIZE - 1);
+    if (_cacheOp[slot] == op && _cacheA[slot] == a && _cacheB[slot] == b) {
+      return _cacheResult[slot];
+    }
+    int varA = _var[a];
+    int varB = _var[b];
+    int var = Math.min(varA, varB);
+    int lowA = varA == var ? _low[a] : a;
+    int highA = varA == var ? _high[a] : a;
+    int lowB = varB == var ? _low[b] : b;
+    int highB = varB == var ? _high[b] : b;
+    int result;
+    switch (op) {
+      case OP_AND:
+        result = mk(var, and(lowA, lowB), and(highA, highB));
+        break;
+      case OP_BIIMP:
+        result = mk(var, biimp(lowA, lowB), biimp(highA, highB));
+        break;
+      case OP_OR:
+        result = mk(var, or(lowA, lowB), or(highA, highB));
+        break;
+      default:
+        throw new BatfishException("Invalid BDD operation: " + op);
+    }
+    // the recursive calls above may have overwritten the slot, so store it again
+    _cacheOp[slot] = op;
+    _cacheA[slot] = a;
+    _cacheB[slot] = b;
+    _cacheResult[slot] = result;
+    return result;
+  }
+
+  /** Returns the BDD for {@code a <=> b}. */
+  public int biimp(int a, int b) {
+    if (a == b) {
+      return TRUE;
+    } else if (a == TRUE) {
+      return b;
+    } else if (b == TRUE) {
+      return a;
+    } else if (a == FALSE) {
+      return not(b);
+    } else if (b == FALSE) {
+      return not(a);
+    }
+    return apply(OP_BIIMP, Math.min(a, b), Math.max(a, b));
+  }
+
+  private void checkVar(int var) {
+    if (var < 0 || var >= _numVars) {
+      throw new BatfishException("BDD variable out of range: " + var);
+    }
+  }
+
+  /** Returns the number of nodes created so far, including the two terminals. */
+  public int getNumNodes() {
+    return _numNodes;
+  }
+
+  public int getNumVars() {
+    return _numVars;
+  }
+
+  private void grow() {
+    int capacity = _var.length * 2;
+    _var = Arrays.copyOf(_var, capacity);
+    _low = Arrays.copyOf(_low, capacity);
+    _high = Arrays.copyOf(_high, capacity);
+    _unique = new int[capacity * 2];
+    for (int node = 2; node < _numNodes; node++) {
+      insertUnique(node);
+    }
+  }
+
+  private void insertUnique(int node) {
+    int mask = _unique.length - 1;
+    int slot = hash(_var[node], _low[node], _high[node]) & mask;
+    while (_unique[slot] != 0) {
+      slot = (slot + 1) & mask;
+    }
+    _unique[slot] = node + 1;
+  }
+
+  /** Returns the BDD for the positive literal of {@code var}. */
+  public int ithVar(int var) {
+    checkVar(var);
+    return mk(var, FALSE, TRUE);
+  }
+
+  private int mk(int var, int low, int high) {
+    if (low == high) {
+      return low;
+    }
+    int mask = _unique.length - 1;
+    int slot = hash(var, low, high) & mask;
+    int entry;
+    while ((entry = _unique[slot]) != 0) {
+      int node = entry - 1;
+      if (_var[node] == var && _low[node] == low && _high[node] == high) {
+        return node;
+      }
+      slot = (slot + 1) & mask;
+    }
+    if (_numNodes == _var.length) {
+      grow();
+      return mk(var, low, high);
+    }
+    int node = _numNodes++;
+    _var[node] = var;
+    _low[node] = low;
+    _high[node] = high;
+    _unique[slot] = node + 1;
+    return node;
+  }
+
+  /** Returns the BDD for the negative literal of {@code var}. */
+  public int nithVar(int var) {
+    checkVar(var);
+    return mk(var, TRUE, FALSE);
+  }
+
+  public int not(int a) {
+    if (a == FALSE) {
+      return TRUE;
+    } else if (a == TRUE) {
+      return FALSE;
+    }
+    int slot = hash(OP_NOT, a, 0) & (CACHE_SIZE - 1);
+    if (_cacheOp[slot] == OP_NOT && _cacheA[slot] == a) {
+      return _cacheResult[slot];
+    }
+    int result = mk(_var[a], not(_low[a]), not(_high[a]));
+    _cacheOp[slot] = OP_NOT;
+    _cacheA[slot] = a;
+    _cacheB[slot] = 0;
+    _cacheResult[slot] = result;
+    return result;
+  }
+
+  public int or(int a, int b) {
+    if (a == TRUE || b == TRUE) {
+      return TRUE;
+    } else if (a == FALSE || a == b) {
+      return b;
+    } else if (b == FALSE) {
+      return a;
+    }
+    return apply(OP_OR, Math.min(a, b), Math.max(a, b));
+  }
+
+  /**
+   * Returns an assignment to all variables satisfying {@code a}, or {@code null} if {@code a} is
+   * unsatisfiable. Variables the BDD does not constrain along the chosen path are false, and the
+   * low branch is preferred wherever it is satisfiable.
+   */
+  @Nullable
+  public boolean[] satOne(int a) {
+    if (a == FALSE) {
+      return null;
+    }
+    boolean[] assignment = new boolean[_numVars];
+    int node = a;
+    while (node != TRUE) {
+      if (_low[node] != FALSE) {
+        node = _low[node];
+      } else {
+        assignment[_var[node]] = true;
+        node = _high[node];
+      }
+    }
+    return assignment;
+  }
+}
@@ -2,7 +2,7 @@ package org.batfish.bdp;
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -20,20 +20,35 @@ import org.batfish.datamodel.collections.TreeMultiSet;
 
 public abstract class AbstractRib<R extends AbstractRoute> implements IRib<R> {
 
-  private class ByteTrie implements Serializable {
+  /**
+   * Path-compressed binary trie over the raw 32-bit network addresses of the routes in this RIB.
+   * Each node holds the routes for exactly one prefix, so longest-prefix-match lookups only compare
+   * primitive addresses and return the routes of the deepest matching node without allocating.
+   */
+  private class RouteTrie implements Serializable {
 
     /** */
     private static final long serialVersionUID = 1L;
 
-    private ByteTrieNode _root;
+    private final RouteTrieNode _root;
 
-    public ByteTrie() {
-      _root = new ByteTrieNode(Prefix.ZERO);
+    public RouteTrie() {
+      _root = new RouteTrieNode(0L, 0);
     }
 
-    public Set<R> getLongestPrefixMatch(Ip address) {
-      BitSet addressBits = address.getAddressBits();
-      return _root.getLongestPrefixMatch(address, addressBits, 0);
+    public Set<R> getLongestPrefixMatch(long address) {
+      Set<R> longestPrefixMatches = Collections.emptySet();
+      RouteTrieNode node = _root;
+      while (node != null && (address & mask(node._prefixLength)) == node._network) {
+        if (node._routes != null) {
+          longestPrefixMatches = node._routesView;
+        }
+        if (node._prefixLength == Prefix.MAX_PREFIX_LENGTH) {
+          break;
+        }
+        node = getBit(address, node._prefixLength) ? node._right : node._left;
+      }
+      return longestPrefixMatches;
     }
 
     public Set<R> getRoutes() {
@@ -45,27 +60,71 @@ public abstract class AbstractRib<R extends AbstractRoute> implements IRib<R> {
     public boolean mergeRoute(R route) {
       Prefix prefix = route.getNetwork();
       int prefixLength = prefix.getPrefixLength();
-      BitSet bits = prefix.getAddress().getAddressBits();
-      return _root.mergeRoute(route, bits, prefixLength, 0);
+      long network = prefix.getAddress().asLong() & mask(prefixLength);
+      RouteTrieNode parent = _root;
+      while (parent._prefixLength != prefixLength) {
+        boolean right = getBit(network, parent._prefixLength);
+        RouteTrieNode child = right ? parent._right : parent._left;
+        RouteTrieNode replacement;
+        if (child == null) {
+          replacement = new RouteTrieNode(network, prefixLength);
+          replacement.addRoute(route);
+        } else {
+          int commonLength =
+              commonPrefixLength(network, prefixLength, child._network, child._prefixLength);
+          if (commonLength == child._prefixLength) {
+            // child is on the path to this route's prefix
+            parent = child;
+            continue;
+          }
+          RouteTrieNode leaf = new RouteTrieNode(network, prefixLength);
+          leaf.addRoute(route);
+          if (commonLength == prefixLength) {
+            // route's prefix lies between parent and child
+            replacement = leaf;
+          } else {
+            // route's prefix and child diverge below parent, so add a branching node
+            replacement = new RouteTrieNode(network & mask(commonLength), commonLength);
+            replacement.setChild(leaf);
+          }
+          replacement.setChild(child);
+        }
+        parent.setChild(replacement);
+        return true;
+      }
+      return parent.mergeRoute(route);
     }
   }
 
-  private class ByteTrieNode implements Serializable {
+  private class RouteTrieNode implements Serializable {
 
     /** */
     private static final long serialVersionUID = 1L;
 
-    private ByteTrieNode _left;
+    private RouteTrieNode _left;
+
+    private final long _network;
 
-    private Prefix _prefix;
+    private final int _prefixLength;
 
-    private ByteTrieNode _right;
+    private RouteTrieNode _right;
 
-    private final Set<R> _routes;
+    /** Routes for this node's prefix, or null if this is only a branching node */
+    private Set<R> _routes;
 
-    public ByteTrieNode(Prefix prefix) {
-      _routes = new HashSet<>();
-      _prefix = prefix;
+    private Set<R> _routesView;
+
+    public RouteTrieNode(long network, int prefixLength) {
+      _network = network;
+      _prefixLength = prefixLength;
+    }
+
+    private void addRoute(R route) {
+      if (_routes == null) {
+        _routes = new HashSet<>();
+        _routesView = Collections.unmodifiableSet(_routes);
+      }
+      _routes.add(route);
     }
 
     public void collectRoutes(Set<R> routes) {
@@ -75,190 +134,72 @@ public abstract class AbstractRib<R extends AbstractRoute> implements IRib<R> {
       if (_right != null) {
         _right.collectRoutes(routes);
       }
-      routes.addAll(_routes);
-    }
-
-    private Set<R> getLongestPrefixMatch(Ip address) {
-      Set<R> longestPrefixMatches = new HashSet<>();
-      for (R route : _routes) {
-        Prefix prefix = route.getNetwork();
-        if (prefix.contains(address)) {
-          longestPrefixMatches.add(route);
-        }
+      if (_routes != null) {
+        routes.addAll(_routes);
       }
-      return longestPrefixMatches;
     }
 
-    public Set<R> getLongestPrefixMatch(Ip address, BitSet bits, int index) {
-      Set<R> longestPrefixMatches = getLongestPrefixMatch(address);
-      if (index == Prefix.MAX_PREFIX_LENGTH) {
-        return longestPrefixMatches;
-      }
-      boolean currentBit = bits.get(index);
-      Set<R> longerMatches = null;
-      if (currentBit) {
-        if (_right != null) {
-          longerMatches =
-              _right.getLongestPrefixMatch(address, bits, _right._prefix.getPrefixLength());
-        }
-      } else {
-        if (_left != null) {
-          longerMatches =
-              _left.getLongestPrefixMatch(address, bits, _left._prefix.getPrefixLength());
-        }
+    public boolean mergeRoute(R route) {
+      if (_routes == null) {
+        // no routes with this prefix, so just add it
+        addRoute(route);
+        return true;
       }
-      if (longerMatches == null || longerMatches.isEmpty()) {
-        return longestPrefixMatches;
+      // suitability check
+      R rhs = _routes.iterator().next();
+      int preferenceComparison = comparePreference(route, rhs);
+      if (preferenceComparison < 0) {
+        // less preferable, so it doesn't get added
+        return false;
+      } else if (preferenceComparison == 0) {
+        // equal preference, so add for multipath routing
+        return _routes.add(route);
       } else {
-        return longerMatches;
+        // better than all pre-existing routes for this prefix, so
+        // replace them with this one
+        _routes.clear();
+        _routes.add(route);
+        return true;
       }
     }
 
-    public boolean mergeRoute(R route, BitSet bits, int prefixLength, int firstUnmatchedBitIndex) {
-      if (prefixLength == _prefix.getPrefixLength()) {
-        // no routes with this prefix, so just add it
-        if (_routes.isEmpty()) {
-          _routes.add(route);
-          return true;
-        } else {
-          // suitability check
-          R rhs = _routes.iterator().next();
-          int preferenceComparison = comparePreference(route, rhs);
-          if (preferenceComparison < 0) {
-            // less preferable, so it doesn't get added
-            return false;
-          } else if (preferenceComparison == 0) {
-            // equal preference, so add for multipath routing
-            if (!_routes.contains(route)) {
-              _routes.add(route);
-              return true;
-            } else {
-              // route is already here, so nothing to do
-              return false;
-            }
-          } else {
-            // better than all pre-existing routes for this prefix, so
-            // replace them with this one
-            _routes.clear();
-            _routes.add(route);
-            return true;
-          }
-        }
+    /** Attaches {@code child}, which must lie strictly below this node, on the correct side. */
+    private void setChild(RouteTrieNode child) {
+      if (getBit(child._network, _prefixLength)) {
+        _right = child;
       } else {
-        boolean currentBit = bits.get(firstUnmatchedBitIndex);
-        if (currentBit) {
-          if (_right == null) {
-            _right = new ByteTrieNode(route.getNetwork());
-            _right._routes.add(route);
-            return true;
-          } else {
-            Prefix rightPrefix = _right._prefix;
-            int rightPrefixLength = rightPrefix.getPrefixLength();
-            Ip rightAddress = rightPrefix.getAddress();
-            BitSet rightAddressBits = rightAddress.getAddressBits();
-            int nextUnmatchedBit;
-            boolean currentAddressBit = false;
-            boolean currentRightAddressBit;
-            for (nextUnmatchedBit = firstUnmatchedBitIndex + 1;
-                nextUnmatchedBit < rightPrefixLength && nextUnmatchedBit < prefixLength;
-                nextUnmatchedBit++) {
-              currentAddressBit = bits.get(nextUnmatchedBit);
-              currentRightAddressBit = rightAddressBits.get(nextUnmatchedBit);
-              if (currentRightAddressBit != currentAddressBit) {
-                break;
-              }
-            }
-            if (nextUnmatchedBit == rightPrefixLength) {
-              return _right.mergeRoute(route, bits, prefixLength, nextUnmatchedBit);
-            } else if (nextUnmatchedBit == prefixLength) {
-              currentRightAddressBit = rightAddressBits.get(nextUnmatchedBit);
-              ByteTrieNode oldRight = _right;
-              _right = new ByteTrieNode(route.getNetwork());
-              _right._routes.add(route);
-              if (currentRightAddressBit) {
-                _right._right = oldRight;
-              } else {
-                _right._left = oldRight;
-              }
-              return true;
-            } else {
-              ByteTrieNode oldRight = _right;
-
-              Prefix newNetwork =
-                  new Prefix(route.getNetwork().getAddress(), nextUnmatchedBit).getNetworkPrefix();
-              _right = new ByteTrieNode(newNetwork);
-              if (currentAddressBit) {
-                _right._left = oldRight;
-                _right._right = new ByteTrieNode(route.getNetwork());
-                _right._right._routes.add(route);
-              } else {
-                _right._right = oldRight;
-                _right._left = new ByteTrieNode(route.getNetwork());
-                _right._left._routes.add(route);
-              }
-              return true;
-            }
-          }
-        } else {
-          if (_left == null) {
-            _left = new ByteTrieNode(route.getNetwork());
-            _left._routes.add(route);
-            return true;
-          } else {
-            Prefix leftPrefix = _left._prefix;
-            int leftPrefixLength = leftPrefix.getPrefixLength();
-            Ip leftAddress = leftPrefix.getAddress();
-            BitSet leftAddressBits = leftAddress.getAddressBits();
-            int nextUnmatchedBit;
-            boolean currentAddressBit = false;
-            boolean currentLeftAddressBit;
-            for (nextUnmatchedBit = firstUnmatchedBitIndex + 1;
-                nextUnmatchedBit < leftPrefixLength && nextUnmatchedBit < prefixLength;
-                nextUnmatchedBit++) {
-              currentAddressBit = bits.get(nextUnmatchedBit);
-              currentLeftAddressBit = leftAddressBits.get(nextUnmatchedBit);
-              if (currentLeftAddressBit != currentAddressBit) {
-                break;
-              }
-            }
-            if (nextUnmatchedBit == leftPrefixLength) {
-              return _left.mergeRoute(route, bits, prefixLength, nextUnmatchedBit);
-            } else if (nextUnmatchedBit == prefixLength) {
-              currentLeftAddressBit = leftAddressBits.get(nextUnmatchedBit);
-              ByteTrieNode oldLeft = _left;
-              _left = new ByteTrieNode(route.getNetwork());
-              _left._routes.add(route);
-              if (currentLeftAddressBit) {
-                _left._right = oldLeft;
-              } else {
-                _left._left = oldLeft;
-              }
-              return true;
-            } else {
-              ByteTrieNode oldLeft = _left;
-              Prefix newPrefix =
-                  new Prefix(route.getNetwork().getAddress(), nextUnmatchedBit).getNetworkPrefix();
-              _left = new ByteTrieNode(newPrefix);
-              if (currentAddressBit) {
-                _left._left = oldLeft;
-                _left._right = new ByteTrieNode(route.getNetwork());
-                _left._right._routes.add(route);
-              } else {
-                _left._right = oldLeft;
-                _left._left = new ByteTrieNode(route.getNetwork());
-                _left._left._routes.add(route);
-              }
-              return true;
-            }
-          }
-        }
+        _left = child;
       }
     }
 
     @Override
     public String toString() {
-      return _prefix.toString();
+      return new Prefix(new Ip(_network), _prefixLength).toString();
+    }
+  }
+
+  /**
+   * Returns the length of the longest common prefix of the two given networks, capped at the
+   * shorter of their prefix lengths.
+   */
+  private static int commonPrefixLength(
+      long network1, int prefixLength1, long network2, int prefixLength2) {
+    int maxLength = Math.min(prefixLength1, prefixLength2);
+    long difference = network1 ^ network2;
+    if (difference == 0L) {
+      return maxLength;
     }
+    int commonLength = Long.numberOfLeadingZeros(difference) - (64 - Prefix.MAX_PREFIX_LENGTH);
+    return Math.min(commonLength, maxLength);
+  }
+
+  /** Returns bit {@code index} of the given address, where bit 0 is the most significant bit */
+  private static boolean getBit(long address, int index) {
+    return ((address >>> (Prefix.MAX_PREFIX_LENGTH - 1 - index)) & 1L) == 1L;
+  }
+
+  private static long mask(int prefixLength) {
+    return (0xFFFFFFFFL << (Prefix.MAX_PREFIX_LENGTH - prefixLength)) & 0xFFFFFFFFL;
   }
 
   /** */
@@ -266,10 +207,10 @@ public abstract class AbstractRib<R extends AbstractRoute> implements IRib<R> {
 
   protected VirtualRouter _owner;
 
-  private ByteTrie _trie;
+  private RouteTrie _trie;
 
   public AbstractRib(VirtualRouter owner) {
-    _trie = new ByteTrie();
+    _trie = new RouteTrie();
     _owner = owner;
   }
 
@@ -316,7 +257,7 @@ public abstract class AbstractRib<R extends AbstractRoute> implements IRib<R> {
 
   @Override
   public Set<R> longestPrefixMatch(Ip address) {
-    return _trie.getLongestPrefixMatch(address);
+    return _trie.getLongestPrefixMatch(address.asLong());
   }
 
   @Override
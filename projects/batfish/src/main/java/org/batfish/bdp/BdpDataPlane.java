@@ -45,7 +45,8 @@ public class BdpDataPlane implements Serializable, DataPlane {
 
   private Map<Ip, String> _ipOwnersSimple;
 
-  Map<String, Node> _nodes;
+  /** Not serialized with the rest of the data plane; see {@link BdpDataPlaneStore} */
+  transient Map<String, Node> _nodes;
 
   Topology _topology;
 
@@ -1,8 +1,11 @@
 package org.batfish.bdp;
 
+import com.google.common.cache.CacheStats;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -22,8 +25,10 @@ import org.batfish.common.Version;
 import org.batfish.common.plugin.DataPlanePlugin;
 import org.batfish.common.util.CommonUtil;
 import org.batfish.datamodel.AbstractRoute;
+import org.batfish.datamodel.BgpNeighbor;
 import org.batfish.datamodel.BgpProcess;
 import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.DataPlane;
 import org.batfish.datamodel.Edge;
 import org.batfish.datamodel.FilterResult;
 import org.batfish.datamodel.Flow;
@@ -47,6 +52,8 @@ import org.batfish.datamodel.collections.EdgeSet;
 import org.batfish.datamodel.collections.IbgpTopology;
 import org.batfish.datamodel.collections.NodeInterfacePair;
 import org.batfish.datamodel.collections.RouteSet;
+import org.batfish.datamodel.routing_policy.RoutingPolicy;
+import org.batfish.datamodel.routing_policy.RoutingPolicyResultCache;
 
 public class BdpDataPlanePlugin extends DataPlanePlugin {
 
@@ -69,10 +76,14 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
 
   private static final String TRACEROUTE_INGRESS_NODE_NAME = "traceroute_source_node";
 
-  private final Map<BdpDataPlane, Map<Flow, Set<FlowTrace>>> _flowTraces;
+  private final Map<BdpDataPlane, Map<Flow, FlowTraceDag>> _flowTraces;
+
+  /** Whether the traces of a flow share the subgraphs they have in common */
+  private boolean _shareFlowTraceSubgraphs;
 
   public BdpDataPlanePlugin() {
     _flowTraces = new HashMap<>();
+    _shareFlowTraceSubgraphs = true;
   }
 
   /**
@@ -112,30 +123,76 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
     return flow;
   }
 
-  private void collectFlowTraces(
+  /**
+   * Gives the virtual routers of {@code nodes} a cache memoizing the results of each routing
+   * policy, if enabled, and returns the caches. The caches belong to this data plane computation
+   * alone and are not stored in the policies, since configurations are shared with other
+   * computations.
+   */
+  @Nullable
+  private Map<RoutingPolicy, RoutingPolicyResultCache> attachPolicyCaches(
+      Map<String, Node> nodes) {
+    int policyCacheSize = _batfish.getDataPlanePluginSettings().getBdpPolicyCacheSize();
+    if (policyCacheSize <= 0) {
+      return null;
+    }
+    Map<RoutingPolicy, RoutingPolicyResultCache> policyResultCaches = new IdentityHashMap<>();
+    for (Node node : nodes.values()) {
+      for (RoutingPolicy policy : node._c.getRoutingPolicies().values()) {
+        policyResultCaches.put(policy, new RoutingPolicyResultCache(policyCacheSize));
+      }
+    }
+    for (Node node : nodes.values()) {
+      for (VirtualRouter vr : node._virtualRouters.values()) {
+        vr._policyResultCaches = policyResultCaches;
+      }
+    }
+    return policyResultCaches;
+  }
+
+  /**
+   * Aborts the data plane computation running on {@code computeThread} once that thread is
+   * interrupted, e.g. because its task exceeded its max runtime.
+   */
+  private static void checkInterrupted(Thread computeThread, String stage) {
+    if (computeThread.isInterrupted()) {
+      throw new BatfishException("Data plane computation cancelled during " + stage);
+    }
+  }
+
+  /**
+   * Returns the traces of {@code originalFlow} continuing from {@code currentNodeName}, which it
+   * reached on {@code receivingInterfaceName} (null at the ingress node).
+   */
+  private FlowTraceDag.Vertex collectFlowTraces(
       BdpDataPlane dp,
       String currentNodeName,
+      @Nullable String receivingInterfaceName,
       Set<Edge> visitedEdges,
-      List<FlowTraceHop> hopsSoFar,
-      Set<FlowTrace> flowTraces,
+      FlowTraceDag.Subgraphs subgraphs,
       Flow originalFlow,
       Flow transformedFlow) {
     Ip dstIp = transformedFlow.getDstIp();
     Set<String> dstIpOwners = dp._ipOwners.get(dstIp);
     if (dstIpOwners != null && dstIpOwners.contains(currentNodeName)) {
-      FlowTrace trace =
-          new FlowTrace(FlowDisposition.ACCEPTED, hopsSoFar, FlowDisposition.ACCEPTED.toString());
-      flowTraces.add(trace);
+      FlowTraceDag.Vertex vertex = subgraphs.newVertex(null);
+      vertex.addTermination(null, FlowDisposition.ACCEPTED, FlowDisposition.ACCEPTED.toString());
+      return vertex;
     } else {
       Node currentNode = dp._nodes.get(currentNodeName);
       String vrfName;
-      if (hopsSoFar.isEmpty()) {
+      if (receivingInterfaceName == null) {
         vrfName = transformedFlow.getIngressVrf();
       } else {
-        FlowTraceHop lastHop = hopsSoFar.get(hopsSoFar.size() - 1);
-        String receivingInterface = lastHop.getEdge().getInt2();
-        vrfName = currentNode._c.getInterfaces().get(receivingInterface).getVrf().getName();
+        vrfName = currentNode._c.getInterfaces().get(receivingInterfaceName).getVrf().getName();
+      }
+      Object subgraphKey =
+          FlowTraceDag.Subgraphs.key(currentNodeName, vrfName, originalFlow, transformedFlow);
+      FlowTraceDag.Vertex vertex = subgraphs.get(subgraphKey, visitedEdges);
+      if (vertex != null) {
+        return vertex;
       }
+      vertex = subgraphs.newVertex(currentNodeName);
       VirtualRouter currentVirtualRouter = currentNode._virtualRouters.get(vrfName);
       Map<AbstractRoute, Map<String, Map<Ip, Set<AbstractRoute>>>> nextHopInterfacesByRoute =
           currentVirtualRouter._fib.getNextHopInterfacesByRoute(dstIp);
@@ -178,7 +235,6 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
           NodeInterfacePair nextHopInterface =
               new NodeInterfacePair(currentNodeName, nextHopInterfaceName);
           if (nextHopInterfaceName.equals(Interface.NULL_INTERFACE_NAME)) {
-            List<FlowTraceHop> newHops = new ArrayList<>(hopsSoFar);
             Edge newEdge =
                 new Edge(
                     nextHopInterface,
@@ -187,11 +243,8 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
             FlowTraceHop newHop =
                 new FlowTraceHop(
                     newEdge, routesForThisNextHopInterface, hopFlow(originalFlow, transformedFlow));
-            newHops.add(newHop);
-            FlowTrace nullRouteTrace =
-                new FlowTrace(
-                    FlowDisposition.NULL_ROUTED, newHops, FlowDisposition.NULL_ROUTED.toString());
-            flowTraces.add(nullRouteTrace);
+            vertex.addTermination(
+                newHop, FlowDisposition.NULL_ROUTED, FlowDisposition.NULL_ROUTED.toString());
           } else {
             Interface outgoingInterface =
                 dp._nodes
@@ -211,8 +264,8 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
                       dp,
                       currentNodeName,
                       visitedEdges,
-                      hopsSoFar,
-                      flowTraces,
+                      vertex,
+                      subgraphs,
                       originalFlow,
                       transformedFlow,
                       dstIp,
@@ -231,18 +284,12 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
                * Should only get here for delta environment where
                * non-flow-sink interface from base has no edges in delta
                */
-              Edge neighborUnreachbleEdge =
-                  new Edge(
-                      nextHopInterface,
-                      new NodeInterfacePair(
-                          Configuration.NODE_NONE_NAME, Interface.NULL_INTERFACE_NAME));
               FlowTraceHop neighborUnreachableHop =
-                  new FlowTraceHop(
-                      neighborUnreachbleEdge,
+                  neighborUnreachableHop(
+                      nextHopInterface,
                       routesForThisNextHopInterface,
-                      hopFlow(originalFlow, transformedFlow));
-              List<FlowTraceHop> newHops = new ArrayList<>(hopsSoFar);
-              newHops.add(neighborUnreachableHop);
+                      originalFlow,
+                      transformedFlow);
               /** Check if denied out. If not, make standard neighbor-unreachable trace. */
               IpAccessList outFilter = outgoingInterface.getOutgoingFilter();
               boolean denied = false;
@@ -250,24 +297,27 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
                 FlowDisposition disposition = FlowDisposition.NEIGHBOR_UNREACHABLE_OR_DENIED_OUT;
                 denied =
                     flowTraceDeniedHelper(
-                        flowTraces, originalFlow, transformedFlow, newHops, outFilter, disposition);
+                        vertex,
+                        originalFlow,
+                        transformedFlow,
+                        neighborUnreachableHop,
+                        outFilter,
+                        disposition);
               }
               if (!denied) {
-                FlowTrace trace =
-                    new FlowTrace(
-                        FlowDisposition.NEIGHBOR_UNREACHABLE_OR_EXITS_NETWORK,
-                        newHops,
-                        FlowDisposition.NEIGHBOR_UNREACHABLE_OR_EXITS_NETWORK.toString());
-                flowTraces.add(trace);
+                vertex.addTermination(
+                    neighborUnreachableHop,
+                    FlowDisposition.NEIGHBOR_UNREACHABLE_OR_EXITS_NETWORK,
+                    FlowDisposition.NEIGHBOR_UNREACHABLE_OR_EXITS_NETWORK.toString());
               }
             }
           }
         }
       } else {
-        FlowTrace trace =
-            new FlowTrace(FlowDisposition.NO_ROUTE, hopsSoFar, FlowDisposition.NO_ROUTE.toString());
-        flowTraces.add(trace);
+        vertex.addTermination(null, FlowDisposition.NO_ROUTE, FlowDisposition.NO_ROUTE.toString());
       }
+      subgraphs.put(subgraphKey, vertex);
+      return vertex;
     }
   }
 
@@ -276,7 +326,11 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
     Answer answer = new Answer();
     BdpDataPlane dp = new BdpDataPlane();
     BdpAnswerElement ae = new BdpAnswerElement();
+    long deserializedBytes = _batfish.getDeserializedBytes();
+    long deserializationTime = _batfish.getDeserializationTime();
     Map<String, Configuration> configurations = _batfish.loadConfigurations();
+    ae.setDeserializedBytes(_batfish.getDeserializedBytes() - deserializedBytes);
+    ae.setDeserializationTime(_batfish.getDeserializationTime() - deserializationTime);
     Topology topology = _batfish.computeTopology(configurations);
     _batfish.resetTimer();
     _logger.info("\n*** COMPUTING DATA PLANE ***\n");
@@ -287,7 +341,12 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
     Map<String, Node> nodes = new TreeMap<>();
     configurations.values().forEach(c -> nodes.put(c.getHostname(), new Node(c, nodes)));
     AdvertisementSet externalAdverts = _batfish.processExternalBgpAnnouncements(configurations);
-    computeFixedPoint(nodes, topology, dp, externalAdverts, ae);
+    Map<RoutingPolicy, RoutingPolicyResultCache> policyResultCaches = attachPolicyCaches(nodes);
+    try {
+      computeFixedPoint(nodes, topology, dp, externalAdverts, ae);
+    } finally {
+      detachPolicyCaches(nodes, policyResultCaches, ae);
+    }
     computeFibs(nodes);
     dp.setNodes(nodes);
     dp.setTopology(topology);
@@ -320,6 +379,8 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
       BdpDataPlane dp,
       AdvertisementSet externalAdverts,
       BdpAnswerElement ae) {
+    // parallel streams run on pool threads, which are not interrupted along with this one
+    Thread computeThread = Thread.currentThread();
     // BEGIN DONE ONCE (except main rib)
     // connected, initial static routes, ospf setup, bgp setup
     AtomicInteger initialCompleted =
@@ -349,6 +410,7 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
     final AtomicBoolean ospfInternalChanged = new AtomicBoolean(true);
     int ospfInternalIterations = 0;
     while (ospfInternalChanged.get()) {
+      checkInterrupted(computeThread, "propagation of OSPF internal routes");
       ospfInternalIterations++;
       ospfInternalChanged.set(false);
       AtomicInteger ospfInterAreaSummaryCompleted =
@@ -416,6 +478,7 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
     final AtomicBoolean ripInternalChanged = new AtomicBoolean(true);
     int ripInternalIterations = 0;
     while (ripInternalChanged.get()) {
+      checkInterrupted(computeThread, "propagation of RIP internal routes");
       ripInternalIterations++;
       ripInternalChanged.set(false);
       AtomicInteger ripInternalCompleted =
@@ -470,17 +533,41 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
     } else if (DEBUG_REPEAT_ITERATIONS && DEBUG_MAX_RECORDED_ITERATIONS > 1) {
       iterationRoutes = new LRUMap<>(DEBUG_MAX_RECORDED_ITERATIONS);
     }
+    /*
+     * Unless a full rebuild is requested, each iteration after the first only recomputes the nodes
+     * whose RIBs changed in the previous iteration, together with the nodes that read those RIBs.
+     * All other nodes carry their RIBs forward unchanged.
+     */
+    boolean fullRebuild = _batfish.getDataPlanePluginSettings().getBdpFullRebuild();
+    Map<String, Set<String>> ribReaders = fullRebuild ? null : computeRibReaders(nodes, topology);
+    Map<String, Node> nextIterationNodes = nodes;
     AtomicBoolean dependentRoutesChanged = new AtomicBoolean(true);
     int dependentRoutesIterations = 0;
     while (dependentRoutesChanged.get()) {
+      checkInterrupted(computeThread, "computation of dependent routes");
       dependentRoutesIterations++;
       dependentRoutesChanged.set(false);
+      Map<String, Node> iterationNodes = nextIterationNodes;
+      ae.getRecomputedNodesByIteration().put(dependentRoutesIterations, iterationNodes.size());
+      if (iterationNodes != nodes) {
+        nodes
+            .values()
+            .parallelStream()
+            .filter(n -> !iterationNodes.containsKey(n.getName()))
+            .forEach(
+                n -> {
+                  for (VirtualRouter vr : n._virtualRouters.values()) {
+                    vr.reuseDependentRibs();
+                  }
+                });
+      }
+
       // (Re)initialization of dependent route calculation
       AtomicInteger reinitializeDependentCompleted =
           _batfish.newBatch(
               "Iteration " + dependentRoutesIterations + ": Reinitialize dependent routes",
-              nodes.size());
-      nodes
+              iterationNodes.size());
+      iterationNodes
           .values()
           .parallelStream()
           .forEach(
@@ -560,14 +647,15 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
               "Iteration "
                   + dependentRoutesIterations
                   + ": Recompute static routes with next-hop IP",
-              nodes.size());
-      nodes
+              iterationNodes.size());
+      iterationNodes
           .values()
           .parallelStream()
           .forEach(
               n -> {
                 boolean staticChanged;
                 do {
+                  checkInterrupted(computeThread, "activation of static routes");
                   staticChanged = false;
                   for (VirtualRouter vr : n._virtualRouters.values()) {
                     if (vr.activateStaticRoutes()) {
@@ -582,8 +670,8 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
       AtomicInteger recomputeAggregateCompleted =
           _batfish.newBatch(
               "Iteration " + dependentRoutesIterations + ": Recompute aggregate/generated routes",
-              nodes.size());
-      nodes
+              iterationNodes.size());
+      iterationNodes
           .values()
           .parallelStream()
           .forEach(
@@ -592,6 +680,7 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
                   boolean generatedChanged;
                   vr._generatedRib = new Rib(vr);
                   do {
+                    checkInterrupted(computeThread, "activation of generated routes");
                     generatedChanged = false;
                     if (vr.activateGeneratedRoutes()) {
                       generatedChanged = true;
@@ -604,7 +693,7 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
 
       // OSPF external routes
       // recompute exports
-      nodes
+      iterationNodes
           .values()
           .parallelStream()
           .forEach(
@@ -618,6 +707,7 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
       final AtomicBoolean ospfExternalChanged = new AtomicBoolean(true);
       int ospfExternalSubIterations = 0;
       while (ospfExternalChanged.get()) {
+        checkInterrupted(computeThread, "propagation of OSPF external routes");
         ospfExternalSubIterations++;
         AtomicInteger propagateOspfExternalCompleted =
             _batfish.newBatch(
@@ -625,9 +715,9 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
                     + dependentRoutesIterations
                     + ": Propagate OSPF external routes: subIteration: "
                     + ospfExternalSubIterations,
-                nodes.size());
+                iterationNodes.size());
         ospfExternalChanged.set(false);
-        nodes
+        iterationNodes
             .values()
             .parallelStream()
             .forEach(
@@ -645,8 +735,8 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
                     + dependentRoutesIterations
                     + ": Unstage OSPF external routes: subIteration: "
                     + ospfExternalSubIterations,
-                nodes.size());
-        nodes
+                iterationNodes.size());
+        iterationNodes
             .values()
             .parallelStream()
             .forEach(
@@ -660,8 +750,8 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
       AtomicInteger importOspfExternalCompleted =
           _batfish.newBatch(
               "Iteration " + dependentRoutesIterations + ": Unstage OSPF external routes",
-              nodes.size());
-      nodes
+              iterationNodes.size());
+      iterationNodes
           .values()
           .parallelStream()
           .forEach(
@@ -676,7 +766,7 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
 
       // BGP routes
       // first let's initialize nodes-level generated/aggregate routes
-      nodes
+      iterationNodes
           .values()
           .parallelStream()
           .forEach(
@@ -689,8 +779,9 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
               });
       AtomicInteger propagateBgpCompleted =
           _batfish.newBatch(
-              "Iteration " + dependentRoutesIterations + ": Propagate BGP routes", nodes.size());
-      nodes
+              "Iteration " + dependentRoutesIterations + ": Propagate BGP routes",
+              iterationNodes.size());
+      iterationNodes
           .values()
           .parallelStream()
           .forEach(
@@ -703,8 +794,8 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
       AtomicInteger importBgpCompleted =
           _batfish.newBatch(
               "Iteration " + dependentRoutesIterations + ": Import BGP routes into respective RIBs",
-              nodes.size());
-      nodes
+              iterationNodes.size());
+      iterationNodes
           .values()
           .parallelStream()
           .forEach(
@@ -767,7 +858,7 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
       AtomicInteger checkFixedPointCompleted =
           _batfish.newBatch(
               "Iteration " + dependentRoutesIterations + ": Check if fixed-point reached",
-              nodes.size());
+              iterationNodes.size());
       int iterationHashCode = computeIterationHashCode(nodes);
       Integer iterationWithThisHashCode = iterationByHashCode.get(iterationHashCode);
       iterationHashCodes.put(dependentRoutesIterations, iterationHashCode);
@@ -794,7 +885,8 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
         }
       }
 
-      nodes
+      Set<String> changedNodes = ConcurrentHashMap.newKeySet();
+      iterationNodes
           .values()
           .parallelStream()
           .forEach(
@@ -816,15 +908,67 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
                   }
                   if (changed) {
                     dependentRoutesChanged.set(true);
+                    changedNodes.add(n.getName());
+                  } else if (!fullRebuild && vr.bgpRibsChanged()) {
+                    // BGP RIBs are read by peers even when the main RIB is unchanged
+                    changedNodes.add(n.getName());
                   }
                 }
                 checkFixedPointCompleted.incrementAndGet();
               });
+      if (!fullRebuild) {
+        nextIterationNodes = computeNextIterationNodes(nodes, changedNodes, ribReaders);
+      }
     }
     ae.setOspfInternalIterations(ospfInternalIterations);
     ae.setDependentRoutesIterations(dependentRoutesIterations);
   }
 
+  /**
+   * Returns the nodes to recompute in the next dependent-routes iteration: the nodes in {@code
+   * changedNodes} and every node that reads the RIBs of one of them.
+   */
+  private static Map<String, Node> computeNextIterationNodes(
+      Map<String, Node> nodes, Set<String> changedNodes, Map<String, Set<String>> ribReaders) {
+    Map<String, Node> nextIterationNodes = new TreeMap<>();
+    for (String changedNode : changedNodes) {
+      nextIterationNodes.put(changedNode, nodes.get(changedNode));
+      for (String reader : ribReaders.getOrDefault(changedNode, Collections.emptySet())) {
+        nextIterationNodes.put(reader, nodes.get(reader));
+      }
+    }
+    return nextIterationNodes;
+  }
+
+  /**
+   * Returns a map from each node to the nodes whose dependent-route computation reads its RIBs
+   * from the previous iteration, i.e. its BGP peers and its neighbors in the layer-3 topology.
+   */
+  private static Map<String, Set<String>> computeRibReaders(
+      Map<String, Node> nodes, Topology topology) {
+    Map<String, Set<String>> ribReaders = new HashMap<>();
+    for (Node n : nodes.values()) {
+      String hostname = n.getName();
+      for (VirtualRouter vr : n._virtualRouters.values()) {
+        BgpProcess proc = vr._vrf.getBgpProcess();
+        if (proc == null) {
+          continue;
+        }
+        for (BgpNeighbor neighbor : proc.getNeighbors().values()) {
+          BgpNeighbor remoteNeighbor = neighbor.getRemoteBgpNeighbor();
+          if (remoteNeighbor != null) {
+            String remoteHostname = remoteNeighbor.getOwner().getHostname();
+            ribReaders.computeIfAbsent(remoteHostname, k -> new TreeSet<>()).add(hostname);
+          }
+        }
+      }
+    }
+    for (Edge edge : topology.getEdges()) {
+      ribReaders.computeIfAbsent(edge.getNode2(), k -> new TreeSet<>()).add(edge.getNode1());
+    }
+    return ribReaders;
+  }
+
   private int computeIterationHashCode(Map<String, Node> nodes) {
     int mainHash =
         nodes
@@ -932,11 +1076,54 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
     return errorMessage;
   }
 
+  @Override
+  public DataPlane deserializeDataPlane(Path dataPlanePath) {
+    return BdpDataPlaneStore.read(dataPlanePath);
+  }
+
+  /**
+   * Removes {@code policyResultCaches} from the virtual routers of {@code nodes}, adding up their
+   * statistics in {@code ae}.
+   */
+  private static void detachPolicyCaches(
+      Map<String, Node> nodes,
+      @Nullable Map<RoutingPolicy, RoutingPolicyResultCache> policyResultCaches,
+      BdpAnswerElement ae) {
+    if (policyResultCaches == null) {
+      return;
+    }
+    for (Node node : nodes.values()) {
+      for (VirtualRouter vr : node._virtualRouters.values()) {
+        vr._policyResultCaches = null;
+      }
+    }
+    for (RoutingPolicyResultCache cache : policyResultCaches.values()) {
+      CacheStats stats = cache.stats();
+      ae.setPolicyCacheEvictions(ae.getPolicyCacheEvictions() + stats.evictionCount());
+      ae.setPolicyCacheHits(ae.getPolicyCacheHits() + stats.hitCount());
+      ae.setPolicyCacheMisses(ae.getPolicyCacheMisses() + stats.missCount());
+      ae.setPolicyCacheUnmemoizable(ae.getPolicyCacheUnmemoizable() + cache.getUnmemoizable());
+    }
+  }
+
+  /**
+   * Expands the traces of each flow processed against {@code dp}, up to the configured maximum per
+   * flow. The expansion is deterministic, so repeated calls list the same traces in the same order.
+   */
+  private Map<Flow, SortedSet<FlowTrace>> expandFlowTraces(BdpDataPlane dp) {
+    int maxTracesPerFlow = _batfish.getDataPlanePluginSettings().getBdpMaxTracesPerFlow();
+    Map<Flow, SortedSet<FlowTrace>> flowTraces = new TreeMap<>();
+    _flowTraces
+        .get(dp)
+        .forEach((flow, dag) -> flowTraces.put(flow, dag.getTraces(maxTracesPerFlow)));
+    return flowTraces;
+  }
+
   private boolean flowTraceDeniedHelper(
-      Set<FlowTrace> flowTraces,
+      FlowTraceDag.Vertex vertex,
       Flow originalFlow,
       Flow transformedFlow,
-      List<FlowTraceHop> newHops,
+      FlowTraceHop lastHop,
       IpAccessList filter,
       FlowDisposition disposition) {
     boolean out =
@@ -957,21 +1144,18 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
         lineDesc = "no-match";
       }
       String notes = disposition + "{" + outFilterName + "}{" + lineDesc + "}";
+      FlowTraceHop finalHop = lastHop;
       if (out) {
-        FlowTraceHop lastHop = newHops.get(newHops.size() - 1);
-        newHops.remove(newHops.size() - 1);
         Edge lastEdge = lastHop.getEdge();
         Edge deniedOutEdge =
             new Edge(
                 lastEdge.getFirst(),
                 new NodeInterfacePair(Configuration.NODE_NONE_NAME, Interface.NULL_INTERFACE_NAME));
-        FlowTraceHop deniedOutHop =
+        finalHop =
             new FlowTraceHop(
                 deniedOutEdge, lastHop.getRoutes(), hopFlow(originalFlow, transformedFlow));
-        newHops.add(deniedOutHop);
       }
-      FlowTrace trace = new FlowTrace(disposition, newHops, notes);
-      flowTraces.add(trace);
+      vertex.addTermination(finalHop, disposition, notes);
     }
     return denied;
   }
@@ -993,8 +1177,7 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
   public List<Flow> getHistoryFlows() {
     BdpDataPlane dp = loadDataPlane();
     List<Flow> flowList = new ArrayList<>();
-    _flowTraces
-        .get(dp)
+    expandFlowTraces(dp)
         .forEach(
             (flow, flowTraces) -> {
               for (int i = 0; i < flowTraces.size(); i++) {
@@ -1008,8 +1191,7 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
   public List<FlowTrace> getHistoryFlowTraces() {
     BdpDataPlane dp = loadDataPlane();
     List<FlowTrace> flowTraceList = new ArrayList<>();
-    _flowTraces
-        .get(dp)
+    expandFlowTraces(dp)
         .forEach(
             (flow, flowTraces) -> {
               for (FlowTrace flowTrace : flowTraces) {
@@ -1061,8 +1243,7 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
     return (BdpDataPlane) _batfish.loadDataPlane();
   }
 
-  private FlowTrace neighborUnreachableTrace(
-      List<FlowTraceHop> completedHops,
+  private FlowTraceHop neighborUnreachableHop(
       NodeInterfacePair srcInterface,
       SortedSet<String> routes,
       Flow originalFlow,
@@ -1071,24 +1252,15 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
         new Edge(
             srcInterface,
             new NodeInterfacePair(Configuration.NODE_NONE_NAME, Interface.NULL_INTERFACE_NAME));
-    FlowTraceHop neighborUnreachableHop =
-        new FlowTraceHop(neighborUnreachbleEdge, routes, hopFlow(originalFlow, transformedFlow));
-    List<FlowTraceHop> newHops = new ArrayList<>(completedHops);
-    newHops.add(neighborUnreachableHop);
-    FlowTrace trace =
-        new FlowTrace(
-            FlowDisposition.NEIGHBOR_UNREACHABLE_OR_EXITS_NETWORK,
-            newHops,
-            FlowDisposition.NEIGHBOR_UNREACHABLE_OR_EXITS_NETWORK.toString());
-    return trace;
+    return new FlowTraceHop(neighborUnreachbleEdge, routes, hopFlow(originalFlow, transformedFlow));
   }
 
   private boolean processCurrentNextHopInterfaceEdges(
       BdpDataPlane dp,
       String currentNodeName,
       Set<Edge> visitedEdges,
-      List<FlowTraceHop> hopsSoFar,
-      Set<FlowTrace> flowTraces,
+      FlowTraceDag.Vertex vertex,
+      FlowTraceDag.Subgraphs subgraphs,
       Flow originalFlow,
       Flow transformedFlow,
       Ip dstIp,
@@ -1107,13 +1279,11 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
         continue;
       }
       potentialNeighbors++;
-      List<FlowTraceHop> newHops = new ArrayList<>(hopsSoFar);
       Set<Edge> newVisitedEdges = new LinkedHashSet<>(visitedEdges);
       FlowTraceHop newHop =
           new FlowTraceHop(
               edge, routesForThisNextHopInterface, hopFlow(originalFlow, transformedFlow));
       newVisitedEdges.add(edge);
-      newHops.add(newHop);
       /*
        * Check to see whether neighbor would refrain from sending ARP reply
        * (NEIGHBOR_UNREACHABLE)
@@ -1170,9 +1340,7 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
         }
       }
       if (visitedEdges.contains(edge)) {
-        FlowTrace trace =
-            new FlowTrace(FlowDisposition.LOOP, newHops, FlowDisposition.LOOP.toString());
-        flowTraces.add(trace);
+        vertex.addTermination(newHop, FlowDisposition.LOOP, FlowDisposition.LOOP.toString());
         potentialNeighbors--;
         continue;
       }
@@ -1190,7 +1358,7 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
           FlowDisposition disposition = FlowDisposition.DENIED_OUT;
           boolean denied =
               flowTraceDeniedHelper(
-                  flowTraces, originalFlow, transformedFlow, newHops, outFilter, disposition);
+                  vertex, originalFlow, transformedFlow, newHop, outFilter, disposition);
           if (denied) {
             potentialNeighbors--;
             continue;
@@ -1203,26 +1371,31 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
         FlowDisposition disposition = FlowDisposition.DENIED_IN;
         boolean denied =
             flowTraceDeniedHelper(
-                flowTraces, originalFlow, transformedFlow, newHops, inFilter, disposition);
+                vertex, originalFlow, transformedFlow, newHop, inFilter, disposition);
         if (denied) {
           potentialNeighbors--;
           continue;
         }
       }
       // recurse
-      collectFlowTraces(
-          dp, nextNodeName, newVisitedEdges, newHops, flowTraces, originalFlow, transformedFlow);
+      FlowTraceDag.Vertex next =
+          collectFlowTraces(
+              dp,
+              nextNodeName,
+              edge.getInt2(),
+              newVisitedEdges,
+              subgraphs,
+              originalFlow,
+              transformedFlow);
+      vertex.addContinuation(newHop, next);
     }
     if (arp) {
       if (unreachableNeighbors > 0 && unreachableNeighbors == potentialNeighbors) {
-        FlowTrace trace =
-            neighborUnreachableTrace(
-                hopsSoFar,
-                nextHopInterface,
-                routesForThisNextHopInterface,
-                originalFlow,
-                transformedFlow);
-        flowTraces.add(trace);
+        vertex.addTermination(
+            neighborUnreachableHop(
+                nextHopInterface, routesForThisNextHopInterface, originalFlow, transformedFlow),
+            FlowDisposition.NEIGHBOR_UNREACHABLE_OR_EXITS_NETWORK,
+            FlowDisposition.NEIGHBOR_UNREACHABLE_OR_EXITS_NETWORK.toString());
         continueToNextNextHopInterface = true;
       }
     }
@@ -1232,13 +1405,16 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
   @Override
   public void processFlows(Set<Flow> flows) {
     BdpDataPlane dp = loadDataPlane();
-    Map<Flow, Set<FlowTrace>> flowTraces = new ConcurrentHashMap<>();
+    int maxTracesPerFlow = _batfish.getDataPlanePluginSettings().getBdpMaxTracesPerFlow();
+    Map<String, Integer> routerIndices = new HashMap<>();
+    for (String hostname : dp._nodes.keySet()) {
+      routerIndices.put(hostname, routerIndices.size());
+    }
+    Map<Flow, FlowTraceDag> flowTraces = new ConcurrentHashMap<>();
     flows
         .parallelStream()
         .forEach(
             flow -> {
-              Set<FlowTrace> currentFlowTraces = new TreeSet<>();
-              flowTraces.put(flow, currentFlowTraces);
               String ingressNodeName = flow.getIngressNode();
               if (ingressNodeName == null) {
                 throw new BatfishException(
@@ -1250,7 +1426,9 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
                     "Cannot construct flow trace since dstIp is not specified");
               }
               Set<Edge> visitedEdges = Collections.emptySet();
-              List<FlowTraceHop> hops = new ArrayList<>();
+              FlowTraceDag.Subgraphs subgraphs =
+                  new FlowTraceDag.Subgraphs(routerIndices, _shareFlowTraceSubgraphs);
+              FlowTraceDag.Vertex root;
               Set<String> dstIpOwners = dp._ipOwners.get(dstIp);
               EdgeSet edges = new EdgeSet();
               String ingressInterfaceName = flow.getIngressInterface();
@@ -1261,12 +1439,13 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
                         TRACEROUTE_INGRESS_NODE_INTERFACE_NAME,
                         ingressNodeName,
                         ingressInterfaceName));
+                root = subgraphs.newVertex(null);
                 processCurrentNextHopInterfaceEdges(
                     dp,
                     TRACEROUTE_INGRESS_NODE_NAME,
                     visitedEdges,
-                    hops,
-                    currentFlowTraces,
+                    root,
+                    subgraphs,
                     flow,
                     flow,
                     dstIp,
@@ -1278,10 +1457,31 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
                     edges,
                     false);
               } else {
-                collectFlowTraces(
-                    dp, ingressNodeName, visitedEdges, hops, currentFlowTraces, flow, flow);
+                root =
+                    collectFlowTraces(
+                        dp, ingressNodeName, null, visitedEdges, subgraphs, flow, flow);
+              }
+              FlowTraceDag dag = new FlowTraceDag(root);
+              if (dag.getNumTraces() > maxTracesPerFlow) {
+                _logger.warnf(
+                    "Flow %s has up to %d traces, of which only %d will be reported\n",
+                    flow, dag.getNumTraces(), maxTracesPerFlow);
               }
+              flowTraces.put(flow, dag);
             });
     _flowTraces.put(dp, new TreeMap<>(flowTraces));
   }
+
+  @Override
+  public void serializeDataPlane(DataPlane dataPlane, Path dataPlanePath) {
+    BdpDataPlaneStore.write((BdpDataPlane) dataPlane, dataPlanePath);
+  }
+
+  /**
+   * Sets whether the traces of a flow share the subgraphs they have in common. Without sharing,
+   * every path of a flow is traversed on its own.
+   */
+  void setShareFlowTraceSubgraphs(boolean shareFlowTraceSubgraphs) {
+    _shareFlowTraceSubgraphs = shareFlowTraceSubgraphs;
+  }
 }
@@ -0,0 +1,286 @@
+package org.batfish.bdp;
+
+import com.google.common.io.CountingOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.batfish.common.BatfishException;
+import org.batfish.common.util.BatfishObjectInputStream;
+
+/**
+ * Stores a {@link BdpDataPlane} on disk as independently loadable sections.
+ *
+ * <p>The file holds one section with the network-wide state of the data plane, followed by one
+ * section per {@link Node}, and ends with an index of the offset and length of each section. Each
+ * section is a GZIP-compressed serialized object. When reading, the sections are memory-mapped and
+ * only the index and the network-wide section are deserialized eagerly; each node is deserialized
+ * the first time it is looked up. Processes on the same host reading the same data plane share the
+ * mapped pages.
+ */
+final class BdpDataPlaneStore {
+
+  /** Lazily deserializes nodes from their mapped sections on first access */
+  private static final class LazyNodeMap extends AbstractMap<String, Node> {
+
+    private final ClassLoader _classLoader;
+
+    private final Map<String, Node> _loadedNodes;
+
+    private final SortedMap<String, ByteBuffer> _sections;
+
+    private LazyNodeMap(SortedMap<String, ByteBuffer> sections, ClassLoader classLoader) {
+      _classLoader = classLoader;
+      _loadedNodes = new ConcurrentHashMap<>();
+      _sections = sections;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return _sections.containsKey(key);
+    }
+
+    @Override
+    public Set<Entry<String, Node>> entrySet() {
+      return new AbstractSet<Entry<String, Node>>() {
+
+        @Override
+        public Iterator<Entry<String, Node>> iterator() {
+          Iterator<String> hostnames = _sections.keySet().iterator();
+          return new Iterator<Entry<String, Node>>() {
+
+            @Override
+            public boolean hasNext() {
+              return hostnames.hasNext();
+            }
+
+            @Override
+            public Entry<String, Node> next() {
+              String hostname = hostnames.next();
+              return new SimpleImmutableEntry<>(hostname, get(hostname));
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return _sections.size();
+        }
+      };
+    }
+
+    @Override
+    public Node get(Object key) {
+      ByteBuffer section = _sections.get(key);
+      if (section == null) {
+        return null;
+      }
+      return _loadedNodes.computeIfAbsent(
+          (String) key,
+          hostname -> {
+            Node node = readSection(section, Node.class, _classLoader);
+            node.setNodes(this);
+            return node;
+          });
+    }
+
+    @Override
+    public Set<String> keySet() {
+      return Collections.unmodifiableSet(_sections.keySet());
+    }
+
+    @Override
+    public int size() {
+      return _sections.size();
+    }
+  }
+
+  /** Reads a (possibly direct) buffer without copying it into an array first */
+  private static final class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer _buffer;
+
+    private ByteBufferInputStream(ByteBuffer buffer) {
+      _buffer = buffer;
+    }
+
+    @Override
+    public int available() {
+      return _buffer.remaining();
+    }
+
+    @Override
+    public int read() {
+      return _buffer.hasRemaining() ? _buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (!_buffer.hasRemaining()) {
+        return -1;
+      }
+      int n = Math.min(len, _buffer.remaining());
+      _buffer.get(b, off, n);
+      return n;
+    }
+  }
+
+  /** Identifies files in this format: "BFDP" */
+  private static final int MAGIC = 0x42464450;
+
+  private static final int HEADER_LENGTH = Integer.BYTES * 2;
+
+  private static final int VERSION = 1;
+
+  static BdpDataPlane read(Path inputFile) {
+    ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+    try (FileChannel channel = FileChannel.open(inputFile, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < HEADER_LENGTH + Long.BYTES) {
+        throw new BatfishException(
+            "Data plane file '" + inputFile + "' is not in the expected format");
+      }
+      ByteBuffer header = channel.map(MapMode.READ_ONLY, 0, HEADER_LENGTH);
+      if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+        throw new BatfishException(
+            "Data plane file '" + inputFile + "' is not in the expected format");
+      }
+      long indexOffset = channel.map(MapMode.READ_ONLY, size - Long.BYTES, Long.BYTES).getLong();
+      DataInputStream index =
+          new DataInputStream(
+              new ByteBufferInputStream(
+                  channel.map(MapMode.READ_ONLY, indexOffset, size - Long.BYTES - indexOffset)));
+      ByteBuffer dataPlaneSection = mapSection(channel, index);
+      int numNodes = index.readInt();
+      SortedMap<String, ByteBuffer> nodeSections = new TreeMap<>();
+      for (int i = 0; i < numNodes; i++) {
+        String hostname = index.readUTF();
+        nodeSections.put(hostname, mapSection(channel, index));
+      }
+      BdpDataPlane dp = readSection(dataPlaneSection, BdpDataPlane.class, classLoader);
+      dp.setNodes(new LazyNodeMap(nodeSections, classLoader));
+      return dp;
+    } catch (IOException e) {
+      throw new BatfishException("Failed to read data plane from file: " + inputFile, e);
+    }
+  }
+
+  private static ByteBuffer mapSection(FileChannel channel, DataInputStream index)
+      throws IOException {
+    long offset = index.readLong();
+    int length = index.readInt();
+    return channel.map(MapMode.READ_ONLY, offset, length);
+  }
+
+  private static <S extends Serializable> S readSection(
+      ByteBuffer section, Class<S> outputClass, ClassLoader classLoader) {
+    // duplicate so concurrent readers of the same section do not share a position
+    try (ObjectInputStream ois =
+        new BatfishObjectInputStream(
+            new GZIPInputStream(new ByteBufferInputStream(section.duplicate())), classLoader)) {
+      return outputClass.cast(ois.readObject());
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+      throw new BatfishException(
+          "Failed to deserialize data plane section of type '"
+              + outputClass.getCanonicalName()
+              + "'",
+          e);
+    }
+  }
+
+  /**
+   * Writes {@code dp} to {@code outputFile}. The file is written under a temporary name and then
+   * renamed, since data planes previously read from {@code outputFile} keep its sections mapped and
+   * must not see it truncated or rewritten in place.
+   */
+  static void write(BdpDataPlane dp, Path outputFile) {
+    Path tmpFile;
+    try {
+      tmpFile =
+          Files.createTempFile(
+              outputFile.toAbsolutePath().getParent(), outputFile.getFileName() + ".", ".tmp");
+    } catch (IOException e) {
+      throw new BatfishException("Failed to write data plane to file: " + outputFile, e);
+    }
+    try {
+      try (CountingOutputStream out =
+          new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+        writeContents(dp, out);
+      }
+      Files.move(
+          tmpFile, outputFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new BatfishException("Failed to write data plane to file: " + outputFile, e);
+    } finally {
+      try {
+        Files.deleteIfExists(tmpFile);
+      } catch (IOException e) {
+        // best effort; the data plane itself was written or its failure reported
+      }
+    }
+  }
+
+  private static void writeContents(BdpDataPlane dp, CountingOutputStream out)
+      throws IOException {
+    DataOutputStream header = new DataOutputStream(out);
+    header.writeInt(MAGIC);
+    header.writeInt(VERSION);
+    header.flush();
+    // the index is written after the sections, since their offsets are only known once written
+    ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+    DataOutputStream index = new DataOutputStream(indexBytes);
+    writeSection(dp, out, index);
+    Map<String, Node> nodes = new TreeMap<>(dp.getNodes());
+    index.writeInt(nodes.size());
+    for (Entry<String, Node> e : nodes.entrySet()) {
+      index.writeUTF(e.getKey());
+      writeSection(e.getValue(), out, index);
+    }
+    long indexOffset = out.getCount();
+    indexBytes.writeTo(out);
+    DataOutputStream trailer = new DataOutputStream(out);
+    trailer.writeLong(indexOffset);
+    trailer.flush();
+  }
+
+  /**
+   * Appends {@code object} as a new section to {@code out}, and records its offset and length in
+   * {@code index}.
+   */
+  private static void writeSection(
+      Serializable object, CountingOutputStream out, DataOutputStream index) throws IOException {
+    ByteArrayOutputStream section = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = new ObjectOutputStream(new GZIPOutputStream(section))) {
+      oos.writeObject(object);
+    }
+    index.writeLong(out.getCount());
+    index.writeInt(section.size());
+    section.writeTo(out);
+  }
+
+  private BdpDataPlaneStore() {}
+}
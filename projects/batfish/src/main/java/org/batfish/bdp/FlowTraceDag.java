@@ -0,0 +1,205 @@
+package org.batfish.bdp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import javax.annotation.Nullable;
+import org.batfish.datamodel.Edge;
+import org.batfish.datamodel.Flow;
+import org.batfish.datamodel.FlowDisposition;
+import org.batfish.datamodel.FlowTrace;
+import org.batfish.datamodel.FlowTraceHop;
+
+/**
+ * The traces of a single flow, represented as a DAG whose paths from the root are the traces.
+ *
+ * <p>Traces sharing a prefix share the vertices along it, and traces that continue identically
+ * from some point of the traversal share the subgraph for the rest of their path. With several
+ * levels of ECMP the DAG is therefore far smaller than the set of traces it represents, which are
+ * only expanded on demand.
+ */
+final class FlowTraceDag {
+
+  /**
+   * An outgoing edge of a {@link Vertex}: an optional hop, followed by either another vertex or
+   * the end of a trace.
+   */
+  private static final class Branch {
+
+    @Nullable private final FlowDisposition _disposition;
+
+    @Nullable private final FlowTraceHop _hop;
+
+    @Nullable private final Vertex _next;
+
+    @Nullable private final String _notes;
+
+    private Branch(
+        @Nullable FlowTraceHop hop,
+        @Nullable Vertex next,
+        @Nullable FlowDisposition disposition,
+        @Nullable String notes) {
+      _disposition = disposition;
+      _hop = hop;
+      _next = next;
+      _notes = notes;
+    }
+  }
+
+  /**
+   * Subgraphs already built while tracing one flow, keyed by the state of the traversal when
+   * entering them. A subgraph is only reused if the edges visited on the way to it could not have
+   * changed it, i.e. if it contains no loop and none of its routers were visited before.
+   */
+  static final class Subgraphs {
+
+    static Object key(String hostname, String vrfName, Flow originalFlow, Flow transformedFlow) {
+      // hops only record the transformed flow if it is a different object from the original
+      return Arrays.asList(hostname, vrfName, transformedFlow, originalFlow == transformedFlow);
+    }
+
+    private final Map<String, Integer> _routerIndices;
+
+    private final boolean _share;
+
+    private final Map<Object, Vertex> _subgraphs;
+
+    Subgraphs(Map<String, Integer> routerIndices) {
+      this(routerIndices, true);
+    }
+
+    /**
+     * If {@code share} is false no subgraph is ever reused, so the DAG is a tree with one leaf per
+     * path of the flow, as built by enumerating the paths one by one.
+     */
+    Subgraphs(Map<String, Integer> routerIndices, boolean share) {
+      _routerIndices = routerIndices;
+      _share = share;
+      _subgraphs = new HashMap<>();
+    }
+
+    /** Returns the subgraph for {@code key} if it may be reused after {@code visitedEdges}. */
+    @Nullable
+    Vertex get(Object key, Set<Edge> visitedEdges) {
+      Vertex vertex = _subgraphs.get(key);
+      if (vertex == null || !vertex._loopFree) {
+        return null;
+      }
+      for (Edge edge : visitedEdges) {
+        Integer routerIndex = _routerIndices.get(edge.getNode1());
+        if (routerIndex != null && vertex._routers.get(routerIndex)) {
+          return null;
+        }
+      }
+      return vertex;
+    }
+
+    /**
+     * Returns a new vertex for traces continuing by following edges out of {@code hostname}, or
+     * for traces following no edges before they end if {@code hostname} is null.
+     */
+    Vertex newVertex(@Nullable String hostname) {
+      Vertex vertex = new Vertex();
+      Integer routerIndex = hostname != null ? _routerIndices.get(hostname) : null;
+      if (routerIndex != null) {
+        vertex._routers.set(routerIndex);
+      }
+      return vertex;
+    }
+
+    void put(Object key, Vertex vertex) {
+      if (_share) {
+        _subgraphs.put(key, vertex);
+      }
+    }
+  }
+
+  /** The traces continuing from one point of the traversal of a flow */
+  static final class Vertex {
+
+    private final List<Branch> _branches;
+
+    /** Whether no trace in this subgraph ends in a {@link FlowDisposition#LOOP} */
+    private boolean _loopFree;
+
+    private long _numTraces;
+
+    /** Indices of the routers whose outgoing edges were followed in this subgraph */
+    private final BitSet _routers;
+
+    private Vertex() {
+      _branches = new ArrayList<>();
+      _loopFree = true;
+      _routers = new BitSet();
+    }
+
+    /** Adds the traces that take {@code hop} and then continue as in {@code next}. */
+    void addContinuation(FlowTraceHop hop, Vertex next) {
+      _branches.add(new Branch(hop, next, null, null));
+      _loopFree &= next._loopFree;
+      _numTraces = saturatedAdd(_numTraces, next._numTraces);
+      _routers.or(next._routers);
+    }
+
+    /** Adds a trace that ends with {@code disposition}, after taking {@code hop} if non-null. */
+    void addTermination(
+        @Nullable FlowTraceHop hop, FlowDisposition disposition, @Nullable String notes) {
+      _branches.add(new Branch(hop, null, disposition, notes));
+      _loopFree &= disposition != FlowDisposition.LOOP;
+      _numTraces = saturatedAdd(_numTraces, 1L);
+    }
+  }
+
+  private static void expand(
+      Vertex vertex, List<FlowTraceHop> hops, SortedSet<FlowTrace> traces, int maxTraces) {
+    for (Branch branch : vertex._branches) {
+      if (traces.size() >= maxTraces) {
+        return;
+      }
+      if (branch._hop != null) {
+        hops.add(branch._hop);
+      }
+      if (branch._next == null) {
+        traces.add(new FlowTrace(branch._disposition, new ArrayList<>(hops), branch._notes));
+      } else {
+        expand(branch._next, hops, traces, maxTraces);
+      }
+      if (branch._hop != null) {
+        hops.remove(hops.size() - 1);
+      }
+    }
+  }
+
+  private static long saturatedAdd(long a, long b) {
+    long sum = a + b;
+    return sum < 0 ? Long.MAX_VALUE : sum;
+  }
+
+  private final Vertex _root;
+
+  FlowTraceDag(Vertex root) {
+    _root = root;
+  }
+
+  /**
+   * Returns the number of paths through the DAG, saturating at {@link Long#MAX_VALUE}. This is an
+   * upper bound on the number of distinct traces, since traces comparing equal are merged when
+   * expanded.
+   */
+  long getNumTraces() {
+    return _root._numTraces;
+  }
+
+  /** Expands at most {@code maxTraces} distinct traces of the flow. */
+  SortedSet<FlowTrace> getTraces(int maxTraces) {
+    SortedSet<FlowTrace> traces = new TreeSet<>();
+    expand(_root, new ArrayList<>(), traces, maxTraces);
+    return traces;
+  }
+}
@@ -13,7 +13,7 @@ public final class Node extends ComparableStructure<String> {
 
   final Configuration _c;
 
-  private Map<String, Node> _nodes;
+  private transient Map<String, Node> _nodes;
 
   SortedMap<String, VirtualRouter> _virtualRouters;
 
@@ -32,4 +32,13 @@ public final class Node extends ComparableStructure<String> {
   public Configuration getConfiguration() {
     return _c;
   }
+
+  /**
+   * Sets the map through which this node and its virtual routers look up other nodes. Needed after
+   * deserialization, since nodes are stored independently of one another.
+   */
+  void setNodes(Map<String, Node> nodes) {
+    _nodes = nodes;
+    _virtualRouters.values().forEach(vr -> vr.setNodes(nodes));
+  }
 }
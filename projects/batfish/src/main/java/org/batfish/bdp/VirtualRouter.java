@@ -8,6 +8,7 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import org.batfish.common.BatfishException;
 import org.batfish.common.util.ComparableStructure;
 import org.batfish.datamodel.AbstractRoute;
@@ -44,6 +45,7 @@ import org.batfish.datamodel.collections.AdvertisementSet;
 import org.batfish.datamodel.collections.EdgeSet;
 import org.batfish.datamodel.routing_policy.Environment.Direction;
 import org.batfish.datamodel.routing_policy.RoutingPolicy;
+import org.batfish.datamodel.routing_policy.RoutingPolicyResultCache;
 
 public class VirtualRouter extends ComparableStructure<String> {
 
@@ -82,7 +84,7 @@ public class VirtualRouter extends ComparableStructure<String> {
 
   Rib _mainRib;
 
-  private final Map<String, Node> _nodes;
+  private transient Map<String, Node> _nodes;
 
   transient OspfExternalType1Rib _ospfExternalType1Rib;
 
@@ -102,6 +104,13 @@ public class VirtualRouter extends ComparableStructure<String> {
 
   transient OspfRib _ospfRib;
 
+  /**
+   * The caches memoizing the results of routing policies during the running data plane
+   * computation, keyed by policy identity and shared by all virtual routers of the computation, or
+   * null if memoization is disabled
+   */
+  transient Map<RoutingPolicy, RoutingPolicyResultCache> _policyResultCaches;
+
   transient BgpBestPathRib _prevBgpBestPathRib;
 
   transient BgpMultipathRib _prevBgpRib;
@@ -207,6 +216,16 @@ public class VirtualRouter extends ComparableStructure<String> {
     return changed;
   }
 
+  /**
+   * Returns true if any BGP RIB read by this router's peers differs from its value in the previous
+   * dependent-routes iteration.
+   */
+  boolean bgpRibsChanged() {
+    return !_bgpMultipathRib.getRoutes().equals(_prevBgpRib.getRoutes())
+        || !_bgpBestPathRib.getRoutes().equals(_prevBgpBestPathRib.getRoutes())
+        || !_ebgpBestPathRib.getRoutes().equals(_prevEbgpBestPathRib.getRoutes());
+  }
+
   public void computeFib() {
     _fib = new Fib(_mainRib);
   }
@@ -264,6 +283,13 @@ public class VirtualRouter extends ComparableStructure<String> {
     return changed;
   }
 
+  /** Returns the cache memoizing the results of {@code policy}, or null if there is none */
+  @Nullable
+  private RoutingPolicyResultCache getPolicyResultCache(RoutingPolicy policy) {
+    Map<RoutingPolicy, RoutingPolicyResultCache> policyResultCaches = _policyResultCaches;
+    return policyResultCaches == null ? null : policyResultCaches.get(policy);
+  }
+
   public <U extends AbstractRoute, T extends U> void importRib(
       AbstractRib<U> importingRib, AbstractRib<T> exportingRib) {
     for (T route : exportingRib.getRoutes()) {
@@ -331,7 +357,7 @@ public class VirtualRouter extends ComparableStructure<String> {
               int admin = ebgp ? ebgpAdmin : ibgpAdmin;
               AsPath asPath = advert.getAsPath();
               SortedSet<Long> clusterList = advert.getClusterList();
-              SortedSet<Long> communities = new TreeSet<>(advert.getCommunities());
+              SortedSet<Long> communities = advert.getCommunities();
               int localPreference = advert.getLocalPreference();
               long metric = advert.getMed();
               Prefix network = advert.getNetwork();
@@ -367,7 +393,7 @@ public class VirtualRouter extends ComparableStructure<String> {
                 localPreference = advert.getLocalPreference();
               }
               outgoingRouteBuilder.setAsPath(advert.getAsPath().getAsSets());
-              outgoingRouteBuilder.setCommunities(new TreeSet<>(advert.getCommunities()));
+              outgoingRouteBuilder.setCommunities(advert.getCommunities());
               outgoingRouteBuilder.setLocalPreference(localPreference);
               outgoingRouteBuilder.setMetric(advert.getMed());
               outgoingRouteBuilder.setNetwork(advert.getNetwork());
@@ -453,7 +479,8 @@ public class VirtualRouter extends ComparableStructure<String> {
                           transformedIncomingRouteBuilder,
                           advert.getSrcIp(),
                           _key,
-                          Direction.IN);
+                          Direction.IN,
+                          getPolicyResultCache(importPolicy));
                 }
               }
               if (acceptIncoming) {
@@ -918,20 +945,20 @@ public class VirtualRouter extends ComparableStructure<String> {
                     transformedOutgoingRouteBuilder,
                     localIp,
                     remoteVrfName,
-                    Direction.OUT);
+                    Direction.OUT,
+                    getPolicyResultCache(remoteExportPolicy));
             if (acceptOutgoing) {
               BgpRoute transformedOutgoingRoute = transformedOutgoingRouteBuilder.build();
               // Record sent advertisement
               BgpAdvertisementType sentType =
                   ebgpSession ? BgpAdvertisementType.EBGP_SENT : BgpAdvertisementType.IBGP_SENT;
               Ip sentOriginatorIp = transformedOutgoingRoute.getOriginatorIp();
-              SortedSet<Long> sentClusterList =
-                  new TreeSet<>(transformedOutgoingRoute.getClusterList());
+              // attributes of built routes are interned and immutable, so they are shared as is
+              SortedSet<Long> sentClusterList = transformedOutgoingRoute.getClusterList();
               boolean sentReceivedFromRouteReflectorClient =
                   transformedOutgoingRoute.getReceivedFromRouteReflectorClient();
               AsPath sentAsPath = transformedOutgoingRoute.getAsPath();
-              SortedSet<Long> sentCommunities =
-                  new TreeSet<>(transformedOutgoingRoute.getCommunities());
+              SortedSet<Long> sentCommunities = transformedOutgoingRoute.getCommunities();
               Prefix sentNetwork = remoteRoute.getNetwork();
               Ip sentNextHopIp;
               String sentSrcNode = remoteHostname;
@@ -1020,8 +1047,8 @@ public class VirtualRouter extends ComparableStructure<String> {
                       sentMed,
                       sentOriginatorIp,
                       sentAsPath,
-                      new TreeSet<>(sentCommunities),
-                      new TreeSet<>(sentClusterList),
+                      sentCommunities,
+                      sentClusterList,
                       sentWeight);
               _sentBgpAdvertisements.add(sentAdvert);
 
@@ -1038,7 +1065,8 @@ public class VirtualRouter extends ComparableStructure<String> {
                           transformedIncomingRouteBuilder,
                           remoteBgpNeighbor.getLocalIp(),
                           _key,
-                          Direction.IN);
+                          Direction.IN,
+                          getPolicyResultCache(importPolicy));
                 }
               }
               if (acceptIncoming) {
@@ -1061,9 +1089,8 @@ public class VirtualRouter extends ComparableStructure<String> {
                 long receivedMed = transformedIncomingRoute.getMetric();
                 Ip receivedOriginatorIp = sentOriginatorIp;
                 AsPath receivedAsPath = transformedIncomingRoute.getAsPath();
-                SortedSet<Long> receivedCommunities =
-                    new TreeSet<>(transformedIncomingRoute.getCommunities());
-                SortedSet<Long> receivedClusterList = new TreeSet<>(sentClusterList);
+                SortedSet<Long> receivedCommunities = transformedIncomingRoute.getCommunities();
+                SortedSet<Long> receivedClusterList = sentClusterList;
                 int receivedWeight = transformedIncomingRoute.getWeight();
                 BgpAdvertisement receivedAdvert =
                     new BgpAdvertisement(
@@ -1082,8 +1109,8 @@ public class VirtualRouter extends ComparableStructure<String> {
                         receivedMed,
                         receivedOriginatorIp,
                         receivedAsPath,
-                        new TreeSet<>(receivedCommunities),
-                        new TreeSet<>(receivedClusterList),
+                        receivedCommunities,
+                        receivedClusterList,
                         receivedWeight);
                 _receivedBgpAdvertisements.add(receivedAdvert);
 
@@ -1395,6 +1422,28 @@ public class VirtualRouter extends ComparableStructure<String> {
     return changed;
   }
 
+  /**
+   * Carries the dependent RIBs of this router into the next dependent-routes iteration without
+   * recomputing them. Only valid when neither this router's RIBs nor those of the routers it reads
+   * from changed in the previous iteration.
+   */
+  void reuseDependentRibs() {
+    _prevMainRib = _mainRib;
+    _prevOspfExternalType1Rib = _ospfExternalType1Rib;
+    _prevOspfExternalType2Rib = _ospfExternalType2Rib;
+    _prevBgpRib = _bgpMultipathRib;
+    _prevBgpBestPathRib = _bgpBestPathRib;
+    _prevEbgpRib = _ebgpMultipathRib;
+    _prevEbgpBestPathRib = _ebgpBestPathRib;
+    _prevIbgpBestPathRib = _ibgpBestPathRib;
+    _prevIbgpRib = _ibgpMultipathRib;
+  }
+
+  /** Sets the map through which this router looks up other nodes, e.g. after deserialization. */
+  void setNodes(Map<String, Node> nodes) {
+    _nodes = nodes;
+  }
+
   public void unstageBgpRoutes() {
     importRib(_ebgpMultipathRib, _ebgpStagingRib);
     importRib(_ebgpBestPathRib, _ebgpStagingRib);
@@ -1,6 +1,7 @@
 package org.batfish.config;
 
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import javax.annotation.Nullable;
@@ -11,10 +12,16 @@ import org.batfish.common.CoordConsts;
 import org.batfish.common.PedanticBatfishException;
 import org.batfish.common.RedFlagBatfishException;
 import org.batfish.common.UnimplementedBatfishException;
+import org.batfish.common.plugin.BinaryObjectSerializer;
+import org.batfish.common.plugin.DataPlanePluginSettings;
+import org.batfish.common.plugin.JavaObjectSerializer;
+import org.batfish.common.plugin.SerializationCompression;
+import org.batfish.common.plugin.XStreamObjectSerializer;
 import org.batfish.common.util.CommonUtil;
 import org.batfish.grammar.GrammarSettings;
 
-public final class Settings extends BaseSettings implements GrammarSettings {
+public final class Settings extends BaseSettings
+    implements DataPlanePluginSettings, GrammarSettings {
 
   public static final class EnvironmentSettings {
 
@@ -395,12 +402,24 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
   public static final String ARG_COORDINATOR_HOST = "coordinatorhost";
 
+  private static final String ARG_BDD_REACHABILITY = "bddreachability";
+
+  private static final String ARG_BDP_FULL_REBUILD = "bdpfullrebuild";
+
+  private static final String ARG_BDP_MAX_TRACES_PER_FLOW = "bdpmaxtracesperflow";
+
+  private static final String ARG_BDP_POLICY_CACHE_SIZE = "bdppolicycachesize";
+
+  private static final String ARG_CACHE_HEAP_MB = "cacheheapmb";
+
   private static final String ARG_COORDINATOR_POOL_PORT = "coordinatorpoolport";
 
   public static final String ARG_COORDINATOR_REGISTER = "register";
 
   private static final String ARG_COORDINATOR_WORK_PORT = "coordinatorworkport";
 
+  private static final String ARG_DATA_PLANE_SPILL_DIR = "dataplanespilldir";
+
   private static final String ARG_DISABLE_Z3_SIMPLIFICATION = "nosimplify";
 
   private static final String ARG_EXIT_ON_FIRST_ERROR = "ee";
@@ -421,6 +440,8 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
   private static final String ARG_GENERATE_STUBS_REMOTE_AS = "gsremoteas";
 
+  private static final String ARG_HEAVY_TASK_HEAP_MB = "heavytaskheapmb";
+
   private static final String ARG_HELP = "help";
 
   private static final String ARG_HISTOGRAM = "histogram";
@@ -431,24 +452,45 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
   private static final String ARG_JOBS = "jobs";
 
+  private static final String ARG_JOB_TIMEOUT = "jobtimeout";
+
+  private static final String ARG_LIGHT_TASK_HEAP_MB = "lighttaskheapmb";
+
   private static final String ARG_LOG_TEE = "logtee";
 
+  private static final String ARG_MAX_CONCURRENT_DESERIALIZATIONS =
+      "maxconcurrentdeserializations";
+
+  private static final String ARG_MAX_CONCURRENT_TASKS = "maxconcurrenttasks";
+
   private static final String ARG_MAX_PARSER_CONTEXT_LINES = "maxparsercontextlines";
 
   private static final String ARG_MAX_PARSER_CONTEXT_TOKENS = "maxparsercontexttokens";
 
   private static final String ARG_MAX_RUNTIME_MS = "maxruntime";
 
+  private static final String ARG_NO_PARSE_CACHE = "noparsecache";
+
   private static final String ARG_NO_SHUFFLE = "noshuffle";
 
+  private static final String ARG_PARSE_CACHE_MB = "parsecachemb";
+
+  private static final String ARG_PARSER_WARMUP = "parserwarmup";
+
   private static final String ARG_PRINT_PARSE_TREES = "ppt";
 
   private static final String ARG_PRINT_SYMMETRIC_EDGES = "printsymmetricedges";
 
+  private static final String ARG_PROFILE_PARSING = "profileparsing";
+
   private static final String ARG_SEQUENTIAL = "sequential";
 
+  private static final String ARG_SERIALIZATION_COMPRESSION = "serializationcompression";
+
   private static final String ARG_SERIALIZE_TO_TEXT = "stext";
 
+  private static final String ARG_SERIALIZER = "serializer";
+
   private static final String ARG_SERVICE_BIND_HOST = "servicebindhost";
 
   public static final String ARG_SERVICE_HOST = "servicehost";
@@ -487,6 +529,11 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
   private static final String EXECUTABLE_NAME = "batfish";
 
+  /** Returns {@code 1/divisor} of the maximum heap, in MB */
+  private static int maxHeapFractionMb(int divisor) {
+    return (int) (Runtime.getRuntime().maxMemory() / divisor / (1024 * 1024));
+  }
+
   private TestrigSettings _activeTestrigSettings;
 
   private String _analysisName;
@@ -503,6 +550,16 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
   private List<String> _blockNames;
 
+  private boolean _bddReachability;
+
+  private boolean _bdpFullRebuild;
+
+  private int _bdpMaxTracesPerFlow;
+
+  private int _bdpPolicyCacheSize;
+
+  private int _cacheHeapMb;
+
   private boolean _canExecute;
 
   private boolean _compileDiffEnvironment;
@@ -519,6 +576,8 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
   private boolean _dataPlane;
 
+  private Path _dataPlaneSpillDir;
+
   private String _deltaEnvironmentName;
 
   private String _deltaTestrig;
@@ -557,6 +616,8 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
   private boolean _haltOnParseError;
 
+  private int _heavyTaskHeapMb;
+
   private List<String> _helpPredicates;
 
   private boolean _histogram;
@@ -571,6 +632,10 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
   private int _jobs;
 
+  private int _jobTimeout;
+
+  private int _lightTaskHeapMb;
+
   private String _logFile;
 
   private BatfishLogger _logger;
@@ -579,6 +644,10 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
   private boolean _logTee;
 
+  private int _maxConcurrentDeserializations;
+
+  private int _maxConcurrentTasks;
+
   private int _maxParserContextLines;
 
   private int _maxParserContextTokens;
@@ -587,6 +656,12 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
   private String _outputEnvironmentName;
 
+  private boolean _parseCache;
+
+  private int _parseCacheMb;
+
+  private boolean _parserWarmup;
+
   private boolean _pedanticAsError;
 
   private boolean _pedanticRecord;
@@ -601,6 +676,8 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
   private boolean _printSymmetricEdges;
 
+  private boolean _profileParsing;
+
   private String _questionName;
 
   private Path _questionPath;
@@ -615,8 +692,12 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
   private boolean _sequential;
 
+  private SerializationCompression _serializationCompression;
+
   private boolean _serializeIndependent;
 
+  private String _serializer;
+
   private boolean _serializeToText;
 
   private boolean _serializeVendor;
@@ -716,6 +797,25 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     return _answerJsonPath;
   }
 
+  public boolean getBddReachability() {
+    return _bddReachability;
+  }
+
+  @Override
+  public boolean getBdpFullRebuild() {
+    return _bdpFullRebuild;
+  }
+
+  @Override
+  public int getBdpMaxTracesPerFlow() {
+    return _bdpMaxTracesPerFlow;
+  }
+
+  @Override
+  public int getBdpPolicyCacheSize() {
+    return _bdpPolicyCacheSize;
+  }
+
   public TestrigSettings getBaseTestrigSettings() {
     return _baseTestrigSettings;
   }
@@ -724,6 +824,11 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     return _blockNames;
   }
 
+  /** Returns the heap in MB that cached testrigs, data planes and environment tables may use */
+  public int getCacheHeapMb() {
+    return _cacheHeapMb;
+  }
+
   public boolean getCompileEnvironment() {
     return _compileDiffEnvironment;
   }
@@ -756,6 +861,15 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     return _dataPlane;
   }
 
+  /**
+   * Returns the local directory that data planes evicted from the cache are copied to, or {@code
+   * null} if evicted data planes are dropped
+   */
+  @Nullable
+  public Path getDataPlaneSpillDir() {
+    return _dataPlaneSpillDir;
+  }
+
   public String getDeltaEnvironmentName() {
     return _deltaEnvironmentName;
   }
@@ -824,6 +938,11 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     return _haltOnParseError;
   }
 
+  /** Returns the heap in MB reserved for a service task that parses or computes a data plane */
+  public int getHeavyTaskHeapMb() {
+    return _heavyTaskHeapMb;
+  }
+
   public List<String> getHelpPredicates() {
     return _helpPredicates;
   }
@@ -840,6 +959,16 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     return _jobs;
   }
 
+  /** Returns the number of seconds after which a running job is cancelled, or 0 for no limit. */
+  public int getJobTimeout() {
+    return _jobTimeout;
+  }
+
+  /** Returns the heap in MB reserved for a service task that only answers questions */
+  public int getLightTaskHeapMb() {
+    return _lightTaskHeapMb;
+  }
+
   public String getLogFile() {
     return _logFile;
   }
@@ -856,6 +985,14 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     return _logTee;
   }
 
+  public int getMaxConcurrentDeserializations() {
+    return _maxConcurrentDeserializations;
+  }
+
+  public int getMaxConcurrentTasks() {
+    return _maxConcurrentTasks;
+  }
+
   @Override
   public int getMaxParserContextLines() {
     return _maxParserContextLines;
@@ -879,6 +1016,19 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     return _outputEnvironmentName;
   }
 
+  public boolean getParseCache() {
+    return _parseCache;
+  }
+
+  /** Returns the disk space in MB that the parse cache of a container may use */
+  public int getParseCacheMb() {
+    return _parseCacheMb;
+  }
+
+  public boolean getParserWarmup() {
+    return _parserWarmup;
+  }
+
   public boolean getPedanticAsError() {
     return _pedanticAsError;
   }
@@ -899,6 +1049,11 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     return _printSymmetricEdges;
   }
 
+  @Override
+  public boolean getProfileParsing() {
+    return _profileParsing;
+  }
+
   public String getQuestionName() {
     return _questionName;
   }
@@ -923,10 +1078,19 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     return _sequential;
   }
 
+  public SerializationCompression getSerializationCompression() {
+    return _serializationCompression;
+  }
+
   public boolean getSerializeIndependent() {
     return _serializeIndependent;
   }
 
+  /** Name of the {@link org.batfish.common.plugin.ObjectSerializer} used to write objects */
+  public String getSerializer() {
+    return _serializer;
+  }
+
   public boolean getSerializeToText() {
     return _serializeToText;
   }
@@ -1049,12 +1213,18 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     setDefaultProperty(BfConsts.ARG_ANALYSIS_NAME, null);
     setDefaultProperty(ARG_ANONYMIZE, false);
     setDefaultProperty(BfConsts.ARG_ANSWER_JSON_PATH, null);
+    setDefaultProperty(ARG_BDD_REACHABILITY, false);
+    setDefaultProperty(ARG_BDP_FULL_REBUILD, false);
+    setDefaultProperty(ARG_BDP_MAX_TRACES_PER_FLOW, 10000);
+    setDefaultProperty(ARG_BDP_POLICY_CACHE_SIZE, 0);
     setDefaultProperty(BfConsts.ARG_BLOCK_NAMES, new String[] {});
+    setDefaultProperty(ARG_CACHE_HEAP_MB, maxHeapFractionMb(2));
     setDefaultProperty(BfConsts.ARG_CONTAINER_DIR, null);
     setDefaultProperty(ARG_COORDINATOR_REGISTER, false);
     setDefaultProperty(ARG_COORDINATOR_HOST, "localhost");
     setDefaultProperty(ARG_COORDINATOR_POOL_PORT, CoordConsts.SVC_CFG_POOL_PORT);
     setDefaultProperty(ARG_COORDINATOR_WORK_PORT, CoordConsts.SVC_CFG_WORK_PORT);
+    setDefaultProperty(ARG_DATA_PLANE_SPILL_DIR, null);
     setDefaultProperty(BfConsts.ARG_DIFF_ACTIVE, false);
     setDefaultProperty(BfConsts.ARG_DELTA_ENVIRONMENT_NAME, null);
     setDefaultProperty(BfConsts.ARG_DIFFERENTIAL, false);
@@ -1072,30 +1242,43 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     setDefaultProperty(ARG_GENERATE_STUBS_REMOTE_AS, null);
     setDefaultProperty(BfConsts.ARG_HALT_ON_CONVERT_ERROR, false);
     setDefaultProperty(BfConsts.ARG_HALT_ON_PARSE_ERROR, false);
+    setDefaultProperty(ARG_HEAVY_TASK_HEAP_MB, maxHeapFractionMb(4));
     setDefaultProperty(ARG_HELP, false);
     setDefaultProperty(ARG_HISTOGRAM, false);
     setDefaultProperty(ARG_IGNORE_UNSUPPORTED, true);
     setDefaultProperty(ARG_IGNORE_UNKNOWN, true);
     setDefaultProperty(ARG_JOBS, Integer.MAX_VALUE);
+    setDefaultProperty(ARG_JOB_TIMEOUT, 0);
+    setDefaultProperty(ARG_LIGHT_TASK_HEAP_MB, maxHeapFractionMb(32));
     setDefaultProperty(BfConsts.ARG_LOG_FILE, null);
     setDefaultProperty(ARG_LOG_TEE, false);
     setDefaultProperty(BfConsts.ARG_LOG_LEVEL, "debug");
+    setDefaultProperty(
+        ARG_MAX_CONCURRENT_DESERIALIZATIONS, Runtime.getRuntime().availableProcessors());
+    setDefaultProperty(
+        ARG_MAX_CONCURRENT_TASKS, Math.max(1, Runtime.getRuntime().availableProcessors() / 8));
     setDefaultProperty(ARG_MAX_PARSER_CONTEXT_LINES, 10);
     setDefaultProperty(ARG_MAX_PARSER_CONTEXT_TOKENS, 10);
     setDefaultProperty(ARG_MAX_RUNTIME_MS, 0);
+    setDefaultProperty(ARG_NO_PARSE_CACHE, false);
     setDefaultProperty(ARG_NO_SHUFFLE, false);
     setDefaultProperty(BfConsts.ARG_OUTPUT_ENV, null);
+    setDefaultProperty(ARG_PARSE_CACHE_MB, 1024);
+    setDefaultProperty(ARG_PARSER_WARMUP, false);
     setDefaultProperty(BfConsts.ARG_PEDANTIC_AS_ERROR, false);
     setDefaultProperty(BfConsts.ARG_PEDANTIC_SUPPRESS, false);
     setDefaultProperty(BfConsts.ARG_PLUGIN_DIRS, Collections.<String>emptyList());
     setDefaultProperty(BfConsts.ARG_PRETTY_PRINT_ANSWER, false);
     setDefaultProperty(ARG_PRINT_PARSE_TREES, false);
     setDefaultProperty(ARG_PRINT_SYMMETRIC_EDGES, false);
+    setDefaultProperty(ARG_PROFILE_PARSING, false);
     setDefaultProperty(BfConsts.ARG_QUESTION_NAME, null);
     setDefaultProperty(BfConsts.ARG_RED_FLAG_AS_ERROR, false);
     setDefaultProperty(BfConsts.ARG_RED_FLAG_SUPPRESS, false);
     setDefaultProperty(ARG_SEQUENTIAL, false);
+    setDefaultProperty(ARG_SERIALIZATION_COMPRESSION, SerializationCompression.GZIP.toString());
     setDefaultProperty(ARG_SERIALIZE_TO_TEXT, false);
+    setDefaultProperty(ARG_SERIALIZER, JavaObjectSerializer.NAME);
     setDefaultProperty(ARG_SERVICE_BIND_HOST, "0.0.0.0");
     setDefaultProperty(ARG_SERVICE_HOST, "localhost");
     setDefaultProperty(ARG_SERVICE_MODE, false);
@@ -1138,6 +1321,30 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     addListOption(
         BfConsts.ARG_BLOCK_NAMES, "list of blocks of logic rules to add or remove", "blocknames");
 
+    addBooleanOption(
+        ARG_BDD_REACHABILITY,
+        "answer reachability, multipath and ACL reachability queries with BDDs instead of Z3");
+
+    addBooleanOption(
+        ARG_BDP_FULL_REBUILD,
+        "recompute all nodes on every data plane fixed-point iteration (verification mode)");
+
+    addOption(
+        ARG_BDP_MAX_TRACES_PER_FLOW,
+        "maximum number of traces reported for each flow by the bdp data plane",
+        ARGNAME_NUMBER);
+
+    addOption(
+        ARG_BDP_POLICY_CACHE_SIZE,
+        "maximum number of results memoized per bgp routing policy by the bdp data plane (0 to "
+            + "disable)",
+        ARGNAME_NUMBER);
+
+    addOption(
+        ARG_CACHE_HEAP_MB,
+        "heap in MB that cached testrigs, data planes and environment tables may use",
+        ARGNAME_NUMBER);
+
     addOption(BfConsts.ARG_CONTAINER_DIR, "path to container directory", ARGNAME_PATH);
 
     addOption(
@@ -1151,6 +1358,11 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
     addOption(ARG_COORDINATOR_WORK_PORT, "coordinator work manager listening port", "port_number");
 
+    addOption(
+        ARG_DATA_PLANE_SPILL_DIR,
+        "local directory that data planes evicted from the cache are copied to",
+        ARGNAME_PATH);
+
     addOption(BfConsts.ARG_DELTA_ENVIRONMENT_NAME, "name of delta environment to use", "name");
 
     addOption(BfConsts.ARG_DELTA_TESTRIG, "name of delta testrig", ARGNAME_NAME);
@@ -1216,6 +1428,11 @@ public final class Settings extends BaseSettings implements GrammarSettings {
         BfConsts.ARG_HALT_ON_PARSE_ERROR,
         "Halt on parse error instead of proceeding with successfully parsed configs");
 
+    addOption(
+        ARG_HEAVY_TASK_HEAP_MB,
+        "heap in MB reserved for a service task that parses or computes a data plane",
+        ARGNAME_NUMBER);
+
     addBooleanOption(ARG_HELP, "print this message");
 
     addOption(
@@ -1231,6 +1448,15 @@ public final class Settings extends BaseSettings implements GrammarSettings {
         "ignore configuration files with unsupported format instead of crashing");
 
     addOption(ARG_JOBS, "number of threads used by parallel jobs executor", ARGNAME_NUMBER);
+    addOption(
+        ARG_JOB_TIMEOUT,
+        "seconds after which a running job is cancelled (0 for no limit)",
+        ARGNAME_NUMBER);
+
+    addOption(
+        ARG_LIGHT_TASK_HEAP_MB,
+        "heap in MB reserved for a service task that only answers questions",
+        ARGNAME_NUMBER);
 
     addOption(BfConsts.ARG_LOG_LEVEL, "log level", ARGNAME_LOG_LEVEL);
 
@@ -1240,6 +1466,16 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
     addBooleanOption(ARG_LOG_TEE, "print output to both logfile and standard out");
 
+    addOption(
+        ARG_MAX_CONCURRENT_DESERIALIZATIONS,
+        "max number of files read and deserialized concurrently (each holding its own buffers)",
+        ARGNAME_NUMBER);
+
+    addOption(
+        ARG_MAX_CONCURRENT_TASKS,
+        "max number of tasks run concurrently in service mode",
+        ARGNAME_NUMBER);
+
     addOption(
         ARG_MAX_PARSER_CONTEXT_LINES,
         "max number of surrounding lines to print on parser error",
@@ -1252,10 +1488,23 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
     addOption(ARG_MAX_RUNTIME_MS, "maximum time (in ms) to allow a task to run", ARGNAME_NUMBER);
 
+    addBooleanOption(
+        ARG_NO_PARSE_CACHE, "do not reuse parse and conversion results of unchanged files");
+
     addBooleanOption(ARG_NO_SHUFFLE, "do not shuffle parallel jobs");
 
     addOption(BfConsts.ARG_OUTPUT_ENV, "name of output environment", ARGNAME_NAME);
 
+    addOption(
+        ARG_PARSE_CACHE_MB,
+        "disk space in MB that cached parse and conversion results of a container may use",
+        ARGNAME_NUMBER);
+
+    addBooleanOption(
+        ARG_PARSER_WARMUP,
+        "in service mode, parse bundled sample configurations before accepting work so that the "
+            + "first testrig does not pay for filling the parsers' prediction caches");
+
     addBooleanOption(
         BfConsts.ARG_PEDANTIC_AS_ERROR,
         "throws "
@@ -1274,6 +1523,11 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     addBooleanOption(
         ARG_PRINT_SYMMETRIC_EDGES, "print topology with symmetric edges adjacent in listing");
 
+    addBooleanOption(
+        ARG_PROFILE_PARSING,
+        "record time, lookahead and SLL/LL fallbacks of each parser decision (slow; bypasses the "
+            + "parse cache)");
+
     addOption(BfConsts.ARG_QUESTION_NAME, "name of question", ARGNAME_NAME);
 
     addBooleanOption(
@@ -1287,8 +1541,26 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
     addBooleanOption(ARG_SEQUENTIAL, "force sequential operation");
 
+    addOption(
+        ARG_SERIALIZATION_COMPRESSION,
+        "compression applied to serialized objects: one of "
+            + Arrays.toString(SerializationCompression.values()),
+        ARGNAME_NAME);
+
     addBooleanOption(ARG_SERIALIZE_TO_TEXT, "serialize to text");
 
+    addOption(
+        ARG_SERIALIZER,
+        "name of the serializer used to write objects, e.g. "
+            + JavaObjectSerializer.NAME
+            + ", "
+            + BinaryObjectSerializer.NAME
+            + " or "
+            + XStreamObjectSerializer.NAME
+            + "; overridden by -"
+            + ARG_SERIALIZE_TO_TEXT,
+        ARGNAME_NAME);
+
     addOption(
         ARG_SERVICE_BIND_HOST,
         "local hostname used bind service (default is 0.0.0.0 which listens on all interfaces)",
@@ -1386,7 +1658,12 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     _analyze = getBooleanOptionValue(BfConsts.COMMAND_ANALYZE);
     _answer = getBooleanOptionValue(BfConsts.COMMAND_ANSWER);
     _answerJsonPath = getPathOptionValue(BfConsts.ARG_ANSWER_JSON_PATH);
+    _bddReachability = getBooleanOptionValue(ARG_BDD_REACHABILITY);
+    _bdpFullRebuild = getBooleanOptionValue(ARG_BDP_FULL_REBUILD);
+    _bdpMaxTracesPerFlow = getIntOptionValue(ARG_BDP_MAX_TRACES_PER_FLOW);
+    _bdpPolicyCacheSize = getIntOptionValue(ARG_BDP_POLICY_CACHE_SIZE);
     _blockNames = getStringListOptionValue(BfConsts.ARG_BLOCK_NAMES);
+    _cacheHeapMb = getIntOptionValue(ARG_CACHE_HEAP_MB);
     _compileDiffEnvironment = getBooleanOptionValue(BfConsts.COMMAND_COMPILE_DIFF_ENVIRONMENT);
     _containerDir = getPathOptionValue(BfConsts.ARG_CONTAINER_DIR);
     _coordinatorHost = getStringOptionValue(ARG_COORDINATOR_HOST);
@@ -1394,6 +1671,7 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     _coordinatorRegister = getBooleanOptionValue(ARG_COORDINATOR_REGISTER);
     _coordinatorWorkPort = getIntOptionValue(ARG_COORDINATOR_WORK_PORT);
     _dataPlane = getBooleanOptionValue(BfConsts.COMMAND_DUMP_DP);
+    _dataPlaneSpillDir = getPathOptionValue(ARG_DATA_PLANE_SPILL_DIR);
     _deltaEnvironmentName = getStringOptionValue(BfConsts.ARG_DELTA_ENVIRONMENT_NAME);
     _deltaTestrig = getStringOptionValue(BfConsts.ARG_DELTA_TESTRIG);
     _diffActive = getBooleanOptionValue(BfConsts.ARG_DIFF_ACTIVE);
@@ -1412,22 +1690,31 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     _genOspfTopologyPath = getPathOptionValue(ARG_GEN_OSPF_TOPLOGY_PATH);
     _haltOnConvertError = getBooleanOptionValue(BfConsts.ARG_HALT_ON_CONVERT_ERROR);
     _haltOnParseError = getBooleanOptionValue(BfConsts.ARG_HALT_ON_PARSE_ERROR);
+    _heavyTaskHeapMb = getIntOptionValue(ARG_HEAVY_TASK_HEAP_MB);
     _histogram = getBooleanOptionValue(ARG_HISTOGRAM);
     _ignoreFilesWithStrings = getStringListOptionValue(BfConsts.ARG_IGNORE_FILES_WITH_STRINGS);
     _ignoreUnknown = getBooleanOptionValue(ARG_IGNORE_UNKNOWN);
     _ignoreUnsupported = getBooleanOptionValue(ARG_IGNORE_UNSUPPORTED);
     _initInfo = getBooleanOptionValue(BfConsts.COMMAND_INIT_INFO);
     _jobs = getIntOptionValue(ARG_JOBS);
+    _jobTimeout = getIntOptionValue(ARG_JOB_TIMEOUT);
+    _lightTaskHeapMb = getIntOptionValue(ARG_LIGHT_TASK_HEAP_MB);
     _logTee = getBooleanOptionValue(ARG_LOG_TEE);
+    _maxConcurrentDeserializations = getIntOptionValue(ARG_MAX_CONCURRENT_DESERIALIZATIONS);
+    _maxConcurrentTasks = getIntOptionValue(ARG_MAX_CONCURRENT_TASKS);
     _maxParserContextLines = getIntOptionValue(ARG_MAX_PARSER_CONTEXT_LINES);
     _maxParserContextTokens = getIntOptionValue(ARG_MAX_PARSER_CONTEXT_TOKENS);
     _maxRuntimeMs = getIntOptionValue(ARG_MAX_RUNTIME_MS);
     _outputEnvironmentName = getStringOptionValue(BfConsts.ARG_OUTPUT_ENV);
+    _parseCache = !getBooleanOptionValue(ARG_NO_PARSE_CACHE);
+    _parseCacheMb = getIntOptionValue(ARG_PARSE_CACHE_MB);
+    _parserWarmup = getBooleanOptionValue(ARG_PARSER_WARMUP);
     _pedanticAsError = getBooleanOptionValue(BfConsts.ARG_PEDANTIC_AS_ERROR);
     _pedanticRecord = !getBooleanOptionValue(BfConsts.ARG_PEDANTIC_SUPPRESS);
     _prettyPrintAnswer = getBooleanOptionValue(BfConsts.ARG_PRETTY_PRINT_ANSWER);
     _printParseTree = getBooleanOptionValue(ARG_PRINT_PARSE_TREES);
     _printSymmetricEdges = getBooleanOptionValue(ARG_PRINT_SYMMETRIC_EDGES);
+    _profileParsing = getBooleanOptionValue(ARG_PROFILE_PARSING);
     _questionName = getStringOptionValue(BfConsts.ARG_QUESTION_NAME);
     _redFlagAsError = getBooleanOptionValue(BfConsts.ARG_RED_FLAG_AS_ERROR);
     _redFlagRecord = !getBooleanOptionValue(BfConsts.ARG_RED_FLAG_SUPPRESS);
@@ -1435,7 +1722,11 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     _runInServiceMode = getBooleanOptionValue(ARG_SERVICE_MODE);
     _sequential = getBooleanOptionValue(ARG_SEQUENTIAL);
     _serializeIndependent = getBooleanOptionValue(BfConsts.COMMAND_PARSE_VENDOR_INDEPENDENT);
+    _serializationCompression =
+        SerializationCompression.fromName(getStringOptionValue(ARG_SERIALIZATION_COMPRESSION));
     _serializeToText = getBooleanOptionValue(ARG_SERIALIZE_TO_TEXT);
+    _serializer =
+        _serializeToText ? XStreamObjectSerializer.NAME : getStringOptionValue(ARG_SERIALIZER);
     _serializeVendor = getBooleanOptionValue(BfConsts.COMMAND_PARSE_VENDOR_SPECIFIC);
     _serviceBindHost = getStringOptionValue(ARG_SERVICE_BIND_HOST);
     _serviceHost = getStringOptionValue(ARG_SERVICE_HOST);
@@ -1483,6 +1774,22 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     _activeTestrigSettings = activeTestrigSettings;
   }
 
+  public void setBddReachability(boolean bddReachability) {
+    _bddReachability = bddReachability;
+  }
+
+  public void setBdpFullRebuild(boolean bdpFullRebuild) {
+    _bdpFullRebuild = bdpFullRebuild;
+  }
+
+  public void setBdpMaxTracesPerFlow(int bdpMaxTracesPerFlow) {
+    _bdpMaxTracesPerFlow = bdpMaxTracesPerFlow;
+  }
+
+  public void setBdpPolicyCacheSize(int bdpPolicyCacheSize) {
+    _bdpPolicyCacheSize = bdpPolicyCacheSize;
+  }
+
   public void setDeltaEnvironmentName(String diffEnvironmentName) {
     _deltaEnvironmentName = diffEnvironmentName;
   }
@@ -1515,10 +1822,18 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     _initInfo = initInfo;
   }
 
+  public void setJobTimeout(int jobTimeout) {
+    _jobTimeout = jobTimeout;
+  }
+
   public void setLogger(BatfishLogger logger) {
     _logger = logger;
   }
 
+  public void setMaxConcurrentDeserializations(int maxConcurrentDeserializations) {
+    _maxConcurrentDeserializations = maxConcurrentDeserializations;
+  }
+
   public void setMaxParserContextLines(int maxParserContextLines) {
     _maxParserContextLines = maxParserContextLines;
   }
@@ -1531,6 +1846,10 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     _maxRuntimeMs = runtimeMs;
   }
 
+  public void setParseCacheMb(int parseCacheMb) {
+    _parseCacheMb = parseCacheMb;
+  }
+
   public void setPluginDirs(List<Path> pluginDirs) {
     _pluginDirs = pluginDirs;
   }
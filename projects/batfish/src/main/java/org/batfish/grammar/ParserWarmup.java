@@ -0,0 +1,51 @@
+package org.batfish.grammar;
+
+import java.util.function.Function;
+import org.batfish.common.BatfishException;
+import org.batfish.common.BatfishLogger;
+import org.batfish.common.util.CommonUtil;
+import org.batfish.config.Settings;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.grammar.cisco.CiscoCombinedParser;
+import org.batfish.grammar.flatjuniper.FlatJuniperCombinedParser;
+
+/**
+ * Fills the prediction caches (DFAs) that all instances of a generated parser share within a
+ * process, by parsing bundled sample configurations. Without warm-up, the configurations parsed
+ * first by a new process pay for building these caches, which makes the first testrig after a
+ * restart several times slower to parse than later ones.
+ */
+public final class ParserWarmup {
+
+  private static final String SAMPLES_PATH = "org/batfish/grammar/warmup/";
+
+  /** Parses the bundled sample configuration of every supported grammar once. */
+  public static void warmUp(Settings settings) {
+    BatfishLogger logger = settings.getLogger();
+    long startTime = System.currentTimeMillis();
+    warmUp(
+        logger,
+        "cisco_ios.cfg",
+        text -> new CiscoCombinedParser(text, settings, ConfigurationFormat.CISCO_IOS));
+    warmUp(logger, "flat_juniper.cfg", text -> new FlatJuniperCombinedParser(text, settings));
+    logger.infof("Warmed up parsers in %d ms\n", System.currentTimeMillis() - startTime);
+  }
+
+  private static void warmUp(
+      BatfishLogger logger,
+      String sample,
+      Function<String, BatfishCombinedParser<?, ?>> parserFactory) {
+    try {
+      String text = CommonUtil.readResource(SAMPLES_PATH + sample);
+      BatfishCombinedParser<?, ?> parser = parserFactory.apply(text);
+      parser.parseWithFallback();
+      if (!parser.getErrors().isEmpty()) {
+        logger.warnf("Parser warm-up sample '%s' has parse errors\n", sample);
+      }
+    } catch (BatfishException e) {
+      logger.warnf("Failed to warm up parser with sample '%s': %s\n", sample, e.getMessage());
+    }
+  }
+
+  private ParserWarmup() {}
+}
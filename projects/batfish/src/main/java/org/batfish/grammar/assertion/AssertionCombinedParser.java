@@ -8,7 +8,7 @@ public class AssertionCombinedParser
     extends BatfishCombinedParser<AssertionParser, AssertionLexer> {
 
   public AssertionCombinedParser(String input, Settings settings) {
-    super(AssertionParser.class, AssertionLexer.class, input, settings);
+    super(AssertionParser::new, AssertionLexer::new, input, settings);
   }
 
   @Override
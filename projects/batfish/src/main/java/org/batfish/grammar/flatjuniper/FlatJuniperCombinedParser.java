@@ -8,7 +8,7 @@ public class FlatJuniperCombinedParser
     extends BatfishCombinedParser<FlatJuniperParser, FlatJuniperLexer> {
 
   public FlatJuniperCombinedParser(String input, Settings settings) {
-    super(FlatJuniperParser.class, FlatJuniperLexer.class, input, settings);
+    super(FlatJuniperParser::new, FlatJuniperLexer::new, input, settings);
   }
 
   @Override
@@ -7,7 +7,7 @@ import org.batfish.grammar.BatfishCombinedParser;
 public class FlatVyosCombinedParser extends BatfishCombinedParser<FlatVyosParser, FlatVyosLexer> {
 
   public FlatVyosCombinedParser(String input, Settings settings) {
-    super(FlatVyosParser.class, FlatVyosLexer.class, input, settings);
+    super(FlatVyosParser::new, FlatVyosLexer::new, input, settings);
   }
 
   @Override
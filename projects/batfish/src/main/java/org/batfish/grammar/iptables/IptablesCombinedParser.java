@@ -7,7 +7,7 @@ import org.batfish.grammar.BatfishCombinedParser;
 public class IptablesCombinedParser extends BatfishCombinedParser<IptablesParser, IptablesLexer> {
 
   public IptablesCombinedParser(String input, Settings settings) {
-    super(IptablesParser.class, IptablesLexer.class, input, settings);
+    super(IptablesParser::new, IptablesLexer::new, input, settings);
   }
 
   @Override
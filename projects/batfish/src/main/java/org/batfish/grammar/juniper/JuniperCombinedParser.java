@@ -7,7 +7,7 @@ import org.batfish.grammar.BatfishCombinedParser;
 public class JuniperCombinedParser extends BatfishCombinedParser<JuniperParser, JuniperLexer> {
 
   public JuniperCombinedParser(String input, Settings settings) {
-    super(JuniperParser.class, JuniperLexer.class, input, settings);
+    super(JuniperParser::new, JuniperLexer::new, input, settings);
   }
 
   @Override
@@ -7,7 +7,7 @@ import org.batfish.grammar.BatfishCombinedParser;
 public class MrvCombinedParser extends BatfishCombinedParser<MrvParser, MrvLexer> {
 
   public MrvCombinedParser(String input, Settings settings) {
-    super(MrvParser.class, MrvLexer.class, input, settings);
+    super(MrvParser::new, MrvLexer::new, input, settings);
   }
 
   @Override
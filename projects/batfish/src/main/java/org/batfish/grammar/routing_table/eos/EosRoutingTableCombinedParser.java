@@ -8,7 +8,7 @@ public class EosRoutingTableCombinedParser
     extends BatfishCombinedParser<EosRoutingTableParser, EosRoutingTableLexer> {
 
   public EosRoutingTableCombinedParser(String input, GrammarSettings settings) {
-    super(EosRoutingTableParser.class, EosRoutingTableLexer.class, input, settings);
+    super(EosRoutingTableParser::new, EosRoutingTableLexer::new, input, settings);
   }
 
   @Override
@@ -8,7 +8,7 @@ public class NxosRoutingTableCombinedParser
     extends BatfishCombinedParser<NxosRoutingTableParser, NxosRoutingTableLexer> {
 
   public NxosRoutingTableCombinedParser(String input, GrammarSettings settings) {
-    super(NxosRoutingTableParser.class, NxosRoutingTableLexer.class, input, settings);
+    super(NxosRoutingTableParser::new, NxosRoutingTableLexer::new, input, settings);
   }
 
   @Override
@@ -8,7 +8,7 @@ public class GNS3TopologyCombinedParser
     extends BatfishCombinedParser<GNS3TopologyParser, GNS3TopologyLexer> {
 
   public GNS3TopologyCombinedParser(String input, Settings settings) {
-    super(GNS3TopologyParser.class, GNS3TopologyLexer.class, input, settings);
+    super(GNS3TopologyParser::new, GNS3TopologyLexer::new, input, settings);
   }
 
   @Override
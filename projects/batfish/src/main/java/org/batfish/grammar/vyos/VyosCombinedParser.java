@@ -7,7 +7,7 @@ import org.batfish.grammar.BatfishCombinedParser;
 public class VyosCombinedParser extends BatfishCombinedParser<VyosParser, VyosLexer> {
 
   public VyosCombinedParser(String input, Settings settings) {
-    super(VyosParser.class, VyosLexer.class, input, settings);
+    super(VyosParser::new, VyosLexer::new, input, settings);
   }
 
   @Override
@@ -1,12 +1,19 @@
 package org.batfish.job;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.commons.lang.exception.ExceptionUtils;
 import org.batfish.common.BatfishException;
@@ -17,13 +24,45 @@ import org.batfish.config.Settings;
 import org.batfish.datamodel.answers.AnswerElement;
 import org.batfish.main.Driver;
 
+/**
+ * Runs batches of {@link BatfishJob}s on a pool shared by all executors, and merges each result
+ * into the output as soon as its job finishes.
+ *
+ * <p>At most {@link Settings#getJobs()} jobs of a batch (one if {@link Settings#getSequential()})
+ * are in flight at once; the rest are submitted as earlier ones complete. If {@link
+ * Settings#getJobTimeout()} is positive, a job running longer than that many seconds is cancelled
+ * and reported as a failure. A cancelled job that ignores interruption keeps its thread, so the
+ * pool starts new threads as needed rather than letting such jobs starve later batches.
+ */
 public class BatfishJobExecutor<
     JobT extends BatfishJob<JobResultT>,
     AnswerElementT extends AnswerElement,
     JobResultT extends BatfishJobResult<OutputT, AnswerElementT>,
     OutputT> {
 
-  private static final long JOB_POLLING_PERIOD_MS = 1000L;
+  /** A submitted job, and the time at which a pool thread started running it */
+  private final class RunningJob {
+
+    private Future<JobResultT> _future;
+
+    private volatile Long _startTime;
+  }
+
+  private static ExecutorService _pool;
+
+  /**
+   * Returns the pool shared by all executors. Concurrency is bounded per batch by {@link
+   * #executeJobs}, not by the pool, so that threads stuck in timed-out jobs are replaced rather
+   * than counted against later batches. Idle threads are released after a minute.
+   */
+  private static synchronized ExecutorService getPool() {
+    if (_pool == null) {
+      _pool =
+          Executors.newCachedThreadPool(
+              new ThreadFactoryBuilder().setDaemon(true).setNameFormat("batfish-job-%d").build());
+    }
+    return _pool;
+  }
 
   private final String _description;
 
@@ -42,90 +81,112 @@ public class BatfishJobExecutor<
   }
 
   public void executeJobs(List<JobT> jobs, OutputT output, AnswerElementT answerElement) {
-    ExecutorService pool;
+    int maxRunningJobs;
     boolean shuffle;
     if (!_settings.getSequential()) {
       int maxConcurrentThreads = Runtime.getRuntime().availableProcessors();
-      int numConcurrentThreads = Math.min(maxConcurrentThreads, _settings.getJobs());
-      pool = Executors.newFixedThreadPool(numConcurrentThreads);
+      maxRunningJobs = Math.min(maxConcurrentThreads, _settings.getJobs());
       shuffle = _settings.getShuffleJobs();
     } else {
-      pool = Executors.newSingleThreadExecutor();
+      maxRunningJobs = 1;
       shuffle = false;
     }
     if (shuffle) {
       Collections.shuffle(jobs);
     }
-    List<Future<JobResultT>> futures = new ArrayList<>();
-    for (JobT job : jobs) {
-      Future<JobResultT> future = pool.submit(job);
-      futures.add(future);
-    }
+    long timeoutNanos = TimeUnit.SECONDS.toNanos(_settings.getJobTimeout());
+    CompletionService<JobResultT> completionService = new ExecutorCompletionService<>(getPool());
+    Iterator<JobT> pendingJobs = jobs.iterator();
+    Map<Future<JobResultT>, RunningJob> runningJobs = new HashMap<>();
     boolean processingError = false;
     int finishedJobs = 0;
     int totalJobs = jobs.size();
     AtomicInteger completed = Driver.newBatch(_settings, _description, totalJobs);
     double finishedPercent;
     List<BatfishException> failureCauses = new ArrayList<>();
-    while (!futures.isEmpty()) {
-      List<Future<JobResultT>> currentFutures = new ArrayList<>();
-      currentFutures.addAll(futures);
-      for (Future<JobResultT> future : currentFutures) {
-        if (future.isDone()) {
-          futures.remove(future);
-          finishedJobs++;
-          completed.incrementAndGet();
-          finishedPercent = 100 * ((double) finishedJobs) / totalJobs;
-          JobResultT result = null;
-          try {
-            result = future.get();
-          } catch (InterruptedException | ExecutionException e) {
-            throw new BatfishException("Error executing job", e);
-          }
-          String time = CommonUtil.getTime(result.getElapsedTime());
-          Throwable failureCause = result.getFailureCause();
-          if (failureCause == null) {
-            result.applyTo(output, _logger, answerElement);
-            _logger.infof(
-                "Job terminated successfully with result: %s after elapsed time: %s - %d/%d "
-                    + "(%.1f%%) complete\n",
-                result.toString(), time, finishedJobs, totalJobs, finishedPercent);
-          } else {
-            String failureMessage =
-                "Failure running job after elapsed time: "
-                    + time
-                    + "\n-----BEGIN JOB LOG-----\n"
-                    + result
-                        .getHistory()
-                        .toString(BatfishLogger.getLogLevel(_settings.getLogLevel()))
-                    + "\n-----END JOB LOG-----";
-            BatfishException bfc = new BatfishException(failureMessage, failureCause);
+    try {
+      submitJobs(completionService, pendingJobs, runningJobs, maxRunningJobs);
+      while (!runningJobs.isEmpty()) {
+        Future<JobResultT> future;
+        try {
+          future = pollCompleted(completionService, runningJobs, timeoutNanos);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new BatfishException("Interrupted while waiting for jobs to complete", e);
+        }
+        if (future == null) {
+          for (RunningJob timedOutJob : cancelTimedOutJobs(runningJobs, timeoutNanos)) {
+            finishedJobs++;
+            completed.incrementAndGet();
+            long elapsedTime =
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - timedOutJob._startTime);
+            BatfishException bfc =
+                new BatfishException(
+                    "Job cancelled after exceeding timeout of "
+                        + _settings.getJobTimeout()
+                        + " seconds (elapsed time: "
+                        + CommonUtil.getTime(elapsedTime)
+                        + ")");
             if (_settings.getExitOnFirstError()) {
-              result.appendHistory(_logger);
               throw bfc;
-            } else {
-              processingError = true;
-              result.appendHistory(_logger);
-              _logger.error(failureMessage + ":\n\t" + ExceptionUtils.getStackTrace(failureCause));
-              failureCauses.add(bfc);
-              if (!_haltOnProcessingError) {
-                result.applyTo(output, _logger, answerElement);
-              }
             }
+            processingError = true;
+            _logger.error(bfc.getMessage() + "\n");
+            failureCauses.add(bfc);
           }
-        } else {
+          submitJobs(completionService, pendingJobs, runningJobs, maxRunningJobs);
           continue;
         }
-      }
-      if (!futures.isEmpty()) {
+        if (runningJobs.remove(future) == null) {
+          // cancelled after timing out, and already accounted for
+          continue;
+        }
+        submitJobs(completionService, pendingJobs, runningJobs, maxRunningJobs);
+        finishedJobs++;
+        completed.incrementAndGet();
+        finishedPercent = 100 * ((double) finishedJobs) / totalJobs;
+        JobResultT result = null;
         try {
-          Thread.sleep(JOB_POLLING_PERIOD_MS);
-        } catch (InterruptedException e) {
-          throw new BatfishException("interrupted while sleeping", e);
+          result = future.get();
+        } catch (InterruptedException | ExecutionException e) {
+          throw new BatfishException("Error executing job", e);
+        }
+        String time = CommonUtil.getTime(result.getElapsedTime());
+        Throwable failureCause = result.getFailureCause();
+        if (failureCause == null) {
+          result.applyTo(output, _logger, answerElement);
+          _logger.infof(
+              "Job terminated successfully with result: %s after elapsed time: %s - %d/%d "
+                  + "(%.1f%%) complete\n",
+              result.toString(), time, finishedJobs, totalJobs, finishedPercent);
+        } else {
+          String failureMessage =
+              "Failure running job after elapsed time: "
+                  + time
+                  + "\n-----BEGIN JOB LOG-----\n"
+                  + result.getHistory().toString(BatfishLogger.getLogLevel(_settings.getLogLevel()))
+                  + "\n-----END JOB LOG-----";
+          BatfishException bfc = new BatfishException(failureMessage, failureCause);
+          if (_settings.getExitOnFirstError()) {
+            result.appendHistory(_logger);
+            throw bfc;
+          } else {
+            processingError = true;
+            result.appendHistory(_logger);
+            _logger.error(failureMessage + ":\n\t" + ExceptionUtils.getStackTrace(failureCause));
+            failureCauses.add(bfc);
+            if (!_haltOnProcessingError) {
+              result.applyTo(output, _logger, answerElement);
+            }
+          }
         }
       }
+    } finally {
+      // do not leave jobs of an abandoned batch occupying the shared pool
+      for (Future<JobResultT> future : runningJobs.keySet()) {
+        future.cancel(true);
+      }
     }
-    pool.shutdown();
     if (processingError) {
       int numJobs = jobs.size();
       int numFailed = numJobs - failureCauses.size();
@@ -142,4 +203,68 @@ public class BatfishJobExecutor<
       _logger.info("All jobs executed successfully\n");
     }
   }
+
+  /**
+   * Cancels and removes from {@code runningJobs} every job that has been running for at least
+   * {@code timeoutNanos}, and returns the cancelled jobs.
+   */
+  private List<RunningJob> cancelTimedOutJobs(
+      Map<Future<JobResultT>, RunningJob> runningJobs, long timeoutNanos) {
+    long now = System.nanoTime();
+    List<RunningJob> timedOutJobs = new ArrayList<>();
+    Iterator<RunningJob> i = runningJobs.values().iterator();
+    while (i.hasNext()) {
+      RunningJob runningJob = i.next();
+      Long startTime = runningJob._startTime;
+      // a job that completes before it can be cancelled is handled normally
+      if (startTime != null
+          && now - startTime >= timeoutNanos
+          && runningJob._future.cancel(true)) {
+        i.remove();
+        timedOutJobs.add(runningJob);
+      }
+    }
+    return timedOutJobs;
+  }
+
+  /**
+   * Waits for the next job to complete, and returns its future. Returns {@code null} if a running
+   * job may have exceeded the timeout first.
+   */
+  private Future<JobResultT> pollCompleted(
+      CompletionService<JobResultT> completionService,
+      Map<Future<JobResultT>, RunningJob> runningJobs,
+      long timeoutNanos)
+      throws InterruptedException {
+    if (timeoutNanos <= 0) {
+      return completionService.take();
+    }
+    long now = System.nanoTime();
+    long waitNanos = timeoutNanos;
+    for (RunningJob runningJob : runningJobs.values()) {
+      Long startTime = runningJob._startTime;
+      if (startTime != null) {
+        waitNanos = Math.min(waitNanos, startTime + timeoutNanos - now);
+      }
+    }
+    return completionService.poll(Math.max(waitNanos, 0L), TimeUnit.NANOSECONDS);
+  }
+
+  private void submitJobs(
+      CompletionService<JobResultT> completionService,
+      Iterator<JobT> pendingJobs,
+      Map<Future<JobResultT>, RunningJob> runningJobs,
+      int maxRunningJobs) {
+    while (runningJobs.size() < maxRunningJobs && pendingJobs.hasNext()) {
+      JobT job = pendingJobs.next();
+      RunningJob runningJob = new RunningJob();
+      runningJob._future =
+          completionService.submit(
+              () -> {
+                runningJob._startTime = System.nanoTime();
+                return job.call();
+              });
+      runningJobs.put(runningJob._future, runningJob);
+    }
+  }
 }
@@ -9,6 +9,7 @@ import org.batfish.common.ParseTreeSentences;
 import org.batfish.common.Warnings;
 import org.batfish.config.Settings;
 import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.answers.ParseProfile;
 import org.batfish.datamodel.answers.ParseStatus;
 import org.batfish.grammar.BatfishCombinedParser;
 import org.batfish.grammar.ControlPlaneExtractor;
@@ -295,9 +296,13 @@ public class ParseVendorConfigurationJob extends BatfishJob<ParseVendorConfigura
         }
     }
 
+    boolean llFallback;
+    ParseProfile profile;
     try {
       _logger.info("\tParsing...");
       tree = Batfish.parse(combinedParser, _logger, _settings);
+      llFallback = combinedParser.getLlFallback();
+      profile = combinedParser.getProfile(_file.getFileName().toString());
       if (_settings.printParseTree()) {
         _ptSentences = ParseTreePrettyPrinter.getParseTreeSentences(tree, combinedParser);
       }
@@ -343,6 +348,13 @@ public class ParseVendorConfigurationJob extends BatfishJob<ParseVendorConfigura
     }
     elapsedTime = System.currentTimeMillis() - startTime;
     return new ParseVendorConfigurationResult(
-        elapsedTime, _logger.getHistory(), _file, vc, _warnings, _ptSentences);
+        elapsedTime,
+        _logger.getHistory(),
+        _file,
+        vc,
+        _warnings,
+        _ptSentences,
+        profile,
+        llFallback);
   }
 }
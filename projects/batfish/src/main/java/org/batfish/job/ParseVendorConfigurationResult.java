@@ -7,6 +7,7 @@ import org.batfish.common.BatfishLogger;
 import org.batfish.common.BatfishLogger.BatfishLoggerHistory;
 import org.batfish.common.ParseTreeSentences;
 import org.batfish.common.Warnings;
+import org.batfish.datamodel.answers.ParseProfile;
 import org.batfish.datamodel.answers.ParseStatus;
 import org.batfish.datamodel.answers.ParseVendorConfigurationAnswerElement;
 import org.batfish.vendor.VendorConfiguration;
@@ -17,6 +18,10 @@ public class ParseVendorConfigurationResult
 
   private final Path _file;
 
+  private boolean _llFallback;
+
+  private ParseProfile _parseProfile;
+
   private ParseTreeSentences _parseTree;
 
   private final ParseStatus _status;
@@ -39,8 +44,22 @@ public class ParseVendorConfigurationResult
       VendorConfiguration vc,
       Warnings warnings,
       ParseTreeSentences parseTree) {
+    this(elapsedTime, history, file, vc, warnings, parseTree, null, false);
+  }
+
+  public ParseVendorConfigurationResult(
+      long elapsedTime,
+      BatfishLoggerHistory history,
+      Path file,
+      VendorConfiguration vc,
+      Warnings warnings,
+      ParseTreeSentences parseTree,
+      ParseProfile parseProfile,
+      boolean llFallback) {
     super(elapsedTime, history);
     _file = file;
+    _llFallback = llFallback;
+    _parseProfile = parseProfile;
     _parseTree = parseTree;
     _vc = vc;
     _warnings = warnings;
@@ -91,6 +110,12 @@ public class ParseVendorConfigurationResult
         if (!_parseTree.isEmpty()) {
           answerElement.getParseTrees().put(hostname, _parseTree);
         }
+        if (_llFallback) {
+          answerElement.getLlFallbacks().add(hostname);
+        }
+        if (_parseProfile != null) {
+          answerElement.addParseProfile(_parseProfile);
+        }
         if (_vc.getUnrecognized()) {
           answerElement.getParseStatus().put(hostname, ParseStatus.PARTIALLY_UNRECOGNIZED);
         } else {
@@ -4,8 +4,11 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Throwables;
 import com.google.common.cache.Cache;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
@@ -21,6 +24,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -31,8 +35,14 @@ import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiFunction;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -61,6 +71,7 @@ import org.batfish.common.Warning;
 import org.batfish.common.Warnings;
 import org.batfish.common.plugin.BgpTablePlugin;
 import org.batfish.common.plugin.DataPlanePlugin;
+import org.batfish.common.plugin.DataPlanePluginSettings;
 import org.batfish.common.plugin.ExternalBgpAdvertisementPlugin;
 import org.batfish.common.plugin.IBatfish;
 import org.batfish.common.plugin.PluginClientType;
@@ -155,6 +166,7 @@ import org.batfish.grammar.topology.GNS3TopologyExtractor;
 import org.batfish.grammar.topology.TopologyExtractor;
 import org.batfish.grammar.vyos.VyosCombinedParser;
 import org.batfish.grammar.vyos.VyosFlattener;
+import org.batfish.job.BatfishJob;
 import org.batfish.job.BatfishJobExecutor;
 import org.batfish.job.ConvertConfigurationJob;
 import org.batfish.job.ConvertConfigurationResult;
@@ -170,10 +182,14 @@ import org.batfish.representation.aws_vpcs.AwsVpcConfiguration;
 import org.batfish.representation.host.HostConfiguration;
 import org.batfish.representation.iptables.IptablesVendorConfiguration;
 import org.batfish.role.InferRoles;
+import org.batfish.smt.EncoderCache;
+import org.batfish.smt.Graph;
 import org.batfish.smt.PropertyChecker;
 import org.batfish.vendor.VendorConfiguration;
 import org.batfish.z3.AclLine;
 import org.batfish.z3.AclReachabilityQuerySynthesizer;
+import org.batfish.z3.BddNodJob;
+import org.batfish.z3.BddNodSatJob;
 import org.batfish.z3.BlacklistDstIpQuerySynthesizer;
 import org.batfish.z3.CompositeNodJob;
 import org.batfish.z3.EarliestMoreGeneralReachableLineQuerySynthesizer;
@@ -187,6 +203,7 @@ import org.batfish.z3.NodSatResult;
 import org.batfish.z3.QuerySynthesizer;
 import org.batfish.z3.ReachEdgeQuerySynthesizer;
 import org.batfish.z3.ReachabilityQuerySynthesizer;
+import org.batfish.z3.SatQuerySynthesizer;
 import org.batfish.z3.Synthesizer;
 import org.codehaus.jettison.json.JSONArray;
 import org.codehaus.jettison.json.JSONException;
@@ -265,6 +282,20 @@ public class Batfish extends PluginConsumer implements IBatfish {
     }
   }
 
+  /**
+   * Returns the value cached for {@code key}, calling {@code loader} to load and cache it on a miss,
+   * so that the cache records how long loads take. Concurrent tasks missing the same key wait for a
+   * single load. Unchecked exceptions thrown by {@code loader} are rethrown as they are.
+   */
+  private static <K, V> V getOrLoad(Cache<K, V> cache, K key, Callable<V> loader) {
+    try {
+      return cache.get(key, loader);
+    } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new BatfishException("Failed to load cached value for: " + key, e.getCause());
+    }
+  }
+
   public static String flatten(
       String input,
       BatfishLogger logger,
@@ -382,10 +413,13 @@ public class Batfish extends PluginConsumer implements IBatfish {
       BatfishCombinedParser<?, ?> parser, BatfishLogger logger, Settings settings) {
     ParserRuleContext tree;
     try {
-      tree = parser.parse();
+      tree = parser.parseWithFallback();
     } catch (BatfishException e) {
       throw new ParserBatfishException("Parser error", e);
     }
+    if (parser.getLlFallback()) {
+      logger.debug("SLL prediction failed, reparsed with full LL prediction\n");
+    }
     List<String> errors = parser.getErrors();
     int numErrors = errors.size();
     if (numErrors > 0) {
@@ -416,16 +450,22 @@ public class Batfish extends PluginConsumer implements IBatfish {
 
   private final Cache<TestrigSettings, DataPlane> _cachedDataPlanes;
 
-  private final Map<EnvironmentSettings, SortedMap<String, BgpAdvertisementsByVrf>>
+  private final Cache<EnvironmentSettings, SortedMap<String, BgpAdvertisementsByVrf>>
       _cachedEnvironmentBgpTables;
 
-  private final Map<EnvironmentSettings, SortedMap<String, RoutesByVrf>>
+  private final Cache<EnvironmentSettings, SortedMap<String, RoutesByVrf>>
       _cachedEnvironmentRoutingTables;
 
+  private final Cache<TestrigSettings, EncoderCache> _cachedSmtEncodings;
+
   private DataPlanePlugin _dataPlanePlugin;
 
   private TestrigSettings _deltaTestrigSettings;
 
+  private final LongAdder _deserializationTime;
+
+  private final LongAdder _deserializedBytes;
+
   private Set<ExternalBgpAdvertisementPlugin> _externalBgpAdvertisementPlugins;
 
   private BatfishLogger _logger;
@@ -446,21 +486,26 @@ public class Batfish extends PluginConsumer implements IBatfish {
       Settings settings,
       Cache<TestrigSettings, SortedMap<String, Configuration>> cachedConfigurations,
       Cache<TestrigSettings, DataPlane> cachedDataPlanes,
-      Map<EnvironmentSettings, SortedMap<String, BgpAdvertisementsByVrf>>
+      Cache<EnvironmentSettings, SortedMap<String, BgpAdvertisementsByVrf>>
           cachedEnvironmentBgpTables,
-      Map<EnvironmentSettings, SortedMap<String, RoutesByVrf>> cachedEnvironmentRoutingTables) {
-    super(settings.getSerializeToText(), settings.getPluginDirs());
+      Cache<EnvironmentSettings, SortedMap<String, RoutesByVrf>> cachedEnvironmentRoutingTables,
+      Cache<TestrigSettings, EncoderCache> cachedSmtEncodings) {
+    super(
+        settings.getSerializer(), settings.getSerializationCompression(), settings.getPluginDirs());
     _settings = settings;
     _bgpTablePlugins = new TreeMap<>();
     _cachedConfigurations = cachedConfigurations;
     _cachedEnvironmentBgpTables = cachedEnvironmentBgpTables;
     _cachedEnvironmentRoutingTables = cachedEnvironmentRoutingTables;
     _cachedDataPlanes = cachedDataPlanes;
+    _cachedSmtEncodings = cachedSmtEncodings;
     _externalBgpAdvertisementPlugins = new TreeSet<>();
     _testrigSettings = settings.getActiveTestrigSettings();
     _baseTestrigSettings = settings.getBaseTestrigSettings();
     _logger = _settings.getLogger();
     _deltaTestrigSettings = settings.getDeltaTestrigSettings();
+    _deserializationTime = new LongAdder();
+    _deserializedBytes = new LongAdder();
     _terminatedWithException = false;
     _answererCreators = new HashMap<>();
     _testrigSettingsStack = new ArrayList<>();
@@ -560,7 +605,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
   @Override
   public AnswerElement answerAclReachability(
       String aclNameRegexStr, NamedStructureEquivalenceSets<?> aclEqSets) {
-    if (SystemUtils.IS_OS_MAC_OSX) {
+    if (SystemUtils.IS_OS_MAC_OSX && !_settings.getBddReachability()) {
       // TODO: remove when z3 parallelism bug on OSX is fixed
       _settings.setSequential(true);
     }
@@ -576,7 +621,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
 
     Map<String, Configuration> configurations = loadConfigurations();
 
-    List<NodSatJob<AclLine>> jobs = new ArrayList<>();
+    List<BatfishJob<NodSatResult<AclLine>>> jobs = new ArrayList<>();
 
     for (Entry<String, ?> e : aclEqSets.getSameNamedStructures().entrySet()) {
       String aclName = e.getKey();
@@ -605,8 +650,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
         AclReachabilityQuerySynthesizer query =
             new AclReachabilityQuerySynthesizer(hostname, aclName, numLines);
         Synthesizer aclSynthesizer = synthesizeAcls(Collections.singletonMap(hostname, c));
-        NodSatJob<AclLine> job = new NodSatJob<>(_settings, aclSynthesizer, query);
-        jobs.add(job);
+        jobs.add(newNodSatJob(aclSynthesizer, query));
       }
     }
 
@@ -1005,22 +1049,30 @@ public class Batfish extends PluginConsumer implements IBatfish {
     printElapsedTime();
   }
 
-  public Set<Flow> computeNodOutput(List<NodJob> jobs) {
+  public Set<Flow> computeNodOutput(List<BatfishJob<NodJobResult>> jobs) {
     _logger.info("\n*** EXECUTING NOD JOBS ***\n");
     resetTimer();
     Set<Flow> flows = new TreeSet<>();
-    BatfishJobExecutor<NodJob, NodAnswerElement, NodJobResult, Set<Flow>> executor =
-        new BatfishJobExecutor<>(_settings, _logger, true, "NOD");
-    // todo: do something with nod answer element
-    executor.executeJobs(jobs, flows, new NodAnswerElement());
+    BatfishJobExecutor<BatfishJob<NodJobResult>, NodAnswerElement, NodJobResult, Set<Flow>>
+        executor = new BatfishJobExecutor<>(_settings, _logger, true, "NOD");
+    NodAnswerElement nodAnswerElement = new NodAnswerElement();
+    executor.executeJobs(jobs, flows, nodAnswerElement);
+    _logger.infof(
+        "NOD synthesis time: %.2f seconds, %s solve time: %.2f seconds\n",
+        nodAnswerElement.getSynthesisTime() / 1000.0,
+        _settings.getBddReachability() ? "BDD" : "Z3",
+        nodAnswerElement.getSolveTime() / 1000.0);
     printElapsedTime();
     return flows;
   }
 
-  public <KeyT> void computeNodSatOutput(List<NodSatJob<KeyT>> jobs, Map<KeyT, Boolean> output) {
+  public <KeyT> void computeNodSatOutput(
+      List<BatfishJob<NodSatResult<KeyT>>> jobs, Map<KeyT, Boolean> output) {
     _logger.info("\n*** EXECUTING NOD SAT JOBS ***\n");
     resetTimer();
-    BatfishJobExecutor<NodSatJob<KeyT>, NodSatAnswerElement, NodSatResult<KeyT>, Map<KeyT, Boolean>>
+    BatfishJobExecutor<
+            BatfishJob<NodSatResult<KeyT>>, NodSatAnswerElement, NodSatResult<KeyT>,
+            Map<KeyT, Boolean>>
         executor = new BatfishJobExecutor<>(_settings, _logger, true, "NOD SAT");
     executor.executeJobs(jobs, output, new NodSatAnswerElement());
     printElapsedTime();
@@ -1171,61 +1223,94 @@ public class Batfish extends PluginConsumer implements IBatfish {
     return routingTables;
   }
 
+  /**
+   * Deserializes the object stored in each file in {@code namesByPath}, keyed by the name of the
+   * file. Each file is streamed through decompression and deserialization by one of a bounded pool
+   * of workers, so that reading some files overlaps deserializing others, and at most one file's
+   * worth of buffers per worker is held in memory.
+   */
   public <S extends Serializable> SortedMap<String, S> deserializeObjects(
       Map<Path, String> namesByPath, Class<S> outputClass) {
     String outputClassName = outputClass.getName();
     BatfishLogger logger = getLogger();
-    Map<String, byte[]> dataByName = new TreeMap<>();
-    AtomicInteger readCompleted =
+    Map<String, S> unsortedOutput = new ConcurrentHashMap<>();
+    LongAdder bytesRead = new LongAdder();
+    AtomicInteger completed =
         newBatch(
-            "Reading and unpacking files containg '" + outputClassName + "' instances",
+            "Reading and deserializing files containing '" + outputClassName + "' instances",
             namesByPath.size());
-    namesByPath.forEach(
-        (inputPath, name) -> {
-          logger.debug(
-              "Reading and gunzipping: "
-                  + outputClassName
-                  + " '"
-                  + name
-                  + "' from '"
-                  + inputPath.toString()
-                  + "'");
-          byte[] data = fromGzipFile(inputPath);
-          logger.debug(" ...OK\n");
-          dataByName.put(name, data);
-          readCompleted.incrementAndGet();
-        });
-    Map<String, S> unsortedOutput = new ConcurrentHashMap<>();
-    AtomicInteger deserializeCompleted =
-        newBatch("Deserializing '" + outputClassName + "' instances", dataByName.size());
-    dataByName
-        .keySet()
-        .parallelStream()
-        .forEach(
-            name -> {
-              byte[] data = dataByName.get(name);
-              S object = deserializeObject(data, outputClass);
-              unsortedOutput.put(name, object);
-              deserializeCompleted.incrementAndGet();
-            });
+    long startTime = System.currentTimeMillis();
+    int numWorkers =
+        _settings.getSequential() ? 1 : Math.max(1, _settings.getMaxConcurrentDeserializations());
+    ExecutorService pool = Executors.newFixedThreadPool(numWorkers);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      namesByPath.forEach(
+          (inputPath, name) ->
+              futures.add(
+                  pool.submit(
+                      () -> {
+                        logger.debug(
+                            "Reading and deserializing: "
+                                + outputClassName
+                                + " '"
+                                + name
+                                + "' from '"
+                                + inputPath.toString()
+                                + "'\n");
+                        S object = deserializeObject(inputPath, outputClass);
+                        bytesRead.add(inputPath.toFile().length());
+                        unsortedOutput.put(name, object);
+                        completed.incrementAndGet();
+                      })));
+      // wait for every task, so that all failures are reported together
+      BatfishException failure = null;
+      for (Future<?> future : futures) {
+        try {
+          future.get();
+        } catch (InterruptedException e) {
+          futures.forEach(f -> f.cancel(true));
+          Thread.currentThread().interrupt();
+          throw new BatfishException("Interrupted while deserializing objects", e);
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (failure == null) {
+            failure =
+                cause instanceof BatfishException
+                    ? (BatfishException) cause
+                    : new BatfishException("Error deserializing objects", cause);
+          } else {
+            failure.addSuppressed(cause);
+          }
+        }
+      }
+      if (failure != null) {
+        throw failure;
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    logger.infof(
+        "Deserialized %d '%s' instances from %d bytes in %d ms\n",
+        unsortedOutput.size(),
+        outputClassName,
+        bytesRead.sum(),
+        System.currentTimeMillis() - startTime);
+    _deserializedBytes.add(bytesRead.sum());
+    _deserializationTime.add(System.currentTimeMillis() - startTime);
     SortedMap<String, S> output = new TreeMap<>(unsortedOutput);
     return output;
   }
 
   public Map<String, GenericConfigObject> deserializeVendorConfigurations(
       Path serializedVendorConfigPath) {
+    return deserializeVendorConfigurations(listVendorConfigurations(serializedVendorConfigPath));
+  }
+
+  private Map<String, GenericConfigObject> deserializeVendorConfigurations(
+      Map<Path, String> namesByPath) {
     _logger.info("\n*** DESERIALIZING VENDOR CONFIGURATION STRUCTURES ***\n");
     resetTimer();
-    Map<Path, String> namesByPath = new TreeMap<>();
-    try (DirectoryStream<Path> serializedConfigs =
-        Files.newDirectoryStream(serializedVendorConfigPath)) {
-      for (Path serializedConfig : serializedConfigs) {
-        String name = serializedConfig.getFileName().toString();
-        namesByPath.put(serializedConfig, name);
-      }
-    } catch (IOException e) {
-      throw new BatfishException("Error reading vendor configs directory", e);
-    }
     Map<String, GenericConfigObject> vendorConfigurations =
         deserializeObjects(namesByPath, GenericConfigObject.class);
     printElapsedTime();
@@ -1646,10 +1731,29 @@ public class Batfish extends PluginConsumer implements IBatfish {
 
   public Map<String, Configuration> getConfigurations(
       Path serializedVendorConfigPath, ConvertConfigurationAnswerElement answerElement) {
+    Map<Path, String> namesByPath = listVendorConfigurations(serializedVendorConfigPath);
+    ParseCache cache = getParseCache();
+    Map<Path, Path> cacheEntries = null;
+    Map<String, ConvertConfigurationResult> cachedResults = Collections.emptyMap();
+    if (cache != null) {
+      // only vendor configurations that changed since they were last converted are converted
+      cacheEntries = cache.getConvertEntries(namesByPath.keySet());
+      cachedResults = cache.loadConvertResults(cacheEntries, namesByPath);
+      Set<String> cachedNames = cachedResults.keySet();
+      namesByPath.values().removeIf(cachedNames::contains);
+      cacheEntries.keySet().retainAll(namesByPath.keySet());
+    }
     Map<String, GenericConfigObject> vendorConfigurations =
-        deserializeVendorConfigurations(serializedVendorConfigPath);
+        deserializeVendorConfigurations(namesByPath);
     Map<String, Configuration> configurations =
         convertConfigurations(vendorConfigurations, answerElement);
+    if (cache != null) {
+      cache.storeConvertResults(
+          cacheEntries, namesByPath, vendorConfigurations, configurations, answerElement);
+      for (ConvertConfigurationResult result : cachedResults.values()) {
+        result.applyTo(configurations, _logger, answerElement);
+      }
+    }
 
     postProcessConfigurations(configurations.values());
     return configurations;
@@ -1659,6 +1763,11 @@ public class Batfish extends PluginConsumer implements IBatfish {
     return _dataPlanePlugin;
   }
 
+  @Override
+  public DataPlanePluginSettings getDataPlanePluginSettings() {
+    return _settings;
+  }
+
   private Map<String, Configuration> getDeltaConfigurations() {
     EnvironmentSettings envSettings = _testrigSettings.getEnvironmentSettings();
     Path deltaDir = envSettings.getDeltaConfigurationsDir();
@@ -1673,6 +1782,16 @@ public class Batfish extends PluginConsumer implements IBatfish {
     }
   }
 
+  @Override
+  public long getDeserializationTime() {
+    return _deserializationTime.sum();
+  }
+
+  @Override
+  public long getDeserializedBytes() {
+    return _deserializedBytes.sum();
+  }
+
   public TestrigSettings getDeltaTestrigSettings() {
     return _deltaTestrigSettings;
   }
@@ -1704,6 +1823,18 @@ public class Batfish extends PluginConsumer implements IBatfish {
     return seconds;
   }
 
+  /*
+   * Returns the SMT encodings of the active testrig, which outlive this work item so that later
+   * SMT questions about the same testrig can reuse them
+   */
+  private EncoderCache getEncoderCache() {
+    try {
+      return _cachedSmtEncodings.get(_testrigSettings, () -> new EncoderCache(new Graph(this)));
+    } catch (ExecutionException e) {
+      throw new BatfishException("Could not build network graph", e.getCause());
+    }
+  }
+
   private SortedMap<String, BgpAdvertisementsByVrf> getEnvironmentBgpTables(
       Path inputPath, ParseEnvironmentBgpTablesAnswerElement answerElement) {
     if (Files.exists(inputPath.getParent()) && !Files.exists(inputPath)) {
@@ -1809,6 +1940,19 @@ public class Batfish extends PluginConsumer implements IBatfish {
     return blacklistNodes;
   }
 
+  /**
+   * Returns the cache of parse and conversion results of the active container, or {@code null} if
+   * there is no container or caching is disabled.
+   */
+  @Nullable
+  private ParseCache getParseCache() {
+    Path containerDir = _settings.getContainerDir();
+    if (!_settings.getParseCache() || containerDir == null) {
+      return null;
+    }
+    return new ParseCache(this, containerDir.resolve(BfConsts.RELPATH_PARSE_CACHE_DIR));
+  }
+
   @Override
   public Map<String, String> getQuestionTemplates() {
     if (_settings.getCoordinatorHost() == null) {
@@ -2444,6 +2588,21 @@ public class Batfish extends PluginConsumer implements IBatfish {
     }
   }
 
+  /** Returns the serialized vendor configurations in {@code serializedVendorConfigPath}, by name. */
+  private SortedMap<Path, String> listVendorConfigurations(Path serializedVendorConfigPath) {
+    SortedMap<Path, String> namesByPath = new TreeMap<>();
+    try (DirectoryStream<Path> serializedConfigs =
+        Files.newDirectoryStream(serializedVendorConfigPath)) {
+      for (Path serializedConfig : serializedConfigs) {
+        String name = serializedConfig.getFileName().toString();
+        namesByPath.put(serializedConfig, name);
+      }
+    } catch (IOException e) {
+      throw new BatfishException("Error reading vendor configs directory", e);
+    }
+    return namesByPath;
+  }
+
   @Override
   public SortedMap<String, Configuration> loadConfigurations() {
     ValidateEnvironmentAnswerElement veae = loadValidateEnvironmentAnswerElement();
@@ -2459,18 +2618,17 @@ public class Batfish extends PluginConsumer implements IBatfish {
   }
 
   private SortedMap<String, Configuration> loadConfigurationsWithoutValidation() {
-    SortedMap<String, Configuration> configurations =
-        _cachedConfigurations.getIfPresent(_testrigSettings);
-    if (configurations == null) {
-      ConvertConfigurationAnswerElement ccae = loadConvertConfigurationAnswerElement();
-      if (!Version.isCompatibleVersion(
-          "Service", "Old processed configurations", ccae.getVersion())) {
-        repairConfigurations();
-      }
-      configurations = deserializeConfigurations(_testrigSettings.getSerializeIndependentPath());
-      _cachedConfigurations.put(_testrigSettings, configurations);
-    }
-    return configurations;
+    return getOrLoad(
+        _cachedConfigurations,
+        _testrigSettings,
+        () -> {
+          ConvertConfigurationAnswerElement ccae = loadConvertConfigurationAnswerElement();
+          if (!Version.isCompatibleVersion(
+              "Service", "Old processed configurations", ccae.getVersion())) {
+            repairConfigurations();
+          }
+          return deserializeConfigurations(_testrigSettings.getSerializeIndependentPath());
+        });
   }
 
   @Override
@@ -2500,24 +2658,19 @@ public class Batfish extends PluginConsumer implements IBatfish {
 
   @Override
   public DataPlane loadDataPlane() {
-    DataPlane dp = _cachedDataPlanes.getIfPresent(_testrigSettings);
-    if (dp == null) {
-      /*
-       * Data plane should exist after loading answer element, as it triggers
-       * repair if necessary. However, it might not be cached if it was not
-       * repaired, so we still might need to load it from disk.
-       */
-      loadDataPlaneAnswerElement();
-      dp = _cachedDataPlanes.getIfPresent(_testrigSettings);
-      if (dp == null) {
-        newBatch("Loading data plane from disk", 0);
-        dp =
-            deserializeObject(
-                _testrigSettings.getEnvironmentSettings().getDataPlanePath(), DataPlane.class);
-        _cachedDataPlanes.put(_testrigSettings, dp);
-      }
-    }
-    return dp;
+    return getOrLoad(
+        _cachedDataPlanes,
+        _testrigSettings,
+        () -> {
+          // Data plane should exist after loading answer element, as it triggers repair if
+          // necessary.
+          loadDataPlaneAnswerElement();
+          newBatch("Loading data plane from disk", 0);
+          return _dataPlanePlugin.deserializeDataPlane(
+              DataPlaneSpill.resolve(
+                  _settings.getDataPlaneSpillDir(),
+                  _testrigSettings.getEnvironmentSettings().getDataPlanePath()));
+        });
   }
 
   private DataPlaneAnswerElement loadDataPlaneAnswerElement() {
@@ -2545,39 +2698,36 @@ public class Batfish extends PluginConsumer implements IBatfish {
   @Override
   public SortedMap<String, BgpAdvertisementsByVrf> loadEnvironmentBgpTables() {
     EnvironmentSettings envSettings = _testrigSettings.getEnvironmentSettings();
-    SortedMap<String, BgpAdvertisementsByVrf> environmentBgpTables =
-        _cachedEnvironmentBgpTables.get(envSettings);
-    if (environmentBgpTables == null) {
-      ParseEnvironmentBgpTablesAnswerElement ae = loadParseEnvironmentBgpTablesAnswerElement();
-      if (!Version.isCompatibleVersion(
-          "Service", "Old processed environment BGP tables", ae.getVersion())) {
-        repairEnvironmentBgpTables();
-      }
-      environmentBgpTables =
-          deserializeEnvironmentBgpTables(envSettings.getSerializeEnvironmentBgpTablesPath());
-      _cachedEnvironmentBgpTables.put(envSettings, environmentBgpTables);
-    }
-    return environmentBgpTables;
+    return getOrLoad(
+        _cachedEnvironmentBgpTables,
+        envSettings,
+        () -> {
+          ParseEnvironmentBgpTablesAnswerElement ae = loadParseEnvironmentBgpTablesAnswerElement();
+          if (!Version.isCompatibleVersion(
+              "Service", "Old processed environment BGP tables", ae.getVersion())) {
+            repairEnvironmentBgpTables();
+          }
+          return deserializeEnvironmentBgpTables(
+              envSettings.getSerializeEnvironmentBgpTablesPath());
+        });
   }
 
   @Override
   public SortedMap<String, RoutesByVrf> loadEnvironmentRoutingTables() {
     EnvironmentSettings envSettings = _testrigSettings.getEnvironmentSettings();
-    SortedMap<String, RoutesByVrf> environmentRoutingTables =
-        _cachedEnvironmentRoutingTables.get(envSettings);
-    if (environmentRoutingTables == null) {
-      ParseEnvironmentRoutingTablesAnswerElement pertae =
-          loadParseEnvironmentRoutingTablesAnswerElement();
-      if (!Version.isCompatibleVersion(
-          "Service", "Old processed environment routing tables", pertae.getVersion())) {
-        repairEnvironmentRoutingTables();
-      }
-      environmentRoutingTables =
-          deserializeEnvironmentRoutingTables(
+    return getOrLoad(
+        _cachedEnvironmentRoutingTables,
+        envSettings,
+        () -> {
+          ParseEnvironmentRoutingTablesAnswerElement pertae =
+              loadParseEnvironmentRoutingTablesAnswerElement();
+          if (!Version.isCompatibleVersion(
+              "Service", "Old processed environment routing tables", pertae.getVersion())) {
+            repairEnvironmentRoutingTables();
+          }
+          return deserializeEnvironmentRoutingTables(
               envSettings.getSerializeEnvironmentRoutingTablesPath());
-      _cachedEnvironmentRoutingTables.put(envSettings, environmentRoutingTables);
-    }
-    return environmentRoutingTables;
+        });
   }
 
   @Override
@@ -2689,16 +2839,15 @@ public class Batfish extends PluginConsumer implements IBatfish {
 
   @Override
   public AnswerElement multipath(HeaderSpace headerSpace) {
-    if (SystemUtils.IS_OS_MAC_OSX) {
+    if (SystemUtils.IS_OS_MAC_OSX && !_settings.getBddReachability()) {
       // TODO: remove when z3 parallelism bug on OSX is fixed
       _settings.setSequential(true);
     }
-    Settings settings = getSettings();
     String tag = getFlowTag(_testrigSettings);
     Map<String, Configuration> configurations = loadConfigurations();
     Set<Flow> flows = null;
     Synthesizer dataPlaneSynthesizer = synthesizeDataPlane();
-    List<NodJob> jobs = new ArrayList<>();
+    Map<QuerySynthesizer, NodeVrfSet> queries = new LinkedHashMap<>();
     configurations.forEach(
         (node, configuration) -> {
           for (String vrf : configuration.getVrfs().keySet()) {
@@ -2706,12 +2855,11 @@ public class Batfish extends PluginConsumer implements IBatfish {
                 new MultipathInconsistencyQuerySynthesizer(node, vrf, headerSpace);
             NodeVrfSet nodes = new NodeVrfSet();
             nodes.add(new Pair<>(node, vrf));
-            NodJob job = new NodJob(settings, dataPlaneSynthesizer, query, nodes, tag);
-            jobs.add(job);
+            queries.put(query, nodes);
           }
         });
 
-    flows = computeNodOutput(jobs);
+    flows = computeNodOutput(newNodJobs(dataPlaneSynthesizer, queries, tag));
 
     getDataPlanePlugin().processFlows(flows);
 
@@ -2724,6 +2872,34 @@ public class Batfish extends PluginConsumer implements IBatfish {
     return Driver.newBatch(_settings, description, jobs);
   }
 
+  /**
+   * Returns jobs answering {@code queries}, each for the ingress nodes and VRFs it maps to, using
+   * the engine selected in the settings.
+   */
+  private List<BatfishJob<NodJobResult>> newNodJobs(
+      Synthesizer dataPlaneSynthesizer, Map<QuerySynthesizer, NodeVrfSet> queries, String tag) {
+    List<BatfishJob<NodJobResult>> jobs = new ArrayList<>();
+    if (_settings.getBddReachability()) {
+      // one job for all the queries, so the BDDs of the data plane rules are built only once
+      jobs.add(new BddNodJob(_settings, dataPlaneSynthesizer, queries, tag));
+    } else {
+      queries.forEach(
+          (query, nodes) ->
+              jobs.add(new NodJob(_settings, dataPlaneSynthesizer, query, nodes, tag)));
+    }
+    return jobs;
+  }
+
+  /** Returns a job answering {@code query}, using the engine selected in the settings. */
+  private <KeyT> BatfishJob<NodSatResult<KeyT>> newNodSatJob(
+      Synthesizer synthesizer, SatQuerySynthesizer<KeyT> query) {
+    if (_settings.getBddReachability()) {
+      return new BddNodSatJob<>(_settings, synthesizer, query);
+    } else {
+      return new NodSatJob<>(_settings, synthesizer, query);
+    }
+  }
+
   void outputAnswer(Answer answer) {
     ObjectMapper mapper = new BatfishObjectMapper();
     try {
@@ -3086,8 +3262,28 @@ public class Batfish extends PluginConsumer implements IBatfish {
     _logger.info("\n*** PARSING VENDOR CONFIGURATION FILES ***\n");
     resetTimer();
     SortedMap<String, VendorConfiguration> vendorConfigurations = new TreeMap<>();
+    // cached results carry no profile, so every file is parsed when profiling
+    ParseCache cache = _settings.getProfileParsing() ? null : getParseCache();
+    Map<Path, String> filesToParse = configurationData;
+    Map<Path, Path> cacheEntries = null;
+    if (cache != null) {
+      // only files that changed since they were last parsed are parsed
+      cacheEntries =
+          cache.getParseEntries(
+              configurationData,
+              configurationFormat,
+              _settings.getActiveTestrigSettings().getBasePath());
+      Map<Path, ParseVendorConfigurationResult> cachedResults =
+          cache.loadParseResults(cacheEntries);
+      for (ParseVendorConfigurationResult result : cachedResults.values()) {
+        result.applyTo(vendorConfigurations, _logger, answerElement);
+      }
+      filesToParse = new TreeMap<>(configurationData);
+      filesToParse.keySet().removeAll(cachedResults.keySet());
+      cacheEntries.keySet().retainAll(filesToParse.keySet());
+    }
     List<ParseVendorConfigurationJob> jobs = new ArrayList<>();
-    for (Entry<Path, String> vendorFile : configurationData.entrySet()) {
+    for (Entry<Path, String> vendorFile : filesToParse.entrySet()) {
       Path currentFile = vendorFile.getKey();
       String fileText = vendorFile.getValue();
 
@@ -3113,6 +3309,13 @@ public class Batfish extends PluginConsumer implements IBatfish {
             new BatfishJobExecutor<>(
                 _settings, _logger, _settings.getHaltOnParseError(), "Parse configurations");
     executor.executeJobs(jobs, vendorConfigurations, answerElement);
+    if (cache != null) {
+      cache.storeParseResults(
+          cacheEntries,
+          vendorConfigurations,
+          answerElement,
+          ParseCache.ambiguousFileNames(configurationData.keySet()));
+    }
     printElapsedTime();
     return vendorConfigurations;
   }
@@ -4154,14 +4357,14 @@ public class Batfish extends PluginConsumer implements IBatfish {
           Path currentOutputPath = outputPath.resolve(name);
           output.put(currentOutputPath, vc);
         });
-    serializeObjects(output);
+    serializeVendorObjects(output, answerElement);
     // serialize warnings
     serializeObject(answerElement, _testrigSettings.getParseAnswerPath());
     printElapsedTime();
     return overlayConfigurations;
   }
 
-  private void serializeIndependentConfigs(
+  private long serializeIndependentConfigs(
       Map<String, Configuration> configurations, Path outputPath) {
     if (configurations == null) {
       throw new BatfishException("Exiting due to conversion error(s)");
@@ -4175,8 +4378,9 @@ public class Batfish extends PluginConsumer implements IBatfish {
           Path currentOutputPath = outputPath.resolve(name);
           output.put(currentOutputPath, c);
         });
-    serializeObjects(output);
+    long serializedBytes = serializeObjects(output);
     printElapsedTime();
+    return serializedBytes;
   }
 
   Answer serializeIndependentConfigs(Path vendorConfigPath, Path outputPath) {
@@ -4186,14 +4390,20 @@ public class Batfish extends PluginConsumer implements IBatfish {
     if (_settings.getVerboseParse()) {
       answer.addAnswerElement(answerElement);
     }
+    long deserializedBytes = getDeserializedBytes();
+    long deserializationTime = getDeserializationTime();
     Map<String, Configuration> configurations = getConfigurations(vendorConfigPath, answerElement);
+    answerElement.setDeserializedBytes(getDeserializedBytes() - deserializedBytes);
+    answerElement.setDeserializationTime(getDeserializationTime() - deserializationTime);
     Topology topology = computeTopology(_testrigSettings.getTestRigPath(), configurations);
     serializeAsJson(_testrigSettings.getTopologyPath(), topology, "testrig topology");
     checkTopology(configurations, topology);
     NodeRoleSpecifier roleSpecifier = inferNodeRoles(configurations);
     serializeAsJson(
         _testrigSettings.getInferredNodeRolesPath(), roleSpecifier, "inferred node roles");
-    serializeIndependentConfigs(configurations, outputPath);
+    long serializationStartTime = System.currentTimeMillis();
+    answerElement.setSerializedBytes(serializeIndependentConfigs(configurations, outputPath));
+    answerElement.setSerializationTime(System.currentTimeMillis() - serializationStartTime);
     serializeObject(answerElement, _testrigSettings.getConvertAnswerPath());
     return answer;
   }
@@ -4244,13 +4454,17 @@ public class Batfish extends PluginConsumer implements IBatfish {
           answerElement.getParseStatus().put(name, ParseStatus.ORPHANED);
         });
 
-    serializeObjects(output);
+    serializeVendorObjects(output, answerElement);
     printElapsedTime();
   }
 
-  public <S extends Serializable> void serializeObjects(Map<Path, S> objectsByPath) {
+  /**
+   * Serializes each object to its corresponding path, using the configured serializer and
+   * compression. Returns the total number of bytes written.
+   */
+  public <S extends Serializable> long serializeObjects(Map<Path, S> objectsByPath) {
     if (objectsByPath.isEmpty()) {
-      return;
+      return 0L;
     }
     BatfishLogger logger = getLogger();
     Map<Path, byte[]> dataByPath = new ConcurrentHashMap<>();
@@ -4263,8 +4477,8 @@ public class Batfish extends PluginConsumer implements IBatfish {
         .forEach(
             outputPath -> {
               S object = objectsByPath.get(outputPath);
-              byte[] gzipData = toGzipData(object);
-              dataByPath.put(outputPath, gzipData);
+              byte[] data = toSerializedData(object);
+              dataByPath.put(outputPath, data);
               serializeCompleted.incrementAndGet();
             });
     AtomicInteger writeCompleted =
@@ -4280,6 +4494,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
           logger.debug("OK\n");
           writeCompleted.incrementAndGet();
         });
+    return dataByPath.values().stream().mapToLong(data -> data.length).sum();
   }
 
   Answer serializeVendorConfigs(Path testRigPath, Path outputPath) {
@@ -4325,6 +4540,20 @@ public class Batfish extends PluginConsumer implements IBatfish {
     return answer;
   }
 
+  /**
+   * Serializes vendor-specific objects as {@link #serializeObjects}, adding the bytes written and
+   * time taken to the totals in {@code answerElement}.
+   */
+  private void serializeVendorObjects(
+      Map<Path, VendorConfiguration> objectsByPath,
+      ParseVendorConfigurationAnswerElement answerElement) {
+    long startTime = System.currentTimeMillis();
+    long serializedBytes = serializeObjects(objectsByPath);
+    answerElement.setSerializedBytes(answerElement.getSerializedBytes() + serializedBytes);
+    answerElement.setSerializationTime(
+        answerElement.getSerializationTime() + System.currentTimeMillis() - startTime);
+  }
+
   @Override
   public void setDataPlanePlugin(DataPlanePlugin dataPlanePlugin) {
     _dataPlanePlugin = dataPlanePlugin;
@@ -4344,11 +4573,10 @@ public class Batfish extends PluginConsumer implements IBatfish {
       String notFinalNodeRegexStr,
       Set<String> transitNodes,
       Set<String> notTransitNodes) {
-    if (SystemUtils.IS_OS_MAC_OSX) {
+    if (SystemUtils.IS_OS_MAC_OSX && !_settings.getBddReachability()) {
       // TODO: remove when z3 parallelism bug on OSX is fixed
       _settings.setSequential(true);
     }
-    Settings settings = getSettings();
     String tag = getFlowTag(_testrigSettings);
     Map<String, Configuration> configurations = loadConfigurations();
     Set<Flow> flows = null;
@@ -4413,8 +4641,8 @@ public class Batfish extends PluginConsumer implements IBatfish {
               "Same node %s can not be in both transit and notTransit", illegalTransitNodes));
     }
 
-    // build query jobs
-    List<NodJob> jobs = new ArrayList<>();
+    // build queries
+    Map<QuerySynthesizer, NodeVrfSet> queries = new LinkedHashMap<>();
     for (String ingressNode : activeIngressNodes) {
       for (String ingressVrf : configurations.get(ingressNode).getVrfs().keySet()) {
         Map<String, Set<String>> nodeVrfs = new TreeMap<>();
@@ -4424,13 +4652,12 @@ public class Batfish extends PluginConsumer implements IBatfish {
                 actions, headerSpace, activeFinalNodes, nodeVrfs, transitNodes, notTransitNodes);
         NodeVrfSet nodes = new NodeVrfSet();
         nodes.add(new Pair<>(ingressNode, ingressVrf));
-        NodJob job = new NodJob(settings, dataPlaneSynthesizer, query, nodes, tag);
-        jobs.add(job);
+        queries.put(query, nodes);
       }
     }
 
     // run jobs and get resulting flows
-    flows = computeNodOutput(jobs);
+    flows = computeNodOutput(newNodJobs(dataPlaneSynthesizer, queries, tag));
 
     getDataPlanePlugin().processFlows(flows);
 
@@ -4527,8 +4754,10 @@ public class Batfish extends PluginConsumer implements IBatfish {
 
   @Override
   public void writeDataPlane(DataPlane dp, DataPlaneAnswerElement ae) {
+    _dataPlanePlugin.serializeDataPlane(
+        dp, _testrigSettings.getEnvironmentSettings().getDataPlanePath());
+    // cached after serializing, since the cache weighs data planes by their size on disk
     _cachedDataPlanes.put(_testrigSettings, dp);
-    serializeObject(dp, _testrigSettings.getEnvironmentSettings().getDataPlanePath());
     serializeObject(ae, _testrigSettings.getEnvironmentSettings().getDataPlaneAnswerPath());
   }
 
@@ -4651,22 +4880,22 @@ public class Batfish extends PluginConsumer implements IBatfish {
 
   @Override
   public AnswerElement smtForwarding(HeaderQuestion q) {
-    return PropertyChecker.computeForwarding(this, q);
+    return PropertyChecker.computeForwarding(getEncoderCache(), q);
   }
 
   @Override
   public AnswerElement smtReachability(HeaderLocationQuestion q) {
-    return PropertyChecker.computeReachability(this, q);
+    return PropertyChecker.computeReachability(getEncoderCache(), q);
   }
 
   @Override
   public AnswerElement smtBlackhole(HeaderQuestion q) {
-    return PropertyChecker.computeBlackHole(this, q);
+    return PropertyChecker.computeBlackHole(getEncoderCache(), q);
   }
 
   @Override
   public AnswerElement smtRoutingLoop(HeaderQuestion q) {
-    return PropertyChecker.computeRoutingLoop(this, q);
+    return PropertyChecker.computeRoutingLoop(getEncoderCache(), q);
   }
 
   @Override
@@ -4674,22 +4903,22 @@ public class Batfish extends PluginConsumer implements IBatfish {
     if (bound == null) {
       throw new BatfishException("Missing parameter length bound: (e.g., bound=3)");
     }
-    return PropertyChecker.computeBoundedLength(this, q, bound);
+    return PropertyChecker.computeBoundedLength(getEncoderCache(), q, bound);
   }
 
   @Override
   public AnswerElement smtEqualLength(HeaderLocationQuestion q) {
-    return PropertyChecker.computeEqualLength(this, q);
+    return PropertyChecker.computeEqualLength(getEncoderCache(), q);
   }
 
   @Override
   public AnswerElement smtMultipathConsistency(HeaderLocationQuestion q) {
-    return PropertyChecker.computeMultipathConsistency(this, q);
+    return PropertyChecker.computeMultipathConsistency(getEncoderCache(), q);
   }
 
   @Override
   public AnswerElement smtLoadBalance(HeaderLocationQuestion q, int threshold) {
-    return PropertyChecker.computeLoadBalance(this, q, threshold);
+    return PropertyChecker.computeLoadBalance(getEncoderCache(), q, threshold);
   }
 
   @Override
@@ -0,0 +1,110 @@
+package org.batfish.main;
+
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.Nullable;
+import org.apache.commons.io.FileUtils;
+import org.batfish.common.BatfishLogger;
+
+/**
+ * A local on-disk tier for data planes evicted from the in-memory cache. Data planes are persisted
+ * in their container, which may be on shared or remote storage. When a data plane is evicted, its
+ * file is copied to a local directory in the background, and later loads of that data plane read
+ * the local copy for as long as it has the same modification time as the original.
+ */
+final class DataPlaneSpill {
+
+  private static final String PARTIAL_SUFFIX = ".partial";
+
+  private static final String SPILLED_SUFFIX = ".dp";
+
+  private static boolean isCurrent(Path spilled, Path dataPlanePath) {
+    try {
+      return Files.exists(spilled)
+          && Files.getLastModifiedTime(spilled).equals(Files.getLastModifiedTime(dataPlanePath));
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Returns the path to load the data plane stored at {@code dataPlanePath} from: an up-to-date
+   * copy in {@code spillDir} if there is one, or else {@code dataPlanePath} itself.
+   */
+  static Path resolve(@Nullable Path spillDir, Path dataPlanePath) {
+    if (spillDir == null) {
+      return dataPlanePath;
+    }
+    Path spilled = spilledPath(spillDir, dataPlanePath);
+    return isCurrent(spilled, dataPlanePath) ? spilled : dataPlanePath;
+  }
+
+  private static Path spilledPath(Path spillDir, Path dataPlanePath) {
+    String name =
+        Hashing.sha256()
+            .hashString(
+                dataPlanePath.toAbsolutePath().normalize().toString(), StandardCharsets.UTF_8)
+            .toString();
+    return spillDir.resolve(name + SPILLED_SUFFIX);
+  }
+
+  private final ExecutorService _copier;
+
+  private final Path _directory;
+
+  private final BatfishLogger _logger;
+
+  DataPlaneSpill(Path directory, BatfishLogger logger) {
+    _copier =
+        Executors.newSingleThreadExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "data-plane-spill");
+              thread.setDaemon(true);
+              return thread;
+            });
+    _directory = directory;
+    _logger = logger;
+  }
+
+  /** Copies the data plane stored at {@code dataPlanePath} to this tier in the background. */
+  void spill(Path dataPlanePath) {
+    _copier.execute(
+        () -> {
+          Path spilled = spilledPath(_directory, dataPlanePath);
+          if (!Files.exists(dataPlanePath) || isCurrent(spilled, dataPlanePath)) {
+            return;
+          }
+          // copy under another name first, so that loads never see a partial copy
+          Path partial = spilled.resolveSibling(spilled.getFileName() + PARTIAL_SUFFIX);
+          try {
+            Files.createDirectories(_directory);
+            FileTime lastModifiedTime = Files.getLastModifiedTime(dataPlanePath);
+            FileUtils.copyFile(dataPlanePath.toFile(), partial.toFile());
+            if (!Files.getLastModifiedTime(dataPlanePath).equals(lastModifiedTime)) {
+              // rewritten while copying, so the copy may be neither the old nor the new data plane
+              Files.delete(partial);
+              return;
+            }
+            // copyFile only preserves the modification time to the millisecond, but isCurrent
+            // compares it at the precision of the file system
+            Files.setLastModifiedTime(partial, lastModifiedTime);
+            Files.move(
+                partial,
+                spilled,
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+          } catch (IOException e) {
+            _logger.warnf(
+                "Failed to spill data plane '%s' to '%s': %s\n",
+                dataPlanePath, _directory, e.getMessage());
+          }
+        });
+  }
+}
@@ -2,17 +2,27 @@ package org.batfish.main;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ImmutableSortedMap;
 import java.net.URI;
+import java.nio.file.Path;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.Nullable;
@@ -23,7 +33,6 @@ import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriBuilder;
-import org.apache.commons.collections4.map.LRUMap;
 import org.apache.commons.lang.exception.ExceptionUtils;
 import org.batfish.common.BatfishException;
 import org.batfish.common.BatfishLogger;
@@ -47,6 +56,8 @@ import org.batfish.datamodel.answers.Answer;
 import org.batfish.datamodel.answers.AnswerStatus;
 import org.batfish.datamodel.collections.BgpAdvertisementsByVrf;
 import org.batfish.datamodel.collections.RoutesByVrf;
+import org.batfish.grammar.ParserWarmup;
+import org.batfish.smt.EncoderCache;
 import org.codehaus.jettison.json.JSONArray;
 import org.glassfish.jersey.grizzly2.httpserver.GrizzlyHttpServerFactory;
 import org.glassfish.jersey.jettison.JettisonFeature;
@@ -54,7 +65,63 @@ import org.glassfish.jersey.server.ResourceConfig;
 
 public class Driver {
 
-  private static boolean _idle = true;
+  /**
+   * Interrupts the thread that created it once that thread has run for longer than a maximum
+   * runtime, so that the task it runs stops at its next cancellation point. No interrupt is
+   * delivered after {@link #close()}, which also clears an interrupt that was not acted upon.
+   */
+  private static final class RuntimeLimit {
+
+    private boolean _closed;
+
+    private boolean _expired;
+
+    @Nullable private final ScheduledFuture<?> _expiry;
+
+    private final Thread _thread;
+
+    private RuntimeLimit(long maxRuntimeMs) {
+      _thread = Thread.currentThread();
+      _expiry =
+          maxRuntimeMs > 0
+              ? RUNTIME_LIMITER.schedule(this::expire, maxRuntimeMs, TimeUnit.MILLISECONDS)
+              : null;
+    }
+
+    private void close() {
+      synchronized (this) {
+        _closed = true;
+      }
+      if (_expiry != null) {
+        _expiry.cancel(false);
+      }
+      // an executor thread must not carry the interrupt over to its next task
+      Thread.interrupted();
+    }
+
+    private synchronized void expire() {
+      if (!_closed) {
+        _expired = true;
+        _thread.interrupt();
+      }
+    }
+
+    private synchronized boolean getExpired() {
+      return _expired;
+    }
+  }
+
+  private static Cache<TestrigSettings, DataPlane> _cachedDataPlanes;
+
+  private static Cache<EnvironmentSettings, SortedMap<String, BgpAdvertisementsByVrf>>
+      _cachedEnvironmentBgpTables;
+
+  private static Cache<EnvironmentSettings, SortedMap<String, RoutesByVrf>>
+      _cachedEnvironmentRoutingTables;
+
+  private static Cache<TestrigSettings, SortedMap<String, Configuration>> _cachedTestrigs;
+
+  private static WorkerCapacity _capacity;
 
   private static Date _lastPollFromCoordinator = new Date();
 
@@ -64,16 +131,18 @@ public class Driver {
 
   private static ConcurrentMap<String, Task> _taskLog;
 
-  private static final Cache<TestrigSettings, DataPlane> CACHED_DATA_PLANES = buildDataPlaneCache();
-
-  private static final Map<EnvironmentSettings, SortedMap<String, BgpAdvertisementsByVrf>>
-      CACHED_ENVIRONMENT_BGP_TABLES = buildEnvironmentBgpTablesCache();
+  private static ExecutorService _taskRunner;
 
-  private static final Map<EnvironmentSettings, SortedMap<String, RoutesByVrf>>
-      CACHED_ENVIRONMENT_ROUTING_TABLES = buildEnvironmentRoutingTablesCache();
+  private static final Cache<TestrigSettings, EncoderCache> CACHED_SMT_ENCODINGS =
+      buildSmtEncodingCache();
 
-  private static final Cache<TestrigSettings, SortedMap<String, Configuration>> CACHED_TESTRIGS =
-      buildTestrigCache();
+  private static final ExecutorService COORDINATOR_NOTIFIER =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "coordinator-notifier");
+            thread.setDaemon(true);
+            return thread;
+          });
 
   private static final int COORDINATOR_POLL_CHECK_INTERVAL_MS = 1 * 60 * 1000;
 
@@ -82,55 +151,97 @@ public class Driver {
   private static final int COORDINATOR_REGISTRATION_RETRY_INTERVAL_MS = 1 * 1000; // 1
   // second
 
+  /** Directories of the testrigs that a running heavy task writes to; guarded by its monitor */
+  private static final Set<Path> HEAVY_TASK_TESTRIGS = new HashSet<>();
+
   static Logger httpServerLogger =
       Logger.getLogger(org.glassfish.grizzly.http.server.HttpServer.class.getName());
 
-  private static final int MAX_CACHED_DATA_PLANES = 2;
-
-  private static final int MAX_CACHED_ENVIRONMENT_BGP_TABLES = 4;
-
-  private static final int MAX_CACHED_ENVIRONMENT_ROUTING_TABLES = 4;
-
-  private static final int MAX_CACHED_TESTRIGS = 5;
+  private static final int MAX_CACHED_SMT_ENCODINGS = 2;
 
   static Logger networkListenerLogger =
       Logger.getLogger("org.glassfish.grizzly.http.server.NetworkListener");
 
-  private static synchronized Cache<TestrigSettings, DataPlane> buildDataPlaneCache() {
-    return CacheBuilder.newBuilder().maximumSize(MAX_CACHED_DATA_PLANES).weakValues().build();
+  private static final ScheduledExecutorService RUNTIME_LIMITER =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "runtime-limiter");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  /**
+   * Builds a cache of data planes bounded by their estimated heap. If {@code spill} is not null,
+   * evicted data planes are copied to it.
+   *
+   * <p>Data planes are deserialized node by node as they are used, but are weighed once, on
+   * insertion, by the size of their whole file. So each is charged as if fully loaded, and its
+   * weight never underestimates the heap it grows to. Values are held strongly: with the weight
+   * bound in place, weak values would only let any collection drop data planes between tasks.
+   */
+  private static Cache<TestrigSettings, DataPlane> buildDataPlaneCache(
+      long maxWeightKb, @Nullable DataPlaneSpill spill) {
+    CacheBuilder<TestrigSettings, DataPlane> builder =
+        CacheBuilder.newBuilder()
+            .maximumWeight(maxWeightKb)
+            .weigher(
+                new OnDiskSizeWeigher<TestrigSettings, DataPlane>(
+                    key -> key.getEnvironmentSettings().getDataPlanePath()))
+            .recordStats();
+    if (spill != null) {
+      builder.removalListener(
+          (RemovalNotification<TestrigSettings, DataPlane> notification) -> {
+            if (notification.wasEvicted()) {
+              spill.spill(notification.getKey().getEnvironmentSettings().getDataPlanePath());
+            }
+          });
+    }
+    return builder.build();
   }
 
-  private static Map<EnvironmentSettings, SortedMap<String, BgpAdvertisementsByVrf>>
-      buildEnvironmentBgpTablesCache() {
-    return Collections.synchronizedMap(
-        new LRUMap<EnvironmentSettings, SortedMap<String, BgpAdvertisementsByVrf>>(
-            MAX_CACHED_ENVIRONMENT_BGP_TABLES));
+  private static <V> Cache<EnvironmentSettings, V> buildEnvironmentTablesCache(
+      long maxWeightKb, Function<EnvironmentSettings, Path> serializedPath) {
+    return CacheBuilder.newBuilder()
+        .maximumWeight(maxWeightKb)
+        .weigher(new OnDiskSizeWeigher<EnvironmentSettings, V>(serializedPath))
+        .recordStats()
+        .build();
   }
 
-  private static Map<EnvironmentSettings, SortedMap<String, RoutesByVrf>>
-      buildEnvironmentRoutingTablesCache() {
-    return Collections.synchronizedMap(
-        new LRUMap<EnvironmentSettings, SortedMap<String, RoutesByVrf>>(
-            MAX_CACHED_ENVIRONMENT_ROUTING_TABLES));
+  private static synchronized Cache<TestrigSettings, EncoderCache> buildSmtEncodingCache() {
+    return CacheBuilder.newBuilder().maximumSize(MAX_CACHED_SMT_ENCODINGS).recordStats().build();
   }
 
-  private static synchronized Cache<TestrigSettings, SortedMap<String, Configuration>>
-      buildTestrigCache() {
-    return CacheBuilder.newBuilder().maximumSize(MAX_CACHED_TESTRIGS).build();
+  private static Cache<TestrigSettings, SortedMap<String, Configuration>> buildTestrigCache(
+      long maxWeightKb) {
+    return CacheBuilder.newBuilder()
+        .maximumWeight(maxWeightKb)
+        .weigher(
+            new OnDiskSizeWeigher<TestrigSettings, SortedMap<String, Configuration>>(
+                TestrigSettings::getSerializeIndependentPath))
+        .recordStats()
+        .build();
   }
 
-  private static synchronized boolean claimIdle() {
-    if (_idle) {
-      _idle = false;
-      return true;
-    }
-
-    return false;
+  /** Returns the caches shared by the tasks of this worker, by name */
+  public static synchronized SortedMap<String, Cache<?, ?>> getCaches() {
+    return ImmutableSortedMap.of(
+        "dataPlanes",
+        _cachedDataPlanes,
+        "environmentBgpTables",
+        _cachedEnvironmentBgpTables,
+        "environmentRoutingTables",
+        _cachedEnvironmentRoutingTables,
+        "smtEncodings",
+        CACHED_SMT_ENCODINGS,
+        "testrigs",
+        _cachedTestrigs);
   }
 
-  public static synchronized boolean getIdle() {
+  /** Returns the task capacity of this worker, recording that the coordinator polled it. */
+  public static synchronized WorkerCapacity getCapacity() {
     _lastPollFromCoordinator = new Date();
-    return _idle;
+    return _capacity;
   }
 
   public static BatfishLogger getMainLogger() {
@@ -196,7 +307,9 @@ public class Driver {
     System.setErr(_mainLogger.getPrintStream());
     System.setOut(_mainLogger.getPrintStream());
     _mainSettings.setLogger(_mainLogger);
+    initCaches();
     if (_mainSettings.runInServiceMode()) {
+      initTaskRunner();
 
       String protocol = _mainSettings.getSslDisable() ? "http" : "https";
       String baseUrl = String.format("%s://%s", protocol, _mainSettings.getServiceBindHost());
@@ -218,6 +331,10 @@ public class Driver {
               ConfigurationLocator.class,
               Driver.class);
         }
+        if (_mainSettings.getParserWarmup()) {
+          // warm up before registering, so that no work is assigned to cold parsers
+          ParserWarmup.warmUp(_mainSettings);
+        }
         if (_mainSettings.getCoordinatorRegister()) {
           // this function does not return until registration succeeds
           registerWithCoordinatorPersistent();
@@ -256,12 +373,92 @@ public class Driver {
     }
   }
 
-  private static synchronized void makeIdle() {
-    _idle = true;
+  private static String getCoordinatorPoolUrl(String resource) {
+    String protocol = _mainSettings.getSslDisable() ? "http" : "https";
+    return String.format(
+        "%s://%s:%s%s/%s",
+        protocol,
+        _mainSettings.getCoordinatorHost(),
+        _mainSettings.getCoordinatorPoolPort(),
+        CoordConsts.SVC_CFG_POOL_MGR,
+        resource);
+  }
+
+  /**
+   * Returns the directory of the testrig that a heavy task run with {@code settings} writes to, or
+   * {@code null} for other tasks.
+   */
+  @Nullable
+  private static Path getHeavyTaskTestrig(Settings settings) {
+    return isHeavyTask(settings) ? settings.getActiveTestrigSettings().getBasePath() : null;
+  }
+
+  /**
+   * Builds the caches of testrigs, data planes and environment tables, which share the configured
+   * cache heap. Data planes are the largest and the slowest to load, so they get half of it.
+   */
+  private static synchronized void initCaches() {
+    long budgetKb = _mainSettings.getCacheHeapMb() * 1024L;
+    Path spillDir = _mainSettings.getDataPlaneSpillDir();
+    DataPlaneSpill spill = spillDir == null ? null : new DataPlaneSpill(spillDir, _mainLogger);
+    _cachedDataPlanes = buildDataPlaneCache(budgetKb / 2, spill);
+    _cachedTestrigs = buildTestrigCache(budgetKb / 4);
+    _cachedEnvironmentBgpTables =
+        buildEnvironmentTablesCache(
+            budgetKb / 8, EnvironmentSettings::getSerializeEnvironmentBgpTablesPath);
+    _cachedEnvironmentRoutingTables =
+        buildEnvironmentTablesCache(
+            budgetKb / 8, EnvironmentSettings::getSerializeEnvironmentRoutingTablesPath);
+  }
+
+  private static void initTaskRunner() {
+    long mb = 1024L * 1024L;
+    _capacity =
+        new WorkerCapacity(
+            _mainSettings.getMaxConcurrentTasks(),
+            _mainSettings.getHeavyTaskHeapMb() * mb,
+            _mainSettings.getLightTaskHeapMb() * mb,
+            Runtime.getRuntime().maxMemory(),
+            WorkerCapacity::currentFreeHeap);
+    AtomicInteger threadNumber = new AtomicInteger();
+    _taskRunner =
+        Executors.newFixedThreadPool(
+            _mainSettings.getMaxConcurrentTasks(),
+            runnable -> new Thread(runnable, "task-runner-" + threadNumber.incrementAndGet()));
+  }
+
+  /**
+   * Returns whether a task run with {@code settings} parses configurations or computes a data
+   * plane, and hence needs much more heap than one that only answers questions.
+   */
+  private static boolean isHeavyTask(Settings settings) {
+    return settings.getSerializeVendor()
+        || settings.getSerializeIndependent()
+        || settings.getDataPlane()
+        || settings.getFlatten();
   }
 
+  /**
+   * Claims {@code testrig} for a heavy task, and returns whether no other heavy task holds it. Two
+   * heavy tasks on the same testrig would overwrite each other's serialized configurations and data
+   * plane.
+   */
+  private static boolean lockHeavyTaskTestrig(@Nullable Path testrig) {
+    synchronized (HEAVY_TASK_TESTRIGS) {
+      return testrig == null || HEAVY_TASK_TESTRIGS.add(testrig);
+    }
+  }
+
+  /**
+   * Starts a new batch of {@code jobs} jobs of the running task, and returns the counter of
+   * completed ones. Since every long computation is made of batches, this is also where a task
+   * whose thread was interrupted is cancelled.
+   */
   public static synchronized AtomicInteger newBatch(
       Settings settings, String description, int jobs) {
+    if (Thread.currentThread().isInterrupted()) {
+      throw new BatfishException("Task cancelled before: " + description);
+    }
     Batch batch = null;
     Task task = getTask(settings);
     if (task != null) {
@@ -273,6 +470,31 @@ public class Driver {
     }
   }
 
+  /**
+   * Tells the coordinator in the background that this worker became idle or busy, so that it does
+   * not have to wait for its next poll to notice. Notifications are sent in order, and a failed one
+   * is only logged since the coordinator still polls.
+   */
+  private static void notifyCoordinator(boolean idle) {
+    if (_mainSettings == null || !_mainSettings.getCoordinatorRegister()) {
+      return;
+    }
+    Map<String, String> params = new HashMap<>();
+    params.put(
+        CoordConsts.SVC_KEY_WORKER,
+        _mainSettings.getServiceHost() + ":" + _mainSettings.getServicePort());
+    params.put(CoordConsts.SVC_KEY_IDLE, Boolean.toString(idle));
+    String url = getCoordinatorPoolUrl(CoordConsts.SVC_RSC_POOL_UPDATE_WORKER_STATUS);
+    COORDINATOR_NOTIFIER.execute(
+        () -> {
+          try {
+            talkToCoordinator(url, params, _mainLogger);
+          } catch (BatfishException e) {
+            _mainLogger.errorf("Could not notify coordinator: %s\n", e.getMessage());
+          }
+        });
+  }
+
   private static boolean registerWithCoordinator(String poolRegUrl) {
     Map<String, String> params = new HashMap<>();
     params.put(
@@ -287,15 +509,7 @@ public class Driver {
   private static void registerWithCoordinatorPersistent() throws InterruptedException {
     boolean registrationSuccess;
 
-    String protocol = _mainSettings.getSslDisable() ? "http" : "https";
-    String poolRegUrl =
-        String.format(
-            "%s://%s:%s%s/%s",
-            protocol,
-            _mainSettings.getCoordinatorHost(),
-            +_mainSettings.getCoordinatorPoolPort(),
-            CoordConsts.SVC_CFG_POOL_MGR,
-            CoordConsts.SVC_RSC_POOL_UPDATE);
+    String poolRegUrl = getCoordinatorPoolUrl(CoordConsts.SVC_RSC_POOL_UPDATE);
 
     do {
       registrationSuccess = registerWithCoordinator(poolRegUrl);
@@ -305,7 +519,55 @@ public class Driver {
     } while (!registrationSuccess);
   }
 
-  @SuppressWarnings("deprecation")
+  private static void releaseTask(boolean heavy, @Nullable Path testrig) {
+    unlockHeavyTaskTestrig(testrig);
+    _capacity.release(heavy);
+    notifyCoordinator(_capacity.canAdmitLightTask());
+  }
+
+  private static Answer runAndAnswer(Batfish batfish, BatfishLogger logger) {
+    Answer answer;
+    try {
+      answer = batfish.run();
+      batfish.setTerminatedWithException(false);
+      if (answer.getStatus() == null) {
+        answer.setStatus(AnswerStatus.SUCCESS);
+      }
+    } catch (CleanBatfishException e) {
+      batfish.setTerminatedWithException(true);
+      String msg = "FATAL ERROR: " + e.getMessage();
+      logger.error(msg);
+      answer = Answer.failureAnswer(msg, null);
+    } catch (QuestionException e) {
+      String stackTrace = ExceptionUtils.getFullStackTrace(e);
+      logger.error(stackTrace);
+      answer = e.getAnswer();
+      answer.setStatus(AnswerStatus.FAILURE);
+      batfish.setTerminatedWithException(true);
+    } catch (CompositeBatfishException e) {
+      String stackTrace = ExceptionUtils.getFullStackTrace(e);
+      logger.error(stackTrace);
+      answer = new Answer();
+      answer.setStatus(AnswerStatus.FAILURE);
+      answer.addAnswerElement(e.getAnswerElement());
+      batfish.setTerminatedWithException(true);
+    } catch (Throwable e) {
+      String stackTrace = ExceptionUtils.getFullStackTrace(e);
+      logger.error(stackTrace);
+      answer = new Answer();
+      answer.setStatus(AnswerStatus.FAILURE);
+      answer.addAnswerElement(
+          new BatfishException("Batfish job failed", e).getBatfishStackTrace());
+      batfish.setTerminatedWithException(true);
+    }
+    return answer;
+  }
+
+  /**
+   * Runs the task described by {@code settings} on the calling thread. A task exceeding the maximum
+   * runtime is interrupted and stops at its next cancellation point, such as the start of a batch
+   * or a wait for parallel jobs.
+   */
   private static boolean runBatfish(final Settings settings) {
 
     final BatfishLogger logger = settings.getLogger();
@@ -314,67 +576,24 @@ public class Driver {
       final Batfish batfish =
           new Batfish(
               settings,
-              CACHED_TESTRIGS,
-              CACHED_DATA_PLANES,
-              CACHED_ENVIRONMENT_BGP_TABLES,
-              CACHED_ENVIRONMENT_ROUTING_TABLES);
-
-      Thread thread =
-          new Thread() {
-            @Override
-            public void run() {
-              Answer answer = null;
-              try {
-                answer = batfish.run();
-                batfish.setTerminatedWithException(false);
-                if (answer.getStatus() == null) {
-                  answer.setStatus(AnswerStatus.SUCCESS);
-                }
-              } catch (CleanBatfishException e) {
-                batfish.setTerminatedWithException(true);
-                String msg = "FATAL ERROR: " + e.getMessage();
-                logger.error(msg);
-                answer = Answer.failureAnswer(msg, null);
-              } catch (QuestionException e) {
-                String stackTrace = ExceptionUtils.getFullStackTrace(e);
-                logger.error(stackTrace);
-                answer = e.getAnswer();
-                answer.setStatus(AnswerStatus.FAILURE);
-                batfish.setTerminatedWithException(true);
-              } catch (CompositeBatfishException e) {
-                String stackTrace = ExceptionUtils.getFullStackTrace(e);
-                logger.error(stackTrace);
-                answer = new Answer();
-                answer.setStatus(AnswerStatus.FAILURE);
-                answer.addAnswerElement(e.getAnswerElement());
-                batfish.setTerminatedWithException(true);
-              } catch (Throwable e) {
-                String stackTrace = ExceptionUtils.getFullStackTrace(e);
-                logger.error(stackTrace);
-                answer = new Answer();
-                answer.setStatus(AnswerStatus.FAILURE);
-                answer.addAnswerElement(
-                    new BatfishException("Batfish job failed", e).getBatfishStackTrace());
-                batfish.setTerminatedWithException(true);
-              } finally {
-                if (settings.getAnswerJsonPath() != null) {
-                  batfish.outputAnswerWithLog(answer);
-                }
-              }
-            }
-          };
-
-      thread.start();
-      thread.join(settings.getMaxRuntimeMs());
-
-      if (thread.isAlive()) {
-        // this is deprecated but we should be safe since we don't have
-        // locks and such
-        // AF: This doesn't do what you think it does, esp. not in Java 8.
-        // It needs to be replaced.
-        thread.stop();
+              _cachedTestrigs,
+              _cachedDataPlanes,
+              _cachedEnvironmentBgpTables,
+              _cachedEnvironmentRoutingTables,
+              CACHED_SMT_ENCODINGS);
+
+      RuntimeLimit runtimeLimit = new RuntimeLimit(settings.getMaxRuntimeMs());
+      Answer answer;
+      try {
+        answer = runAndAnswer(batfish, logger);
+      } finally {
+        runtimeLimit.close();
+      }
+      if (runtimeLimit.getExpired() && batfish.getTerminatedWithException()) {
         logger.error("Batfish worker took too long. Terminated.");
-        batfish.setTerminatedWithException(true);
+      }
+      if (settings.getAnswerJsonPath() != null) {
+        batfish.outputAnswerWithLog(answer);
       }
 
       return !batfish.getTerminatedWithException();
@@ -407,10 +626,19 @@ public class Driver {
     }
 
     if (settings.canExecute()) {
-      if (claimIdle()) {
+      boolean heavy = isHeavyTask(settings);
+      Path heavyTaskTestrig = getHeavyTaskTestrig(settings);
+      if (!lockHeavyTaskTestrig(heavyTaskTestrig)) {
+        return Arrays.asList(
+            BfConsts.SVC_BUSY_KEY,
+            "Another task is parsing or computing the data plane of testrig: "
+                + settings.getActiveTestrigSettings().getName());
+      }
+      if (_capacity.tryAdmit(heavy)) {
+        notifyCoordinator(_capacity.canAdmitLightTask());
 
-        // lets put a try-catch around all the code around claimIdle
-        // so that we never the worker non-idle accidentally
+        // lets put a try-catch around all the code after admission
+        // so that we never leak a task slot accidentally
 
         try {
 
@@ -429,11 +657,10 @@ public class Driver {
 
           logTask(taskId, task);
 
-          // run batfish on a new thread and set idle to true when done
-          Thread thread =
-              new Thread() {
-                @Override
-                public void run() {
+          // run batfish on a task runner and release the task's capacity when done
+          _taskRunner.execute(
+              () -> {
+                try {
                   task.setStatus(TaskStatus.InProgress);
                   if (runBatfish(settings)) {
                     task.setStatus(TaskStatus.TerminatedNormally);
@@ -442,20 +669,26 @@ public class Driver {
                   }
                   task.setTerminated();
                   jobLogger.close();
-                  makeIdle();
+                } finally {
+                  releaseTask(heavy, heavyTaskTestrig);
                 }
-              };
-
-          thread.start();
+              });
 
           return Arrays.asList(BfConsts.SVC_SUCCESS_KEY, "running now");
         } catch (Exception e) {
           _mainLogger.error("Exception while running task: " + e.getMessage());
-          makeIdle();
+          releaseTask(heavy, heavyTaskTestrig);
           return Arrays.asList(BfConsts.SVC_FAILURE_KEY, e.getMessage());
         }
       } else {
-        return Arrays.asList(BfConsts.SVC_FAILURE_KEY, "Not idle");
+        unlockHeavyTaskTestrig(heavyTaskTestrig);
+        return Arrays.asList(
+            BfConsts.SVC_BUSY_KEY,
+            String.format(
+                "Insufficient capacity: %d of %d tasks running, %d MB reserved",
+                _capacity.getRunningTasks(),
+                _capacity.getMaxTasks(),
+                _capacity.getReservedHeap() / (1024 * 1024)));
       }
     } else {
       return Arrays.asList(BfConsts.SVC_FAILURE_KEY, "Non-executable command");
@@ -517,4 +750,12 @@ public class Driver {
       }
     }
   }
+
+  private static void unlockHeavyTaskTestrig(@Nullable Path testrig) {
+    if (testrig != null) {
+      synchronized (HEAVY_TASK_TESTRIGS) {
+        HEAVY_TASK_TESTRIGS.remove(testrig);
+      }
+    }
+  }
 }
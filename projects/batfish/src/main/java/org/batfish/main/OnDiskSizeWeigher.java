@@ -0,0 +1,47 @@
+package org.batfish.main;
+
+import com.google.common.cache.Weigher;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Function;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Weighs a cached artifact by an estimate of the heap it retains, derived from the size of the
+ * serialized file or directory it is loaded from. Weights are in KB, so that caches of many GB can
+ * be bounded with {@code int} weights.
+ */
+final class OnDiskSizeWeigher<K, V> implements Weigher<K, V> {
+
+  /**
+   * Rough ratio of retained heap to compressed serialized size. Measuring the retained heap of an
+   * object graph is too slow to do on every insertion, so weights are scaled from the size on disk.
+   */
+  static final int HEAP_BYTES_PER_DISK_BYTE = 10;
+
+  /** Returns the size in bytes of the file, or of all files under the directory, at {@code path} */
+  static long diskSize(Path path) {
+    if (!Files.exists(path)) {
+      return 0L;
+    }
+    try {
+      return FileUtils.sizeOf(path.toFile());
+    } catch (IllegalArgumentException e) {
+      // deleted concurrently
+      return 0L;
+    }
+  }
+
+  private final Function<K, Path> _serializedPath;
+
+  /** @param serializedPath Gives the path that the artifact cached for a key is loaded from */
+  OnDiskSizeWeigher(Function<K, Path> serializedPath) {
+    _serializedPath = serializedPath;
+  }
+
+  @Override
+  public int weigh(K key, V value) {
+    long estimatedKb = diskSize(_serializedPath.apply(key)) * HEAP_BYTES_PER_DISK_BYTE / 1024;
+    return (int) Math.max(1L, Math.min(Integer.MAX_VALUE, estimatedKb));
+  }
+}
@@ -0,0 +1,483 @@
+package org.batfish.main;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.batfish.common.BatfishException;
+import org.batfish.common.BatfishLogger;
+import org.batfish.common.BatfishLogger.BatfishLoggerHistory;
+import org.batfish.common.ParseTreeSentences;
+import org.batfish.common.Version;
+import org.batfish.common.Warnings;
+import org.batfish.config.Settings;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.GenericConfigObject;
+import org.batfish.datamodel.answers.ConvertConfigurationAnswerElement;
+import org.batfish.datamodel.answers.ParseVendorConfigurationAnswerElement;
+import org.batfish.job.ConvertConfigurationResult;
+import org.batfish.job.ParseVendorConfigurationResult;
+import org.batfish.vendor.VendorConfiguration;
+
+/**
+ * A content-addressed cache of parse and conversion results, shared by the testrigs of a
+ * container.
+ *
+ * <p>A parse result is stored under a hash of the configuration file's path and text, its format,
+ * the settings that affect parsing and the Batfish version. A conversion result is stored under a
+ * hash of the serialized vendor configuration it was converted from, the settings that affect
+ * conversion and the Batfish version. Only successful results are cached, so failures are always
+ * reported afresh. Unreadable entries are ignored one by one.
+ *
+ * <p>Entries are written under a temporary name and renamed into place, so that concurrent runs
+ * never read a partially written entry. Once the entries take more disk space than {@link
+ * Settings#getParseCacheMb}, the least recently used ones are deleted.
+ */
+final class ParseCache {
+
+  private static final class ConvertEntry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ConvertConfigurationAnswerElement _answerElement;
+
+    private final Configuration _configuration;
+
+    private final Warnings _warnings;
+
+    private ConvertEntry(
+        Configuration configuration,
+        Warnings warnings,
+        ConvertConfigurationAnswerElement answerElement) {
+      _answerElement = answerElement;
+      _configuration = configuration;
+      _warnings = warnings;
+    }
+  }
+
+  private static final class ParseEntry implements Serializable {
+
+    private static final long serialVersionUID = 2L;
+
+    private final boolean _llFallback;
+
+    private final ParseTreeSentences _parseTree;
+
+    private final boolean _unrecognized;
+
+    private final VendorConfiguration _vendorConfiguration;
+
+    private final Warnings _warnings;
+
+    private ParseEntry(
+        VendorConfiguration vendorConfiguration,
+        boolean unrecognized,
+        Warnings warnings,
+        ParseTreeSentences parseTree,
+        boolean llFallback) {
+      _llFallback = llFallback;
+      _parseTree = parseTree;
+      _unrecognized = unrecognized;
+      _vendorConfiguration = vendorConfiguration;
+      _warnings = warnings;
+    }
+  }
+
+  private static final String CONVERT_DIR = "convert";
+
+  private static final String PARSE_DIR = "parse";
+
+  private static final String TMP_SUFFIX = ".tmp";
+
+  /** Returns the names of the files in {@code files} that occur more than once. */
+  static Set<String> ambiguousFileNames(Collection<Path> files) {
+    Set<String> seen = new HashSet<>();
+    Set<String> ambiguous = new HashSet<>();
+    for (Path file : files) {
+      String fileName = file.getFileName().toString();
+      if (!seen.add(fileName)) {
+        ambiguous.add(fileName);
+      }
+    }
+    return ambiguous;
+  }
+
+  private final Batfish _batfish;
+
+  private final String _convertSettings;
+
+  private final Path _dir;
+
+  private final BatfishLogger _logger;
+
+  private final long _maxBytes;
+
+  private final String _parseSettings;
+
+  ParseCache(Batfish batfish, Path dir) {
+    _batfish = batfish;
+    _dir = dir;
+    _logger = batfish.getLogger();
+    Settings settings = batfish.getSettings();
+    _maxBytes = settings.getParseCacheMb() * 1024L * 1024L;
+    _convertSettings =
+        String.join(
+            ",",
+            Version.getVersion(),
+            settings.getLogLevel(),
+            Boolean.toString(settings.getPedanticAsError()),
+            Boolean.toString(settings.getPedanticRecord()),
+            Boolean.toString(settings.getRedFlagAsError()),
+            Boolean.toString(settings.getRedFlagRecord()),
+            Boolean.toString(settings.getUnimplementedAsError()),
+            Boolean.toString(settings.getUnimplementedRecord()));
+    _parseSettings =
+        String.join(
+            ",",
+            _convertSettings,
+            settings.ignoreFilesWithStrings().toString(),
+            Boolean.toString(settings.flattenOnTheFly()),
+            Boolean.toString(settings.getDisableUnrecognized()),
+            Boolean.toString(settings.getUnrecognizedAsRedFlag()),
+            Boolean.toString(settings.ignoreUnknown()),
+            Boolean.toString(settings.ignoreUnsupported()),
+            Boolean.toString(settings.printParseTree()),
+            Boolean.toString(settings.getThrowOnLexerError()),
+            Boolean.toString(settings.getThrowOnParserError()),
+            Integer.toString(settings.getMaxParserContextLines()),
+            Integer.toString(settings.getMaxParserContextTokens()));
+  }
+
+  /**
+   * Deletes the least recently used entries, and leftovers of interrupted writes, until all files in
+   * the cache fit in the configured disk space.
+   */
+  private void evict() {
+    Map<Path, BasicFileAttributes> attributes = new HashMap<>();
+    long totalBytes = 0L;
+    for (String subdir : new String[] {CONVERT_DIR, PARSE_DIR}) {
+      Path dir = _dir.resolve(subdir);
+      if (!Files.isDirectory(dir)) {
+        continue;
+      }
+      try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+        for (Path file : files) {
+          BasicFileAttributes fileAttributes =
+              Files.readAttributes(file, BasicFileAttributes.class);
+          attributes.put(file, fileAttributes);
+          totalBytes += fileAttributes.size();
+        }
+      } catch (IOException e) {
+        _logger.warnf("Could not list parse cache entries: %s\n", e.getMessage());
+        return;
+      }
+    }
+    if (totalBytes <= _maxBytes) {
+      return;
+    }
+    List<Path> leastRecentlyUsed = new ArrayList<>(attributes.keySet());
+    leastRecentlyUsed.sort(
+        Comparator.comparing((Path file) -> attributes.get(file).lastModifiedTime()));
+    int evicted = 0;
+    for (Path file : leastRecentlyUsed) {
+      if (totalBytes <= _maxBytes) {
+        break;
+      }
+      try {
+        // another run may have evicted it already
+        Files.deleteIfExists(file);
+        totalBytes -= attributes.get(file).size();
+        evicted++;
+      } catch (IOException e) {
+        _logger.warnf("Could not delete parse cache entry: %s\n", e.getMessage());
+      }
+    }
+    _logger.infof("Evicted %d parse cache entries\n", evicted);
+  }
+
+  /** Returns the path of the cache entry for each serialized vendor configuration. */
+  Map<Path, Path> getConvertEntries(Collection<Path> serializedVendorConfigs) {
+    return serializedVendorConfigs
+        .parallelStream()
+        .collect(
+            Collectors.toMap(
+                path -> path,
+                path -> {
+                  try {
+                    Hasher hasher = Hashing.sha256().newHasher();
+                    hasher.putString(_convertSettings, StandardCharsets.UTF_8).putChar('\0');
+                    hasher.putBytes(Files.readAllBytes(path));
+                    return _dir.resolve(CONVERT_DIR).resolve(hasher.hash().toString());
+                  } catch (IOException e) {
+                    throw new BatfishException("Could not read: '" + path + "'", e);
+                  }
+                }));
+  }
+
+  /**
+   * Returns the path of the cache entry for each configuration file in {@code configurationData},
+   * which maps each file to its text.
+   */
+  Map<Path, Path> getParseEntries(
+      Map<Path, String> configurationData, ConfigurationFormat format, Path basePath) {
+    return configurationData
+        .entrySet()
+        .parallelStream()
+        .collect(
+            Collectors.toMap(
+                Entry::getKey,
+                fileText -> {
+                  Hasher hasher = Hashing.sha256().newHasher();
+                  hasher.putString(_parseSettings, StandardCharsets.UTF_8).putChar('\0');
+                  hasher.putString(format.toString(), StandardCharsets.UTF_8).putChar('\0');
+                  hasher
+                      .putString(
+                          basePath.relativize(fileText.getKey()).toString(), StandardCharsets.UTF_8)
+                      .putChar('\0');
+                  hasher.putString(fileText.getValue(), StandardCharsets.UTF_8);
+                  return _dir.resolve(PARSE_DIR).resolve(hasher.hash().toString());
+                }));
+  }
+
+  /** Deserializes the existing entries among {@code entries}, keyed by the same keys. */
+  private <K, S extends Serializable> Map<K, S> load(Map<K, Path> entries, Class<S> entryClass) {
+    Map<Path, String> namesByPath = new HashMap<>();
+    Map<String, K> keysByName = new HashMap<>();
+    entries.forEach(
+        (key, entryPath) -> {
+          if (Files.exists(entryPath)) {
+            String name = entryPath.getFileName().toString();
+            namesByPath.put(entryPath, name);
+            keysByName.put(name, key);
+          }
+        });
+    Map<K, S> loaded = new HashMap<>();
+    if (namesByPath.isEmpty()) {
+      return loaded;
+    }
+    SortedMap<String, S> entriesByName;
+    try {
+      entriesByName = _batfish.deserializeObjects(namesByPath, entryClass);
+    } catch (BatfishException e) {
+      // e.g., written by an incompatible version; find out which entries are affected
+      entriesByName = loadEach(namesByPath, entryClass);
+    }
+    entriesByName.forEach((name, entry) -> loaded.put(keysByName.get(name), entry));
+    // mark the entries as recently used so that they are evicted last
+    FileTime now = FileTime.fromMillis(System.currentTimeMillis());
+    for (K key : loaded.keySet()) {
+      try {
+        Files.setLastModifiedTime(entries.get(key), now);
+      } catch (IOException e) {
+        // evicted by another run in the meantime; the entry is already loaded
+      }
+    }
+    _logger.infof("Reusing %d of %d cached results\n", loaded.size(), entries.size());
+    return loaded;
+  }
+
+  /**
+   * Deserializes the entries in {@code namesByPath} one at a time, skipping the unreadable ones,
+   * which are overwritten when their results are stored again.
+   */
+  private <S extends Serializable> SortedMap<String, S> loadEach(
+      Map<Path, String> namesByPath, Class<S> entryClass) {
+    SortedMap<String, S> loaded = new TreeMap<>();
+    namesByPath.forEach(
+        (entryPath, name) -> {
+          try {
+            loaded.putAll(
+                _batfish.deserializeObjects(
+                    Collections.singletonMap(entryPath, name), entryClass));
+          } catch (BatfishException e) {
+            _logger.warnf(
+                "Ignoring unreadable parse cache entry '%s': %s\n", entryPath, e.getMessage());
+          }
+        });
+    return loaded;
+  }
+
+  /**
+   * Returns the cached conversion result of each serialized vendor configuration in {@code
+   * entries} that has one, keyed by the name of the configuration in {@code namesByPath}.
+   */
+  Map<String, ConvertConfigurationResult> loadConvertResults(
+      Map<Path, Path> entries, Map<Path, String> namesByPath) {
+    Map<String, ConvertConfigurationResult> results = new TreeMap<>();
+    load(entries, ConvertEntry.class)
+        .forEach(
+            (path, entry) -> {
+              String name = namesByPath.get(path);
+              SortedMap<String, Configuration> configurations = new TreeMap<>();
+              configurations.put(name, entry._configuration);
+              results.put(
+                  name,
+                  new ConvertConfigurationResult(
+                      0L,
+                      new BatfishLoggerHistory(),
+                      entry._warnings,
+                      name,
+                      configurations,
+                      entry._answerElement));
+            });
+    return results;
+  }
+
+  /** Returns the cached parse result of each file in {@code entries} that has one. */
+  Map<Path, ParseVendorConfigurationResult> loadParseResults(Map<Path, Path> entries) {
+    Map<Path, ParseVendorConfigurationResult> results = new TreeMap<>();
+    load(entries, ParseEntry.class)
+        .forEach(
+            (file, entry) -> {
+              VendorConfiguration vc = entry._vendorConfiguration;
+              vc.setUnrecognized(entry._unrecognized);
+              results.put(
+                  file,
+                  new ParseVendorConfigurationResult(
+                      0L,
+                      new BatfishLoggerHistory(),
+                      file,
+                      vc,
+                      entry._warnings,
+                      entry._parseTree,
+                      null,
+                      entry._llFallback));
+            });
+    return results;
+  }
+
+  private <S extends Serializable> void store(Map<Path, S> entriesByPath) {
+    if (entriesByPath.isEmpty()) {
+      return;
+    }
+    String tmpSuffix = "." + UUID.randomUUID() + TMP_SUFFIX;
+    Map<Path, Path> tmpPaths = new HashMap<>();
+    Map<Path, S> entriesByTmpPath = new HashMap<>();
+    entriesByPath.forEach(
+        (entryPath, entry) -> {
+          Path tmpPath = entryPath.resolveSibling(entryPath.getFileName() + tmpSuffix);
+          tmpPaths.put(entryPath, tmpPath);
+          entriesByTmpPath.put(tmpPath, entry);
+        });
+    try {
+      Files.createDirectories(entriesByPath.keySet().iterator().next().getParent());
+      _batfish.serializeObjects(entriesByTmpPath);
+      for (Entry<Path, Path> entryAndTmpPath : tmpPaths.entrySet()) {
+        Files.move(
+            entryAndTmpPath.getValue(),
+            entryAndTmpPath.getKey(),
+            StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException | BatfishException e) {
+      // the cache only saves work, so failing to fill it is not an error
+      _logger.warnf("Could not store parse cache entries: %s\n", e.getMessage());
+    } finally {
+      for (Path tmpPath : tmpPaths.values()) {
+        try {
+          Files.deleteIfExists(tmpPath);
+        } catch (IOException e) {
+          // evicted later on
+        }
+      }
+    }
+    evict();
+  }
+
+  /**
+   * Stores the conversion results of the vendor configurations in {@code entries}, which must not
+   * have been post-processed yet. AWS configurations, which are converted to several
+   * configurations at once, are not cached.
+   */
+  void storeConvertResults(
+      Map<Path, Path> entries,
+      Map<Path, String> namesByPath,
+      Map<String, GenericConfigObject> vendorConfigurations,
+      Map<String, Configuration> configurations,
+      ConvertConfigurationAnswerElement answerElement) {
+    Map<Path, ConvertEntry> entriesByPath = new HashMap<>();
+    entries.forEach(
+        (path, entryPath) -> {
+          String name = namesByPath.get(path);
+          Configuration configuration = configurations.get(name);
+          if (!(vendorConfigurations.get(name) instanceof VendorConfiguration)
+              || configuration == null
+              || answerElement.getFailed().contains(name)) {
+            return;
+          }
+          ConvertConfigurationAnswerElement hostAnswerElement =
+              new ConvertConfigurationAnswerElement();
+          if (answerElement.getUndefinedReferences().containsKey(name)) {
+            hostAnswerElement
+                .getUndefinedReferences()
+                .put(name, answerElement.getUndefinedReferences().get(name));
+          }
+          if (answerElement.getUnusedStructures().containsKey(name)) {
+            hostAnswerElement
+                .getUnusedStructures()
+                .put(name, answerElement.getUnusedStructures().get(name));
+          }
+          Warnings warnings = answerElement.getWarnings().getOrDefault(name, new Warnings());
+          entriesByPath.put(entryPath, new ConvertEntry(configuration, warnings, hostAnswerElement));
+        });
+    store(entriesByPath);
+  }
+
+  /**
+   * Stores the parse results of the files in {@code entries}, found among {@code
+   * vendorConfigurations} by file name. Results whose file name is ambiguous are not cached.
+   */
+  void storeParseResults(
+      Map<Path, Path> entries,
+      Map<String, VendorConfiguration> vendorConfigurations,
+      ParseVendorConfigurationAnswerElement answerElement,
+      Set<String> ambiguousFileNames) {
+    Map<String, Path> entriesByFileName = new HashMap<>();
+    entries.forEach(
+        (file, entryPath) -> {
+          String fileName = file.getFileName().toString();
+          if (!ambiguousFileNames.contains(fileName)) {
+            entriesByFileName.put(fileName, entryPath);
+          }
+        });
+    Map<Path, ParseEntry> entriesByPath = new HashMap<>();
+    vendorConfigurations.forEach(
+        (hostname, vc) -> {
+          Path entryPath = entriesByFileName.get(vc.getFilename());
+          if (entryPath == null) {
+            return;
+          }
+          Warnings warnings = answerElement.getWarnings().getOrDefault(hostname, new Warnings());
+          ParseTreeSentences parseTree =
+              answerElement.getParseTrees().getOrDefault(hostname, new ParseTreeSentences());
+          boolean llFallback = answerElement.getLlFallbacks().contains(hostname);
+          entriesByPath.put(
+              entryPath,
+              new ParseEntry(vc, vc.getUnrecognized(), warnings, parseTree, llFallback));
+        });
+    store(entriesByPath);
+  }
+
+}
@@ -1,9 +1,13 @@
 package org.batfish.main;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheStats;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
@@ -14,6 +18,7 @@ import org.batfish.common.BfConsts;
 import org.batfish.common.BfConsts.TaskStatus;
 import org.batfish.common.Task;
 import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
 import org.codehaus.jettison.json.JSONObject;
 
 @Path(BfConsts.SVC_BASE_RSC)
@@ -31,15 +36,39 @@ public class Service {
                 + "methods"));
   }
 
+  private static JSONObject getCacheStatistics() throws JSONException {
+    JSONObject caches = new JSONObject();
+    for (Entry<String, Cache<?, ?>> entry : Driver.getCaches().entrySet()) {
+      Cache<?, ?> cache = entry.getValue();
+      CacheStats stats = cache.stats();
+      caches.put(
+          entry.getKey(),
+          new JSONObject()
+              .put("entries", cache.size())
+              .put("hits", stats.hitCount())
+              .put("misses", stats.missCount())
+              .put("evictions", stats.evictionCount())
+              .put("loads", stats.loadCount())
+              .put("loadTimeMs", TimeUnit.NANOSECONDS.toMillis(stats.totalLoadTime())));
+    }
+    return caches;
+  }
+
   @GET
   @Path(BfConsts.SVC_GET_STATUS_RSC)
   @Produces(MediaType.APPLICATION_JSON)
   public JSONArray getStatus() {
     try {
-      return new JSONArray(
-          Arrays.asList(
-              BfConsts.SVC_SUCCESS_KEY,
-              (new JSONObject().put("idle", Driver.getIdle())).toString()));
+      WorkerCapacity capacity = Driver.getCapacity();
+      // idle means the worker admits more work, which may still be refused if it is heavy
+      JSONObject status =
+          new JSONObject()
+              .put("idle", capacity.canAdmitLightTask())
+              .put(BfConsts.SVC_SLOTS_KEY, capacity.getMaxTasks())
+              .put(BfConsts.SVC_FREE_SLOTS_KEY, capacity.getFreeSlots())
+              .put(BfConsts.SVC_RUNNING_TASKS_KEY, capacity.getRunningTasks())
+              .put(BfConsts.SVC_CACHES_KEY, getCacheStatistics());
+      return new JSONArray(Arrays.asList(BfConsts.SVC_SUCCESS_KEY, status.toString()));
     } catch (Exception e) {
       return new JSONArray(Arrays.asList(BfConsts.SVC_FAILURE_KEY, e.getMessage()));
     }
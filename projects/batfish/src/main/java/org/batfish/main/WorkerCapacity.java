@@ -0,0 +1,107 @@
+package org.batfish.main;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Decides whether a worker can take on another task. A task is admitted if a task slot is free and
+ * the heap it is estimated to need is available: it must fit both beside the estimates of the
+ * tasks already running, and in the heap that is currently free. Tasks that parse configurations
+ * or compute a data plane are heavy; tasks that answer questions about already computed data are
+ * light. A worker that runs no task always admits one, so that no task can be refused forever.
+ */
+public final class WorkerCapacity {
+
+  /** Returns the heap not currently used by live or garbage objects, in bytes */
+  public static long currentFreeHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    return runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+  }
+
+  private final LongSupplier _freeHeap;
+
+  private final long _heavyTaskHeap;
+
+  private final long _lightTaskHeap;
+
+  private final long _maxHeap;
+
+  private final int _maxTasks;
+
+  private long _reservedHeap;
+
+  private int _runningTasks;
+
+  /**
+   * @param maxTasks The number of task slots
+   * @param heavyTaskHeap The heap in bytes reserved for each running heavy task
+   * @param lightTaskHeap The heap in bytes reserved for each running light task
+   * @param maxHeap The heap in bytes that the reservations of all running tasks must fit in
+   * @param freeHeap Supplies the heap in bytes that is currently free
+   */
+  public WorkerCapacity(
+      int maxTasks, long heavyTaskHeap, long lightTaskHeap, long maxHeap, LongSupplier freeHeap) {
+    _freeHeap = freeHeap;
+    _heavyTaskHeap = heavyTaskHeap;
+    _lightTaskHeap = lightTaskHeap;
+    _maxHeap = maxHeap;
+    _maxTasks = maxTasks;
+  }
+
+  private boolean canAdmit(long estimatedHeap) {
+    if (_runningTasks >= _maxTasks) {
+      return false;
+    }
+    if (_runningTasks == 0) {
+      return true;
+    }
+    return _reservedHeap + estimatedHeap <= _maxHeap && _freeHeap.getAsLong() >= estimatedHeap;
+  }
+
+  /** Returns whether a light task would currently be admitted */
+  public synchronized boolean canAdmitLightTask() {
+    return canAdmit(_lightTaskHeap);
+  }
+
+  private long estimatedHeap(boolean heavy) {
+    return heavy ? _heavyTaskHeap : _lightTaskHeap;
+  }
+
+  public synchronized int getFreeSlots() {
+    return _maxTasks - _runningTasks;
+  }
+
+  public int getMaxTasks() {
+    return _maxTasks;
+  }
+
+  /** Returns the heap in bytes reserved by the running tasks */
+  public synchronized long getReservedHeap() {
+    return _reservedHeap;
+  }
+
+  public synchronized int getRunningTasks() {
+    return _runningTasks;
+  }
+
+  /** Releases the slot and heap reserved by an admitted task once it has finished. */
+  public synchronized void release(boolean heavy) {
+    _runningTasks--;
+    _reservedHeap -= estimatedHeap(heavy);
+  }
+
+  /**
+   * Admits a task if there is capacity for it, reserving a slot and its estimated heap until
+   * {@link #release(boolean)} is called with the same {@code heavy} flag.
+   *
+   * @return whether the task was admitted
+   */
+  public synchronized boolean tryAdmit(boolean heavy) {
+    long estimatedHeap = estimatedHeap(heavy);
+    if (!canAdmit(estimatedHeap)) {
+      return false;
+    }
+    _runningTasks++;
+    _reservedHeap += estimatedHeap;
+    return true;
+  }
+}
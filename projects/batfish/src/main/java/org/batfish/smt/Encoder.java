@@ -63,6 +63,8 @@ public class Encoder {
 
   private int _encodingId;
 
+  private long _encodingTime;
+
   private boolean _modelIgp;
 
   private HeaderQuestion _question;
@@ -128,6 +130,7 @@ public class Encoder {
       @Nullable Solver solver,
       @Nullable Map<String, Expr> vars,
       int id) {
+    long start = System.currentTimeMillis();
     _graph = graph;
     _previousEncoder = enc;
     _modelIgp = true;
@@ -186,6 +189,7 @@ public class Encoder {
     initConfigurations();
     initFailedLinkVariables();
     initSlices(_question.getHeaderSpace(), graph);
+    _encodingTime = System.currentTimeMillis() - start;
   }
 
   /*
@@ -780,16 +784,18 @@ public class Encoder {
     long time = System.currentTimeMillis() - start;
 
     VerificationStats stats =
-        new VerificationStats(numNodes, numEdges, numVariables, numConstraints, time);
+        new VerificationStats(
+            numNodes, numEdges, numVariables, numConstraints, _encodingTime, time);
 
     if (ENABLE_DEBUGGING) {
       System.out.println("Constraints: " + stats.getNumConstraints());
       System.out.println("Variables: " + stats.getNumVariables());
+      System.out.println("Encoding Time: " + stats.getEncodingTime());
       System.out.println("Z3 Time: " + stats.getTime());
     }
 
     if (status == Status.UNSATISFIABLE) {
-      VerificationResult res = new VerificationResult(true, null, null, null, null, null);
+      VerificationResult res = new VerificationResult(true, null, null, null, null, null, stats);
       return new Tuple<>(res, null);
     } else if (status == Status.UNKNOWN) {
       throw new BatfishException("ERROR: satisfiability unknown");
@@ -810,7 +816,8 @@ public class Encoder {
               _previousEncoder, m, model, packetModel, fwdModel, envModel, failures);
         }
 
-        result = new VerificationResult(false, model, packetModel, envModel, fwdModel, failures);
+        result = new VerificationResult(
+                false, model, packetModel, envModel, fwdModel, failures, stats);
 
         if (!_question.getMinimize()) {
           break;
@@ -837,6 +844,7 @@ public class Encoder {
    * network. This should be called prior to calling the <b>verify method</b>
    */
   public void computeEncoding() {
+    long start = System.currentTimeMillis();
     addFailedConstraints(_question.getFailures());
     getMainSlice().computeEncoding();
     _slices.forEach(
@@ -845,6 +853,7 @@ public class Encoder {
             slice.computeEncoding();
           }
         });
+    _encodingTime += System.currentTimeMillis() - start;
   }
 
   /*
@@ -880,6 +889,11 @@ public class Encoder {
     return _question.getNoEnvironment();
   }
 
+  /** Returns the time in milliseconds spent building the encoding checked by this encoder. */
+  public long getEncodingTime() {
+    return _encodingTime;
+  }
+
   public int getId() {
     return _encodingId;
   }
@@ -916,6 +930,10 @@ public class Encoder {
     return _question;
   }
 
+  void setEncodingTime(long encodingTime) {
+    _encodingTime = encodingTime;
+  }
+
   public void setQuestion(HeaderQuestion question) {
     this._question = question;
   }
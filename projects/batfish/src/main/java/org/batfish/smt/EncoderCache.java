@@ -0,0 +1,84 @@
+package org.batfish.smt;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.microsoft.z3.Expr;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import org.apache.commons.lang.SerializationUtils;
+import org.batfish.common.BatfishException;
+import org.batfish.datamodel.HeaderSpace;
+import org.batfish.datamodel.questions.smt.HeaderQuestion;
+
+/**
+ * Keeps the base network encodings of a single testrig, so that repeated questions about the same
+ * testrig only have to encode the property they check.
+ *
+ * <p>The base encoding of a question is the output of {@link Encoder#computeEncoding()}, which
+ * depends only on the headerspace, the number of failures and whether the environment is modeled.
+ * A property is checked inside a solver scope of the cached encoder, which is discarded once the
+ * check completes, together with any variables the property added.
+ */
+public class EncoderCache {
+
+  private static final int MAX_CACHED_ENCODERS = 4;
+
+  private final Cache<List<Object>, Encoder> _encoders;
+
+  private final Graph _graph;
+
+  public EncoderCache(Graph graph) {
+    _encoders = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_ENCODERS).build();
+    _graph = graph;
+  }
+
+  /**
+   * Applies {@code check} to an encoder holding the base encoding for {@code q}, computing the
+   * encoding first if it is not cached. Any constraints and variables {@code check} adds are
+   * removed again afterwards.
+   */
+  public <T> T check(HeaderQuestion q, Function<Encoder, T> check) {
+    HeaderSpace headerSpace = (HeaderSpace) SerializationUtils.clone(q.getHeaderSpace());
+    List<Object> key = Arrays.asList(headerSpace, q.getFailures(), q.getNoEnvironment());
+    boolean[] cached = {true};
+    Encoder enc;
+    try {
+      enc =
+          _encoders.get(
+              key,
+              () -> {
+                cached[0] = false;
+                Encoder encoder = new Encoder(_graph, q);
+                encoder.computeEncoding();
+                return encoder;
+              });
+    } catch (ExecutionException e) {
+      throw new BatfishException("Could not compute network encoding", e.getCause());
+    }
+    // Z3 objects are not thread-safe, so one check uses an encoder at a time
+    synchronized (enc) {
+      if (cached[0]) {
+        enc.setEncodingTime(0L);
+      }
+      enc.setQuestion(q);
+      // properties register their variables, which must not outlive the solver scope either
+      Map<String, Expr> baseVariables = new HashMap<>(enc.getAllVariables());
+      enc.getSolver().push();
+      try {
+        return check.apply(enc);
+      } finally {
+        enc.getSolver().pop();
+        enc.getAllVariables().clear();
+        enc.getAllVariables().putAll(baseVariables);
+      }
+    }
+  }
+
+  public Graph getGraph() {
+    return _graph;
+  }
+}
@@ -38,8 +38,6 @@ public class Graph {
 
   private static final String NULL_INTERFACE_NAME = "null_interface";
 
-  private IBatfish _batfish;
-
   private Map<String, Configuration> _configurations;
 
   private Map<String, Set<Long>> _areaIds;
@@ -73,8 +71,7 @@ public class Graph {
    * Create a graph, while selecting the subset of routers to use.
    */
   public Graph(IBatfish batfish, @Nullable Set<String> routers) {
-    _batfish = batfish;
-    _configurations = new HashMap<>(_batfish.loadConfigurations());
+    _configurations = new HashMap<>(batfish.loadConfigurations());
     _edgeMap = new HashMap<>();
     _otherEnd = new HashMap<>();
     _areaIds = new HashMap<>();
@@ -100,7 +97,7 @@ public class Graph {
       }
     }
 
-    initGraph();
+    initGraph(batfish.computeTopology(_configurations));
     initStaticRoutes();
     initEbgpNeighbors();
     initIbgpNeighbors();
@@ -111,8 +108,7 @@ public class Graph {
    * Initialize the topology by inferring interface pairs and
    * create the opposite edge mapping.
    */
-  private void initGraph() {
-    Topology topology = _batfish.computeTopology(_configurations);
+  private void initGraph(Topology topology) {
     Map<NodeInterfacePair, Interface> ifaceMap = new HashMap<>();
     Map<String, Set<NodeInterfacePair>> routerIfaceMap = new HashMap<>();
 
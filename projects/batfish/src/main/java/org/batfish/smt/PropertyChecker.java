@@ -18,6 +18,7 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 import javax.annotation.Nullable;
 import org.batfish.common.BatfishException;
@@ -46,16 +47,20 @@ import org.batfish.smt.utils.Tuple;
  */
 public class PropertyChecker {
 
+  /*
+   * Upper bound on the number of router pairs compared in one Z3 context. Longer runs share more
+   * encodings, but every check has to consider all routers encoded in the context so far.
+   */
+  private static final int MAX_LOCAL_CONSISTENCY_RUN_LENGTH = 8;
+
   /*
    * Compute the forwarding behavior for the network. This adds no additional
    * constraints on top of the base network encoding. Forwarding will be
    * determined only for a particular network environment, failure scenario,
    * and data plane packet.
    */
-  public static AnswerElement computeForwarding(IBatfish batfish, HeaderQuestion q) {
-    Encoder encoder = new Encoder(batfish, q);
-    encoder.computeEncoding();
-    VerificationResult result = encoder.verify().getFirst();
+  public static AnswerElement computeForwarding(EncoderCache cache, HeaderQuestion q) {
+    VerificationResult result = cache.check(q, encoder -> encoder.verify().getFirst());
     SmtOneAnswerElement answer = new SmtOneAnswerElement();
     answer.setResult(result);
     return answer;
@@ -113,16 +118,27 @@ public class PropertyChecker {
    * Compute if a collection of source routers can reach a collection of destination
    * ports. This is broken up into multiple queries, one for each destination port.
    */
-  public static AnswerElement computeReachability(IBatfish batfish, HeaderLocationQuestion q) {
+  public static AnswerElement computeReachability(EncoderCache cache, HeaderLocationQuestion q) {
 
     PathRegexes p = new PathRegexes(q);
-    Graph graph = new Graph(batfish);
+    Graph graph = cache.getGraph();
     Set<GraphEdge> destPorts = findFinalInterfaces(graph, p);
     List<String> sourceRouters = PatternUtils.findMatchingSourceNodes(graph, p);
     inferDestinationHeaderSpace(graph, destPorts, q);
 
-    Encoder enc = new Encoder(graph, q);
-    enc.computeEncoding();
+    return cache.check(q, enc -> checkReachability(enc, q, destPorts, sourceRouters));
+  }
+
+  /*
+   * Checks that each source router can reach the destination ports, or, for an
+   * equivalence query, that reachability is unaffected by failures.
+   */
+  private static AnswerElement checkReachability(
+      Encoder enc,
+      HeaderLocationQuestion q,
+      Set<GraphEdge> destPorts,
+      List<String> sourceRouters) {
+    Graph graph = enc.getMainSlice().getGraph();
 
     // Add reachability variables
     PropertyAdder pa = new PropertyAdder(enc.getMainSlice());
@@ -250,10 +266,16 @@ public class PropertyChecker {
    * Compute if there can ever be a black hole for routers that are
    * not at the edge of the network. This is almost certainly a bug.
    */
-  public static AnswerElement computeBlackHole(IBatfish batfish, HeaderQuestion q) {
-    Graph graph = new Graph(batfish);
-    Encoder enc = new Encoder(graph, q);
-    enc.computeEncoding();
+  public static AnswerElement computeBlackHole(EncoderCache cache, HeaderQuestion q) {
+    VerificationResult result = cache.check(q, PropertyChecker::checkBlackHole);
+
+    SmtOneAnswerElement answer = new SmtOneAnswerElement();
+    answer.setResult(result);
+    return answer;
+  }
+
+  private static VerificationResult checkBlackHole(Encoder enc) {
+    Graph graph = enc.getMainSlice().getGraph();
     Context ctx = enc.getCtx();
     EncoderSlice slice = enc.getMainSlice();
 
@@ -304,11 +326,7 @@ public class PropertyChecker {
 
     enc.add(someBlackHole);
 
-    VerificationResult result = enc.verify().getFirst();
-
-    SmtOneAnswerElement answer = new SmtOneAnswerElement();
-    answer.setResult(result);
-    return answer;
+    return enc.verify().getFirst();
   }
 
   /*
@@ -316,16 +334,23 @@ public class PropertyChecker {
    * for a collection of source routers to any of a number of destination ports.
    */
   public static AnswerElement computeBoundedLength(
-      IBatfish batfish, HeaderLocationQuestion q, int k) {
+      EncoderCache cache, HeaderLocationQuestion q, int k) {
 
     PathRegexes p = new PathRegexes(q);
-    Graph graph = new Graph(batfish);
+    Graph graph = cache.getGraph();
     Set<GraphEdge> destPorts = findFinalInterfaces(graph, p);
     List<String> sourceRouters = PatternUtils.findMatchingSourceNodes(graph, p);
     inferDestinationHeaderSpace(graph, destPorts, q);
 
-    Encoder enc = new Encoder(graph, q);
-    enc.computeEncoding();
+    VerificationResult res =
+        cache.check(q, enc -> checkBoundedLength(enc, destPorts, sourceRouters, k));
+    SmtOneAnswerElement answer = new SmtOneAnswerElement();
+    answer.setResult(res);
+    return answer;
+  }
+
+  private static VerificationResult checkBoundedLength(
+      Encoder enc, Set<GraphEdge> destPorts, List<String> sourceRouters, int k) {
     EncoderSlice slice = enc.getMainSlice();
 
     PropertyAdder pa = new PropertyAdder(slice);
@@ -341,25 +366,28 @@ public class PropertyChecker {
     }
     enc.add(allBounded);
 
-    VerificationResult res = enc.verify().getFirst();
-    SmtOneAnswerElement answer = new SmtOneAnswerElement();
-    answer.setResult(res);
-    return answer;
+    return enc.verify().getFirst();
   }
 
   /*
    * Computes whether a collection of source routers will always have
    * equal path length to destination port(s).
    */
-  public static AnswerElement computeEqualLength(IBatfish batfish, HeaderLocationQuestion q) {
+  public static AnswerElement computeEqualLength(EncoderCache cache, HeaderLocationQuestion q) {
     PathRegexes p = new PathRegexes(q);
-    Graph graph = new Graph(batfish);
+    Graph graph = cache.getGraph();
     Set<GraphEdge> destPorts = findFinalInterfaces(graph, p);
     List<String> sourceRouters = PatternUtils.findMatchingSourceNodes(graph, p);
     inferDestinationHeaderSpace(graph, destPorts, q);
 
-    Encoder enc = new Encoder(graph, q);
-    enc.computeEncoding();
+    VerificationResult res = cache.check(q, enc -> checkEqualLength(enc, destPorts, sourceRouters));
+    SmtOneAnswerElement answer = new SmtOneAnswerElement();
+    answer.setResult(res);
+    return answer;
+  }
+
+  private static VerificationResult checkEqualLength(
+      Encoder enc, Set<GraphEdge> destPorts, List<String> sourceRouters) {
     EncoderSlice slice = enc.getMainSlice();
 
     PropertyAdder pa = new PropertyAdder(slice);
@@ -374,10 +402,7 @@ public class PropertyChecker {
     BoolExpr allEqual = PropertyAdder.allEqual(ctx, lens);
     enc.add(ctx.mkNot(allEqual));
 
-    VerificationResult res = enc.verify().getFirst();
-    SmtOneAnswerElement answer = new SmtOneAnswerElement();
-    answer.setResult(res);
-    return answer;
+    return enc.verify().getFirst();
   }
 
   /*
@@ -385,11 +410,11 @@ public class PropertyChecker {
    * within some threshold k of the each other.
    */
   public static AnswerElement computeLoadBalance(
-      IBatfish batfish, HeaderLocationQuestion q, int k) {
+      EncoderCache cache, HeaderLocationQuestion q, int k) {
 
     PathRegexes p = new PathRegexes(q);
 
-    Graph graph = new Graph(batfish);
+    Graph graph = cache.getGraph();
     List<GraphEdge> destinationPorts = PatternUtils.findMatchingEdges(graph, p);
     List<String> sourceRouters = PatternUtils.findMatchingSourceNodes(graph, p);
     Map<String, List<String>> peerRouters = new HashMap<>();
@@ -419,30 +444,7 @@ public class PropertyChecker {
         q.getHeaderSpace().getDstIps().add(dst);
       }
 
-      Encoder enc = new Encoder(graph, q);
-      enc.computeEncoding();
-
-      EncoderSlice slice = enc.getMainSlice();
-
-      PropertyAdder pa = new PropertyAdder(slice);
-      Map<String, ArithExpr> loadVars = pa.instrumentLoad(ge);
-
-      Context ctx = enc.getCtx();
-
-      // TODO: add threshold
-      // All routers bounded by a particular length
-      List<Expr> peerLoads = new ArrayList<>();
-      peerRouters.forEach(
-          (router, allPeers) -> {
-            // ArithExpr load = loadVars.get(router);
-            for (String peer : allPeers) {
-              peerLoads.add(loadVars.get(peer));
-            }
-          });
-      BoolExpr evenLoads = PropertyAdder.allEqual(ctx, peerLoads);
-      enc.add(ctx.mkNot(evenLoads));
-
-      VerificationResult res = enc.verify().getFirst();
+      VerificationResult res = cache.check(q, enc -> checkLoadBalance(enc, ge, peerRouters));
       result.put(ge.getRouter() + "," + ge.getStart().getName(), res);
 
       if (addedDestination) {
@@ -455,6 +457,31 @@ public class PropertyChecker {
     return answer;
   }
 
+  private static VerificationResult checkLoadBalance(
+      Encoder enc, GraphEdge ge, Map<String, List<String>> peerRouters) {
+    EncoderSlice slice = enc.getMainSlice();
+
+    PropertyAdder pa = new PropertyAdder(slice);
+    Map<String, ArithExpr> loadVars = pa.instrumentLoad(ge);
+
+    Context ctx = enc.getCtx();
+
+    // TODO: add threshold
+    // All routers bounded by a particular length
+    List<Expr> peerLoads = new ArrayList<>();
+    peerRouters.forEach(
+        (router, allPeers) -> {
+          // ArithExpr load = loadVars.get(router);
+          for (String peer : allPeers) {
+            peerLoads.add(loadVars.get(peer));
+          }
+        });
+    BoolExpr evenLoads = PropertyAdder.allEqual(ctx, peerLoads);
+    enc.add(ctx.mkNot(evenLoads));
+
+    return enc.verify().getFirst();
+  }
+
   /*
    * Computes whether or not two routers are equivalent.
    * To be equivalent, each router must have identical intefaces.
@@ -477,7 +504,7 @@ public class PropertyChecker {
 
     Collections.sort(routers);
 
-    Map<String, VerificationResult> result = new HashMap<>();
+    Map<String, VerificationResult> result = new ConcurrentHashMap<>();
 
     int len = routers.size();
     if (len <= 1) {
@@ -486,248 +513,307 @@ public class PropertyChecker {
       return answer;
     }
 
+    // Build the graphs up front, since doing so consults batfish, and ensure that adjacent routers
+    // have the same interfaces for comparison before encoding anything
+    List<Graph> graphs = new ArrayList<>();
+    for (String router : routers) {
+      Set<String> toModel = new TreeSet<>();
+      toModel.add(router);
+      graphs.add(new Graph(batfish, toModel));
+    }
+    Pattern p = Pattern.compile(".*");
+    Pattern neg = Pattern.compile("");
     for (int i = 0; i < len - 1; i++) {
-      String r1 = routers.get(i);
-      String r2 = routers.get(i + 1);
-
-      // TODO: reorder to encode after checking if we can compare them
-
-      // Create transfer function for router 1
-      Set<String> toModel1 = new TreeSet<>();
-      toModel1.add(r1);
-      Graph g1 = new Graph(batfish, toModel1);
-      Encoder e1 = new Encoder(g1, q);
-      e1.computeEncoding();
-
-      Context ctx = e1.getCtx();
-
-      // Create transfer function for router 2
-      Set<String> toModel2 = new TreeSet<>();
-      toModel2.add(r2);
-      Graph g2 = new Graph(batfish, toModel2);
-      Encoder e2 = new Encoder(e1, g2);
-      e2.computeEncoding();
-
-      EncoderSlice slice1 = e1.getMainSlice();
-      EncoderSlice slice2 = e2.getMainSlice();
-
-      // Ensure that the two routers have the same interfaces for comparison
-      Pattern p = Pattern.compile(".*");
-      Pattern neg = Pattern.compile("");
-      List<GraphEdge> edges1 = PatternUtils.findMatchingEdges(g1, p, neg, p, neg);
-      List<GraphEdge> edges2 = PatternUtils.findMatchingEdges(g2, p, neg, p, neg);
-      Set<String> ifaces1 = interfaces(edges1);
-      Set<String> ifaces2 = interfaces(edges2);
-
+      Graph g1 = graphs.get(i);
+      Graph g2 = graphs.get(i + 1);
+      Set<String> ifaces1 = interfaces(PatternUtils.findMatchingEdges(g1, p, neg, p, neg));
+      Set<String> ifaces2 = interfaces(PatternUtils.findMatchingEdges(g2, p, neg, p, neg));
       if (!(ifaces1.containsAll(ifaces2) && ifaces2.containsAll(ifaces1))) {
-        String msg = String.format("Routers %s and %s have different interfaces", r1, r2);
+        String msg =
+            String.format(
+                "Routers %s and %s have different interfaces", routers.get(i), routers.get(i + 1));
         System.out.println(msg);
         SmtManyAnswerElement answer = new SmtManyAnswerElement();
         answer.setResult(new TreeMap<>());
         return answer;
       }
+    }
 
-      // TODO: check running same protocols?
+    // Split the adjacent pairs into runs that are checked in parallel, each in its own Z3 context
+    int numPairs = len - 1;
+    int numThreads = Runtime.getRuntime().availableProcessors();
+    int runLength =
+        Math.max(1, Math.min(MAX_LOCAL_CONSISTENCY_RUN_LENGTH, (numPairs - 1) / numThreads + 1));
+    List<Integer> runStarts = new ArrayList<>();
+    for (int i = 0; i < numPairs; i += runLength) {
+      runStarts.add(i);
+    }
+    Map<String, Long> times = new ConcurrentHashMap<>();
+    runStarts
+        .parallelStream()
+        .forEach(
+            i ->
+                computeLocalConsistency(
+                    routers,
+                    graphs,
+                    i,
+                    Math.min(i + runLength, numPairs),
+                    q,
+                    strict,
+                    result,
+                    times));
 
-      // Map<String, Map<Protocol, Map<String, EnumMap<EdgeType, LogicalEdge>>>>
-      //        lgeMap1 = logicalEdgeMap(e1);
-      Map<String, Map<Protocol, Map<String, EnumMap<EdgeType, LogicalEdge>>>> lgeMap2 =
-          logicalEdgeMap(slice2);
+    SmtManyAnswerElement answer = new SmtManyAnswerElement();
+    answer.setResult(result);
+    answer.setTimes(times);
+    return answer;
+  }
+
+  /*
+   * Compares each router in routers[start..end - 1] to the next one in a fresh Z3 context.
+   * Every router is encoded only once, on top of the encoding of the previous router, so each
+   * encoding is shared by the two comparisons it takes part in. Each comparison is made within
+   * its own solver scope, which is discarded afterwards.
+   */
+  private static void computeLocalConsistency(
+      List<String> routers,
+      List<Graph> graphs,
+      int start,
+      int end,
+      HeaderQuestion q,
+      boolean strict,
+      Map<String, VerificationResult> result,
+      Map<String, Long> times) {
+    Encoder e1 = new Encoder(graphs.get(start), q);
+    e1.computeEncoding();
+    for (int i = start; i < end; i++) {
+      long startTime = System.currentTimeMillis();
+      String r1 = routers.get(i);
+      String r2 = routers.get(i + 1);
+      Encoder e2 = new Encoder(e1, graphs.get(i + 1));
+      e2.computeEncoding();
+      e2.getSolver().push();
+      VerificationResult res;
+      try {
+        res = checkLocalConsistency(e1, e2, r1, r2, strict);
+      } finally {
+        e2.getSolver().pop();
+      }
+      String name = r1 + "<-->" + r2;
+      result.put(name, res);
+      times.put(name, System.currentTimeMillis() - startTime);
+      e1 = e2;
+    }
+  }
 
-      BoolExpr equalEnvs = ctx.mkBool(true);
-      BoolExpr equalOutputs = ctx.mkBool(true);
-      BoolExpr equalIncomingAcls = ctx.mkBool(true);
+  /*
+   * Checks that router r2, encoded by e2, makes the same decisions as router r1, encoded by e1,
+   * given equal inputs. The constraints are added to the solver shared by both encoders.
+   */
+  private static VerificationResult checkLocalConsistency(
+      Encoder e1, Encoder e2, String r1, String r2, boolean strict) {
+    Context ctx = e1.getCtx();
+    Graph g1 = e1.getMainSlice().getGraph();
+    Graph g2 = e2.getMainSlice().getGraph();
+    EncoderSlice slice1 = e1.getMainSlice();
+    EncoderSlice slice2 = e2.getMainSlice();
 
-      Configuration conf1 = g1.getConfigurations().get(r1);
-      Configuration conf2 = g2.getConfigurations().get(r2);
+    Pattern p = Pattern.compile(".*");
+    Pattern neg = Pattern.compile("");
+    List<GraphEdge> edges1 = PatternUtils.findMatchingEdges(g1, p, neg, p, neg);
+    List<GraphEdge> edges2 = PatternUtils.findMatchingEdges(g2, p, neg, p, neg);
 
-      // Set environments equal
-      Set<String> communities = new HashSet<>();
+    // TODO: check running same protocols?
 
-      Set<SymbolicRecord> envRecords = new HashSet<>();
+    // Map<String, Map<Protocol, Map<String, EnumMap<EdgeType, LogicalEdge>>>>
+    //        lgeMap1 = logicalEdgeMap(e1);
+    Map<String, Map<Protocol, Map<String, EnumMap<EdgeType, LogicalEdge>>>> lgeMap2 =
+        logicalEdgeMap(slice2);
 
-      for (Protocol proto1 : slice1.getProtocols().get(r1)) {
-        for (ArrayList<LogicalEdge> es :
-            slice1.getLogicalGraph().getLogicalEdges().get(r1).get(proto1)) {
-          for (LogicalEdge lge1 : es) {
+    BoolExpr equalEnvs = ctx.mkBool(true);
+    BoolExpr equalOutputs = ctx.mkBool(true);
+    BoolExpr equalIncomingAcls = ctx.mkBool(true);
 
-            String ifaceName = lge1.getEdge().getStart().getName();
+    Configuration conf1 = g1.getConfigurations().get(r1);
+    Configuration conf2 = g2.getConfigurations().get(r2);
 
-            LogicalEdge lge2 = lgeMap2.get(r2).get(proto1).get(ifaceName).get(lge1.getEdgeType());
+    // Set environments equal
+    Set<String> communities = new HashSet<>();
 
-            if (lge1.getEdgeType() == EdgeType.IMPORT) {
+    Set<SymbolicRecord> envRecords = new HashSet<>();
 
-              SymbolicRecord vars1 = slice1.getLogicalGraph().getEnvironmentVars().get(lge1);
-              SymbolicRecord vars2 = slice2.getLogicalGraph().getEnvironmentVars().get(lge2);
+    for (Protocol proto1 : slice1.getProtocols().get(r1)) {
+      for (ArrayList<LogicalEdge> es :
+          slice1.getLogicalGraph().getLogicalEdges().get(r1).get(proto1)) {
+        for (LogicalEdge lge1 : es) {
 
-              BoolExpr aclIn1 = slice1.getIncomingAcls().get(lge1.getEdge());
-              BoolExpr aclIn2 = slice2.getIncomingAcls().get(lge2.getEdge());
+          String ifaceName = lge1.getEdge().getStart().getName();
 
-              if (aclIn1 == null) {
-                aclIn1 = ctx.mkBool(true);
-              }
-              if (aclIn2 == null) {
-                aclIn2 = ctx.mkBool(true);
-              }
+          LogicalEdge lge2 = lgeMap2.get(r2).get(proto1).get(ifaceName).get(lge1.getEdgeType());
 
-              equalIncomingAcls = ctx.mkAnd(equalIncomingAcls, ctx.mkEq(aclIn1, aclIn2));
+          if (lge1.getEdgeType() == EdgeType.IMPORT) {
 
-              boolean hasEnv1 = (vars1 != null);
-              boolean hasEnv2 = (vars2 != null);
+            SymbolicRecord vars1 = slice1.getLogicalGraph().getEnvironmentVars().get(lge1);
+            SymbolicRecord vars2 = slice2.getLogicalGraph().getEnvironmentVars().get(lge2);
 
-              if (hasEnv1 && hasEnv2) {
-                BoolExpr samePermitted = ctx.mkEq(vars1.getPermitted(), vars2.getPermitted());
+            BoolExpr aclIn1 = slice1.getIncomingAcls().get(lge1.getEdge());
+            BoolExpr aclIn2 = slice2.getIncomingAcls().get(lge2.getEdge());
 
-                // Set communities equal
-                BoolExpr equalComms = e1.mkTrue();
-                for (Map.Entry<CommunityVar, BoolExpr> entry : vars1.getCommunities().entrySet()) {
-                  CommunityVar cvar = entry.getKey();
-                  BoolExpr ce1 = entry.getValue();
-                  BoolExpr ce2 = vars2.getCommunities().get(cvar);
-                  if (ce2 != null) {
-                    equalComms = e1.mkAnd(equalComms, e1.mkEq(ce1, ce2));
-                  }
+            if (aclIn1 == null) {
+              aclIn1 = ctx.mkBool(true);
+            }
+            if (aclIn2 == null) {
+              aclIn2 = ctx.mkBool(true);
+            }
+
+            equalIncomingAcls = ctx.mkAnd(equalIncomingAcls, ctx.mkEq(aclIn1, aclIn2));
+
+            boolean hasEnv1 = (vars1 != null);
+            boolean hasEnv2 = (vars2 != null);
+
+            if (hasEnv1 && hasEnv2) {
+              BoolExpr samePermitted = ctx.mkEq(vars1.getPermitted(), vars2.getPermitted());
+
+              // Set communities equal
+              BoolExpr equalComms = e1.mkTrue();
+              for (Map.Entry<CommunityVar, BoolExpr> entry : vars1.getCommunities().entrySet()) {
+                CommunityVar cvar = entry.getKey();
+                BoolExpr ce1 = entry.getValue();
+                BoolExpr ce2 = vars2.getCommunities().get(cvar);
+                if (ce2 != null) {
+                  equalComms = e1.mkAnd(equalComms, e1.mkEq(ce1, ce2));
                 }
+              }
 
-                // Set communities belonging to one but not the other
-                // off, but give a warning of the difference
-                BoolExpr unsetComms = e1.mkTrue();
-
-                for (Map.Entry<CommunityVar, BoolExpr> entry : vars1.getCommunities().entrySet()) {
-                  CommunityVar cvar = entry.getKey();
-                  BoolExpr ce1 = entry.getValue();
-                  BoolExpr ce2 = vars2.getCommunities().get(cvar);
-                  if (ce2 == null) {
-
-                    if (!communities.contains(cvar.getValue())) {
-                      communities.add(cvar.getValue());
-                      /* String msg =
-                       String.format(
-                           "Warning: community %s found for router %s but not %s.",
-                           cvar.getValue(), conf1.getName(), conf2.getName());
-                      System.out.println(msg); */
-                    }
-                    unsetComms = e1.mkAnd(unsetComms, e1.mkNot(ce1));
+              // Set communities belonging to one but not the other
+              // off, but give a warning of the difference
+              BoolExpr unsetComms = e1.mkTrue();
+
+              for (Map.Entry<CommunityVar, BoolExpr> entry : vars1.getCommunities().entrySet()) {
+                CommunityVar cvar = entry.getKey();
+                BoolExpr ce1 = entry.getValue();
+                BoolExpr ce2 = vars2.getCommunities().get(cvar);
+                if (ce2 == null) {
+
+                  if (!communities.contains(cvar.getValue())) {
+                    communities.add(cvar.getValue());
+                    /* String msg =
+                     String.format(
+                         "Warning: community %s found for router %s but not %s.",
+                         cvar.getValue(), conf1.getName(), conf2.getName());
+                    System.out.println(msg); */
                   }
+                  unsetComms = e1.mkAnd(unsetComms, e1.mkNot(ce1));
                 }
+              }
 
-                // Do the same thing for communities missing from the other side
-                for (Map.Entry<CommunityVar, BoolExpr> entry : vars2.getCommunities().entrySet()) {
-                  CommunityVar cvar = entry.getKey();
-                  BoolExpr ce2 = entry.getValue();
-                  BoolExpr ce1 = vars1.getCommunities().get(cvar);
-                  if (ce1 == null) {
-                    if (!communities.contains(cvar.getValue())) {
-                      communities.add(cvar.getValue());
-                      /* String msg =
-                       String.format(
-                           "Warning: community %s found for router %s but not %s.",
-                           cvar.getValue(), conf2.getName(), conf1.getName());
-                      System.out.println(msg); */
-                    }
-                    unsetComms = e1.mkAnd(unsetComms, e1.mkNot(ce2));
+              // Do the same thing for communities missing from the other side
+              for (Map.Entry<CommunityVar, BoolExpr> entry : vars2.getCommunities().entrySet()) {
+                CommunityVar cvar = entry.getKey();
+                BoolExpr ce2 = entry.getValue();
+                BoolExpr ce1 = vars1.getCommunities().get(cvar);
+                if (ce1 == null) {
+                  if (!communities.contains(cvar.getValue())) {
+                    communities.add(cvar.getValue());
+                    /* String msg =
+                     String.format(
+                         "Warning: community %s found for router %s but not %s.",
+                         cvar.getValue(), conf2.getName(), conf1.getName());
+                    System.out.println(msg); */
                   }
+                  unsetComms = e1.mkAnd(unsetComms, e1.mkNot(ce2));
                 }
+              }
 
-                envRecords.add(vars1);
+              envRecords.add(vars1);
 
-                BoolExpr equalVars = slice1.equal(conf1, proto1, vars1, vars2, lge1, true);
-                equalEnvs = ctx.mkAnd(equalEnvs, unsetComms, samePermitted, equalVars, equalComms);
+              BoolExpr equalVars = slice1.equal(conf1, proto1, vars1, vars2, lge1, true);
+              equalEnvs = ctx.mkAnd(equalEnvs, unsetComms, samePermitted, equalVars, equalComms);
 
-                //System.out.println("Unset communities: ");
-                //System.out.println(unsetComms);
+              //System.out.println("Unset communities: ");
+              //System.out.println(unsetComms);
 
-              } else if (hasEnv1 || hasEnv2) {
-                System.out.println("Edge1: " + lge1);
-                System.out.println("Edge2: " + lge2);
-                throw new BatfishException("one had environment");
-              }
+            } else if (hasEnv1 || hasEnv2) {
+              System.out.println("Edge1: " + lge1);
+              System.out.println("Edge2: " + lge2);
+              throw new BatfishException("one had environment");
+            }
 
-            } else {
+          } else {
 
-              SymbolicRecord out1 = lge1.getSymbolicRecord();
-              SymbolicRecord out2 = lge2.getSymbolicRecord();
+            SymbolicRecord out1 = lge1.getSymbolicRecord();
+            SymbolicRecord out2 = lge2.getSymbolicRecord();
 
-              equalOutputs =
-                  ctx.mkAnd(equalOutputs, slice1.equal(conf1, proto1, out1, out2, lge1, false));
-            }
+            equalOutputs =
+                ctx.mkAnd(equalOutputs, slice1.equal(conf1, proto1, out1, out2, lge1, false));
           }
         }
       }
+    }
 
-      // Ensure that there is only one active environment message if we want to
-      // check the stronger version of local equivalence
-      if (strict) {
-        for (SymbolicRecord env1 : envRecords) {
-          for (SymbolicRecord env2 : envRecords) {
-            if (!env1.equals(env2)) {
-              BoolExpr c = e2.mkImplies(env1.getPermitted(), e2.mkNot(env2.getPermitted()));
-              e2.add(c);
-            }
+    // Ensure that there is only one active environment message if we want to
+    // check the stronger version of local equivalence
+    if (strict) {
+      for (SymbolicRecord env1 : envRecords) {
+        for (SymbolicRecord env2 : envRecords) {
+          if (!env1.equals(env2)) {
+            BoolExpr c = e2.mkImplies(env1.getPermitted(), e2.mkNot(env2.getPermitted()));
+            e2.add(c);
           }
         }
       }
+    }
 
-      // TODO: check both have same environment vars (e.g., screw up configuring peer connection)
-
-      // Create assumptions
-      BoolExpr validDest;
-      validDest = ignoredDestinations(ctx, slice1, r1, conf1);
-      validDest = ctx.mkAnd(validDest, ignoredDestinations(ctx, slice2, r2, conf2));
-      SymbolicPacket p1 = slice1.getSymbolicPacket();
-      SymbolicPacket p2 = slice2.getSymbolicPacket();
-      BoolExpr equalPackets = p1.mkEqual(p2);
-      BoolExpr assumptions = ctx.mkAnd(equalEnvs, equalPackets, validDest);
-
-      // Create the requirements
-
-      // Best choices should be the same
-      BoolExpr required;
-      if (strict) {
-        SymbolicRecord best1 =
-            e1.getMainSlice().getSymbolicDecisions().getBestNeighbor().get(conf1.getName());
-        SymbolicRecord best2 =
-            e2.getMainSlice().getSymbolicDecisions().getBestNeighbor().get(conf2.getName());
-        // Just pick some protocol for defaults, shouldn't matter for best choice
-        required = equal(e2, conf2, best1, best2);
-      } else {
-        // Forwarding decisions should be the sames
-        Map<String, GraphEdge> geMap2 = interfaceMap(edges2);
-        BoolExpr sameForwarding = ctx.mkBool(true);
-        for (GraphEdge ge1 : edges1) {
-          GraphEdge ge2 = geMap2.get(ge1.getStart().getName());
-          BoolExpr dataFwd1 = slice1.getSymbolicDecisions().getDataForwarding().get(r1, ge1);
-          BoolExpr dataFwd2 = slice2.getSymbolicDecisions().getDataForwarding().get(r2, ge2);
-          assert (dataFwd1 != null);
-          assert (dataFwd2 != null);
-          sameForwarding = ctx.mkAnd(sameForwarding, ctx.mkEq(dataFwd1, dataFwd2));
-        }
-        required =
-            ctx.mkAnd(
-                sameForwarding,
-                equalOutputs); //, equalOutputs); //, equalOutputs, equalIncomingAcls);
+    // TODO: check both have same environment vars (e.g., screw up configuring peer connection)
+
+    // Create assumptions
+    BoolExpr validDest;
+    validDest = ignoredDestinations(ctx, slice1, r1, conf1);
+    validDest = ctx.mkAnd(validDest, ignoredDestinations(ctx, slice2, r2, conf2));
+    SymbolicPacket p1 = slice1.getSymbolicPacket();
+    SymbolicPacket p2 = slice2.getSymbolicPacket();
+    BoolExpr equalPackets = p1.mkEqual(p2);
+    BoolExpr assumptions = ctx.mkAnd(equalEnvs, equalPackets, validDest);
+
+    // Create the requirements
+
+    // Best choices should be the same
+    BoolExpr required;
+    if (strict) {
+      SymbolicRecord best1 =
+          e1.getMainSlice().getSymbolicDecisions().getBestNeighbor().get(conf1.getName());
+      SymbolicRecord best2 =
+          e2.getMainSlice().getSymbolicDecisions().getBestNeighbor().get(conf2.getName());
+      // Just pick some protocol for defaults, shouldn't matter for best choice
+      required = equal(e2, conf2, best1, best2);
+    } else {
+      // Forwarding decisions should be the sames
+      Map<String, GraphEdge> geMap2 = interfaceMap(edges2);
+      BoolExpr sameForwarding = ctx.mkBool(true);
+      for (GraphEdge ge1 : edges1) {
+        GraphEdge ge2 = geMap2.get(ge1.getStart().getName());
+        BoolExpr dataFwd1 = slice1.getSymbolicDecisions().getDataForwarding().get(r1, ge1);
+        BoolExpr dataFwd2 = slice2.getSymbolicDecisions().getDataForwarding().get(r2, ge2);
+        assert (dataFwd1 != null);
+        assert (dataFwd2 != null);
+        sameForwarding = ctx.mkAnd(sameForwarding, ctx.mkEq(dataFwd1, dataFwd2));
       }
+      required =
+          ctx.mkAnd(
+              sameForwarding,
+              equalOutputs); //, equalOutputs); //, equalOutputs, equalIncomingAcls);
+    }
 
-      // System.out.println("Assumptions: ");
-      // System.out.println(assumptions.simplify());
-
-      // System.out.println("Required: ");
-      // System.out.println(required.simplify());
-
-      e2.add(assumptions);
-      e2.add(ctx.mkNot(required));
-
-      VerificationResult res = e2.verify().getFirst();
+    // System.out.println("Assumptions: ");
+    // System.out.println(assumptions.simplify());
 
-      // res.debug(e1.getMainSlice(), false, null);
+    // System.out.println("Required: ");
+    // System.out.println(required.simplify());
 
-      String name = r1 + "<-->" + r2;
-      result.put(name, res);
-    }
+    e2.add(assumptions);
+    e2.add(ctx.mkNot(required));
 
-    SmtManyAnswerElement answer = new SmtManyAnswerElement();
-    answer.setResult(result);
-    return answer;
+    return e2.verify().getFirst();
   }
 
   /*
@@ -809,14 +895,22 @@ public class PropertyChecker {
    * (i.e., dropped or accepted by each).
    */
   public static AnswerElement computeMultipathConsistency(
-      IBatfish batfish, HeaderLocationQuestion q) {
+      EncoderCache cache, HeaderLocationQuestion q) {
     PathRegexes p = new PathRegexes(q);
-    Graph graph = new Graph(batfish);
+    Graph graph = cache.getGraph();
     Set<GraphEdge> destPorts = findFinalInterfaces(graph, p);
     inferDestinationHeaderSpace(graph, destPorts, q);
 
-    Encoder enc = new Encoder(graph, q);
-    enc.computeEncoding();
+    VerificationResult res = cache.check(q, enc -> checkMultipathConsistency(enc, destPorts));
+
+    SmtOneAnswerElement answer = new SmtOneAnswerElement();
+    answer.setResult(res);
+    return answer;
+  }
+
+  private static VerificationResult checkMultipathConsistency(
+      Encoder enc, Set<GraphEdge> destPorts) {
+    Graph graph = enc.getMainSlice().getGraph();
     EncoderSlice slice = enc.getMainSlice();
 
     PropertyAdder pa = new PropertyAdder(slice);
@@ -846,11 +940,7 @@ public class PropertyChecker {
 
     enc.add(acc);
 
-    VerificationResult res = enc.verify().getFirst();
-
-    SmtOneAnswerElement answer = new SmtOneAnswerElement();
-    answer.setResult(res);
-    return answer;
+    return enc.verify().getFirst();
   }
 
   /*
@@ -858,8 +948,8 @@ public class PropertyChecker {
    * we only check for loops with routers that use static routes since
    * these can override the usual loop-prevention mechanisms.
    */
-  public static AnswerElement computeRoutingLoop(IBatfish batfish, HeaderQuestion q) {
-    Graph graph = new Graph(batfish);
+  public static AnswerElement computeRoutingLoop(EncoderCache cache, HeaderQuestion q) {
+    Graph graph = cache.getGraph();
 
     // Collect all relevant destinations
     List<Prefix> prefixes = new ArrayList<>();
@@ -893,8 +983,14 @@ public class PropertyChecker {
               }
             });
 
-    Encoder enc = new Encoder(graph, q);
-    enc.computeEncoding();
+    VerificationResult result = cache.check(q, enc -> checkRoutingLoop(enc, routers));
+
+    SmtOneAnswerElement answer = new SmtOneAnswerElement();
+    answer.setResult(result);
+    return answer;
+  }
+
+  private static VerificationResult checkRoutingLoop(Encoder enc, List<String> routers) {
     Context ctx = enc.getCtx();
 
     EncoderSlice slice = enc.getMainSlice();
@@ -908,10 +1004,6 @@ public class PropertyChecker {
     }
     enc.add(someLoop);
 
-    VerificationResult result = enc.verify().getFirst();
-
-    SmtOneAnswerElement answer = new SmtOneAnswerElement();
-    answer.setResult(result);
-    return answer;
+    return enc.verify().getFirst();
   }
 }
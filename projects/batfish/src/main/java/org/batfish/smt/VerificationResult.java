@@ -29,6 +29,8 @@ public class VerificationResult {
 
   private static final String FAILURE_MODEL_VAR = "failuresModel";
 
+  private static final String STATS_VAR = "stats";
+
   private boolean _verified;
 
   private SortedMap<String, String> _model;
@@ -41,6 +43,8 @@ public class VerificationResult {
 
   private SortedSet<String> _failures;
 
+  private VerificationStats _stats;
+
   @JsonCreator
   public VerificationResult(
       @JsonProperty(VERIFIED_VAR) boolean verified,
@@ -48,13 +52,15 @@ public class VerificationResult {
       @Nullable @JsonProperty(PACKET_MODEL_VAR) SortedMap<String, String> packetModel,
       @Nullable @JsonProperty(ENV_MODEL_VAR) SortedMap<String, SortedMap<String, String>> envModel,
       @Nullable @JsonProperty(FWD_MODEL_VAR) SortedSet<String> fwdModel,
-      @Nullable @JsonProperty(FAILURE_MODEL_VAR) SortedSet<String> failures) {
+      @Nullable @JsonProperty(FAILURE_MODEL_VAR) SortedSet<String> failures,
+      @Nullable @JsonProperty(STATS_VAR) VerificationStats stats) {
     _verified = verified;
     _model = model;
     _packetModel = packetModel;
     _envModel = envModel;
     _fwdModel = fwdModel;
     _failures = failures;
+    _stats = stats;
   }
 
   @JsonProperty(VERIFIED_VAR)
@@ -87,6 +93,11 @@ public class VerificationResult {
     return _failures;
   }
 
+  @JsonProperty(STATS_VAR)
+  public VerificationStats getStats() {
+    return _stats;
+  }
+
   public String prettyPrint(@Nullable String iface) {
     StringBuilder sb = new StringBuilder();
     if (_verified) {
@@ -19,6 +19,8 @@ public class VerificationStats {
 
   private static final String NUM_CONSTRAINTS_VAR = "numConstraints";
 
+  private static final String ENCODING_TIME_VAR = "encodingTime";
+
   private static final String TIME_VAR = "time";
 
   private int _numNodes;
@@ -29,6 +31,8 @@ public class VerificationStats {
 
   private int _numConstraints;
 
+  private long _encodingTime;
+
   private long _time;
 
   @JsonCreator
@@ -37,11 +41,13 @@ public class VerificationStats {
       @JsonProperty(NUM_EDGES_VAR) int e,
       @JsonProperty(NUM_VARIABLES_VAR) int v,
       @JsonProperty(NUM_CONSTRAINTS_VAR) int c,
+      @JsonProperty(ENCODING_TIME_VAR) long et,
       @JsonProperty(TIME_VAR) long t) {
     _numNodes = n;
     _numEdges = e;
     _numVariables = v;
     _numConstraints = c;
+    _encodingTime = et;
     _time = t;
   }
 
@@ -65,6 +71,12 @@ public class VerificationStats {
     return _numConstraints;
   }
 
+  /** Time in milliseconds spent building the encoding, as opposed to solving it */
+  @JsonProperty(ENCODING_TIME_VAR)
+  public long getEncodingTime() {
+    return _encodingTime;
+  }
+
   @JsonProperty(TIME_VAR)
   public long getTime() {
     return _time;
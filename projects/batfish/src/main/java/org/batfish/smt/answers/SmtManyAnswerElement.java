@@ -8,14 +8,25 @@ public class SmtManyAnswerElement implements AnswerElement {
 
   protected Map<String, VerificationResult> _result;
 
+  protected Map<String, Long> _times;
+
   public Map<String, VerificationResult> getResult() {
     return _result;
   }
 
+  /** Returns the time in milliseconds spent on each check, keyed like the result. */
+  public Map<String, Long> getTimes() {
+    return _times;
+  }
+
   public void setResult(Map<String, VerificationResult> result) {
     _result = result;
   }
 
+  public void setTimes(Map<String, Long> times) {
+    _times = times;
+  }
+
   @Override
   public String prettyPrint() {
     if (_result != null) {
@@ -12,6 +12,7 @@ import org.batfish.z3.node.NumberedQueryExpr;
 import org.batfish.z3.node.QueryExpr;
 import org.batfish.z3.node.RuleExpr;
 import org.batfish.z3.node.SaneExpr;
+import org.batfish.z3.node.Statement;
 
 public final class AclReachabilityQuerySynthesizer extends SatQuerySynthesizer<AclLine> {
 
@@ -25,34 +26,50 @@ public final class AclReachabilityQuerySynthesizer extends SatQuerySynthesizer<A
     _hostname = hostname;
     _aclName = aclName;
     _numLines = numLines;
+    for (int line = 0; line < _numLines; line++) {
+      _keys.add(new AclLine(_hostname, _aclName, line));
+    }
+  }
+
+  @Override
+  public List<Statement> getBaseRuleStatements(Synthesizer synthesizer) {
+    return synthesizer.getAclRuleStatements(_hostname, _aclName);
   }
 
   @Override
   public NodProgram getNodProgram(NodProgram baseProgram) throws Z3Exception {
     Context ctx = baseProgram.getContext();
     NodProgram program = new NodProgram(ctx);
+    List<RuleExpr> queryRules = getQueryRules();
     for (int line = 0; line < _numLines; line++) {
-      AclMatchExpr matchAclLine = new AclMatchExpr(_hostname, _aclName, line);
-      AndExpr queryConditions = new AndExpr();
-      queryConditions.addConjunct(matchAclLine);
-      queryConditions.addConjunct(SaneExpr.INSTANCE);
       NumberedQueryExpr queryRel = new NumberedQueryExpr(line);
       String queryRelName = queryRel.getRelations().toArray(new String[] {})[0];
       List<Integer> sizes = new ArrayList<>();
       sizes.addAll(Synthesizer.PACKET_VAR_SIZES.values());
       DeclareRelExpr declaration = new DeclareRelExpr(queryRelName, sizes);
       baseProgram.getRelationDeclarations().put(queryRelName, declaration.toFuncDecl(ctx));
-      RuleExpr queryRule = new RuleExpr(queryConditions, queryRel);
       List<BoolExpr> rules = program.getRules();
-      rules.add(queryRule.toBoolExpr(baseProgram));
+      rules.add(queryRules.get(line).toBoolExpr(baseProgram));
       QueryExpr query = new QueryExpr(queryRel);
       BoolExpr queryBoolExpr = query.toBoolExpr(baseProgram);
       program.getQueries().add(queryBoolExpr);
-      _keys.add(new AclLine(_hostname, _aclName, line));
     }
     return program;
   }
 
+  @Override
+  public List<RuleExpr> getQueryRules() {
+    List<RuleExpr> rules = new ArrayList<>();
+    for (int line = 0; line < _numLines; line++) {
+      AclMatchExpr matchAclLine = new AclMatchExpr(_hostname, _aclName, line);
+      AndExpr queryConditions = new AndExpr();
+      queryConditions.addConjunct(matchAclLine);
+      queryConditions.addConjunct(SaneExpr.INSTANCE);
+      rules.add(new RuleExpr(queryConditions, new NumberedQueryExpr(line)));
+    }
+    return rules;
+  }
+
   @Override
   public NodProgram synthesizeBaseProgram(Synthesizer synthesizer, Context ctx) {
     return synthesizer.synthesizeNodAclProgram(_hostname, _aclName, ctx);
@@ -0,0 +1,100 @@
+package org.batfish.z3;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import org.batfish.common.BatfishException;
+import org.batfish.common.Pair;
+import org.batfish.config.Settings;
+import org.batfish.datamodel.Flow;
+import org.batfish.datamodel.collections.NodeVrfSet;
+import org.batfish.job.BatfishJob;
+import org.batfish.z3.BddNodProgram.CompiledRules;
+import org.batfish.z3.node.QueryRelationExpr;
+import org.batfish.z3.node.RuleExpr;
+import org.batfish.z3.node.Statement;
+
+/**
+ * Answers the same queries as {@link NodJob}, but computes the relations of the data plane program
+ * with BDDs in-process rather than with the Z3 fixedpoint engine.
+ *
+ * <p>A single job answers the queries for all the ingress points of a question, so that the BDDs
+ * of the data plane rules are built only once.
+ */
+public final class BddNodJob extends BatfishJob<NodJobResult> {
+
+  private final Synthesizer _dataPlaneSynthesizer;
+
+  /** The ingress nodes and VRFs for which flows are created when each query is satisfiable */
+  private final Map<QuerySynthesizer, NodeVrfSet> _queries;
+
+  private final String _tag;
+
+  public BddNodJob(
+      Settings settings,
+      Synthesizer dataPlaneSynthesizer,
+      Map<QuerySynthesizer, NodeVrfSet> queries,
+      String tag) {
+    super(settings);
+    _dataPlaneSynthesizer = dataPlaneSynthesizer;
+    _queries = new LinkedHashMap<>(queries);
+    _tag = tag;
+  }
+
+  @Override
+  public NodJobResult call() throws Exception {
+    long startTime = System.currentTimeMillis();
+    long elapsedTime;
+    try {
+      List<Statement> dataPlaneStatements = _dataPlaneSynthesizer.getDataPlaneRuleStatements();
+      long synthesisTime = System.currentTimeMillis() - startTime;
+      BddNodProgram program = new BddNodProgram();
+      CompiledRules dataPlaneRules = program.compileRules(dataPlaneStatements);
+      Set<Flow> flows = new HashSet<>();
+      for (Entry<QuerySynthesizer, NodeVrfSet> e : _queries.entrySet()) {
+        QuerySynthesizer querySynthesizer = e.getKey();
+        // rules for the query relation may negate data plane relations, so they are applied only
+        // once the data plane relations are complete
+        List<RuleExpr> ingressRules = new ArrayList<>();
+        List<RuleExpr> queryRules = new ArrayList<>();
+        for (RuleExpr rule : querySynthesizer.getQueryRules()) {
+          if (rule.getRelations().contains(QueryRelationExpr.NAME)) {
+            queryRules.add(rule);
+          } else {
+            ingressRules.add(rule);
+          }
+        }
+        program.clearRelations();
+        program.computeFixpoint(dataPlaneRules.concat(program.compileRules(ingressRules)));
+        program.computeFixpoint(queryRules);
+        int answer = program.getRelation(QueryRelationExpr.NAME);
+        if (querySynthesizer.getNegate()) {
+          answer = program.getFactory().not(answer);
+        }
+        Map<String, Long> constraints = program.getModel(answer);
+        if (constraints == null) {
+          continue;
+        }
+        for (Pair<String, String> nodeVrf : e.getValue()) {
+          String node = nodeVrf.getFirst();
+          String vrf = nodeVrf.getSecond();
+          Flow flow = NodJob.createFlow(node, vrf, constraints, _tag);
+          flows.add(flow);
+        }
+      }
+      _logger.debugf("BDD nodes: %d\n", program.getFactory().getNumNodes());
+      elapsedTime = System.currentTimeMillis() - startTime;
+      return new NodJobResult(elapsedTime, synthesisTime, _logger.getHistory(), flows);
+    } catch (BatfishException e) {
+      elapsedTime = System.currentTimeMillis() - startTime;
+      return new NodJobResult(
+          elapsedTime,
+          _logger.getHistory(),
+          new BatfishException("Error running BDD reachability on data plane", e));
+    }
+  }
+}
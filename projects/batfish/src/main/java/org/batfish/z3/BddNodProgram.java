@@ -0,0 +1,275 @@
+package org.batfish.z3;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Queue;
+import javax.annotation.Nullable;
+import org.batfish.bdd.BddFactory;
+import org.batfish.common.BatfishException;
+import org.batfish.z3.node.AndExpr;
+import org.batfish.z3.node.BooleanExpr;
+import org.batfish.z3.node.IfExpr;
+import org.batfish.z3.node.RelExpr;
+import org.batfish.z3.node.RuleExpr;
+import org.batfish.z3.node.Statement;
+
+/**
+ * Evaluates NoD rule statements with BDDs instead of the Z3 fixedpoint engine.
+ *
+ * <p>Every relation of a NoD program is a set of packets, so it is represented by a single BDD
+ * over the bits of the packet variables. Rules are applied until no relation grows, which yields
+ * the same least fixed point Z3 computes.
+ */
+public final class BddNodProgram {
+
+  /**
+   * Rules prepared by {@link BddNodProgram#compileRules} for {@link
+   * BddNodProgram#computeFixpoint(CompiledRules)} of the same program. Since the BDDs of the parts
+   * of each rule that refer to no relation are built only once, rules compiled for the data plane
+   * can be applied for every ingress point of a query.
+   */
+  public static final class CompiledRules {
+
+    /** Conjunction of the conjuncts of each rule body that refer to no relation */
+    private final List<Integer> _constraints;
+
+    /** Indices of the rules whose bodies refer to each relation */
+    private final Map<String, List<Integer>> _dependentRules;
+
+    private final List<String> _heads;
+
+    /** Remaining conjuncts of each rule body, evaluated whenever the rule is applied */
+    private final List<List<BooleanExpr>> _relationalConjuncts;
+
+    private CompiledRules() {
+      _constraints = new ArrayList<>();
+      _dependentRules = new HashMap<>();
+      _heads = new ArrayList<>();
+      _relationalConjuncts = new ArrayList<>();
+    }
+
+    private void add(RelExpr head, int constraint, List<BooleanExpr> relationalConjuncts) {
+      int index = _heads.size();
+      _heads.add(head.getName());
+      _constraints.add(constraint);
+      _relationalConjuncts.add(relationalConjuncts);
+      for (BooleanExpr conjunct : relationalConjuncts) {
+        for (String relation : conjunct.getRelations()) {
+          _dependentRules.computeIfAbsent(relation, r -> new ArrayList<>()).add(index);
+        }
+      }
+    }
+
+    /** Returns the rules of this set followed by those of {@code other}. */
+    public CompiledRules concat(CompiledRules other) {
+      CompiledRules rules = new CompiledRules();
+      for (CompiledRules part : Arrays.asList(this, other)) {
+        for (int i = 0; i < part._heads.size(); i++) {
+          rules._heads.add(part._heads.get(i));
+          rules._constraints.add(part._constraints.get(i));
+          rules._relationalConjuncts.add(part._relationalConjuncts.get(i));
+        }
+        int offset = rules._heads.size() - part._heads.size();
+        part._dependentRules.forEach(
+            (relation, dependents) -> {
+              List<Integer> combined =
+                  rules._dependentRules.computeIfAbsent(relation, r -> new ArrayList<>());
+              for (int dependent : dependents) {
+                combined.add(offset + dependent);
+              }
+            });
+      }
+      return rules;
+    }
+  }
+
+  private final BddFactory _factory;
+
+  /** Values of the macros bound by enclosing {@link org.batfish.z3.node.LetExpr}s */
+  private final Map<String, Integer> _macros;
+
+  private final Map<String, Integer> _relations;
+
+  /** Bits of each packet variable, least significant first */
+  private final Map<String, int[]> _variables;
+
+  public BddNodProgram() {
+    int numVars = 0;
+    for (int size : Synthesizer.PACKET_VAR_SIZES.values()) {
+      numVars += size;
+    }
+    _factory = new BddFactory(numVars);
+    _macros = new HashMap<>();
+    _relations = new HashMap<>();
+    _variables = new LinkedHashMap<>();
+    // most significant bits first in the variable order, since prefixes constrain them
+    int firstVar = 0;
+    for (Entry<String, Integer> e : Synthesizer.PACKET_VAR_SIZES.entrySet()) {
+      int size = e.getValue();
+      int[] bits = new int[size];
+      for (int i = 0; i < size; i++) {
+        bits[i] = _factory.ithVar(firstVar + size - 1 - i);
+      }
+      _variables.put(e.getKey(), bits);
+      firstVar += size;
+    }
+  }
+
+  /**
+   * Binds {@code macro} to {@code value}, or unbinds it if {@code value} is {@code null}, and
+   * returns its previous value.
+   */
+  @Nullable
+  public Integer bindMacro(String macro, @Nullable Integer value) {
+    return value == null ? _macros.remove(macro) : _macros.put(macro, value);
+  }
+
+  /** Empties every relation, so that rules compiled before can be applied to other facts. */
+  public void clearRelations() {
+    _relations.clear();
+  }
+
+  /**
+   * Returns the rules among {@code statements}, with the conjuncts of their bodies that refer to no
+   * relation already converted to BDDs. Statements other than rules are ignored.
+   */
+  public CompiledRules compileRules(List<? extends Statement> statements) {
+    CompiledRules rules = new CompiledRules();
+    for (Statement statement : statements) {
+      if (!(statement instanceof RuleExpr)) {
+        continue;
+      }
+      BooleanExpr rule = ((RuleExpr) statement).getSubExpression();
+      if (rule instanceof IfExpr) {
+        IfExpr implication = (IfExpr) rule;
+        if (!(implication.getConsequent() instanceof RelExpr)) {
+          throw new BatfishException("Unsupported rule head: " + implication.getConsequent());
+        }
+        BooleanExpr antecedent = implication.getAntecedent();
+        List<BooleanExpr> conjuncts =
+            antecedent instanceof AndExpr
+                ? ((AndExpr) antecedent).getConjuncts()
+                : Collections.singletonList(antecedent);
+        int constraint = BddFactory.TRUE;
+        List<BooleanExpr> relationalConjuncts = new ArrayList<>();
+        for (BooleanExpr conjunct : conjuncts) {
+          if (conjunct.getRelations().isEmpty()) {
+            constraint = _factory.and(constraint, conjunct.toBdd(this));
+          } else {
+            relationalConjuncts.add(conjunct);
+          }
+        }
+        rules.add((RelExpr) implication.getConsequent(), constraint, relationalConjuncts);
+      } else if (rule instanceof RelExpr) {
+        // a fact
+        rules.add((RelExpr) rule, BddFactory.TRUE, Collections.emptyList());
+      } else {
+        throw new BatfishException("Unsupported rule: " + rule);
+      }
+    }
+    return rules;
+  }
+
+  /**
+   * Applies {@code rules} to the current relations until no relation changes. Relations may only
+   * be negated in rules for relations that no rule in {@code rules} depends on, e.g. the query
+   * relation; such rules must be applied in a later call.
+   */
+  public void computeFixpoint(CompiledRules rules) {
+    Queue<Integer> worklist = new ArrayDeque<>();
+    boolean[] queued = new boolean[rules._heads.size()];
+    for (int i = 0; i < rules._heads.size(); i++) {
+      if (rules._constraints.get(i) != BddFactory.FALSE) {
+        worklist.add(i);
+        queued[i] = true;
+      }
+    }
+    while (!worklist.isEmpty()) {
+      int index = worklist.remove();
+      queued[index] = false;
+      int derived = rules._constraints.get(index);
+      for (BooleanExpr conjunct : rules._relationalConjuncts.get(index)) {
+        derived = _factory.and(derived, conjunct.toBdd(this));
+        if (derived == BddFactory.FALSE) {
+          break;
+        }
+      }
+      String head = rules._heads.get(index);
+      int oldValue = getRelation(head);
+      int newValue = _factory.or(oldValue, derived);
+      if (newValue != oldValue) {
+        _relations.put(head, newValue);
+        List<Integer> dependents = rules._dependentRules.get(head);
+        if (dependents != null) {
+          for (int dependent : dependents) {
+            if (!queued[dependent] && rules._constraints.get(dependent) != BddFactory.FALSE) {
+              worklist.add(dependent);
+              queued[dependent] = true;
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Applies {@code statements} to the current relations until no relation changes. Statements
+   * other than rules are ignored. Relations may only be negated in rules for relations that no rule
+   * in {@code statements} depends on, e.g. the query relation; such rules must be applied in a
+   * later call.
+   */
+  public void computeFixpoint(List<? extends Statement> statements) {
+    computeFixpoint(compileRules(statements));
+  }
+
+  public BddFactory getFactory() {
+    return _factory;
+  }
+
+  /** Returns the value bound to {@code macro}, or {@code null} if it is not bound. */
+  @Nullable
+  public Integer getMacro(String macro) {
+    return _macros.get(macro);
+  }
+
+  /**
+   * Returns values of the packet variables for some packet in {@code packets}, or {@code null} if
+   * it is empty.
+   */
+  @Nullable
+  public Map<String, Long> getModel(int packets) {
+    boolean[] assignment = _factory.satOne(packets);
+    if (assignment == null) {
+      return null;
+    }
+    Map<String, Long> model = new LinkedHashMap<>();
+    int firstVar = 0;
+    for (Entry<String, Integer> e : Synthesizer.PACKET_VAR_SIZES.entrySet()) {
+      int size = e.getValue();
+      long value = 0L;
+      for (int i = 0; i < size; i++) {
+        value = (value << 1) | (assignment[firstVar + i] ? 1L : 0L);
+      }
+      model.put(e.getKey(), value);
+      firstVar += size;
+    }
+    return model;
+  }
+
+  /** Returns the packets currently in relation {@code name}. */
+  public int getRelation(String name) {
+    Integer value = _relations.get(name);
+    return value == null ? BddFactory.FALSE : value;
+  }
+
+  public Map<String, int[]> getVariables() {
+    return _variables;
+  }
+}
@@ -0,0 +1,52 @@
+package org.batfish.z3;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.batfish.bdd.BddFactory;
+import org.batfish.common.BatfishException;
+import org.batfish.config.Settings;
+import org.batfish.job.BatfishJob;
+import org.batfish.z3.node.NumberedQueryExpr;
+
+/**
+ * Answers the same queries as {@link NodSatJob}, but computes the relations of the program with
+ * BDDs in-process rather than with the Z3 fixedpoint engine.
+ */
+public final class BddNodSatJob<KeyT> extends BatfishJob<NodSatResult<KeyT>> {
+
+  private final SatQuerySynthesizer<KeyT> _query;
+
+  private final Synthesizer _synthesizer;
+
+  public BddNodSatJob(Settings settings, Synthesizer synthesizer, SatQuerySynthesizer<KeyT> query) {
+    super(settings);
+    _synthesizer = synthesizer;
+    _query = query;
+  }
+
+  @Override
+  public NodSatResult<KeyT> call() throws Exception {
+    Map<KeyT, Boolean> results = new LinkedHashMap<>();
+    long startTime = System.currentTimeMillis();
+    long elapsedTime;
+    try {
+      BddNodProgram program = new BddNodProgram();
+      program.computeFixpoint(_query.getBaseRuleStatements(_synthesizer));
+      program.computeFixpoint(_query.getQueryRules());
+      List<KeyT> keys = _query.getKeys();
+      for (int queryNum = 0; queryNum < keys.size(); queryNum++) {
+        String queryRelName = new NumberedQueryExpr(queryNum).getName();
+        results.put(keys.get(queryNum), program.getRelation(queryRelName) != BddFactory.FALSE);
+      }
+      elapsedTime = System.currentTimeMillis() - startTime;
+      return new NodSatResult<>(results, _logger.getHistory(), elapsedTime);
+    } catch (BatfishException e) {
+      elapsedTime = System.currentTimeMillis() - startTime;
+      return new NodSatResult<>(
+          elapsedTime,
+          _logger.getHistory(),
+          new BatfishException("Error running BDD satisfiability on ACLs", e));
+    }
+  }
+}
@@ -60,6 +60,7 @@ public class CompositeNodJob extends BatfishJob<NodJobResult> {
   public NodJobResult call() throws Exception {
     long startTime = System.currentTimeMillis();
     long elapsedTime;
+    long synthesisTime = 0L;
     NodProgram latestProgram = null;
     try (Context ctx = new Context()) {
       BoolExpr[] answers = new BoolExpr[_numPrograms];
@@ -70,9 +71,11 @@ public class CompositeNodJob extends BatfishJob<NodJobResult> {
       for (int i = 0; i < _numPrograms; i++) {
         Synthesizer dataPlaneSynthesizer = _dataPlaneSynthesizers.get(i);
         QuerySynthesizer querySynthesizer = _querySynthesizers.get(i);
+        long synthesisStartTime = System.currentTimeMillis();
         NodProgram baseProgram = dataPlaneSynthesizer.synthesizeNodDataPlaneProgram(ctx);
         NodProgram queryProgram = querySynthesizer.getNodProgram(baseProgram);
         NodProgram program = baseProgram.append(queryProgram);
+        synthesisTime += System.currentTimeMillis() - synthesisStartTime;
         latestProgram = program;
         Fixedpoint fix = ctx.mkFixedpoint();
         fix.setParameters(p);
@@ -129,7 +132,7 @@ public class CompositeNodJob extends BatfishJob<NodJobResult> {
 
         case UNSATISFIABLE:
           elapsedTime = System.currentTimeMillis() - startTime;
-          return new NodJobResult(elapsedTime, _logger.getHistory());
+          return new NodJobResult(elapsedTime, synthesisTime, _logger.getHistory());
 
         default:
           throw new BatfishException("invalid status");
@@ -150,7 +153,7 @@ public class CompositeNodJob extends BatfishJob<NodJobResult> {
         flows.add(flow);
       }
       elapsedTime = System.currentTimeMillis() - startTime;
-      return new NodJobResult(elapsedTime, _logger.getHistory(), flows);
+      return new NodJobResult(elapsedTime, synthesisTime, _logger.getHistory(), flows);
     } catch (Z3Exception e) {
       elapsedTime = System.currentTimeMillis() - startTime;
       return new NodJobResult(
@@ -2,6 +2,7 @@ package org.batfish.z3;
 
 import com.microsoft.z3.BoolExpr;
 import com.microsoft.z3.Z3Exception;
+import java.util.ArrayList;
 import java.util.List;
 import org.batfish.datamodel.HeaderSpace;
 import org.batfish.z3.node.AcceptExpr;
@@ -31,21 +32,29 @@ public class MultipathInconsistencyQuerySynthesizer extends BaseQuerySynthesizer
   @Override
   public NodProgram getNodProgram(NodProgram baseProgram) throws Z3Exception {
     NodProgram program = new NodProgram(baseProgram.getContext());
+    List<BoolExpr> rules = program.getRules();
+    for (RuleExpr rule : getQueryRules()) {
+      rules.add(rule.toBoolExpr(baseProgram));
+    }
+    QueryExpr query = new QueryExpr(QueryRelationExpr.INSTANCE);
+    BoolExpr queryBoolExpr = query.toBoolExpr(baseProgram);
+    program.getQueries().add(queryBoolExpr);
+    return program;
+  }
+
+  @Override
+  public List<RuleExpr> getQueryRules() {
+    List<RuleExpr> rules = new ArrayList<>();
     OriginateVrfExpr originate = new OriginateVrfExpr(_hostname, _vrf);
     RuleExpr injectSymbolicPackets = new RuleExpr(originate);
+    rules.add(injectSymbolicPackets);
     AndExpr queryConditions = new AndExpr();
     queryConditions.addConjunct(AcceptExpr.INSTANCE);
     queryConditions.addConjunct(DropExpr.INSTANCE);
     queryConditions.addConjunct(SaneExpr.INSTANCE);
     queryConditions.addConjunct(Synthesizer.matchHeaderSpace(_headerSpace));
     RuleExpr queryRule = new RuleExpr(queryConditions, QueryRelationExpr.INSTANCE);
-    List<BoolExpr> rules = program.getRules();
-    BoolExpr injectSymbolicPacketsBoolExpr = injectSymbolicPackets.toBoolExpr(baseProgram);
-    rules.add(injectSymbolicPacketsBoolExpr);
-    rules.add(queryRule.toBoolExpr(baseProgram));
-    QueryExpr query = new QueryExpr(QueryRelationExpr.INSTANCE);
-    BoolExpr queryBoolExpr = query.toBoolExpr(baseProgram);
-    program.getQueries().add(queryBoolExpr);
-    return program;
+    rules.add(queryRule);
+    return rules;
   }
 }
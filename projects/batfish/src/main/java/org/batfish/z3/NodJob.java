@@ -152,10 +152,12 @@ public final class NodJob extends BatfishJob<NodJobResult> {
   public NodJobResult call() throws Exception {
     long startTime = System.currentTimeMillis();
     long elapsedTime;
+    long synthesisTime;
     try (Context ctx = new Context()) {
       NodProgram baseProgram = _dataPlaneSynthesizer.synthesizeNodDataPlaneProgram(ctx);
       NodProgram queryProgram = _querySynthesizer.getNodProgram(baseProgram);
       NodProgram program = baseProgram.append(queryProgram);
+      synthesisTime = System.currentTimeMillis() - startTime;
       Params p = ctx.mkParams();
       p.add("fixedpoint.engine", "datalog");
       p.add("fixedpoint.datalog.default_relation", "doc");
@@ -208,7 +210,7 @@ public final class NodJob extends BatfishJob<NodJobResult> {
 
         case UNSATISFIABLE:
           elapsedTime = System.currentTimeMillis() - startTime;
-          return new NodJobResult(elapsedTime, _logger.getHistory());
+          return new NodJobResult(elapsedTime, synthesisTime, _logger.getHistory());
 
         default:
           throw new BatfishException("invalid status");
@@ -229,7 +231,7 @@ public final class NodJob extends BatfishJob<NodJobResult> {
         flows.add(flow);
       }
       elapsedTime = System.currentTimeMillis() - startTime;
-      return new NodJobResult(elapsedTime, _logger.getHistory(), flows);
+      return new NodJobResult(elapsedTime, synthesisTime, _logger.getHistory(), flows);
     } catch (Z3Exception e) {
       elapsedTime = System.currentTimeMillis() - startTime;
       return new NodJobResult(
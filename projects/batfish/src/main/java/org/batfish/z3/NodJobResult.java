@@ -10,17 +10,22 @@ import org.batfish.job.BatfishJobResult;
 
 public class NodJobResult extends BatfishJobResult<Set<Flow>, NodAnswerElement> {
 
-  /** Elapsed time in milliseconds */
   private Set<Flow> _flows;
 
-  public NodJobResult(long elapsedTime, BatfishLoggerHistory history) {
+  /** Time in milliseconds spent synthesizing the program, out of the elapsed time */
+  private long _synthesisTime;
+
+  public NodJobResult(long elapsedTime, long synthesisTime, BatfishLoggerHistory history) {
     super(elapsedTime, history);
     _flows = Collections.<Flow>emptySet();
+    _synthesisTime = synthesisTime;
   }
 
-  public NodJobResult(long elapsedTime, BatfishLoggerHistory history, Set<Flow> flows) {
+  public NodJobResult(
+      long elapsedTime, long synthesisTime, BatfishLoggerHistory history, Set<Flow> flows) {
     super(elapsedTime, history);
     _flows = flows;
+    _synthesisTime = synthesisTime;
   }
 
   public NodJobResult(long elapsedTime, BatfishLoggerHistory history, Throwable failureCause) {
@@ -35,6 +40,8 @@ public class NodJobResult extends BatfishJobResult<Set<Flow>, NodAnswerElement>
   @Override
   public void applyTo(Set<Flow> flows, BatfishLogger logger, NodAnswerElement answerElement) {
     flows.addAll(_flows);
+    answerElement.addSynthesisTime(_synthesisTime);
+    answerElement.addSolveTime(getElapsedTime() - _synthesisTime);
   }
 
   public Set<Flow> getFlows() {
@@ -1,10 +1,22 @@
 package org.batfish.z3;
 
 import com.microsoft.z3.Z3Exception;
+import java.util.List;
+import org.batfish.common.BatfishException;
+import org.batfish.z3.node.RuleExpr;
 
 public interface QuerySynthesizer {
 
   boolean getNegate();
 
   NodProgram getNodProgram(NodProgram baseProgram) throws Z3Exception;
+
+  /**
+   * Returns the rules injecting packets into the data plane and deriving the query relation from
+   * its relations, for evaluation by {@link BddNodJob} instead of Z3.
+   */
+  default List<RuleExpr> getQueryRules() {
+    throw new BatfishException(
+        getClass().getSimpleName() + " is not supported by the BDD reachability engine");
+  }
 }
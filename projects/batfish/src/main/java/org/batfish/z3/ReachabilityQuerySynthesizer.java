@@ -67,7 +67,18 @@ public class ReachabilityQuerySynthesizer extends BaseQuerySynthesizer {
   @Override
   public NodProgram getNodProgram(NodProgram baseProgram) throws Z3Exception {
     NodProgram program = new NodProgram(baseProgram.getContext());
+    List<BoolExpr> rules = program.getRules();
+    for (RuleExpr rule : getQueryRules()) {
+      rules.add(rule.toBoolExpr(baseProgram));
+    }
+    QueryExpr query = new QueryExpr(QueryRelationExpr.INSTANCE);
+    BoolExpr queryBoolExpr = query.toBoolExpr(baseProgram);
+    program.getQueries().add(queryBoolExpr);
+    return program;
+  }
 
+  @Override
+  public List<RuleExpr> getQueryRules() {
     // create rules for injecting symbolic packets into ingress node(s)
     List<RuleExpr> originateRules = new ArrayList<>();
     for (String ingressNode : _ingressNodeVrfs.keySet()) {
@@ -190,15 +201,9 @@ public class ReachabilityQuerySynthesizer extends BaseQuerySynthesizer {
     queryConditions.addConjunct(matchHeaderSpace);
 
     RuleExpr queryRule = new RuleExpr(queryConditions, QueryRelationExpr.INSTANCE);
-    List<BoolExpr> rules = program.getRules();
-    for (RuleExpr originateRule : originateRules) {
-      BoolExpr originateBoolExpr = originateRule.toBoolExpr(baseProgram);
-      rules.add(originateBoolExpr);
-    }
-    rules.add(queryRule.toBoolExpr(baseProgram));
-    QueryExpr query = new QueryExpr(QueryRelationExpr.INSTANCE);
-    BoolExpr queryBoolExpr = query.toBoolExpr(baseProgram);
-    program.getQueries().add(queryBoolExpr);
-    return program;
+    List<RuleExpr> rules = new ArrayList<>();
+    rules.addAll(originateRules);
+    rules.add(queryRule);
+    return rules;
   }
 }
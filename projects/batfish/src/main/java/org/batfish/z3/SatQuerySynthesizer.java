@@ -3,6 +3,7 @@ package org.batfish.z3;
 import com.microsoft.z3.Context;
 import java.util.ArrayList;
 import java.util.List;
+import org.batfish.z3.node.Statement;
 
 public abstract class SatQuerySynthesizer<KeyT> extends BaseQuerySynthesizer {
 
@@ -12,6 +13,14 @@ public abstract class SatQuerySynthesizer<KeyT> extends BaseQuerySynthesizer {
     _keys = new ArrayList<>();
   }
 
+  /**
+   * Returns the rules of the base program, for evaluation by {@link BddNodSatJob} instead of Z3.
+   * The query rules of this synthesizer must derive {@link
+   * org.batfish.z3.node.NumberedQueryExpr} {@code i} for the packets satisfying the query of the
+   * {@code i}th key.
+   */
+  public abstract List<Statement> getBaseRuleStatements(Synthesizer synthesizer);
+
   public List<KeyT> getKeys() {
     return _keys;
   }
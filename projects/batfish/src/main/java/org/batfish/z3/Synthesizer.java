@@ -6,6 +6,7 @@ import com.microsoft.z3.Context;
 import com.microsoft.z3.FuncDecl;
 import com.microsoft.z3.Z3Exception;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -870,6 +871,12 @@ public class Synthesizer {
 
   private final Map<String, Configuration> _configurations;
 
+  /**
+   * Rule statements of the data plane program, simplified if requested. They do not depend on any
+   * Z3 context, so they are computed once and shared by every job using this synthesizer.
+   */
+  private List<Statement> _dataPlaneRuleStatements;
+
   private final FibMap _fibs;
 
   private InterfaceSet _flowSinks;
@@ -949,6 +956,81 @@ public class Synthesizer {
     return statements;
   }
 
+  /** Returns the rules matching packets against ACL {@code aclName} of node {@code hostname}. */
+  List<Statement> getAclRuleStatements(String hostname, String aclName) {
+    List<Statement> ruleStatements = new ArrayList<>();
+    List<Statement> sane = getSane();
+    List<Statement> matchAclRules = getMatchAclRules(hostname, aclName);
+
+    ruleStatements.addAll(sane);
+    ruleStatements.addAll(matchAclRules);
+    return simplify(ruleStatements);
+  }
+
+  synchronized List<Statement> getDataPlaneRuleStatements() {
+    if (_dataPlaneRuleStatements != null) {
+      return _dataPlaneRuleStatements;
+    }
+    List<Statement> ruleStatements = new ArrayList<>();
+    List<Statement> dropRules = getDropRules();
+    List<Statement> acceptRules = getAcceptRules();
+    List<Statement> sane = getSane();
+    List<Statement> flowSinkAcceptRules = getFlowSinkAcceptRules();
+    List<Statement> originateToPostInRules = getOriginateToPostInRules();
+    List<Statement> originateVrfToPostInVrfRules = getOriginateVrfToPostInVrfRules();
+    List<Statement> postInInterfaceToPostInRules = getPostInInterfaceToPostInRules();
+    List<Statement> postInInterfaceToNonInboundSrcInterface =
+        getPostInInterfaceToNonInboundSrcInterface();
+    List<Statement> postInToInboundInterface = getPostInToInboundInterface();
+    List<Statement> inboundInterfaceToNodeAccept = getInboundInterfaceToNodeAccept();
+    List<Statement> inboundInterfaceToNodeDrop = getInboundInterfaceToNodeDrop();
+    List<Statement> postInToPreOutRules = getPostInToPreOutRules();
+    List<Statement> preOutToDestRouteRules = getPreOutToDestRouteRules();
+    List<Statement> destRouteToPreOutEdgeRules = getDestRouteToPreOutEdgeRules();
+    List<Statement> preOutEdgeToPreOutInterfaceRules = getPreOutEdgeToPreOutInterfaceRules();
+    List<Statement> policyRouteRules = getPolicyRouteRules();
+    List<Statement> matchAclRules = getMatchAclRules();
+    List<Statement> toNeighborsRules = getToNeighborsRules();
+    List<Statement> preInInterfaceToPostInInterfaceRules =
+        getPreInInterfaceToPostInInterfaceRules();
+    List<Statement> preOutInterfaceToPostOutInterfaceRules =
+        getPreOutInterfaceToPostOutInterfaceRules();
+    List<Statement> nodeAcceptToRoleAcceptRules = getNodeAcceptToRoleAcceptRules();
+    List<Statement> externalSrcIpRules = getExternalSrcIpRules();
+    List<Statement> externalDstIpRules = getExternalDstIpRules();
+    List<Statement> postOutIfaceToNodeTransitRules = getPostOutIfaceToNodeTransitRules();
+    List<Statement> roleOriginateToNodeOriginateRules = getRoleOriginateToNodeOriginateRules();
+
+    ruleStatements.addAll(dropRules);
+    ruleStatements.addAll(acceptRules);
+    ruleStatements.addAll(sane);
+    ruleStatements.addAll(flowSinkAcceptRules);
+    ruleStatements.addAll(originateToPostInRules);
+    ruleStatements.addAll(originateVrfToPostInVrfRules);
+    ruleStatements.addAll(postInInterfaceToPostInRules);
+    ruleStatements.addAll(postInInterfaceToNonInboundSrcInterface);
+    ruleStatements.addAll(postInToInboundInterface);
+    ruleStatements.addAll(inboundInterfaceToNodeAccept);
+    ruleStatements.addAll(inboundInterfaceToNodeDrop);
+    ruleStatements.addAll(postInToPreOutRules);
+    ruleStatements.addAll(preOutToDestRouteRules);
+    ruleStatements.addAll(destRouteToPreOutEdgeRules);
+    ruleStatements.addAll(preOutEdgeToPreOutInterfaceRules);
+    ruleStatements.addAll(policyRouteRules);
+    ruleStatements.addAll(matchAclRules);
+    ruleStatements.addAll(toNeighborsRules);
+    ruleStatements.addAll(preInInterfaceToPostInInterfaceRules);
+    ruleStatements.addAll(preOutInterfaceToPostOutInterfaceRules);
+    ruleStatements.addAll(nodeAcceptToRoleAcceptRules);
+    ruleStatements.addAll(externalSrcIpRules);
+    ruleStatements.addAll(externalDstIpRules);
+    ruleStatements.addAll(postOutIfaceToNodeTransitRules);
+    ruleStatements.addAll(roleOriginateToNodeOriginateRules);
+
+    _dataPlaneRuleStatements = Collections.unmodifiableList(simplify(ruleStatements));
+    return _dataPlaneRuleStatements;
+  }
+
   private List<Statement> getDestRouteToPreOutEdgeRules() {
     List<Statement> statements = new ArrayList<>();
     statements.add(
@@ -2272,77 +2354,26 @@ public class Synthesizer {
 
   public NodProgram synthesizeNodAclProgram(String hostname, String aclName, Context ctx)
       throws Z3Exception {
-
-    List<Statement> ruleStatements = new ArrayList<>();
-    List<Statement> sane = getSane();
-    List<Statement> matchAclRules = getMatchAclRules(hostname, aclName);
-
-    ruleStatements.addAll(sane);
-    ruleStatements.addAll(matchAclRules);
-    return synthesizeNodProgram(ctx, ruleStatements);
+    return toNodProgram(ctx, getAclRuleStatements(hostname, aclName));
   }
 
   public NodProgram synthesizeNodDataPlaneProgram(Context ctx) throws Z3Exception {
-    List<Statement> ruleStatements = new ArrayList<>();
-    List<Statement> dropRules = getDropRules();
-    List<Statement> acceptRules = getAcceptRules();
-    List<Statement> sane = getSane();
-    List<Statement> flowSinkAcceptRules = getFlowSinkAcceptRules();
-    List<Statement> originateToPostInRules = getOriginateToPostInRules();
-    List<Statement> originateVrfToPostInVrfRules = getOriginateVrfToPostInVrfRules();
-    List<Statement> postInInterfaceToPostInRules = getPostInInterfaceToPostInRules();
-    List<Statement> postInInterfaceToNonInboundSrcInterface =
-        getPostInInterfaceToNonInboundSrcInterface();
-    List<Statement> postInToInboundInterface = getPostInToInboundInterface();
-    List<Statement> inboundInterfaceToNodeAccept = getInboundInterfaceToNodeAccept();
-    List<Statement> inboundInterfaceToNodeDrop = getInboundInterfaceToNodeDrop();
-    List<Statement> postInToPreOutRules = getPostInToPreOutRules();
-    List<Statement> preOutToDestRouteRules = getPreOutToDestRouteRules();
-    List<Statement> destRouteToPreOutEdgeRules = getDestRouteToPreOutEdgeRules();
-    List<Statement> preOutEdgeToPreOutInterfaceRules = getPreOutEdgeToPreOutInterfaceRules();
-    List<Statement> policyRouteRules = getPolicyRouteRules();
-    List<Statement> matchAclRules = getMatchAclRules();
-    List<Statement> toNeighborsRules = getToNeighborsRules();
-    List<Statement> preInInterfaceToPostInInterfaceRules =
-        getPreInInterfaceToPostInInterfaceRules();
-    List<Statement> preOutInterfaceToPostOutInterfaceRules =
-        getPreOutInterfaceToPostOutInterfaceRules();
-    List<Statement> nodeAcceptToRoleAcceptRules = getNodeAcceptToRoleAcceptRules();
-    List<Statement> externalSrcIpRules = getExternalSrcIpRules();
-    List<Statement> externalDstIpRules = getExternalDstIpRules();
-    List<Statement> postOutIfaceToNodeTransitRules = getPostOutIfaceToNodeTransitRules();
-    List<Statement> roleOriginateToNodeOriginateRules = getRoleOriginateToNodeOriginateRules();
-
-    ruleStatements.addAll(dropRules);
-    ruleStatements.addAll(acceptRules);
-    ruleStatements.addAll(sane);
-    ruleStatements.addAll(flowSinkAcceptRules);
-    ruleStatements.addAll(originateToPostInRules);
-    ruleStatements.addAll(originateVrfToPostInVrfRules);
-    ruleStatements.addAll(postInInterfaceToPostInRules);
-    ruleStatements.addAll(postInInterfaceToNonInboundSrcInterface);
-    ruleStatements.addAll(postInToInboundInterface);
-    ruleStatements.addAll(inboundInterfaceToNodeAccept);
-    ruleStatements.addAll(inboundInterfaceToNodeDrop);
-    ruleStatements.addAll(postInToPreOutRules);
-    ruleStatements.addAll(preOutToDestRouteRules);
-    ruleStatements.addAll(destRouteToPreOutEdgeRules);
-    ruleStatements.addAll(preOutEdgeToPreOutInterfaceRules);
-    ruleStatements.addAll(policyRouteRules);
-    ruleStatements.addAll(matchAclRules);
-    ruleStatements.addAll(toNeighborsRules);
-    ruleStatements.addAll(preInInterfaceToPostInInterfaceRules);
-    ruleStatements.addAll(preOutInterfaceToPostOutInterfaceRules);
-    ruleStatements.addAll(nodeAcceptToRoleAcceptRules);
-    ruleStatements.addAll(externalSrcIpRules);
-    ruleStatements.addAll(externalDstIpRules);
-    ruleStatements.addAll(postOutIfaceToNodeTransitRules);
-    ruleStatements.addAll(roleOriginateToNodeOriginateRules);
+    return toNodProgram(ctx, getDataPlaneRuleStatements());
+  }
 
-    return synthesizeNodProgram(ctx, ruleStatements);
+  /** Returns {@code ruleStatements}, each simplified if simplification is enabled. */
+  private List<Statement> simplify(List<Statement> ruleStatements) {
+    if (!_simplify) {
+      return ruleStatements;
+    }
+    List<Statement> simplifiedStatements = new ArrayList<>(ruleStatements.size());
+    for (Statement statement : ruleStatements) {
+      simplifiedStatements.add(statement.simplify());
+    }
+    return simplifiedStatements;
   }
 
-  private NodProgram synthesizeNodProgram(Context ctx, List<Statement> ruleStatements) {
+  private NodProgram toNodProgram(Context ctx, List<Statement> ruleStatements) {
     NodProgram nodProgram = new NodProgram(ctx);
     Map<String, FuncDecl> relDeclFuncDecls = getRelDeclFuncDecls(ruleStatements, ctx);
     nodProgram.getRelationDeclarations().putAll(relDeclFuncDecls);
@@ -2359,13 +2390,7 @@ public class Synthesizer {
       deBruinIndex++;
     }
     List<BoolExpr> rules = nodProgram.getRules();
-    for (Statement rawStatement : ruleStatements) {
-      Statement statement;
-      if (_simplify) {
-        statement = rawStatement.simplify();
-      } else {
-        statement = rawStatement;
-      }
+    for (Statement statement : ruleStatements) {
       if (statement instanceof RuleExpr) {
         RuleExpr ruleExpr = (RuleExpr) statement;
         BoolExpr rule = ruleExpr.toBoolExpr(nodProgram);
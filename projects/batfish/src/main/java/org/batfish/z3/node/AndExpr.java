@@ -7,6 +7,8 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import org.batfish.bdd.BddFactory;
+import org.batfish.z3.BddNodProgram;
 import org.batfish.z3.NodProgram;
 
 public class AndExpr extends BooleanExpr implements ComplexExpr {
@@ -116,6 +118,19 @@ public class AndExpr extends BooleanExpr implements ComplexExpr {
     }
   }
 
+  @Override
+  public int toBdd(BddNodProgram bddNodProgram) {
+    BddFactory factory = bddNodProgram.getFactory();
+    int result = BddFactory.TRUE;
+    for (BooleanExpr conjunct : _conjuncts) {
+      result = factory.and(result, conjunct.toBdd(bddNodProgram));
+      if (result == BddFactory.FALSE) {
+        break;
+      }
+    }
+    return result;
+  }
+
   @Override
   public BoolExpr toBoolExpr(NodProgram nodProgram) throws Z3Exception {
     Context ctx = nodProgram.getContext();
@@ -2,6 +2,7 @@ package org.batfish.z3.node;
 
 import com.microsoft.z3.BoolExpr;
 import com.microsoft.z3.Z3Exception;
+import org.batfish.z3.BddNodProgram;
 import org.batfish.z3.NodProgram;
 
 public abstract class BooleanExpr extends Expr {
@@ -11,5 +12,7 @@ public abstract class BooleanExpr extends Expr {
     return this;
   }
 
+  public abstract int toBdd(BddNodProgram bddNodProgram);
+
   public abstract BoolExpr toBoolExpr(NodProgram nodProgram) throws Z3Exception;
 }
@@ -7,6 +7,9 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import org.batfish.bdd.BddFactory;
+import org.batfish.common.BatfishException;
+import org.batfish.z3.BddNodProgram;
 import org.batfish.z3.NodProgram;
 
 public class EqExpr extends BooleanExpr implements ComplexExpr {
@@ -72,6 +75,21 @@ public class EqExpr extends BooleanExpr implements ComplexExpr {
     }
   }
 
+  @Override
+  public int toBdd(BddNodProgram bddNodProgram) {
+    BddFactory factory = bddNodProgram.getFactory();
+    int[] lhs = _lhs.toBdds(bddNodProgram);
+    int[] rhs = _rhs.toBdds(bddNodProgram);
+    if (lhs.length != rhs.length) {
+      throw new BatfishException("Mismatched widths in equality: " + toString());
+    }
+    int result = BddFactory.TRUE;
+    for (int i = lhs.length - 1; i >= 0 && result != BddFactory.FALSE; i--) {
+      result = factory.and(result, factory.biimp(lhs[i], rhs[i]));
+    }
+    return result;
+  }
+
   @Override
   public BoolExpr toBoolExpr(NodProgram nodProgram) throws Z3Exception {
     Context ctx = nodProgram.getContext();
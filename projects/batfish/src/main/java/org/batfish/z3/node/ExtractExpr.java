@@ -4,8 +4,10 @@ import com.microsoft.z3.BitVecExpr;
 import com.microsoft.z3.Context;
 import com.microsoft.z3.Z3Exception;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
+import org.batfish.z3.BddNodProgram;
 import org.batfish.z3.NodProgram;
 
 public class ExtractExpr extends IntExpr implements ComplexExpr {
@@ -40,6 +42,11 @@ public class ExtractExpr extends IntExpr implements ComplexExpr {
     return _var.getVariables();
   }
 
+  @Override
+  public int[] toBdds(BddNodProgram bddNodProgram) {
+    return Arrays.copyOfRange(_var.toBdds(bddNodProgram), _low, _high + 1);
+  }
+
   @Override
   public BitVecExpr toBitVecExpr(NodProgram nodProgram) throws Z3Exception {
     Context ctx = nodProgram.getContext();
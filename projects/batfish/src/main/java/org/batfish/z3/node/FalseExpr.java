@@ -2,6 +2,8 @@ package org.batfish.z3.node;
 
 import com.microsoft.z3.BoolExpr;
 import com.microsoft.z3.Z3Exception;
+import org.batfish.bdd.BddFactory;
+import org.batfish.z3.BddNodProgram;
 import org.batfish.z3.NodProgram;
 
 public class FalseExpr extends BooleanExpr {
@@ -15,6 +17,11 @@ public class FalseExpr extends BooleanExpr {
     sb.append("false");
   }
 
+  @Override
+  public int toBdd(BddNodProgram bddNodProgram) {
+    return BddFactory.FALSE;
+  }
+
   @Override
   public BoolExpr toBoolExpr(NodProgram nodProgram) throws Z3Exception {
     return nodProgram.getContext().mkFalse();
@@ -7,6 +7,8 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import org.batfish.bdd.BddFactory;
+import org.batfish.z3.BddNodProgram;
 import org.batfish.z3.NodProgram;
 
 public class IfExpr extends BooleanExpr implements ComplexExpr {
@@ -26,6 +28,14 @@ public class IfExpr extends BooleanExpr implements ComplexExpr {
     refreshSubExpressions();
   }
 
+  public BooleanExpr getAntecedent() {
+    return _antecedent;
+  }
+
+  public BooleanExpr getConsequent() {
+    return _consequent;
+  }
+
   @Override
   public Set<String> getRelations() {
     Set<String> relations = new HashSet<>();
@@ -88,6 +98,13 @@ public class IfExpr extends BooleanExpr implements ComplexExpr {
     }
   }
 
+  @Override
+  public int toBdd(BddNodProgram bddNodProgram) {
+    BddFactory factory = bddNodProgram.getFactory();
+    return factory.or(
+        factory.not(_antecedent.toBdd(bddNodProgram)), _consequent.toBdd(bddNodProgram));
+  }
+
   @Override
   public BoolExpr toBoolExpr(NodProgram nodProgram) throws Z3Exception {
     Context ctx = nodProgram.getContext();
@@ -1,10 +1,14 @@
 package org.batfish.z3.node;
 
 import com.microsoft.z3.Z3Exception;
+import org.batfish.z3.BddNodProgram;
 import org.batfish.z3.NodProgram;
 
 public abstract class IntExpr extends Expr {
 
+  /** Returns the BDDs for the bits of this expression, least significant first. */
+  public abstract int[] toBdds(BddNodProgram bddNodProgram);
+
   public abstract com.microsoft.z3.BitVecExpr toBitVecExpr(NodProgram nodProgram)
       throws Z3Exception;
 }
@@ -3,7 +3,10 @@ package org.batfish.z3.node;
 import com.microsoft.z3.BoolExpr;
 import com.microsoft.z3.Z3Exception;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import org.batfish.z3.BddNodProgram;
 import org.batfish.z3.NodProgram;
 
 public class LetExpr extends BooleanExpr implements ComplexExpr {
@@ -28,11 +31,29 @@ public class LetExpr extends BooleanExpr implements ComplexExpr {
     return _macroDefs;
   }
 
+  @Override
+  public Set<String> getRelations() {
+    Set<String> relations = new HashSet<>(_expression.getRelations());
+    for (MacroDefExpr macroDef : _macroDefs) {
+      relations.addAll(macroDef.getExpression().getRelations());
+    }
+    return relations;
+  }
+
   @Override
   public List<Expr> getSubExpressions() {
     return _subExpressions;
   }
 
+  @Override
+  public Set<String> getVariables() {
+    Set<String> variables = new HashSet<>(_expression.getVariables());
+    for (MacroDefExpr macroDef : _macroDefs) {
+      variables.addAll(macroDef.getExpression().getVariables());
+    }
+    return variables;
+  }
+
   private void refreshSubexpressions() {
     _subExpressions.clear();
     _subExpressions.add(new IdExpr("let"));
@@ -44,6 +65,26 @@ public class LetExpr extends BooleanExpr implements ComplexExpr {
     }
   }
 
+  @Override
+  public int toBdd(BddNodProgram bddNodProgram) {
+    // as in SMT-LIB, every definition is evaluated before any macro is bound
+    int[] values = new int[_macroDefs.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = _macroDefs.get(i).getExpression().toBdd(bddNodProgram);
+    }
+    Integer[] shadowed = new Integer[values.length];
+    for (int i = 0; i < values.length; i++) {
+      shadowed[i] = bddNodProgram.bindMacro(_macroDefs.get(i).getMacro(), values[i]);
+    }
+    try {
+      return _expression.toBdd(bddNodProgram);
+    } finally {
+      for (int i = values.length - 1; i >= 0; i--) {
+        bddNodProgram.bindMacro(_macroDefs.get(i).getMacro(), shadowed[i]);
+      }
+    }
+  }
+
   @Override
   public BoolExpr toBoolExpr(NodProgram nodProgram) throws Z3Exception {
     throw new UnsupportedOperationException("no implementation for generated method");
@@ -17,6 +17,14 @@ public class MacroDefExpr extends Expr implements ComplexExpr {
     refreshSubexpressions();
   }
 
+  public BooleanExpr getExpression() {
+    return _expression;
+  }
+
+  public String getMacro() {
+    return _macro;
+  }
+
   @Override
   public List<Expr> getSubExpressions() {
     return _subExpressions;
@@ -2,6 +2,8 @@ package org.batfish.z3.node;
 
 import com.microsoft.z3.BoolExpr;
 import com.microsoft.z3.Z3Exception;
+import org.batfish.common.BatfishException;
+import org.batfish.z3.BddNodProgram;
 import org.batfish.z3.NodProgram;
 
 public class MacroRefExpr extends BooleanExpr {
@@ -17,6 +19,15 @@ public class MacroRefExpr extends BooleanExpr {
     sb.append(_macro);
   }
 
+  @Override
+  public int toBdd(BddNodProgram bddNodProgram) {
+    Integer value = bddNodProgram.getMacro(_macro);
+    if (value == null) {
+      throw new BatfishException("Reference to macro '" + _macro + "' outside of its let");
+    }
+    return value;
+  }
+
   @Override
   public BoolExpr toBoolExpr(NodProgram nodProgram) throws Z3Exception {
     throw new UnsupportedOperationException("no implementation for generated method");
@@ -6,6 +6,7 @@ import com.microsoft.z3.Z3Exception;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import org.batfish.z3.BddNodProgram;
 import org.batfish.z3.NodProgram;
 
 public class NotExpr extends BooleanExpr implements ComplexExpr {
@@ -68,6 +69,11 @@ public class NotExpr extends BooleanExpr implements ComplexExpr {
     }
   }
 
+  @Override
+  public int toBdd(BddNodProgram bddNodProgram) {
+    return bddNodProgram.getFactory().not(_arg.toBdd(bddNodProgram));
+  }
+
   @Override
   public BoolExpr toBoolExpr(NodProgram nodProgram) throws Z3Exception {
     Context ctx = nodProgram.getContext();
@@ -3,6 +3,7 @@ package org.batfish.z3.node;
 import com.microsoft.z3.BoolExpr;
 import com.microsoft.z3.Z3Exception;
 import org.batfish.datamodel.Prefix;
+import org.batfish.z3.BddNodProgram;
 import org.batfish.z3.NodProgram;
 import org.batfish.z3.Synthesizer;
 
@@ -37,6 +38,11 @@ public class PrefixMatchExpr extends BooleanExpr {
     return _expr.simplify();
   }
 
+  @Override
+  public int toBdd(BddNodProgram bddNodProgram) {
+    return _expr.toBdd(bddNodProgram);
+  }
+
   @Override
   public BoolExpr toBoolExpr(NodProgram nodProgram) throws Z3Exception {
     return _expr.toBoolExpr(nodProgram);
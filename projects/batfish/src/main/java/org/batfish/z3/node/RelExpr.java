@@ -9,6 +9,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import org.batfish.z3.BddNodProgram;
 import org.batfish.z3.NodProgram;
 
 public class RelExpr extends BooleanExpr implements ComplexExpr {
@@ -30,6 +31,10 @@ public class RelExpr extends BooleanExpr implements ComplexExpr {
     _args.add(arg);
   }
 
+  public String getName() {
+    return _name;
+  }
+
   @Override
   public Set<String> getRelations() {
     return Collections.singleton(_name);
@@ -49,6 +54,11 @@ public class RelExpr extends BooleanExpr implements ComplexExpr {
     return variables;
   }
 
+  @Override
+  public int toBdd(BddNodProgram bddNodProgram) {
+    return bddNodProgram.getRelation(_name);
+  }
+
   @Override
   public BoolExpr toBoolExpr(NodProgram nodProgram) throws Z3Exception {
     Context ctx = nodProgram.getContext();
@@ -33,6 +33,10 @@ public class RuleExpr extends Statement implements ComplexExpr {
     return _subExpression.getRelations();
   }
 
+  public BooleanExpr getSubExpression() {
+    return _subExpression;
+  }
+
   @Override
   public List<Expr> getSubExpressions() {
     return _subExpressions;
@@ -2,6 +2,8 @@ package org.batfish.z3.node;
 
 import com.microsoft.z3.BoolExpr;
 import com.microsoft.z3.Z3Exception;
+import org.batfish.bdd.BddFactory;
+import org.batfish.z3.BddNodProgram;
 import org.batfish.z3.NodProgram;
 
 public class TrueExpr extends BooleanExpr {
@@ -15,6 +17,11 @@ public class TrueExpr extends BooleanExpr {
     sb.append("true");
   }
 
+  @Override
+  public int toBdd(BddNodProgram bddNodProgram) {
+    return BddFactory.TRUE;
+  }
+
   @Override
   public BoolExpr toBoolExpr(NodProgram nodProgram) throws Z3Exception {
     return nodProgram.getContext().mkTrue();
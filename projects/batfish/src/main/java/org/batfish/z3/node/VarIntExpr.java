@@ -4,6 +4,7 @@ import com.microsoft.z3.Z3Exception;
 import java.util.Collections;
 import java.util.Set;
 import org.batfish.common.BatfishException;
+import org.batfish.z3.BddNodProgram;
 import org.batfish.z3.NodProgram;
 
 public class VarIntExpr extends IntExpr {
@@ -42,6 +43,15 @@ public class VarIntExpr extends IntExpr {
     sb.append(_var);
   }
 
+  @Override
+  public int[] toBdds(BddNodProgram bddNodProgram) {
+    int[] bits = bddNodProgram.getVariables().get(_var);
+    if (bits == null) {
+      throw new BatfishException("bddNodProgram missing mapping for variable: '" + _var + "'");
+    }
+    return bits;
+  }
+
   @Override
   public com.microsoft.z3.BitVecExpr toBitVecExpr(NodProgram nodProgram) throws Z3Exception {
     com.microsoft.z3.BitVecExpr ret = nodProgram.getVariables().get(_var);
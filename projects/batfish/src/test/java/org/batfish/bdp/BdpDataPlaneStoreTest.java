@@ -0,0 +1,115 @@
+package org.batfish.bdp;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import org.batfish.common.BatfishException;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.Edge;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.StaticRoute;
+import org.batfish.datamodel.Topology;
+import org.batfish.datamodel.Vrf;
+import org.batfish.datamodel.collections.EdgeSet;
+import org.batfish.datamodel.collections.InterfaceSet;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests for {@link BdpDataPlaneStore} */
+public class BdpDataPlaneStoreTest {
+
+  @Rule public TemporaryFolder _folder = new TemporaryFolder();
+
+  @Rule public ExpectedException _thrown = ExpectedException.none();
+
+  private static BdpDataPlane createDataPlane() {
+    return createDataPlane(3);
+  }
+
+  private static BdpDataPlane createDataPlane(int numNodes) {
+    Map<String, Node> nodes = new TreeMap<>();
+    for (int i = 1; i <= numNodes; i++) {
+      Configuration c = new Configuration("r" + i);
+      c.getVrfs().put(Configuration.DEFAULT_VRF_NAME, new Vrf(Configuration.DEFAULT_VRF_NAME));
+      Node node = new Node(c, nodes);
+      node._virtualRouters
+          .get(Configuration.DEFAULT_VRF_NAME)
+          ._mainRib
+          .mergeRoute(
+              StaticRoute.builder()
+                  .setNetwork(new Prefix("10.0." + i + ".0/24"))
+                  .setNextHopIp(new Ip("192.168.0." + i))
+                  .build());
+      nodes.put(c.getHostname(), node);
+    }
+    EdgeSet edges = new EdgeSet();
+    edges.add(new Edge("r1", "e0", "r2", "e0"));
+    BdpDataPlane dp = new BdpDataPlane();
+    dp.setNodes(nodes);
+    dp.setTopology(new Topology(edges));
+    dp.setFlowSinks(new InterfaceSet());
+    dp.initIpOwners(
+        Collections.emptyMap(),
+        Collections.singletonMap(new Ip("192.168.0.1"), Collections.singleton("r1")),
+        Collections.singletonMap(new Ip("192.168.0.1"), "r1"));
+    return dp;
+  }
+
+  @Test
+  public void testReadWrittenDataPlane() throws IOException {
+    BdpDataPlane dp = createDataPlane();
+    Path dataPlanePath = _folder.newFile().toPath();
+    BdpDataPlaneStore.write(dp, dataPlanePath);
+    BdpDataPlane loaded = BdpDataPlaneStore.read(dataPlanePath);
+
+    assertThat(loaded.getNodes().keySet(), equalTo(dp.getNodes().keySet()));
+    assertThat(loaded.getTopologyEdges(), equalTo(dp.getTopologyEdges()));
+    assertThat(loaded.getIpOwnersSimple(), equalTo(dp.getIpOwnersSimple()));
+    for (String hostname : dp.getNodes().keySet()) {
+      VirtualRouter vr =
+          dp.getNodes().get(hostname)._virtualRouters.get(Configuration.DEFAULT_VRF_NAME);
+      VirtualRouter loadedVr =
+          loaded.getNodes().get(hostname)._virtualRouters.get(Configuration.DEFAULT_VRF_NAME);
+      assertThat(loadedVr._mainRib.getRoutes(), equalTo(vr._mainRib.getRoutes()));
+    }
+    // nodes are deserialized once, then reused
+    assertThat(loaded.getNodes().get("r1"), sameInstance(loaded.getNodes().get("r1")));
+  }
+
+  @Test
+  public void testReadAfterRewrite() throws IOException {
+    BdpDataPlane dp = createDataPlane();
+    Path dataPlanePath = _folder.newFile().toPath();
+    BdpDataPlaneStore.write(dp, dataPlanePath);
+    BdpDataPlane loaded = BdpDataPlaneStore.read(dataPlanePath);
+
+    // a smaller data plane would leave the sections of the first one unmapped if written in place
+    BdpDataPlaneStore.write(createDataPlane(1), dataPlanePath);
+
+    VirtualRouter vr = dp.getNodes().get("r3")._virtualRouters.get(Configuration.DEFAULT_VRF_NAME);
+    VirtualRouter loadedVr =
+        loaded.getNodes().get("r3")._virtualRouters.get(Configuration.DEFAULT_VRF_NAME);
+    assertThat(loadedVr._mainRib.getRoutes(), equalTo(vr._mainRib.getRoutes()));
+    assertThat(
+        BdpDataPlaneStore.read(dataPlanePath).getNodes().keySet(),
+        equalTo(Collections.singleton("r1")));
+  }
+
+  @Test
+  public void testReadUnexpectedFormat() throws IOException {
+    Path dataPlanePath = _folder.newFile().toPath();
+    Files.write(dataPlanePath, new byte[] {0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15});
+    _thrown.expect(BatfishException.class);
+    BdpDataPlaneStore.read(dataPlanePath);
+  }
+}
@@ -0,0 +1,185 @@
+package org.batfish.bdp;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.Edge;
+import org.batfish.datamodel.Flow;
+import org.batfish.datamodel.FlowDisposition;
+import org.batfish.datamodel.FlowTrace;
+import org.batfish.datamodel.FlowTraceHop;
+import org.batfish.datamodel.Interface;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.StaticRoute;
+import org.batfish.datamodel.Vrf;
+import org.batfish.main.Batfish;
+import org.batfish.main.BatfishTestUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests for {@link FlowTraceDag} */
+public class FlowTraceDagTest {
+
+  private static final Map<String, Integer> ROUTER_INDICES =
+      ImmutableMap.of("a", 0, "b", 1, "c", 2);
+
+  @Rule public TemporaryFolder _folder = new TemporaryFolder();
+
+  private static void addInterface(Configuration c, String name, String prefix) {
+    Vrf vrf = c.getVrfs().get(Configuration.DEFAULT_VRF_NAME);
+    Interface iface = new Interface(name, c);
+    iface.setPrefix(new Prefix(prefix));
+    iface.getAllPrefixes().add(new Prefix(prefix));
+    iface.setVrf(vrf);
+    c.getInterfaces().put(name, iface);
+    vrf.getInterfaces().put(name, iface);
+  }
+
+  private static void addStaticRoute(Configuration c, String network, String nextHopIp) {
+    c.getVrfs()
+        .get(Configuration.DEFAULT_VRF_NAME)
+        .getStaticRoutes()
+        .add(new StaticRoute(new Prefix(network), new Ip(nextHopIp), null, 1, 0));
+  }
+
+  private static Flow flow(String dstIp) {
+    Flow.Builder builder = new Flow.Builder();
+    builder.setIngressNode("a");
+    builder.setSrcIp(new Ip("10.0.1.1"));
+    builder.setDstIp(new Ip(dstIp));
+    builder.setTag("test");
+    return builder.build();
+  }
+
+  private static FlowTraceHop hop(String node1, String node2) {
+    return new FlowTraceHop(new Edge(node1, "i", node2, "i"), new TreeSet<>(), null);
+  }
+
+  /**
+   * Builds a network with two levels of ECMP, a -> {b1, b2} -> c -> {d1, d2} -> e. Traffic to
+   * 10.9.9.0/24 is accepted by e, while traffic to 10.8.8.0/24 has no route at d2 or e.
+   */
+  private static SortedMap<String, Configuration> multipathConfigurations() {
+    SortedMap<String, Configuration> configurations = new TreeMap<>();
+    for (String hostname : new String[] {"a", "b1", "b2", "c", "d1", "d2", "e"}) {
+      Configuration c =
+          BatfishTestUtils.createTestConfiguration(hostname, ConfigurationFormat.CISCO_IOS);
+      c.getVrfs().put(Configuration.DEFAULT_VRF_NAME, new Vrf(Configuration.DEFAULT_VRF_NAME));
+      configurations.put(hostname, c);
+    }
+    String[][] links = {
+      {"a", "b1"}, {"a", "b2"}, {"b1", "c"}, {"b2", "c"}, {"c", "d1"}, {"c", "d2"}, {"d1", "e"},
+      {"d2", "e"}
+    };
+    for (int i = 0; i < links.length; i++) {
+      String subnet = "10.0." + (i + 1) + ".";
+      addInterface(configurations.get(links[i][0]), "Ethernet" + i, subnet + "1/30");
+      addInterface(configurations.get(links[i][1]), "Ethernet" + i, subnet + "2/30");
+      for (String network : new String[] {"10.9.9.0/24", "10.8.8.0/24"}) {
+        if (!(links[i][0].equals("d2") && network.equals("10.8.8.0/24"))) {
+          addStaticRoute(configurations.get(links[i][0]), network, subnet + "2");
+        }
+      }
+    }
+    addInterface(configurations.get("e"), "Ethernet9", "10.9.9.1/24");
+    return configurations;
+  }
+
+  /** Returns the traces of each flow last processed by {@code dataPlanePlugin} */
+  private static SortedMap<Flow, SortedSet<FlowTrace>> tracesByFlow(
+      BdpDataPlanePlugin dataPlanePlugin) {
+    List<Flow> flows = dataPlanePlugin.getHistoryFlows();
+    List<FlowTrace> traces = dataPlanePlugin.getHistoryFlowTraces();
+    SortedMap<Flow, SortedSet<FlowTrace>> tracesByFlow = new TreeMap<>();
+    for (int i = 0; i < flows.size(); i++) {
+      tracesByFlow.computeIfAbsent(flows.get(i), f -> new TreeSet<>()).add(traces.get(i));
+    }
+    return tracesByFlow;
+  }
+
+  /** Builds a -> {b1, b2} -> c, where both paths through b share the vertex for c */
+  private static FlowTraceDag diamond(FlowTraceDag.Subgraphs subgraphs) {
+    FlowTraceDag.Vertex c = subgraphs.newVertex("c");
+    c.addTermination(null, FlowDisposition.ACCEPTED, FlowDisposition.ACCEPTED.toString());
+    c.addTermination(hop("c", "x"), FlowDisposition.DENIED_IN, null);
+    FlowTraceDag.Vertex b1 = subgraphs.newVertex("b");
+    b1.addContinuation(hop("b1", "c"), c);
+    FlowTraceDag.Vertex b2 = subgraphs.newVertex("b");
+    b2.addContinuation(hop("b2", "c"), c);
+    FlowTraceDag.Vertex a = subgraphs.newVertex("a");
+    a.addContinuation(hop("a", "b1"), b1);
+    a.addContinuation(hop("a", "b2"), b2);
+    return new FlowTraceDag(a);
+  }
+
+  @Test
+  public void testExpandSharedSubgraph() {
+    FlowTraceDag dag = diamond(new FlowTraceDag.Subgraphs(ROUTER_INDICES));
+
+    assertThat(dag.getNumTraces(), equalTo(4L));
+    assertThat(dag.getTraces(Integer.MAX_VALUE).size(), equalTo(4));
+    FlowTrace first = dag.getTraces(1).first();
+    assertThat(first.getHops().size(), equalTo(2));
+    assertThat(first.getDisposition(), equalTo(FlowDisposition.ACCEPTED));
+  }
+
+  @Test
+  public void testExpandLimit() {
+    FlowTraceDag dag = diamond(new FlowTraceDag.Subgraphs(ROUTER_INDICES));
+
+    assertThat(dag.getTraces(3).size(), equalTo(3));
+  }
+
+  @Test
+  public void testSharedSubgraphsMatchPerPathEnumeration() throws IOException {
+    Batfish batfish = BatfishTestUtils.getBatfish(multipathConfigurations(), _folder);
+    BdpDataPlanePlugin dataPlanePlugin = new BdpDataPlanePlugin();
+    dataPlanePlugin.initialize(batfish);
+    dataPlanePlugin.computeDataPlane(false);
+    Set<Flow> flows = ImmutableSet.of(flow("10.9.9.1"), flow("10.8.8.8"));
+
+    dataPlanePlugin.processFlows(flows);
+    SortedMap<Flow, SortedSet<FlowTrace>> sharedTraces = tracesByFlow(dataPlanePlugin);
+    dataPlanePlugin.setShareFlowTraceSubgraphs(false);
+    dataPlanePlugin.processFlows(flows);
+    SortedMap<Flow, SortedSet<FlowTrace>> perPathTraces = tracesByFlow(dataPlanePlugin);
+
+    assertThat(sharedTraces, equalTo(perPathTraces));
+    // both flows take all four paths through the two levels of ECMP
+    assertThat(sharedTraces.get(flow("10.9.9.1")).size(), equalTo(4));
+    assertThat(sharedTraces.get(flow("10.8.8.8")).size(), equalTo(4));
+  }
+
+  @Test
+  public void testSubgraphReuse() {
+    FlowTraceDag.Subgraphs subgraphs = new FlowTraceDag.Subgraphs(ROUTER_INDICES);
+    FlowTraceDag.Vertex c = subgraphs.newVertex("c");
+    c.addTermination(null, FlowDisposition.NO_ROUTE, FlowDisposition.NO_ROUTE.toString());
+    subgraphs.put("c", c);
+    FlowTraceDag.Vertex loop = subgraphs.newVertex("b");
+    loop.addTermination(hop("b", "a"), FlowDisposition.LOOP, FlowDisposition.LOOP.toString());
+    subgraphs.put("loop", loop);
+
+    assertThat(subgraphs.get("c", Collections.emptySet()), equalTo(c));
+    assertThat(subgraphs.get("c", ImmutableSet.of(new Edge("a", "i", "c", "i"))), equalTo(c));
+    // c already followed its own edges, so they may now lead to a loop
+    assertThat(subgraphs.get("c", ImmutableSet.of(new Edge("c", "i", "a", "i"))), nullValue());
+    assertThat(subgraphs.get("loop", Collections.emptySet()), nullValue());
+  }
+}
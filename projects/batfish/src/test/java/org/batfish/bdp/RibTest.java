@@ -0,0 +1,84 @@
+package org.batfish.bdp;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.batfish.datamodel.AbstractRoute;
+import org.batfish.datamodel.ConnectedRoute;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.Prefix;
+import org.junit.Test;
+
+/** Tests for {@link Rib} */
+public class RibTest {
+
+  private static ConnectedRoute route(String prefix) {
+    return new ConnectedRoute(new Prefix(prefix), "eth0");
+  }
+
+  @Test
+  public void testLongestPrefixMatch() {
+    Rib rib = new Rib(null);
+    ConnectedRoute defaultRoute = route("0.0.0.0/0");
+    ConnectedRoute route8 = route("10.0.0.0/8");
+    ConnectedRoute route24 = route("10.1.1.0/24");
+    ConnectedRoute route32 = route("10.1.1.1/32");
+    rib.mergeRoute(route24);
+    rib.mergeRoute(route8);
+    rib.mergeRoute(route32);
+
+    assertThat(rib.longestPrefixMatch(new Ip("10.1.1.1")), equalTo(ImmutableSet.of(route32)));
+    assertThat(rib.longestPrefixMatch(new Ip("10.1.1.2")), equalTo(ImmutableSet.of(route24)));
+    assertThat(rib.longestPrefixMatch(new Ip("10.2.0.0")), equalTo(ImmutableSet.of(route8)));
+    assertThat(rib.longestPrefixMatch(new Ip("11.0.0.0")), is(empty()));
+
+    rib.mergeRoute(defaultRoute);
+    assertThat(rib.longestPrefixMatch(new Ip("11.0.0.0")), equalTo(ImmutableSet.of(defaultRoute)));
+    assertThat(rib.getRoutes(), equalTo(ImmutableSet.of(defaultRoute, route8, route24, route32)));
+  }
+
+  @Test
+  public void testLongestPrefixMatchRandom() {
+    Random random = new Random(0);
+    Rib rib = new Rib(null);
+    List<AbstractRoute> routes = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      int prefixLength = random.nextInt(Prefix.MAX_PREFIX_LENGTH + 1);
+      long address = random.nextLong() & 0xFFFFFFFFL & (0xFFFFFFFFL << (32 - prefixLength));
+      ConnectedRoute route = new ConnectedRoute(new Prefix(new Ip(address), prefixLength), "e");
+      rib.mergeRoute(route);
+      routes.add(route);
+    }
+    assertThat(rib.getRoutes(), equalTo(new HashSet<>(routes)));
+    for (int i = 0; i < 2000; i++) {
+      Ip ip = new Ip(random.nextLong() & 0xFFFFFFFFL);
+      if (i % 2 == 0) {
+        // make sure some lookups hit long prefixes
+        ip = routes.get(i).getNetwork().getAddress();
+      }
+      Set<AbstractRoute> expected = new HashSet<>();
+      int longest = -1;
+      for (AbstractRoute route : routes) {
+        Prefix network = route.getNetwork();
+        if (network.contains(ip)) {
+          if (network.getPrefixLength() > longest) {
+            longest = network.getPrefixLength();
+            expected.clear();
+          }
+          if (network.getPrefixLength() == longest) {
+            expected.add(route);
+          }
+        }
+      }
+      assertThat(rib.longestPrefixMatch(ip), equalTo(expected));
+    }
+  }
+}
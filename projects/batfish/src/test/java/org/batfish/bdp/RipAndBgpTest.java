@@ -1,5 +1,7 @@
 package org.batfish.bdp;
 
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
@@ -27,20 +29,37 @@ public class RipAndBgpTest {
 
   private static String TESTCONFIGS_PREFIX = "org/batfish/grammar/cisco/testrigs/rip/configs/";
 
-  @Test
-  public void testOutputRoutes() throws IOException {
+  private Batfish getBatfish() throws IOException {
     SortedMap<String, String> configurationsText = new TreeMap<>();
     String[] configurationNames = new String[] {"r1", "r2", "r3"};
     for (String configurationName : configurationNames) {
       String configurationText = CommonUtil.readResource(TESTCONFIGS_PREFIX + configurationName);
       configurationsText.put(configurationName, configurationText);
     }
-    Batfish batfish =
-        BatfishTestUtils.getBatfishFromConfigurationText(
-            configurationsText,
-            Collections.emptySortedMap(),
-            Collections.emptySortedMap(),
-            _folder);
+    return BatfishTestUtils.getBatfishFromConfigurationText(
+        configurationsText, Collections.emptySortedMap(), Collections.emptySortedMap(), _folder);
+  }
+
+  @Test
+  public void testIncrementalFixedPointMatchesFullRebuild() throws IOException {
+    Batfish batfish = getBatfish();
+    BdpDataPlanePlugin dataPlanePlugin = new BdpDataPlanePlugin();
+    dataPlanePlugin.initialize(batfish);
+    dataPlanePlugin.computeDataPlane(false);
+    SortedMap<String, SortedMap<String, SortedSet<AbstractRoute>>> incrementalRoutes =
+        dataPlanePlugin.getRoutes();
+
+    batfish.getSettings().setBdpFullRebuild(true);
+    dataPlanePlugin.computeDataPlane(false);
+    SortedMap<String, SortedMap<String, SortedSet<AbstractRoute>>> fullRebuildRoutes =
+        dataPlanePlugin.getRoutes();
+
+    assertThat(incrementalRoutes, equalTo(fullRebuildRoutes));
+  }
+
+  @Test
+  public void testOutputRoutes() throws IOException {
+    Batfish batfish = getBatfish();
     BdpDataPlanePlugin dataPlanePlugin = new BdpDataPlanePlugin();
     dataPlanePlugin.initialize(batfish);
     dataPlanePlugin.computeDataPlane(false);
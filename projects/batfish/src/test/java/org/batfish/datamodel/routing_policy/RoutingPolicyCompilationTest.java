@@ -0,0 +1,256 @@
+package org.batfish.datamodel.routing_policy;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import org.batfish.common.util.CommonUtil;
+import org.batfish.datamodel.AbstractRoute;
+import org.batfish.datamodel.AsPath;
+import org.batfish.datamodel.BgpRoute;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConnectedRoute;
+import org.batfish.datamodel.Interface;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.OriginType;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.RouteFilterLine;
+import org.batfish.datamodel.RouteFilterList;
+import org.batfish.datamodel.RoutingProtocol;
+import org.batfish.datamodel.StaticRoute;
+import org.batfish.datamodel.routing_policy.Environment.Direction;
+import org.batfish.datamodel.routing_policy.expr.BooleanExprs;
+import org.batfish.datamodel.routing_policy.expr.LiteralInt;
+import org.batfish.datamodel.routing_policy.expr.WithEnvironmentExpr;
+import org.batfish.datamodel.routing_policy.statement.If;
+import org.batfish.datamodel.routing_policy.statement.SetLocalPreference;
+import org.batfish.datamodel.routing_policy.statement.Statements;
+import org.batfish.main.Batfish;
+import org.batfish.main.BatfishTestUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Checks that compiled routing policies transform routes exactly as the interpreter does, for
+ * every policy produced from the test configurations and from the Cisco and Juniper example
+ * testrigs.
+ */
+public class RoutingPolicyCompilationTest {
+
+  private static final String[] CONFIGURATION_NAMES = new String[] {"r1"};
+
+  private static final Ip PEER = new Ip("10.0.0.2");
+
+  /**
+   * System property naming the directory that holds the bundled test rigs. Defaults to the {@code
+   * test_rigs} directory at the root of the repository.
+   */
+  private static final String PROP_TESTRIGS_DIR = "batfish.testrigs";
+
+  private static final String TESTCONFIGS_PREFIX =
+      "org/batfish/grammar/cisco/testrigs/route_policies/configs/";
+
+  /** The bundled testrigs whose policies are checked: Cisco route-maps and Juniper policy chains */
+  private static final String[] TESTRIG_NAMES =
+      new String[] {"example", "example-juniper", "example2"};
+
+  @Rule public TemporaryFolder _folder = new TemporaryFolder();
+
+  private static List<AsPath> asPaths() {
+    return ImmutableList.of(
+        new AsPath(new ArrayList<>()),
+        new AsPath(ImmutableList.of(ImmutableSortedSet.of(2), ImmutableSortedSet.of(4))),
+        new AsPath(ImmutableList.of(ImmutableSortedSet.of(5), ImmutableSortedSet.of(3))));
+  }
+
+  private static void assertCompiledMatchesInterpreted(
+      SortedMap<String, Configuration> configurations) {
+    for (Configuration configuration : configurations.values()) {
+      List<AbstractRoute> routes = routes(configuration);
+      for (RoutingPolicy policy : configuration.getRoutingPolicies().values()) {
+        for (AbstractRoute route : routes) {
+          for (Direction direction : Direction.values()) {
+            String context =
+                String.format(
+                    "%s:%s %s %s", configuration.getHostname(), policy.getName(), direction, route);
+            BgpRoute.Builder interpretedOutput = newOutputRoute(route);
+            boolean interpretedAccepted =
+                policy.processInterpreted(
+                    route, interpretedOutput, PEER, Configuration.DEFAULT_VRF_NAME, direction);
+            BgpRoute.Builder compiledOutput = newOutputRoute(route);
+            boolean compiledAccepted =
+                policy.process(
+                    route, compiledOutput, PEER, Configuration.DEFAULT_VRF_NAME, direction);
+            assertThat(context, compiledAccepted, equalTo(interpretedAccepted));
+            if (interpretedAccepted) {
+              assertThat(context, compiledOutput.build(), equalTo(interpretedOutput.build()));
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private static List<SortedSet<Long>> communitySets() {
+    return ImmutableList.of(
+        ImmutableSortedSet.of(),
+        ImmutableSortedSet.of(65536L + 100L),
+        ImmutableSortedSet.of(65535L * 65536L + 666L),
+        ImmutableSortedSet.of(0xFFFFFF01L, 65536L + 200L));
+  }
+
+  private static SortedMap<String, Configuration> loadConfigurations(
+      SortedMap<String, String> configurationsText, TemporaryFolder folder) throws IOException {
+    Batfish batfish =
+        BatfishTestUtils.getBatfishFromConfigurationText(
+            configurationsText, Collections.emptySortedMap(), Collections.emptySortedMap(), folder);
+    return batfish.loadConfigurations();
+  }
+
+  private static BgpRoute.Builder newOutputRoute(AbstractRoute inputRoute) {
+    BgpRoute.Builder outputRoute = new BgpRoute.Builder();
+    outputRoute.setNetwork(inputRoute.getNetwork());
+    outputRoute.setNextHopIp(PEER);
+    outputRoute.setAdmin(20);
+    outputRoute.setMetric(0L);
+    outputRoute.setLocalPreference(100);
+    outputRoute.setOriginatorIp(PEER);
+    outputRoute.setOriginType(OriginType.IGP);
+    outputRoute.setProtocol(RoutingProtocol.BGP);
+    if (inputRoute instanceof BgpRoute) {
+      BgpRoute bgpRoute = (BgpRoute) inputRoute;
+      outputRoute.setAsPath(new ArrayList<>(bgpRoute.getAsPath().getAsSets()));
+      outputRoute.setCommunities(new TreeSet<>(bgpRoute.getCommunities()));
+    }
+    return outputRoute;
+  }
+
+  private static Set<Prefix> prefixes(Configuration configuration) {
+    Set<Prefix> prefixes = new TreeSet<>();
+    prefixes.add(Prefix.ZERO);
+    prefixes.add(new Prefix("10.0.0.0/8"));
+    for (RouteFilterList list : configuration.getRouteFilterLists().values()) {
+      for (RouteFilterLine line : list.getLines()) {
+        Prefix prefix = line.getPrefix();
+        prefixes.add(prefix);
+        int longer = Math.min(Prefix.MAX_PREFIX_LENGTH, prefix.getPrefixLength() + 8);
+        prefixes.add(new Prefix(prefix.getAddress(), longer));
+      }
+    }
+    for (Interface iface : configuration.getInterfaces().values()) {
+      if (iface.getPrefix() != null) {
+        prefixes.add(iface.getPrefix());
+      }
+    }
+    return prefixes;
+  }
+
+  private static List<AbstractRoute> routes(Configuration configuration) {
+    List<AbstractRoute> routes = new ArrayList<>();
+    for (Prefix prefix : prefixes(configuration)) {
+      routes.add(new ConnectedRoute(prefix, "Ethernet0"));
+      routes.add(new StaticRoute(prefix, PEER, null, 1, 0));
+      routes.add(new StaticRoute(prefix, PEER, null, 1, 7));
+      for (AsPath asPath : asPaths()) {
+        for (SortedSet<Long> communities : communitySets()) {
+          routes.add(
+              new BgpRoute(
+                  prefix,
+                  PEER,
+                  20,
+                  asPath,
+                  communities,
+                  100,
+                  10L,
+                  PEER,
+                  new TreeSet<>(),
+                  false,
+                  OriginType.EGP,
+                  RoutingProtocol.BGP,
+                  null,
+                  0));
+        }
+      }
+    }
+    return routes;
+  }
+
+  @Test
+  public void testCompiledMatchesInterpreted() throws IOException {
+    SortedMap<String, String> configurationsText = new TreeMap<>();
+    for (String configurationName : CONFIGURATION_NAMES) {
+      String configurationText = CommonUtil.readResource(TESTCONFIGS_PREFIX + configurationName);
+      configurationsText.put(configurationName, configurationText);
+    }
+    assertCompiledMatchesInterpreted(loadConfigurations(configurationsText, _folder));
+  }
+
+  @Test
+  public void testCompiledMatchesInterpretedOnTestrigs() throws IOException {
+    Path testrigsDir = Paths.get(System.getProperty(PROP_TESTRIGS_DIR, "../../test_rigs"));
+    for (String testrigName : TESTRIG_NAMES) {
+      SortedMap<String, String> configurationsText = new TreeMap<>();
+      try (Stream<Path> configs = Files.list(testrigsDir.resolve(testrigName).resolve("configs"))) {
+        for (Path config : (Iterable<Path>) configs::iterator) {
+          configurationsText.put(
+              config.getFileName().toString(), CommonUtil.readFile(config.toAbsolutePath()));
+        }
+      }
+      // each testrig gets its own container, under the folder that the rule cleans up
+      TemporaryFolder folder = new TemporaryFolder(_folder.newFolder(testrigName));
+      folder.create();
+      assertCompiledMatchesInterpreted(loadConfigurations(configurationsText, folder));
+    }
+  }
+
+  /**
+   * The statements of a {@link WithEnvironmentExpr} run whatever their results, so an if with a
+   * constant guard there must not be inlined: its statements after a return would then run.
+   */
+  @Test
+  public void testReturnInWithEnvironmentExpr() {
+    Configuration owner = new Configuration("r");
+    If returnEarly = new If();
+    returnEarly.setGuard(BooleanExprs.True.toStaticBooleanExpr());
+    returnEarly.setTrueStatements(
+        ImmutableList.of(
+            Statements.ReturnTrue.toStaticStatement(),
+            new SetLocalPreference(new LiteralInt(200))));
+    WithEnvironmentExpr withEnvironment = new WithEnvironmentExpr();
+    withEnvironment.setExpr(BooleanExprs.True.toStaticBooleanExpr());
+    withEnvironment.getPreStatements().add(returnEarly);
+    If accept = new If();
+    accept.setGuard(withEnvironment);
+    accept.setTrueStatements(ImmutableList.of(Statements.ExitAccept.toStaticStatement()));
+    RoutingPolicy policy = new RoutingPolicy("p", owner);
+    policy.setStatements(ImmutableList.of(accept));
+    AbstractRoute route = new ConnectedRoute(new Prefix("10.0.0.0/24"), "Ethernet0");
+    BgpRoute.Builder interpretedOutput = newOutputRoute(route);
+    BgpRoute.Builder compiledOutput = newOutputRoute(route);
+
+    assertThat(
+        policy.processInterpreted(
+            route, interpretedOutput, PEER, Configuration.DEFAULT_VRF_NAME, Direction.OUT),
+        equalTo(true));
+    assertThat(
+        policy.process(route, compiledOutput, PEER, Configuration.DEFAULT_VRF_NAME, Direction.OUT),
+        equalTo(true));
+    assertThat(compiledOutput.getLocalPreference(), equalTo(100));
+    assertThat(compiledOutput.build(), equalTo(interpretedOutput.build()));
+  }
+}
@@ -0,0 +1,43 @@
+package org.batfish.grammar;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import org.batfish.common.BatfishLogger;
+import org.batfish.config.Settings;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.grammar.cisco.CiscoCombinedParser;
+import org.junit.Test;
+
+/** Tests for {@link ParserWarmup} */
+public class ParserWarmupTest {
+
+  private static final String CONFIG_TEXT =
+      "hostname r1\n"
+          + "!\n"
+          + "interface Ethernet0\n"
+          + " ip address 10.0.0.1 255.255.255.0\n"
+          + "!\n"
+          + "router ospf 1\n"
+          + " network 10.0.0.0 0.0.0.255 area 0\n"
+          + "!\n";
+
+  @Test
+  public void testWarmUpDoesNotChangeLaterParses() {
+    Settings settings = new Settings(new String[] {});
+    settings.setLogger(new BatfishLogger("debug", false));
+    CiscoCombinedParser before =
+        new CiscoCombinedParser(CONFIG_TEXT, settings, ConfigurationFormat.CISCO_IOS);
+    String treeBefore = ParseTreePrettyPrinter.print(before.parseWithFallback(), before);
+
+    ParserWarmup.warmUp(settings);
+
+    CiscoCombinedParser after =
+        new CiscoCombinedParser(CONFIG_TEXT, settings, ConfigurationFormat.CISCO_IOS);
+    String treeAfter = ParseTreePrettyPrinter.print(after.parseWithFallback(), after);
+    assertThat(treeAfter, equalTo(treeBefore));
+    assertThat(after.getErrors(), equalTo(before.getErrors()));
+    assertThat(after.getWarnings(), equalTo(before.getWarnings()));
+    assertThat(after.getLlFallback(), equalTo(before.getLlFallback()));
+  }
+}
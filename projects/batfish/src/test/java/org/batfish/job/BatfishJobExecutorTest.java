@@ -0,0 +1,86 @@
+package org.batfish.job;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.batfish.common.BatfishLogger;
+import org.batfish.common.BatfishLogger.BatfishLoggerHistory;
+import org.batfish.config.Settings;
+import org.batfish.datamodel.answers.StringAnswerElement;
+import org.junit.Test;
+
+/** Tests for {@link BatfishJobExecutor} */
+public class BatfishJobExecutorTest {
+
+  private static class TestJob extends BatfishJob<TestJobResult> {
+
+    private final CountDownLatch _release;
+
+    private final String _value;
+
+    private TestJob(Settings settings, String value, CountDownLatch release) {
+      super(settings);
+      _release = release;
+      _value = value;
+    }
+
+    @Override
+    public TestJobResult call() {
+      // ignores interruption, like a job stuck in a long computation
+      Uninterruptibles.awaitUninterruptibly(_release);
+      return new TestJobResult(_value);
+    }
+  }
+
+  private static class TestJobResult extends BatfishJobResult<List<String>, StringAnswerElement> {
+
+    private final String _value;
+
+    private TestJobResult(String value) {
+      super(0L, new BatfishLoggerHistory());
+      _value = value;
+    }
+
+    @Override
+    public void appendHistory(BatfishLogger logger) {}
+
+    @Override
+    public void applyTo(List<String> output, BatfishLogger logger, StringAnswerElement ae) {
+      output.add(_value);
+    }
+  }
+
+  @Test(timeout = 60000)
+  public void testStuckJobsDoNotStarveLaterBatches() {
+    Settings settings = new Settings();
+    settings.setJobTimeout(1);
+    BatfishLogger logger = new BatfishLogger(settings.getLogLevel(), false);
+    BatfishJobExecutor<TestJob, StringAnswerElement, TestJobResult, List<String>> executor =
+        new BatfishJobExecutor<>(settings, logger, false, "test");
+    CountDownLatch stuck = new CountDownLatch(1);
+    try {
+      List<TestJob> stuckJobs = new ArrayList<>();
+      for (int i = 0; i < Runtime.getRuntime().availableProcessors(); i++) {
+        stuckJobs.add(new TestJob(settings, "stuck", stuck));
+      }
+      List<String> output = new ArrayList<>();
+      executor.executeJobs(stuckJobs, output, new StringAnswerElement());
+      assertThat(output, equalTo(Collections.emptyList()));
+
+      // every thread the stuck jobs ran on is still busy
+      List<String> laterOutput = new ArrayList<>();
+      executor.executeJobs(
+          Collections.singletonList(new TestJob(settings, "done", new CountDownLatch(0))),
+          laterOutput,
+          new StringAnswerElement());
+      assertThat(laterOutput, equalTo(Collections.singletonList("done")));
+    } finally {
+      stuck.countDown();
+    }
+  }
+}
@@ -5,11 +5,8 @@ import com.google.common.cache.CacheBuilder;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Collections;
-import java.util.Map;
 import java.util.SortedMap;
 import javax.annotation.Nullable;
-import org.apache.commons.collections4.map.LRUMap;
 import org.batfish.common.BatfishException;
 import org.batfish.common.BatfishLogger;
 import org.batfish.common.BfConsts;
@@ -23,21 +20,26 @@ import org.batfish.datamodel.DataPlane;
 import org.batfish.datamodel.Interface;
 import org.batfish.datamodel.collections.BgpAdvertisementsByVrf;
 import org.batfish.datamodel.collections.RoutesByVrf;
+import org.batfish.smt.EncoderCache;
 import org.junit.rules.TemporaryFolder;
 
 public class BatfishTestUtils {
 
+  private static Cache<TestrigSettings, EncoderCache> makeSmtEncodingCache() {
+    return CacheBuilder.newBuilder().maximumSize(2).build();
+  }
+
   private static Cache<TestrigSettings, SortedMap<String, Configuration>> makeTestrigCache() {
     return CacheBuilder.newBuilder().maximumSize(5).weakValues().build();
   }
 
-  private static Map<EnvironmentSettings, SortedMap<String, BgpAdvertisementsByVrf>>
+  private static Cache<EnvironmentSettings, SortedMap<String, BgpAdvertisementsByVrf>>
       makeEnvBgpCache() {
-    return Collections.synchronizedMap(new LRUMap<>(4));
+    return CacheBuilder.newBuilder().maximumSize(4).build();
   }
 
-  private static Map<EnvironmentSettings, SortedMap<String, RoutesByVrf>> makeEnvRouteCache() {
-    return Collections.synchronizedMap(new LRUMap<>(4));
+  private static Cache<EnvironmentSettings, SortedMap<String, RoutesByVrf>> makeEnvRouteCache() {
+    return CacheBuilder.newBuilder().maximumSize(4).build();
   }
 
   private static Cache<TestrigSettings, DataPlane> makeDataPlaneCache() {
@@ -64,7 +66,12 @@ public class BatfishTestUtils {
     }
 
     return new Batfish(
-        settings, testrigs, makeDataPlaneCache(), makeEnvBgpCache(), makeEnvRouteCache());
+        settings,
+        testrigs,
+        makeDataPlaneCache(),
+        makeEnvBgpCache(),
+        makeEnvRouteCache(),
+        makeSmtEncodingCache());
   }
 
   private static Batfish initBatfishFromConfigurationText(
@@ -112,7 +119,8 @@ public class BatfishTestUtils {
             makeTestrigCache(),
             makeDataPlaneCache(),
             makeEnvBgpCache(),
-            makeEnvRouteCache());
+            makeEnvRouteCache(),
+            makeSmtEncodingCache());
     batfish.serializeVendorConfigs(
         testrigPath, settings.getBaseTestrigSettings().getSerializeVendorPath());
     batfish.serializeIndependentConfigs(
@@ -0,0 +1,69 @@
+package org.batfish.main;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import org.batfish.common.BatfishLogger;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests for {@link DataPlaneSpill}. */
+public class DataPlaneSpillTest {
+
+  @Rule public TemporaryFolder _folder = new TemporaryFolder();
+
+  private Path _dataPlanePath;
+
+  private Path _spillDir;
+
+  /** Spills the data plane and waits for the background copy to become current */
+  private Path awaitSpill() throws InterruptedException {
+    new DataPlaneSpill(_spillDir, new BatfishLogger("debug", false)).spill(_dataPlanePath);
+    Path resolved = DataPlaneSpill.resolve(_spillDir, _dataPlanePath);
+    while (resolved.equals(_dataPlanePath)) {
+      Thread.sleep(10);
+      resolved = DataPlaneSpill.resolve(_spillDir, _dataPlanePath);
+    }
+    return resolved;
+  }
+
+  @Before
+  public void setup() throws IOException {
+    _dataPlanePath = _folder.newFolder("env").toPath().resolve("dp");
+    _spillDir = _folder.getRoot().toPath().resolve("spill");
+    Files.write(_dataPlanePath, "data plane".getBytes(StandardCharsets.UTF_8));
+    // sub-millisecond precision, which copying alone does not preserve
+    Files.setLastModifiedTime(
+        _dataPlanePath, FileTime.from(Instant.ofEpochSecond(1500000000L, 123456789L)));
+  }
+
+  @Test(timeout = 10000)
+  public void testResolveIgnoresStaleCopy() throws IOException, InterruptedException {
+    awaitSpill();
+    Files.write(_dataPlanePath, "new data plane".getBytes(StandardCharsets.UTF_8));
+
+    assertThat(DataPlaneSpill.resolve(_spillDir, _dataPlanePath), equalTo(_dataPlanePath));
+  }
+
+  @Test
+  public void testResolveWithoutSpillDir() {
+    assertThat(DataPlaneSpill.resolve(null, _dataPlanePath), equalTo(_dataPlanePath));
+  }
+
+  @Test(timeout = 10000)
+  public void testSpillRoundTrip() throws IOException, InterruptedException {
+    Path spilled = awaitSpill();
+
+    assertThat(spilled.getParent(), equalTo(_spillDir));
+    assertThat(
+        new String(Files.readAllBytes(spilled), StandardCharsets.UTF_8), equalTo("data plane"));
+  }
+}
@@ -0,0 +1,53 @@
+package org.batfish.main;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests for {@link OnDiskSizeWeigher}. */
+public class OnDiskSizeWeigherTest {
+
+  @Rule public TemporaryFolder _folder = new TemporaryFolder();
+
+  @Test
+  public void testWeighDirectory() throws IOException {
+    Path dir = _folder.newFolder("testrig").toPath();
+    Files.write(dir.resolve("r1"), new byte[4096]);
+    Files.createDirectories(dir.resolve("sub"));
+    Files.write(dir.resolve("sub").resolve("r2"), new byte[2048]);
+    OnDiskSizeWeigher<Path, Object> weigher = new OnDiskSizeWeigher<>(key -> key);
+
+    assertThat(
+        weigher.weigh(dir, new Object()),
+        equalTo(6 * OnDiskSizeWeigher.HEAP_BYTES_PER_DISK_BYTE));
+  }
+
+  @Test
+  public void testWeighFile() throws IOException {
+    Path file = _folder.newFile("dp").toPath();
+    Files.write(file, new byte[1024 * 1024]);
+    OnDiskSizeWeigher<Path, Object> weigher = new OnDiskSizeWeigher<>(key -> key);
+
+    assertThat(
+        weigher.weigh(file, new Object()),
+        equalTo(1024 * OnDiskSizeWeigher.HEAP_BYTES_PER_DISK_BYTE));
+  }
+
+  @Test
+  public void testWeighMissingOrTinyArtifact() throws IOException {
+    Path tiny = _folder.newFile("tiny").toPath();
+    Files.write(tiny, new byte[1]);
+    OnDiskSizeWeigher<Path, Object> weigher = new OnDiskSizeWeigher<>(key -> key);
+
+    // every entry weighs at least 1 KB
+    Path missing = _folder.getRoot().toPath().resolve("missing");
+    assertThat(weigher.weigh(missing, new Object()), equalTo(1));
+    assertThat(weigher.weigh(tiny, new Object()), equalTo(1));
+  }
+}
@@ -0,0 +1,185 @@
+package org.batfish.main;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import org.batfish.common.BatfishLogger;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.GenericConfigObject;
+import org.batfish.datamodel.answers.ConvertConfigurationAnswerElement;
+import org.batfish.datamodel.answers.ParseVendorConfigurationAnswerElement;
+import org.batfish.job.ConvertConfigurationResult;
+import org.batfish.job.ParseVendorConfigurationResult;
+import org.batfish.representation.host.HostConfiguration;
+import org.batfish.vendor.VendorConfiguration;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests for {@link ParseCache}. */
+public class ParseCacheTest {
+
+  @Rule public TemporaryFolder _folder = new TemporaryFolder();
+
+  private Batfish _batfish;
+
+  private Path _cacheDir;
+
+  private Path _testrig;
+
+  private Map<Path, Path> parseEntries(ParseCache cache, Path file, String text) {
+    return cache.getParseEntries(
+        Collections.singletonMap(file, text), ConfigurationFormat.HOST, _testrig);
+  }
+
+  @Before
+  public void setup() throws IOException {
+    _batfish = BatfishTestUtils.getBatfish(new TreeMap<>(), null);
+    _cacheDir = _folder.newFolder("cache").toPath();
+    _testrig = _folder.newFolder("testrig").toPath();
+  }
+
+  private void storeParseResult(
+      ParseCache cache, Map<Path, Path> entries, String hostname, boolean llFallback) {
+    Path file = entries.keySet().iterator().next();
+    HostConfiguration vc = new HostConfiguration();
+    vc.setHostname(hostname);
+    vc.setFilename(file.getFileName().toString());
+    ParseVendorConfigurationAnswerElement answerElement =
+        new ParseVendorConfigurationAnswerElement();
+    if (llFallback) {
+      answerElement.getLlFallbacks().add(hostname);
+    }
+    cache.storeParseResults(
+        entries, Collections.singletonMap(hostname, vc), answerElement, Collections.emptySet());
+  }
+
+  @Test
+  public void testConvertHit() throws IOException {
+    Path serialized = _testrig.resolve("host1");
+    Files.write(serialized, "host1".getBytes(StandardCharsets.UTF_8));
+    Map<Path, String> namesByPath = Collections.singletonMap(serialized, "host1");
+    HostConfiguration vc = new HostConfiguration();
+    vc.setHostname("host1");
+    ParseCache cache = new ParseCache(_batfish, _cacheDir);
+    Map<Path, Path> entries = cache.getConvertEntries(namesByPath.keySet());
+    cache.storeConvertResults(
+        entries,
+        namesByPath,
+        Collections.<String, GenericConfigObject>singletonMap("host1", vc),
+        Collections.singletonMap("host1", new Configuration("host1")),
+        new ConvertConfigurationAnswerElement());
+
+    Map<String, ConvertConfigurationResult> results =
+        new ParseCache(_batfish, _cacheDir).loadConvertResults(entries, namesByPath);
+
+    assertThat(results.keySet(), equalTo(Collections.singleton("host1")));
+    assertThat(
+        results.get("host1").getConfigurations().get("host1").getHostname(), equalTo("host1"));
+  }
+
+  @Test
+  public void testConvertMissOnChangedVendorConfiguration() throws IOException {
+    Path serialized = _testrig.resolve("host1");
+    Files.write(serialized, "host1".getBytes(StandardCharsets.UTF_8));
+    Map<Path, String> namesByPath = Collections.singletonMap(serialized, "host1");
+    HostConfiguration vc = new HostConfiguration();
+    vc.setHostname("host1");
+    ParseCache cache = new ParseCache(_batfish, _cacheDir);
+    cache.storeConvertResults(
+        cache.getConvertEntries(namesByPath.keySet()),
+        namesByPath,
+        Collections.<String, GenericConfigObject>singletonMap("host1", vc),
+        Collections.singletonMap("host1", new Configuration("host1")),
+        new ConvertConfigurationAnswerElement());
+
+    Files.write(serialized, "host1 changed".getBytes(StandardCharsets.UTF_8));
+    Map<Path, Path> entries = cache.getConvertEntries(namesByPath.keySet());
+
+    assertThat(cache.loadConvertResults(entries, namesByPath).isEmpty(), equalTo(true));
+  }
+
+  @Test
+  public void testEvictsBeyondSizeBound() throws IOException {
+    _batfish.getSettings().setParseCacheMb(0);
+    ParseCache cache = new ParseCache(_batfish, _cacheDir);
+    Map<Path, Path> entries = parseEntries(cache, _testrig.resolve("host1"), "hostname host1");
+    storeParseResult(cache, entries, "host1", false);
+
+    assertThat(cache.loadParseResults(entries).isEmpty(), equalTo(true));
+    try (Stream<Path> files = Files.list(_cacheDir.resolve("parse"))) {
+      assertThat(files.count(), equalTo(0L));
+    }
+  }
+
+  @Test
+  public void testIgnoresUnreadableEntry() throws IOException {
+    ParseCache cache = new ParseCache(_batfish, _cacheDir);
+    Map<Path, Path> entries1 = parseEntries(cache, _testrig.resolve("host1"), "hostname host1");
+    Map<Path, Path> entries2 = parseEntries(cache, _testrig.resolve("host2"), "hostname host2");
+    storeParseResult(cache, entries1, "host1", false);
+    storeParseResult(cache, entries2, "host2", false);
+    Files.write(entries2.values().iterator().next(), new byte[] {1, 2, 3});
+
+    Map<Path, Path> entries = new TreeMap<>(entries1);
+    entries.putAll(entries2);
+    Map<Path, ParseVendorConfigurationResult> results = cache.loadParseResults(entries);
+
+    assertThat(results.keySet(), equalTo(entries1.keySet()));
+  }
+
+  @Test
+  public void testParseHit() throws IOException {
+    Path file = _testrig.resolve("host1");
+    ParseCache cache = new ParseCache(_batfish, _cacheDir);
+    storeParseResult(cache, parseEntries(cache, file, "hostname host1"), "host1", true);
+
+    ParseCache newCache = new ParseCache(_batfish, _cacheDir);
+    Map<Path, ParseVendorConfigurationResult> results =
+        newCache.loadParseResults(parseEntries(newCache, file, "hostname host1"));
+    Map<String, VendorConfiguration> vendorConfigurations = new TreeMap<>();
+    ParseVendorConfigurationAnswerElement answerElement =
+        new ParseVendorConfigurationAnswerElement();
+    results
+        .get(file)
+        .applyTo(vendorConfigurations, new BatfishLogger("debug", false), answerElement);
+
+    assertThat(vendorConfigurations.keySet(), equalTo(Collections.singleton("host1")));
+    assertThat(answerElement.getLlFallbacks(), equalTo(Collections.singleton("host1")));
+  }
+
+  @Test
+  public void testParseMissOnChangedSettings() throws IOException {
+    Path file = _testrig.resolve("host1");
+    ParseCache cache = new ParseCache(_batfish, _cacheDir);
+    storeParseResult(cache, parseEntries(cache, file, "hostname host1"), "host1", false);
+
+    _batfish.getSettings().setThrowOnParserError(!_batfish.getSettings().getThrowOnParserError());
+    ParseCache newCache = new ParseCache(_batfish, _cacheDir);
+
+    assertThat(
+        newCache.loadParseResults(parseEntries(newCache, file, "hostname host1")).isEmpty(),
+        equalTo(true));
+  }
+
+  @Test
+  public void testParseMissOnChangedText() throws IOException {
+    Path file = _testrig.resolve("host1");
+    ParseCache cache = new ParseCache(_batfish, _cacheDir);
+    storeParseResult(cache, parseEntries(cache, file, "hostname host1"), "host1", false);
+
+    assertThat(
+        cache.loadParseResults(parseEntries(cache, file, "hostname host2")).isEmpty(),
+        equalTo(true));
+  }
+}
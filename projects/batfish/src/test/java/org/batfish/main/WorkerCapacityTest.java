@@ -0,0 +1,54 @@
+package org.batfish.main;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class WorkerCapacityTest {
+
+  private static final long HEAVY = 400L;
+
+  private static final long LIGHT = 50L;
+
+  private static final long MAX_HEAP = 1000L;
+
+  @Test
+  public void testAdmitsFirstTaskRegardlessOfHeap() {
+    WorkerCapacity capacity = new WorkerCapacity(4, 2 * MAX_HEAP, LIGHT, MAX_HEAP, () -> 0L);
+    assertThat(capacity.tryAdmit(true), equalTo(true));
+    assertThat(capacity.tryAdmit(false), equalTo(false));
+  }
+
+  @Test
+  public void testRefusesTaskNotFittingFreeHeap() {
+    WorkerCapacity capacity = new WorkerCapacity(4, HEAVY, LIGHT, MAX_HEAP, () -> LIGHT);
+    assertThat(capacity.tryAdmit(false), equalTo(true));
+    assertThat(capacity.tryAdmit(true), equalTo(false));
+    assertThat(capacity.canAdmitLightTask(), equalTo(true));
+  }
+
+  @Test
+  public void testRefusesTaskNotFittingReservations() {
+    WorkerCapacity capacity = new WorkerCapacity(4, HEAVY, LIGHT, MAX_HEAP, () -> MAX_HEAP);
+    assertThat(capacity.tryAdmit(true), equalTo(true));
+    assertThat(capacity.tryAdmit(true), equalTo(true));
+    assertThat(capacity.tryAdmit(true), equalTo(false));
+    assertThat(capacity.tryAdmit(false), equalTo(true));
+    assertThat(capacity.getReservedHeap(), equalTo(2 * HEAVY + LIGHT));
+    capacity.release(true);
+    assertThat(capacity.tryAdmit(true), equalTo(true));
+  }
+
+  @Test
+  public void testRefusesTaskWithoutFreeSlot() {
+    WorkerCapacity capacity = new WorkerCapacity(2, HEAVY, LIGHT, MAX_HEAP, () -> MAX_HEAP);
+    assertThat(capacity.tryAdmit(false), equalTo(true));
+    assertThat(capacity.tryAdmit(false), equalTo(true));
+    assertThat(capacity.getFreeSlots(), equalTo(0));
+    assertThat(capacity.canAdmitLightTask(), equalTo(false));
+    capacity.release(false);
+    assertThat(capacity.getFreeSlots(), equalTo(1));
+    assertThat(capacity.getRunningTasks(), equalTo(1));
+  }
+}
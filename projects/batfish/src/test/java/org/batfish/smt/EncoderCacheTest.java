@@ -0,0 +1,55 @@
+package org.batfish.smt;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import org.batfish.common.util.CommonUtil;
+import org.batfish.datamodel.questions.smt.HeaderQuestion;
+import org.batfish.main.Batfish;
+import org.batfish.main.BatfishTestUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests for {@link EncoderCache} */
+public class EncoderCacheTest {
+
+  private static final String TESTCONFIGS_PREFIX =
+      "org/batfish/grammar/cisco/testrigs/rip/configs/";
+
+  @Rule public TemporaryFolder _folder = new TemporaryFolder();
+
+  private Batfish getBatfish() throws IOException {
+    SortedMap<String, String> configurationsText = new TreeMap<>();
+    for (String configurationName : new String[] {"r1", "r2", "r3"}) {
+      configurationsText.put(
+          configurationName, CommonUtil.readResource(TESTCONFIGS_PREFIX + configurationName));
+    }
+    return BatfishTestUtils.getBatfishFromConfigurationText(
+        configurationsText, Collections.emptySortedMap(), Collections.emptySortedMap(), _folder);
+  }
+
+  @Test
+  public void testPropertyVariablesDoNotOutliveCheck() throws IOException {
+    EncoderCache cache = new EncoderCache(new Graph(getBatfish()));
+    HeaderQuestion q = new HeaderQuestion();
+
+    int baseVariables = cache.check(q, enc -> enc.getAllVariables().size());
+    int propertyVariables =
+        cache.check(
+            q,
+            enc -> {
+              new PropertyAdder(enc.getMainSlice()).instrumentReachability("r1");
+              return enc.getAllVariables().size();
+            });
+    int laterVariables = cache.check(q, enc -> enc.getAllVariables().size());
+
+    assertThat(propertyVariables, greaterThan(baseVariables));
+    assertThat(laterVariables, equalTo(baseVariables));
+  }
+}
@@ -0,0 +1,150 @@
+package org.batfish.z3;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+import java.util.Map;
+import org.batfish.bdd.BddFactory;
+import org.batfish.common.BatfishException;
+import org.batfish.datamodel.HeaderSpace;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.IpWildcard;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.SubRange;
+import org.batfish.z3.BddNodProgram.CompiledRules;
+import org.batfish.z3.node.AcceptExpr;
+import org.batfish.z3.node.AndExpr;
+import org.batfish.z3.node.DropExpr;
+import org.batfish.z3.node.FalseExpr;
+import org.batfish.z3.node.LetExpr;
+import org.batfish.z3.node.MacroDefExpr;
+import org.batfish.z3.node.MacroRefExpr;
+import org.batfish.z3.node.NotExpr;
+import org.batfish.z3.node.OriginateVrfExpr;
+import org.batfish.z3.node.PostInVrfExpr;
+import org.batfish.z3.node.PrefixMatchExpr;
+import org.batfish.z3.node.QueryRelationExpr;
+import org.batfish.z3.node.RuleExpr;
+import org.batfish.z3.node.Statement;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/** Tests for {@link BddNodProgram} */
+public class BddNodProgramTest {
+
+  private static final OriginateVrfExpr ORIGINATE = new OriginateVrfExpr("a", "default");
+
+  @Rule public ExpectedException _thrown = ExpectedException.none();
+
+  @Test
+  public void testCompiledRulesForEachIngress() {
+    // a forwards 10.0.0.0/8 to b, which accepts every packet
+    PostInVrfExpr postInA = new PostInVrfExpr("a", "default");
+    PostInVrfExpr postInB = new PostInVrfExpr("b", "default");
+    OriginateVrfExpr originateB = new OriginateVrfExpr("b", "default");
+    PrefixMatchExpr dstIp = new PrefixMatchExpr(Synthesizer.DST_IP_VAR, new Prefix("10.0.0.0/8"));
+    ImmutableList<Statement> rules =
+        ImmutableList.of(
+            new RuleExpr(new AndExpr(ImmutableList.of(postInA, dstIp)), postInB),
+            new RuleExpr(postInB, AcceptExpr.INSTANCE),
+            new RuleExpr(ORIGINATE, postInA),
+            new RuleExpr(originateB, postInB));
+    BddNodProgram program = new BddNodProgram();
+    CompiledRules dataPlaneRules = program.compileRules(rules);
+
+    program.computeFixpoint(
+        dataPlaneRules.concat(program.compileRules(ImmutableList.of(new RuleExpr(ORIGINATE)))));
+    assertThat(program.getRelation(AcceptExpr.INSTANCE.getName()), equalTo(dstIp.toBdd(program)));
+
+    program.clearRelations();
+    program.computeFixpoint(
+        dataPlaneRules.concat(program.compileRules(ImmutableList.of(new RuleExpr(originateB)))));
+    assertThat(program.getRelation(AcceptExpr.INSTANCE.getName()), equalTo(BddFactory.TRUE));
+    assertThat(program.getRelation(postInA.getName()), equalTo(BddFactory.FALSE));
+  }
+
+  @Test
+  public void testFixpointThroughCycle() {
+    // packets loop between post_in of a and b, and b accepts 10.0.0.0/8
+    PostInVrfExpr postInA = new PostInVrfExpr("a", "default");
+    PostInVrfExpr postInB = new PostInVrfExpr("b", "default");
+    AndExpr accept = new AndExpr();
+    accept.addConjunct(postInB);
+    accept.addConjunct(new PrefixMatchExpr(Synthesizer.DST_IP_VAR, new Prefix("10.0.0.0/8")));
+    ImmutableList<Statement> rules =
+        ImmutableList.of(
+            new RuleExpr(accept, AcceptExpr.INSTANCE),
+            new RuleExpr(postInB, postInA),
+            new RuleExpr(postInA, postInB),
+            new RuleExpr(ORIGINATE, postInA),
+            new RuleExpr(ORIGINATE));
+    BddNodProgram program = new BddNodProgram();
+    program.computeFixpoint(rules);
+    AndExpr query = new AndExpr();
+    query.addConjunct(AcceptExpr.INSTANCE);
+    query.addConjunct(new NotExpr(DropExpr.INSTANCE));
+    program.computeFixpoint(ImmutableList.of(new RuleExpr(query, QueryRelationExpr.INSTANCE)));
+
+    assertThat(program.getRelation(postInA.getName()), equalTo(BddFactory.TRUE));
+    assertThat(program.getRelation(DropExpr.INSTANCE.getName()), equalTo(BddFactory.FALSE));
+    Map<String, Long> model = program.getModel(program.getRelation(QueryRelationExpr.NAME));
+    assertThat(new Ip(model.get(Synthesizer.DST_IP_VAR)), equalTo(new Ip("10.0.0.0")));
+  }
+
+  @Test
+  public void testHeaderSpace() {
+    HeaderSpace headerSpace = new HeaderSpace();
+    headerSpace.setSrcIps(ImmutableSortedSet.of(new IpWildcard("1.2.3.4")));
+    headerSpace.setDstPorts(ImmutableSortedSet.of(new SubRange(1000, 2000)));
+    headerSpace.setNotDstPorts(ImmutableSortedSet.of(new SubRange(1000, 1499)));
+    BddNodProgram program = new BddNodProgram();
+    int packets = Synthesizer.matchHeaderSpace(headerSpace).toBdd(program);
+
+    Map<String, Long> model = program.getModel(packets);
+    assertThat(new Ip(model.get(Synthesizer.SRC_IP_VAR)), equalTo(new Ip("1.2.3.4")));
+    assertThat(model.get(Synthesizer.DST_PORT_VAR), equalTo(1500L));
+
+    headerSpace.setNotDstPorts(ImmutableSortedSet.of(new SubRange(900, 2000)));
+    packets = Synthesizer.matchHeaderSpace(headerSpace).toBdd(program);
+    assertThat(program.getModel(packets), nullValue());
+  }
+
+  @Test
+  public void testLet() {
+    PrefixMatchExpr outer = new PrefixMatchExpr(Synthesizer.DST_IP_VAR, new Prefix("10.0.0.0/8"));
+    PrefixMatchExpr inner =
+        new PrefixMatchExpr(Synthesizer.DST_IP_VAR, new Prefix("10.1.0.0/16"));
+    AndExpr body = new AndExpr();
+    body.addConjunct(new MacroRefExpr("outer"));
+    body.addConjunct(new NotExpr(new MacroRefExpr("inner")));
+    // the inner let shadows "inner", whose definition still refers to the outer binding
+    LetExpr let =
+        new LetExpr(
+            ImmutableList.of(
+                new MacroDefExpr("outer", outer), new MacroDefExpr("inner", FalseExpr.INSTANCE)),
+            new LetExpr(
+                ImmutableList.of(
+                    new MacroDefExpr(
+                        "inner", new AndExpr(ImmutableList.of(new MacroRefExpr("outer"), inner)))),
+                body));
+    BddNodProgram program = new BddNodProgram();
+    BddFactory factory = program.getFactory();
+
+    assertThat(
+        let.toBdd(program),
+        equalTo(factory.and(outer.toBdd(program), factory.not(inner.toBdd(program)))));
+    assertThat(program.getMacro("outer"), nullValue());
+    assertThat(program.getMacro("inner"), nullValue());
+  }
+
+  @Test
+  public void testUnboundMacro() {
+    _thrown.expect(BatfishException.class);
+    _thrown.expectMessage("'m'");
+    new MacroRefExpr("m").toBdd(new BddNodProgram());
+  }
+}
@@ -0,0 +1,75 @@
+package org.batfish.coordinator;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+
+/**
+ * A thread-safe histogram of latencies in milliseconds. Bucket {@code i} counts latencies below
+ * {@code 2^i} ms that do not fit an earlier bucket, and the last bucket counts all larger latencies.
+ */
+public class LatencyHistogram {
+
+  private static final int NUM_BUCKETS = 20;
+
+  static int bucket(long latencyMs) {
+    if (latencyMs <= 0) {
+      return 0;
+    }
+    int bucket = 64 - Long.numberOfLeadingZeros(latencyMs);
+    return Math.min(bucket, NUM_BUCKETS - 1);
+  }
+
+  private final AtomicLongArray _buckets;
+
+  private final AtomicLong _count;
+
+  private final AtomicLong _max;
+
+  private final AtomicLong _total;
+
+  public LatencyHistogram() {
+    _buckets = new AtomicLongArray(NUM_BUCKETS);
+    _count = new AtomicLong();
+    _max = new AtomicLong();
+    _total = new AtomicLong();
+  }
+
+  public long getCount() {
+    return _count.get();
+  }
+
+  public long getMax() {
+    return _max.get();
+  }
+
+  public long getTotal() {
+    return _total.get();
+  }
+
+  public void record(long latencyMs) {
+    long latency = Math.max(latencyMs, 0L);
+    _buckets.incrementAndGet(bucket(latency));
+    _count.incrementAndGet();
+    _total.addAndGet(latency);
+    _max.accumulateAndGet(latency, Math::max);
+  }
+
+  public JSONObject toJson() throws JSONException {
+    JSONObject jObject = new JSONObject();
+    jObject.put("count", getCount());
+    jObject.put("total-ms", getTotal());
+    jObject.put("max-ms", getMax());
+    JSONObject buckets = new JSONObject();
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      long count = _buckets.get(i);
+      if (count > 0) {
+        String label = i == NUM_BUCKETS - 1 ? ">=" + (1L << (i - 1)) : "<" + (1L << i);
+        buckets.put(label, count);
+      }
+    }
+    jObject.put("buckets-ms", buckets);
+    return jObject;
+  }
+}
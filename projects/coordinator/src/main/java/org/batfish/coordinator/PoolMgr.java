@@ -1,11 +1,13 @@
 package org.batfish.coordinator;
 
 import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 import javax.ws.rs.ProcessingException;
@@ -21,6 +23,7 @@ import org.batfish.common.util.CommonUtil;
 import org.batfish.coordinator.config.Settings;
 import org.codehaus.jettison.json.JSONArray;
 import org.codehaus.jettison.json.JSONObject;
+import org.glassfish.jersey.client.ClientProperties;
 
 public class PoolMgr {
 
@@ -31,49 +34,59 @@ public class PoolMgr {
     }
   }
 
+  /** The maximum number of workers whose status is refreshed at the same time */
+  private static final int MAX_CONCURRENT_REFRESHES = 16;
+
+  private Client _client;
+
   private final BatfishLogger _logger;
 
+  private final ExecutorService _refreshExecutor;
+
+  // workers whose status refresh is currently in flight
+  private final Set<String> _refreshing;
+
   private final Settings _settings;
 
   // the key should be of the form <ip or hostname>:<port>
-  private Map<String, WorkerStatus> _workerPool;
+  private final ConcurrentMap<String, WorkerStatus> _workerPool;
 
   public PoolMgr(Settings settings, BatfishLogger logger) {
     _settings = settings;
     _logger = logger;
-    _workerPool = new HashMap<>();
+    _refreshExecutor = Executors.newFixedThreadPool(MAX_CONCURRENT_REFRESHES);
+    _refreshing = ConcurrentHashMap.newKeySet();
+    _workerPool = new ConcurrentHashMap<>();
   }
 
-  public synchronized void addToPool(final String worker) {
+  public void addToPool(final String worker) {
     // start out as unknown and trigger refresh in the background
     _workerPool.put(worker, new WorkerStatus(WorkerStatus.StatusCode.UNKNOWN));
-
-    Thread thread =
-        new Thread() {
-          @Override
-          public void run() {
-            refreshWorkerStatus(worker);
-          }
-        };
-
-    thread.start();
+    submitRefresh(worker);
   }
 
-  public synchronized void deleteFromPool(String worker) {
-    if (_workerPool.containsKey(worker)) {
-      _workerPool.remove(worker);
-    }
+  public void deleteFromPool(String worker) {
+    _workerPool.remove(worker);
   }
 
-  private synchronized List<String> getAllWorkers() {
-    List<String> workers = new LinkedList<>();
-    for (String worker : _workerPool.keySet()) {
-      workers.add(worker);
+  private synchronized Client getClient() {
+    if (_client == null) {
+      _client =
+          CommonUtil.createHttpClientBuilder(
+                  _settings.getSslPoolDisable(),
+                  _settings.getSslPoolTrustAllCerts(),
+                  _settings.getSslPoolKeystoreFile(),
+                  _settings.getSslPoolKeystorePassword(),
+                  _settings.getSslPoolTruststoreFile(),
+                  _settings.getSslPoolTruststorePassword())
+              .property(ClientProperties.CONNECT_TIMEOUT, _settings.getWorkerStatusTimeoutMs())
+              .property(ClientProperties.READ_TIMEOUT, _settings.getWorkerStatusTimeoutMs())
+              .build();
     }
-    return workers;
+    return _client;
   }
 
-  public synchronized HashMap<String, String> getPoolStatus() {
+  public HashMap<String, String> getPoolStatus() {
     HashMap<String, String> copy = new HashMap<>();
 
     for (Entry<String, WorkerStatus> entry : _workerPool.entrySet()) {
@@ -84,11 +97,16 @@ public class PoolMgr {
   }
 
   @Nullable
-  public synchronized String getWorkerForAssignment() {
+  public String getWorkerForAssignment() {
 
     for (Entry<String, WorkerStatus> workerEntry : _workerPool.entrySet()) {
-      if (workerEntry.getValue().getStatus() == WorkerStatus.StatusCode.IDLE) {
-        updateWorkerStatus(workerEntry.getKey(), WorkerStatus.StatusCode.TRYINGTOASSIGN);
+      WorkerStatus status = workerEntry.getValue();
+      // claim the worker only if nobody changed its status since we looked at it
+      if (status.getStatus() == WorkerStatus.StatusCode.IDLE
+          && _workerPool.replace(
+              workerEntry.getKey(),
+              status,
+              new WorkerStatus(WorkerStatus.StatusCode.TRYINGTOASSIGN))) {
         return workerEntry.getKey();
       }
     }
@@ -101,40 +119,41 @@ public class PoolMgr {
     return _workerPool.get(worker);
   }
 
+  /**
+   * Records that {@code worker} refused work for lack of capacity. It is considered busy until it
+   * reports otherwise or is next polled.
+   */
+  public void markAssignmentRefused(String worker) {
+    updateWorkerStatus(worker, WorkerStatus.StatusCode.BUSY);
+  }
+
   public void markAssignmentResult(String worker, boolean assignmentSuccessful) {
     updateWorkerStatus(
         worker, assignmentSuccessful ? WorkerStatus.StatusCode.BUSY : WorkerStatus.StatusCode.IDLE);
+    if (assignmentSuccessful) {
+      // a worker running several tasks at once may still have room for more
+      submitRefresh(worker);
+    }
   }
 
   public void refreshWorkerStatus() {
     // _logger.info("PM:RefreshWorkerStatus: entered\n");
-    List<String> workers = getAllWorkers();
-    for (String worker : workers) {
-      refreshWorkerStatus(worker);
+    for (String worker : _workerPool.keySet()) {
+      submitRefresh(worker);
     }
   }
 
   public void refreshWorkerStatus(String worker) {
     // _logger.debug("PM:RefreshWorkerStatus: refreshing status of " + worker
     // +"\n");
-    Client client = null;
     try {
-      // Client client = ClientBuilder.newClient();
-      client =
-          CommonUtil.createHttpClientBuilder(
-                  _settings.getSslPoolDisable(),
-                  _settings.getSslPoolTrustAllCerts(),
-                  _settings.getSslPoolKeystoreFile(),
-                  _settings.getSslPoolKeystorePassword(),
-                  _settings.getSslPoolTruststoreFile(),
-                  _settings.getSslPoolTruststorePassword())
-              .build();
       String protocol = _settings.getSslPoolDisable() ? "http" : "https";
       WebTarget webTarget =
-          client.target(
-              String.format(
-                  "%s://%s%s/%s",
-                  protocol, worker, BfConsts.SVC_BASE_RSC, BfConsts.SVC_GET_STATUS_RSC));
+          getClient()
+              .target(
+                  String.format(
+                      "%s://%s%s/%s",
+                      protocol, worker, BfConsts.SVC_BASE_RSC, BfConsts.SVC_GET_STATUS_RSC));
       Invocation.Builder invocationBuilder = webTarget.request(MediaType.APPLICATION_JSON);
       Response response = invocationBuilder.get();
 
@@ -142,6 +161,7 @@ public class PoolMgr {
 
       if (response.getStatus() != Response.Status.OK.getStatusCode()) {
         _logger.error("PM:RefreshWorkerStatus: Got non-OK response " + response.getStatus() + "\n");
+        response.close();
       } else {
         String sobj = response.readEntity(String.class);
         JSONArray array = new JSONArray(sobj);
@@ -165,14 +185,7 @@ public class PoolMgr {
           return;
         }
 
-        boolean status = jObj.getBoolean("idle");
-
-        // update the status, except leave the ones with TRYINGTOASSIGN
-        // alone
-        if (getWorkerStatus(worker).getStatus() != WorkerStatus.StatusCode.TRYINGTOASSIGN) {
-          updateWorkerStatus(
-              worker, status ? WorkerStatus.StatusCode.IDLE : WorkerStatus.StatusCode.BUSY);
-        }
+        reportWorkerStatus(worker, jObj.getBoolean("idle"));
       }
     } catch (ProcessingException e) {
       _logger.error(String.format("unable to connect to %s: %s\n", worker, e.getMessage()));
@@ -181,13 +194,41 @@ public class PoolMgr {
       String stackTrace = ExceptionUtils.getFullStackTrace(e);
       _logger.error(String.format("exception: %s\n", stackTrace));
       updateWorkerStatus(worker, WorkerStatus.StatusCode.UNKNOWN);
-    } finally {
-      if (client != null) {
-        client.close();
-      }
     }
   }
 
+  /**
+   * Records whether {@code worker} is idle, as reported by the worker itself or by polling it.
+   * Workers in the middle of being assigned work are left alone, and a worker that just became idle
+   * triggers work assignment.
+   *
+   * @return whether {@code worker} is in the pool
+   */
+  public boolean reportWorkerStatus(String worker, boolean idle) {
+    WorkerStatus.StatusCode newStatus =
+        idle ? WorkerStatus.StatusCode.IDLE : WorkerStatus.StatusCode.BUSY;
+    WorkerStatus.StatusCode[] previousStatus = new WorkerStatus.StatusCode[1];
+    WorkerStatus status =
+        _workerPool.computeIfPresent(
+            worker,
+            (w, current) -> {
+              previousStatus[0] = current.getStatus();
+              return current.getStatus() == WorkerStatus.StatusCode.TRYINGTOASSIGN
+                  ? current
+                  : new WorkerStatus(newStatus);
+            });
+    if (status == null) {
+      return false;
+    }
+    // a worker that just became idle can take queued work right away
+    if (idle
+        && previousStatus[0] != WorkerStatus.StatusCode.IDLE
+        && previousStatus[0] != WorkerStatus.StatusCode.TRYINGTOASSIGN) {
+      Main.getWorkMgr().triggerAssignWork();
+    }
+    return true;
+  }
+
   public void startPoolManager() {
     Runnable workerStatusRefreshTask = new WorkerStatusRefreshTask();
     Executors.newScheduledThreadPool(1)
@@ -198,9 +239,27 @@ public class PoolMgr {
             TimeUnit.MILLISECONDS);
   }
 
-  private synchronized void updateWorkerStatus(String worker, WorkerStatus.StatusCode statusCode) {
-    if (_workerPool.containsKey(worker)) {
-      _workerPool.get(worker).updateStatus(statusCode);
+  /** Refreshes the status of {@code worker} in the background, unless a refresh is in flight. */
+  private void submitRefresh(String worker) {
+    if (!_refreshing.add(worker)) {
+      return;
+    }
+    try {
+      _refreshExecutor.execute(
+          () -> {
+            try {
+              refreshWorkerStatus(worker);
+            } finally {
+              _refreshing.remove(worker);
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      _refreshing.remove(worker);
+      throw e;
     }
   }
+
+  private void updateWorkerStatus(String worker, WorkerStatus.StatusCode statusCode) {
+    _workerPool.computeIfPresent(worker, (w, current) -> new WorkerStatus(statusCode));
+  }
 }
@@ -8,6 +8,7 @@ import java.util.Map;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
@@ -156,4 +157,29 @@ public class PoolMgrService {
 
     return new JSONArray(Arrays.asList(CoordConsts.SVC_KEY_SUCCESS, "done"));
   }
+
+  @GET
+  @Path(CoordConsts.SVC_RSC_POOL_UPDATE_WORKER_STATUS)
+  @Produces(MediaType.APPLICATION_JSON)
+  public JSONArray updateWorkerStatus(
+      @QueryParam(CoordConsts.SVC_KEY_WORKER) String worker,
+      @QueryParam(CoordConsts.SVC_KEY_IDLE) String idle) {
+    try {
+      _logger.debugf("PMS:updateWorkerStatus: %s idle = %s\n", worker, idle);
+      if (worker == null || worker.equals("") || idle == null) {
+        return new JSONArray(
+            Arrays.asList(CoordConsts.SVC_KEY_FAILURE, "Worker or idle status not specified"));
+      }
+      if (!Main.getPoolMgr().reportWorkerStatus(worker, Boolean.parseBoolean(idle))) {
+        return new JSONArray(
+            Arrays.asList(CoordConsts.SVC_KEY_FAILURE, "Worker " + worker + " is not in the pool"));
+      }
+    } catch (Exception e) {
+      String stackTrace = ExceptionUtils.getFullStackTrace(e);
+      _logger.error("PMS:updateWorkerStatus exception: " + stackTrace);
+      return new JSONArray(Arrays.asList(CoordConsts.SVC_KEY_FAILURE, e.getMessage()));
+    }
+
+    return new JSONArray(Arrays.asList(CoordConsts.SVC_KEY_SUCCESS, "done"));
+  }
 }
@@ -17,7 +17,8 @@ public class QueuedWork {
   Date _dateTerminated;
 
   Task _lastTaskCheckResult;
-  WorkStatusCode _status;
+  // read without locking by status queries
+  volatile WorkStatusCode _status;
 
   WorkItem _workItem;
 
@@ -39,6 +40,10 @@ public class QueuedWork {
     return _assignedWorker;
   }
 
+  public Date getDateCreated() {
+    return _dateCreated;
+  }
+
   public UUID getId() {
     return _workItem.getId();
   }
@@ -15,8 +15,10 @@ import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
@@ -53,7 +55,7 @@ public class WorkMgr extends AbstractCoordinator {
     @Override
     public void run() {
       Main.getWorkMgr().checkTask();
-      Main.getWorkMgr().assignWork();
+      Main.getWorkMgr().triggerAssignWork();
     }
   }
 
@@ -79,8 +81,22 @@ public class WorkMgr extends AbstractCoordinator {
     return envFilenames;
   }
 
+  // runs the requests that hand work to workers, so that one slow worker does not hold up the rest
+  private final ExecutorService _assignmentExecutor;
+
+  // set while a round of assignments is waiting to run on _assignmentScheduler
+  private final AtomicBoolean _assignmentPending;
+
+  private final ExecutorService _assignmentScheduler;
+
+  private Client _client;
+
+  private final LatencyHistogram _dispatchLatency;
+
   private final BatfishLogger _logger;
 
+  private final LatencyHistogram _queueWait;
+
   private final Settings _settings;
 
   private WorkQueueMgr _workQueueMgr;
@@ -90,31 +106,42 @@ public class WorkMgr extends AbstractCoordinator {
     _settings = settings;
     _logger = logger;
     _workQueueMgr = new WorkQueueMgr();
+    _assignmentExecutor = Executors.newCachedThreadPool();
+    _assignmentPending = new AtomicBoolean();
+    _assignmentScheduler = Executors.newSingleThreadExecutor();
+    _dispatchLatency = new LatencyHistogram();
+    _queueWait = new LatencyHistogram();
     loadPlugins();
   }
 
+  /*
+   * Pairs unassigned work with idle workers until either runs out. Only ever runs on
+   * _assignmentScheduler, while the assignments themselves run on _assignmentExecutor.
+   */
   private void assignWork() {
 
     try {
-      QueuedWork work = _workQueueMgr.getWorkForAssignment();
+      while (true) {
+        QueuedWork work = _workQueueMgr.getWorkForAssignment();
 
-      // get out if no work was found
-      if (work == null) {
-        // _logger.info("WM:AssignWork: No unassigned work\n");
-        return;
-      }
+        // get out if no work was found
+        if (work == null) {
+          // _logger.info("WM:AssignWork: No unassigned work\n");
+          return;
+        }
 
-      String idleWorker = Main.getPoolMgr().getWorkerForAssignment();
+        String idleWorker = Main.getPoolMgr().getWorkerForAssignment();
 
-      // get out if no idle worker was found, but release the work first
-      if (idleWorker == null) {
-        _workQueueMgr.markAssignmentFailure(work);
+        // get out if no idle worker was found, but release the work first
+        if (idleWorker == null) {
+          _workQueueMgr.markAssignmentFailure(work);
 
-        _logger.info("WM:AssignWork: No idle worker\n");
-        return;
-      }
+          _logger.info("WM:AssignWork: No idle worker\n");
+          return;
+        }
 
-      assignWork(work, idleWorker);
+        _assignmentExecutor.execute(() -> assignWork(work, idleWorker));
+      }
     } catch (Exception e) {
       String stackTrace = ExceptionUtils.getFullStackTrace(e);
       _logger.error("Got exception in assignWork: " + stackTrace);
@@ -125,10 +152,11 @@ public class WorkMgr extends AbstractCoordinator {
 
     _logger.info("WM:AssignWork: Trying to assign " + work + " to " + worker + " \n");
 
+    long startTime = System.currentTimeMillis();
     boolean assignmentError = false;
     boolean assigned = false;
+    boolean refused = false;
 
-    Client client = null;
     try {
       // get the task and add other standard stuff
       JSONObject task = work.getWorkItem().toTask();
@@ -148,18 +176,9 @@ public class WorkMgr extends AbstractCoordinator {
           BfConsts.ARG_ANSWER_JSON_PATH,
           testrigBaseDir.resolve(work.getId() + BfConsts.SUFFIX_ANSWER_JSON_FILE).toString());
 
-      client =
-          CommonUtil.createHttpClientBuilder(
-                  _settings.getSslPoolDisable(),
-                  _settings.getSslPoolTrustAllCerts(),
-                  _settings.getSslPoolKeystoreFile(),
-                  _settings.getSslPoolKeystorePassword(),
-                  _settings.getSslPoolTruststoreFile(),
-                  _settings.getSslPoolTruststorePassword())
-              .build();
       String protocol = _settings.getSslPoolDisable() ? "http" : "https";
       WebTarget webTarget =
-          client
+          getClient()
               .target(
                   String.format(
                       "%s://%s%s/%s",
@@ -177,6 +196,7 @@ public class WorkMgr extends AbstractCoordinator {
 
       if (response.getStatus() != Response.Status.OK.getStatusCode()) {
         _logger.error("WM:AssignWork: Got non-OK response " + response.getStatus() + "\n");
+        response.close();
       } else {
         String sobj = response.readEntity(String.class);
         JSONArray array = new JSONArray(sobj);
@@ -185,7 +205,12 @@ public class WorkMgr extends AbstractCoordinator {
                 "WM:AssignWork: response: %s [%s] [%s]\n",
                 array.toString(), array.get(0), array.get(1)));
 
-        if (!array.get(0).equals(BfConsts.SVC_SUCCESS_KEY)) {
+        if (array.get(0).equals(BfConsts.SVC_BUSY_KEY)) {
+          // the worker lacks capacity right now, so the work waits for another assignment
+          _logger.info(
+              String.format("WM:AssignWork: %s refused work: %s\n", worker, array.get(1)));
+          refused = true;
+        } else if (!array.get(0).equals(BfConsts.SVC_SUCCESS_KEY)) {
           _logger.error(
               String.format("ERROR in assigning task: %s %s\n", array.get(0), array.get(1)));
 
@@ -200,22 +225,25 @@ public class WorkMgr extends AbstractCoordinator {
     } catch (Exception e) {
       String stackTrace = ExceptionUtils.getFullStackTrace(e);
       _logger.error(String.format("Exception assigning work: %s\n", stackTrace));
-    } finally {
-      if (client != null) {
-        client.close();
-      }
     }
 
     // mark the assignment results for both work and worker
     if (assignmentError) {
       _workQueueMgr.markAssignmentError(work);
     } else if (assigned) {
+      long endTime = System.currentTimeMillis();
+      _dispatchLatency.record(endTime - startTime);
+      _queueWait.record(endTime - work.getDateCreated().getTime());
       _workQueueMgr.markAssignmentSuccess(work, worker);
     } else {
       _workQueueMgr.markAssignmentFailure(work);
     }
 
-    Main.getPoolMgr().markAssignmentResult(worker, assigned);
+    if (refused) {
+      Main.getPoolMgr().markAssignmentRefused(worker);
+    } else {
+      Main.getPoolMgr().markAssignmentResult(worker, assigned);
+    }
   }
 
   private void checkTask() {
@@ -243,20 +271,10 @@ public class WorkMgr extends AbstractCoordinator {
     Task task = new Task();
     task.setStatus(TaskStatus.UnreachableOrBadResponse);
 
-    Client client = null;
     try {
-      client =
-          CommonUtil.createHttpClientBuilder(
-              _settings.getSslPoolDisable(),
-              _settings.getSslPoolTrustAllCerts(),
-              _settings.getSslPoolKeystoreFile(),
-              _settings.getSslPoolKeystorePassword(),
-              _settings.getSslPoolTruststoreFile(),
-              _settings.getSslPoolTruststorePassword())
-              .build();
       String protocol = _settings.getSslPoolDisable() ? "http" : "https";
       WebTarget webTarget =
-          client
+          getClient()
               .target(
                   String.format(
                       "%s://%s%s/%s",
@@ -269,6 +287,7 @@ public class WorkMgr extends AbstractCoordinator {
 
       if (response.getStatus() != Response.Status.OK.getStatusCode()) {
         _logger.error("WM:CheckTask: Got non-OK response " + response.getStatus() + "\n");
+        response.close();
       } else {
         String sobj = response.readEntity(String.class);
         JSONArray array = new JSONArray(sobj);
@@ -295,10 +314,6 @@ public class WorkMgr extends AbstractCoordinator {
     } catch (Exception e) {
       String stackTrace = ExceptionUtils.getFullStackTrace(e);
       _logger.error(String.format("exception: %s\n", stackTrace));
-    } finally {
-      if (client != null) {
-        client.close();
-      }
     }
 
     _workQueueMgr.processTaskCheckResult(work, task);
@@ -524,6 +539,25 @@ public class WorkMgr extends AbstractCoordinator {
     return answer;
   }
 
+  /*
+   * Returns the client shared by all requests to workers. Reusing it keeps its SSL context, so
+   * connections to workers are kept alive and reused instead of being set up for every request.
+   */
+  private synchronized Client getClient() {
+    if (_client == null) {
+      _client =
+          CommonUtil.createHttpClientBuilder(
+                  _settings.getSslPoolDisable(),
+                  _settings.getSslPoolTrustAllCerts(),
+                  _settings.getSslPoolKeystoreFile(),
+                  _settings.getSslPoolKeystorePassword(),
+                  _settings.getSslPoolTruststoreFile(),
+                  _settings.getSslPoolTruststorePassword())
+              .build();
+    }
+    return _client;
+  }
+
   /**
    * Returns a string representation of the content of configuration file {@code configName}.
    *
@@ -669,7 +703,10 @@ public class WorkMgr extends AbstractCoordinator {
   }
 
   public JSONObject getStatusJson() throws JSONException {
-    return _workQueueMgr.getStatusJson();
+    JSONObject jObject = _workQueueMgr.getStatusJson();
+    jObject.put("queue-wait", _queueWait.toJson());
+    jObject.put("dispatch-latency", _dispatchLatency.toJson());
+    return jObject;
   }
 
   public String getTestrigInfo(String containerName, String testrigName) {
@@ -919,17 +956,9 @@ public class WorkMgr extends AbstractCoordinator {
     } catch (Exception e) {
       throw new BatfishException("Failed to queue work", e);
     }
-    // as an optimization trigger AssignWork to see if we can schedule this
-    // (or another) work
+    // try to schedule this (or another) work right away rather than on the next tick
     if (success) {
-      Thread thread =
-          new Thread() {
-            @Override
-            public void run() {
-              assignWork();
-            }
-          };
-      thread.start();
+      triggerAssignWork();
     }
     return success;
   }
@@ -970,6 +999,20 @@ public class WorkMgr extends AbstractCoordinator {
     return _testrigSyncers.get(pluginId).updateSettings(containerName, settings);
   }
 
+  /**
+   * Requests a round of assignments of unassigned work to idle workers, unless one is already
+   * pending. Called periodically, whenever work is queued, and whenever a worker becomes idle.
+   */
+  public void triggerAssignWork() {
+    if (_assignmentPending.compareAndSet(false, true)) {
+      _assignmentScheduler.execute(
+          () -> {
+            _assignmentPending.set(false);
+            assignWork();
+          });
+    }
+  }
+
   /**
    * Upload a new environment to an existing testrig.
    *
@@ -1,5 +1,7 @@
 package org.batfish.coordinator;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
 import javax.annotation.Nullable;
 import org.apache.commons.lang.exception.ExceptionUtils;
@@ -9,13 +11,15 @@ import org.batfish.common.BfConsts.TaskStatus;
 import org.batfish.common.CoordConsts.WorkStatusCode;
 import org.batfish.common.Task;
 import org.batfish.coordinator.queues.AzureQueue;
+import org.batfish.coordinator.queues.JournaledQueue;
 import org.batfish.coordinator.queues.MemoryQueue;
 import org.batfish.coordinator.queues.WorkQueue;
 import org.codehaus.jettison.json.JSONException;
 import org.codehaus.jettison.json.JSONObject;
 
-// the design of this WorkQueueMgr is such that all synchronization sits here
-// individual queues do not need to be synchronized
+// the design of this WorkQueueMgr is such that all changes to the queues are synchronized here.
+// individual queues need not synchronize changes, but must support lookups and iteration that
+// run concurrently with them, so that status queries never wait for dispatch
 
 public class WorkQueueMgr {
 
@@ -42,6 +46,14 @@ public class WorkQueueMgr {
           new AzureQueue(Main.getSettings().getQueueCompletedWork(), storageConnectionString);
       _queueIncompleteWork =
           new AzureQueue(Main.getSettings().getQueueIncompleteWork(), storageConnectionString);
+    } else if (Main.getSettings().getQueueType() == WorkQueue.Type.journaled) {
+      // completed work is not recovered after a restart; its results are stored with the testrig
+      _queueCompletedWork = new MemoryQueue();
+      _queueIncompleteWork =
+          new JournaledQueue(
+              Main.getSettings()
+                  .getQueueJournalDir()
+                  .resolve(Main.getSettings().getQueueIncompleteWork() + ".journal"));
     } else if (Main.getSettings().getQueueType() == WorkQueue.Type.memory) {
       _queueCompletedWork = new MemoryQueue();
       _queueIncompleteWork = new MemoryQueue();
@@ -51,7 +63,7 @@ public class WorkQueueMgr {
     }
   }
 
-  public synchronized long getLength(QueueType qType) {
+  public long getLength(QueueType qType) {
     switch (qType) {
       case COMPLETED:
         return _queueCompletedWork.getLength();
@@ -62,7 +74,7 @@ public class WorkQueueMgr {
     }
   }
 
-  public synchronized JSONObject getStatusJson() throws JSONException {
+  public JSONObject getStatusJson() throws JSONException {
 
     JSONObject jObject = new JSONObject();
 
@@ -79,7 +91,7 @@ public class WorkQueueMgr {
     return jObject;
   }
 
-  public synchronized QueuedWork getWork(UUID workId) {
+  public QueuedWork getWork(UUID workId) {
     QueuedWork work = getWork(workId, QueueType.INCOMPLETE);
     if (work == null) {
       work = getWork(workId, QueueType.COMPLETED);
@@ -88,7 +100,7 @@ public class WorkQueueMgr {
   }
 
   @Nullable
-  private synchronized QueuedWork getWork(UUID workId, QueueType qType) {
+  private QueuedWork getWork(UUID workId, QueueType qType) {
     switch (qType) {
       case COMPLETED:
         return _queueCompletedWork.getWork(workId);
@@ -99,21 +111,41 @@ public class WorkQueueMgr {
     }
   }
 
+  /**
+   * Picks the next work to assign, so that containers share workers fairly: among unassigned works,
+   * those whose container has the fewest works in flight come first, and older works come first
+   * among those.
+   */
   @Nullable
   public synchronized QueuedWork getWorkForAssignment() {
 
+    Map<String, Integer> inFlight = new HashMap<>();
+    for (QueuedWork work : _queueIncompleteWork) {
+      if (work.getStatus() != WorkStatusCode.UNASSIGNED) {
+        inFlight.merge(work.getWorkItem().getContainerName(), 1, Integer::sum);
+      }
+    }
+
+    QueuedWork next = null;
+    int nextInFlight = Integer.MAX_VALUE;
     for (QueuedWork work : _queueIncompleteWork) {
       if (work.getStatus() == WorkStatusCode.UNASSIGNED) {
-        work.setStatus(WorkStatusCode.TRYINGTOASSIGN);
-        return work;
+        int containerInFlight = inFlight.getOrDefault(work.getWorkItem().getContainerName(), 0);
+        if (containerInFlight < nextInFlight) {
+          next = work;
+          nextInFlight = containerInFlight;
+        }
       }
     }
 
-    return null;
+    if (next != null) {
+      next.setStatus(WorkStatusCode.TRYINGTOASSIGN);
+    }
+    return next;
   }
 
   @Nullable
-  public QueuedWork getWorkForChecking() {
+  public synchronized QueuedWork getWorkForChecking() {
     for (QueuedWork work : _queueIncompleteWork) {
       if (work.getStatus() == WorkStatusCode.ASSIGNED) {
         work.setStatus(WorkStatusCode.CHECKINGSTATUS);
@@ -129,15 +161,7 @@ public class WorkQueueMgr {
 
   // when assignment attempt ends in error, we do not try to reassign
   public synchronized void markAssignmentError(QueuedWork work) {
-    // move the work to completed queue
-    _queueIncompleteWork.delete(work);
-    try {
-      _queueCompletedWork.enque(work);
-    } catch (Exception e) {
-      String stackTrace = ExceptionUtils.getFullStackTrace(e);
-      _logger.error(
-          "Could not put work on completed queue. Work = " + work + "\nException = " + stackTrace);
-    }
+    moveToCompleted(work);
     work.setStatus(WorkStatusCode.ASSIGNMENTERROR);
   }
 
@@ -149,6 +173,18 @@ public class WorkQueueMgr {
     work.setAssignment(assignedWorker);
   }
 
+  private void moveToCompleted(QueuedWork work) {
+    // the work goes on the completed queue first, so that lookups always find it in one of them
+    try {
+      _queueCompletedWork.enque(work);
+    } catch (Exception e) {
+      String stackTrace = ExceptionUtils.getFullStackTrace(e);
+      _logger.error(
+          "Could not put work on completed queue. Work = " + work + "\nException = " + stackTrace);
+    }
+    _queueIncompleteWork.delete(work);
+  }
+
   public synchronized void processTaskCheckResult(QueuedWork work, Task task) {
 
     // {Unscheduled, InProgress, TerminatedNormally, TerminatedAbnormally,
@@ -162,18 +198,7 @@ public class WorkQueueMgr {
         break;
       case TerminatedNormally:
       case TerminatedAbnormally:
-        // move the work to completed queue
-        _queueIncompleteWork.delete(work);
-        try {
-          _queueCompletedWork.enque(work);
-        } catch (Exception e) {
-          String stackTrace = ExceptionUtils.getFullStackTrace(e);
-          _logger.error(
-              "Could not put work on completed queue. Work = "
-                  + work
-                  + "\nException = "
-                  + stackTrace);
-        }
+        moveToCompleted(work);
         work.setStatus(
             (task.getStatus() == TaskStatus.TerminatedNormally)
                 ? WorkStatusCode.TERMINATEDNORMALLY
@@ -2,6 +2,7 @@ package org.batfish.coordinator;
 
 import java.util.Date;
 
+/** An immutable snapshot of the status of a worker, replaced wholesale when the status changes. */
 public class WorkerStatus {
 
   public enum StatusCode {
@@ -12,8 +13,8 @@ public class WorkerStatus {
     UNREACHABLE
   }
 
-  private Date _lastUpdated;
-  private StatusCode _statusCode;
+  private final Date _lastUpdated;
+  private final StatusCode _statusCode;
 
   public WorkerStatus(StatusCode statusCode) {
     _statusCode = statusCode;
@@ -32,9 +33,4 @@ public class WorkerStatus {
   public String toString() {
     return String.format("%s (%s)", _statusCode, _lastUpdated);
   }
-
-  public void updateStatus(StatusCode statusCode) {
-    _statusCode = statusCode;
-    _lastUpdated = new Date();
-  }
 }
@@ -35,6 +35,7 @@ public class Settings extends BaseSettings {
   private static final String ARG_QUESTION_TEMPLATE_DIRS = "templatedirs";
   private static final String ARG_QUEUE_COMPLETED_WORK = "qcompletedwork";
   private static final String ARG_QUEUE_INCOMPLETE_WORK = "qincompletework";
+  private static final String ARG_QUEUE_JOURNAL_DIR = "qjournaldir";
   private static final String ARG_QUEUE_TYPE = "qtype";
 
   private static final String ARG_SERVICE_POOL_PORT = "poolport";
@@ -62,6 +63,8 @@ public class Settings extends BaseSettings {
 
   private static final String ARG_WORK_BIND_HOST = "workbindhost";
 
+  private static final String ARG_WORKER_STATUS_TIMEOUT_MS = "workerstatustimeoutms";
+
   private static final String ARGNAME_PATHS = "path..";
 
   private static final String EXECUTABLE_NAME = "coordinator";
@@ -84,6 +87,7 @@ public class Settings extends BaseSettings {
   private String _poolBindHost;
   private List<Path> _questionTemplateDirs;
   private String _queueCompletedWork;
+  private Path _queueJournalDir;
   private WorkQueue.Type _queueType;
   private String _queuIncompleteWork;
   private int _servicePoolPort;
@@ -105,6 +109,7 @@ public class Settings extends BaseSettings {
   private String _storageAccountName;
   private String _storageProtocol;
   private String _workBindHost;
+  private int _workerStatusTimeoutMs;
 
   public Settings(String[] args) throws Exception {
     super(
@@ -191,6 +196,10 @@ public class Settings extends BaseSettings {
     return _queuIncompleteWork;
   }
 
+  public Path getQueueJournalDir() {
+    return _queueJournalDir;
+  }
+
   public WorkQueue.Type getQueueType() {
     return _queueType;
   }
@@ -275,6 +284,10 @@ public class Settings extends BaseSettings {
     return _workBindHost;
   }
 
+  public int getWorkerStatusTimeoutMs() {
+    return _workerStatusTimeoutMs;
+  }
+
   private void initConfigDefaults() {
     setDefaultProperty(ARG_AUTHORIZER_TYPE, Authorizer.Type.none.toString());
     setDefaultProperty(ARG_ALLOW_DEFAULT_KEY_LISTINGS, false);
@@ -298,10 +311,12 @@ public class Settings extends BaseSettings {
     setDefaultProperty(ARG_QUESTION_TEMPLATE_DIRS, Collections.<String>emptyList());
     setDefaultProperty(ARG_QUEUE_COMPLETED_WORK, "batfishcompletedwork");
     setDefaultProperty(ARG_QUEUE_INCOMPLETE_WORK, "batfishincompletework");
+    setDefaultProperty(ARG_QUEUE_JOURNAL_DIR, "queues");
     setDefaultProperty(ARG_QUEUE_TYPE, WorkQueue.Type.memory.toString());
     setDefaultProperty(ARG_POOL_BIND_HOST, "0.0.0.0");
     setDefaultProperty(ARG_SERVICE_POOL_PORT, CoordConsts.SVC_CFG_POOL_PORT);
     setDefaultProperty(ARG_WORK_BIND_HOST, "0.0.0.0");
+    setDefaultProperty(ARG_WORKER_STATUS_TIMEOUT_MS, 5000);
     setDefaultProperty(ARG_SERVICE_WORK_PORT, CoordConsts.SVC_CFG_WORK_PORT);
     setDefaultProperty(ARG_SERVICE_WORK_V2_PORT, CoordConsts.SVC_CFG_WORK_V2_PORT);
     setDefaultProperty(ARG_SSL_POOL_DISABLE, CoordConsts.SVC_CFG_POOL_SSL_DISABLE);
@@ -354,6 +369,11 @@ public class Settings extends BaseSettings {
         "period with which to check worker status (ms)",
         "period_worker_status_refresh_ms");
 
+    addOption(
+        ARG_WORKER_STATUS_TIMEOUT_MS,
+        "connect and read timeout when checking worker status (ms)",
+        "worker_status_timeout_ms");
+
     addOption(
         ARG_PERIOD_ASSIGN_WORK_MS,
         "period with which to assign work (ms)",
@@ -367,7 +387,10 @@ public class Settings extends BaseSettings {
     addListOption(
         ARG_QUESTION_TEMPLATE_DIRS, "paths to question template directories", ARGNAME_PATHS);
 
-    addOption(ARG_QUEUE_TYPE, "queue type to use {azure, memory}", "qtype");
+    addOption(ARG_QUEUE_TYPE, "queue type to use {azure, journaled, memory}", "qtype");
+
+    addOption(
+        ARG_QUEUE_JOURNAL_DIR, "where journaled queues keep their journals", "queue_journal_dir");
 
     addOption(
         ARG_POOL_BIND_HOST,
@@ -418,6 +441,7 @@ public class Settings extends BaseSettings {
     _questionTemplateDirs = getPathListOptionValue(ARG_QUESTION_TEMPLATE_DIRS);
     _queuIncompleteWork = getStringOptionValue(ARG_QUEUE_INCOMPLETE_WORK);
     _queueCompletedWork = getStringOptionValue(ARG_QUEUE_COMPLETED_WORK);
+    _queueJournalDir = getPathOptionValue(ARG_QUEUE_JOURNAL_DIR);
     _queueType = WorkQueue.Type.valueOf(getStringOptionValue(ARG_QUEUE_TYPE));
     _poolBindHost = getStringOptionValue(ARG_POOL_BIND_HOST);
     _servicePoolPort = getIntegerOptionValue(ARG_SERVICE_POOL_PORT);
@@ -441,6 +465,7 @@ public class Settings extends BaseSettings {
     _storageProtocol = getStringOptionValue(ARG_STORAGE_PROTOCOL);
     _containersLocation = getPathOptionValue(ARG_CONTAINERS_LOCATION);
     _periodWorkerStatusRefreshMs = getLongOptionValue(ARG_PERIOD_WORKER_STATUS_REFRESH_MS);
+    _workerStatusTimeoutMs = getIntegerOptionValue(ARG_WORKER_STATUS_TIMEOUT_MS);
     _periodAssignWorkMs = getLongOptionValue(ARG_PERIOD_ASSIGN_WORK_MS);
     _periodCheckWorkMs = getLongOptionValue(ARG_PERIOD_CHECK_WORK_MS);
     _logFile = getStringOptionValue(ARG_LOG_FILE);
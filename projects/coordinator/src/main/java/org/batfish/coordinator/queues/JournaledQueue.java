@@ -0,0 +1,136 @@
+package org.batfish.coordinator.queues;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.batfish.common.BatfishException;
+import org.batfish.common.WorkItem;
+import org.batfish.coordinator.QueuedWork;
+import org.codehaus.jettison.json.JSONException;
+
+/**
+ * A {@link MemoryQueue} that records every change in an append-only journal file, so that the
+ * queued works survive a restart of the coordinator.
+ *
+ * <p>Each journal line either adds a work item ({@code +<work item json>}) or removes one ({@code
+ * -<work id>}). On startup the journal is replayed, the works still queued are restored as
+ * unassigned, and the journal is rewritten to contain just those works.
+ */
+public class JournaledQueue extends MemoryQueue {
+
+  private static final char ADD = '+';
+
+  private static final char DELETE = '-';
+
+  private final Path _journal;
+
+  private BufferedWriter _writer;
+
+  public JournaledQueue(Path journal) {
+    _journal = journal;
+    try {
+      Map<UUID, WorkItem> recovered = replay();
+      for (WorkItem workItem : recovered.values()) {
+        super.enque(new QueuedWork(workItem));
+      }
+      compact(recovered);
+      _writer =
+          Files.newBufferedWriter(
+              _journal,
+              StandardCharsets.UTF_8,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.APPEND);
+    } catch (Exception e) {
+      throw new BatfishException("Could not recover work queue from journal " + _journal, e);
+    }
+  }
+
+  private synchronized void append(char op, String entry) throws IOException {
+    _writer.write(op);
+    _writer.write(entry);
+    _writer.newLine();
+    _writer.flush();
+  }
+
+  /** Atomically replaces the journal with one that only adds {@code workItems}. */
+  private void compact(Map<UUID, WorkItem> workItems) throws IOException {
+    Path parent = _journal.toAbsolutePath().getParent();
+    Files.createDirectories(parent);
+    Path tmp = Files.createTempFile(parent, _journal.getFileName().toString(), ".tmp");
+    try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+      for (WorkItem workItem : workItems.values()) {
+        writer.write(ADD);
+        writer.write(workItem.toJsonString());
+        writer.newLine();
+      }
+    }
+    Files.move(tmp, _journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  @Override
+  public boolean delete(QueuedWork qWork) {
+    boolean deleted = super.delete(qWork);
+    if (deleted) {
+      try {
+        append(DELETE, qWork.getId().toString());
+      } catch (IOException e) {
+        throw new BatfishException("Could not journal removal of work " + qWork.getId(), e);
+      }
+    }
+    return deleted;
+  }
+
+  @Override
+  public boolean enque(QueuedWork work) throws Exception {
+    if (getWork(work.getId()) != null) {
+      return false;
+    }
+    // journal first, so that work the caller was told about is never lost
+    append(ADD, work.getWorkItem().toJsonString());
+    return super.enque(work);
+  }
+
+  /** Returns the work items added and not removed by the journal, in the order they were added. */
+  private Map<UUID, WorkItem> replay() throws IOException, JSONException {
+    Map<UUID, WorkItem> workItems = new LinkedHashMap<>();
+    if (!Files.exists(_journal)) {
+      return workItems;
+    }
+    List<String> lines = Files.readAllLines(_journal, StandardCharsets.UTF_8);
+    for (int i = 0; i < lines.size(); i++) {
+      String line = lines.get(i);
+      if (line.isEmpty()) {
+        continue;
+      }
+      String entry = line.substring(1);
+      try {
+        switch (line.charAt(0)) {
+          case ADD:
+            WorkItem workItem = WorkItem.fromJsonString(entry);
+            workItems.put(workItem.getId(), workItem);
+            break;
+          case DELETE:
+            workItems.remove(UUID.fromString(entry));
+            break;
+          default:
+            throw new BatfishException("Unknown journal operation: " + line.charAt(0));
+        }
+      } catch (JSONException | IllegalArgumentException e) {
+        // a crash can leave the last line incomplete
+        if (i == lines.size() - 1) {
+          break;
+        }
+        throw e;
+      }
+    }
+    return workItems;
+  }
+}
@@ -1,51 +1,81 @@
 package org.batfish.coordinator.queues;
 
-import java.util.LinkedList;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nullable;
 import org.batfish.coordinator.QueuedWork;
 
-// we don't synchronize on this queue
-// all synchronization is in inside WorkQueueMgr
+/**
+ * An in-memory queue indexed by work ID. Lookups by ID take constant time, and iteration visits
+ * works in the order they were queued.
+ *
+ * <p>Changes to the queue are serialized by {@link org.batfish.coordinator.WorkQueueMgr}, but
+ * lookups and iteration are safe without any locking, so status queries do not wait for dispatch.
+ * Iterators are weakly consistent.
+ */
+public class MemoryQueue implements WorkQueue {
 
-public class MemoryQueue extends LinkedList<QueuedWork> implements WorkQueue {
+  private final AtomicLong _nextPosition;
 
-  private static final long serialVersionUID = -6556862067531610584L;
+  private final Map<UUID, Long> _positions;
+
+  private final ConcurrentSkipListMap<Long, QueuedWork> _works;
+
+  public MemoryQueue() {
+    _positions = new ConcurrentHashMap<>();
+    _nextPosition = new AtomicLong();
+    _works = new ConcurrentSkipListMap<>();
+  }
 
   @Override
   public boolean delete(QueuedWork qWork) {
-    return remove(qWork);
+    Long position = _positions.remove(qWork.getId());
+    if (position == null) {
+      return false;
+    }
+    _works.remove(position);
+    return true;
   }
 
   @Nullable
   @Override
   public QueuedWork deque() {
-    if (size() == 0) {
+    Map.Entry<Long, QueuedWork> first = _works.firstEntry();
+    if (first == null) {
       return null;
     }
-
-    return pop();
+    delete(first.getValue());
+    return first.getValue();
   }
 
   @Override
-  public boolean enque(QueuedWork work) {
-    return add(work);
+  public boolean enque(QueuedWork work) throws Exception {
+    long position = _nextPosition.getAndIncrement();
+    if (_positions.putIfAbsent(work.getId(), position) != null) {
+      return false;
+    }
+    _works.put(position, work);
+    return true;
   }
 
   @Override
   public long getLength() {
-    return size();
+    return _positions.size();
   }
 
   @Nullable
   @Override
   public QueuedWork getWork(UUID workItemId) {
-    for (QueuedWork work : this) {
-      if (work.getWorkItem().getId().equals(workItemId)) {
-        return work;
-      }
-    }
+    Long position = _positions.get(workItemId);
+    return position == null ? null : _works.get(position);
+  }
 
-    return null;
+  @Override
+  public Iterator<QueuedWork> iterator() {
+    return _works.values().iterator();
   }
 }
@@ -7,6 +7,7 @@ public interface WorkQueue extends Iterable<QueuedWork> {
 
   public enum Type {
     azure,
+    journaled,
     memory
   }
 
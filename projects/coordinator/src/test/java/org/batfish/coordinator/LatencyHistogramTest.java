@@ -0,0 +1,36 @@
+package org.batfish.coordinator;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import org.junit.Test;
+
+/** Tests for {@link LatencyHistogram}. */
+public class LatencyHistogramTest {
+
+  @Test
+  public void testBucket() {
+    assertThat(LatencyHistogram.bucket(0L), equalTo(0));
+    assertThat(LatencyHistogram.bucket(1L), equalTo(1));
+    assertThat(LatencyHistogram.bucket(3L), equalTo(2));
+    assertThat(LatencyHistogram.bucket(4L), equalTo(3));
+    assertThat(LatencyHistogram.bucket(Long.MAX_VALUE), equalTo(19));
+  }
+
+  @Test
+  public void testRecord() throws JSONException {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(5L);
+    histogram.record(6L);
+    histogram.record(1000000L);
+
+    assertThat(histogram.getCount(), equalTo(3L));
+    assertThat(histogram.getMax(), equalTo(1000000L));
+    assertThat(histogram.getTotal(), equalTo(1000011L));
+    JSONObject buckets = histogram.toJson().getJSONObject("buckets-ms");
+    assertThat(buckets.getLong("<8"), equalTo(2L));
+    assertThat(buckets.getLong(">=262144"), equalTo(1L));
+  }
+}
@@ -0,0 +1,44 @@
+package org.batfish.coordinator.queues;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.batfish.common.WorkItem;
+import org.batfish.coordinator.QueuedWork;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests for {@link JournaledQueue}. */
+public class JournaledQueueTest {
+
+  @Rule public TemporaryFolder _folder = new TemporaryFolder();
+
+  @Test
+  public void testRecovery() throws Exception {
+    Path journal = _folder.getRoot().toPath().resolve("queue.journal");
+    JournaledQueue queue = new JournaledQueue(journal);
+    QueuedWork work1 = new QueuedWork(new WorkItem("container", "testrig1"));
+    QueuedWork work2 = new QueuedWork(new WorkItem("container", "testrig2"));
+    QueuedWork work3 = new QueuedWork(new WorkItem("container", "testrig3"));
+    queue.enque(work1);
+    queue.enque(work2);
+    queue.enque(work3);
+    queue.delete(work2);
+    // a crash while appending leaves a partial line behind
+    Files.write(journal, "+[\"".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+    JournaledQueue recovered = new JournaledQueue(journal);
+
+    assertThat(recovered.getLength(), equalTo(2L));
+    assertThat(recovered.deque().getId(), equalTo(work1.getId()));
+    assertThat(recovered.getWork(work2.getId()), nullValue());
+    assertThat(
+        recovered.getWork(work3.getId()).getWorkItem().getTestrigName(), equalTo("testrig3"));
+  }
+}